@@ -1,7 +1,6 @@
 package com.ua.pohribnyi.fitadvisorbot.config;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -60,7 +59,8 @@ public class AsyncConfig {
     private String defaultThreadName;
 	
 	/**
-	 * Executor for AI generation tasks (Worker 1: Gemini API calls).
+	 * Executor for AI pipeline hand-offs (queue wake-ups). Gemini calls run on
+	 * AiWorkScheduler, which orders them by priority lane.
 	 * 
 	 * Core pool: 5 threads (handles 5 concurrent API calls) Max pool: 10 threads
 	 * (burst capacity) Queue: 50 (handles spikes without rejection)
@@ -77,15 +77,14 @@ public class AsyncConfig {
 		executor.setThreadNamePrefix(aiThreadName);
 		executor.setKeepAliveSeconds(60);
 
-		// CRITICAL FIX: Custom rejection handler
+		// Gemini calls themselves are queued in AiWorkScheduler lanes; this pool only
+		// runs short hand-offs, so run them in the caller rather than drop them
 		executor.setRejectedExecutionHandler((runnable, threadPoolExecutor) -> {
-			log.error("Thread pool SATURATED! Active={}, Queue={}, Completed={}",
-					threadPoolExecutor.getActiveCount(), 
-					threadPoolExecutor.getQueue().size(),
-					threadPoolExecutor.getCompletedTaskCount());
-
-			throw new RejectedExecutionException(
-					"AI generation thread pool is full. System is overloaded. Please try again later.");
+			log.warn("AI executor saturated (active={}, queue={}), running task in caller",
+					threadPoolExecutor.getActiveCount(), threadPoolExecutor.getQueue().size());
+			if (!threadPoolExecutor.isShutdown()) {
+				runnable.run();
+			}
 		});
 
 		executor.setWaitForTasksToCompleteOnShutdown(true);
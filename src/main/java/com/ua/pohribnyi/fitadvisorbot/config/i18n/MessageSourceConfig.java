@@ -1,5 +1,8 @@
 package com.ua.pohribnyi.fitadvisorbot.config.i18n;
 
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,16 +11,23 @@ import org.springframework.core.io.ResourceLoader;
 @Configuration
 public class MessageSourceConfig {
 
+	@Bean
+	public MessageTemplateRegistry messageTemplateRegistry(ResourceLoader resourceLoader,
+			ApplicationEventPublisher eventPublisher) {
+		return new MessageTemplateRegistry(resourceLoader, eventPublisher,
+				List.of("classpath:messages/messages", "classpath:messages/analytics"), List.of("uk", "en"), "uk");
+	}
+
 	@Bean("yamlMessageSource")
-	public MessageSource yamlMessageSource(ResourceLoader resourceLoader) {
-		YamlMessageSource messageSource = new YamlMessageSource();
-		messageSource.setBasenames("classpath:messages/messages", "classpath:messages/analytics");
-		messageSource.setDefaultEncoding("UTF-8");
+	public MessageSource yamlMessageSource(MessageTemplateRegistry registry) {
+		YamlMessageSource messageSource = new YamlMessageSource(registry);
 		messageSource.setUseCodeAsDefaultMessage(true);
-		messageSource.setFallbackToSystemLocale(false);
-		messageSource.setResourceLoader(resourceLoader);
-		// messageSource.setCacheSeconds(3600); doesn`t works with YML?
 		return messageSource;
 	}
 
+	@Bean
+	public MessagesEndpoint messagesEndpoint(MessageTemplateRegistry registry) {
+		return new MessagesEndpoint(registry);
+	}
+
 }
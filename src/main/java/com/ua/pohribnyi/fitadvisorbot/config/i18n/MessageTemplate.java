@@ -0,0 +1,56 @@
+package com.ua.pohribnyi.fitadvisorbot.config.i18n;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+
+/**
+ * One message text, parsed once when the bundles are loaded.
+ *
+ * Formatting follows {@link org.springframework.context.support.AbstractMessageSource}
+ * with {@code alwaysUseMessageFormat=false}: without arguments the text is
+ * returned as written, with arguments it goes through {@link MessageFormat}.
+ */
+public final class MessageTemplate {
+
+	private final String text;
+	private final MessageFormat format; // null if formatting cannot change the text
+
+	MessageTemplate(String text, Locale locale) {
+		this.text = text;
+		this.format = needsFormat(text) ? compile(text, locale) : null;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return the parsed pattern, or null if the text has no placeholders or
+	 *         quotes. Not thread-safe: synchronize on it while formatting.
+	 */
+	MessageFormat getMessageFormat() {
+		return format;
+	}
+
+	public String format(Object... args) {
+		if (args == null || args.length == 0 || format == null) {
+			return text;
+		}
+		synchronized (format) {
+			return format.format(args);
+		}
+	}
+
+	private static boolean needsFormat(String text) {
+		return text.indexOf('{') >= 0 || text.indexOf('\'') >= 0;
+	}
+
+	private static MessageFormat compile(String text, Locale locale) {
+		try {
+			return new MessageFormat(text, locale);
+		} catch (IllegalArgumentException e) {
+			// Broken pattern: show it as written rather than failing every lookup
+			return null;
+		}
+	}
+}
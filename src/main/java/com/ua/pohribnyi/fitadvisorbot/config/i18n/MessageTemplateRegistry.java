@@ -0,0 +1,123 @@
+package com.ua.pohribnyi.fitadvisorbot.config.i18n;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable, per-language map of parsed {@link MessageTemplate}s, built from
+ * the YAML bundles once at startup.
+ *
+ * The fallback chain is resolved while loading, so every language map already
+ * contains every key: {@code <basename>_<lang>} and {@code <basename>} of each
+ * basename in order, then the same for the default language. Unknown
+ * languages use the default language map.
+ *
+ * Bundles are only re-read on {@link #reload()}; lookups never touch the
+ * files.
+ */
+@Slf4j
+public class MessageTemplateRegistry {
+
+	private final ResourceLoader resourceLoader;
+	private final ApplicationEventPublisher eventPublisher;
+	private final List<String> basenames;
+	private final List<String> languages;
+	private final String defaultLanguage;
+	private final YamlPropertiesLoader yamlLoader = new YamlPropertiesLoader();
+
+	private volatile Map<String, Map<String, MessageTemplate>> templates;
+
+	public MessageTemplateRegistry(ResourceLoader resourceLoader, ApplicationEventPublisher eventPublisher,
+			List<String> basenames, List<String> languages, String defaultLanguage) {
+		this.resourceLoader = resourceLoader;
+		this.eventPublisher = eventPublisher;
+		this.basenames = List.copyOf(basenames);
+		this.languages = List.copyOf(languages);
+		this.defaultLanguage = defaultLanguage;
+		this.templates = load();
+	}
+
+	/**
+	 * @return the template, or null if no bundle of the chain defines the key
+	 */
+	public MessageTemplate find(String key, String language) {
+		Map<String, MessageTemplate> byKey = templates.get(language);
+		if (byKey == null) {
+			byKey = templates.get(defaultLanguage);
+		}
+		return byKey.get(key);
+	}
+
+	/**
+	 * Formats the message; a missing key is returned as is.
+	 */
+	public String getMessage(String key, String language, Object... args) {
+		MessageTemplate template = find(key, language);
+		return template != null ? template.format(args) : key;
+	}
+
+	/**
+	 * Re-reads all bundles and swaps them in at once, then publishes
+	 * {@link MessagesReloadedEvent}. Lookups running meanwhile see the old set.
+	 */
+	public synchronized void reload() {
+		templates = load();
+		eventPublisher.publishEvent(new MessagesReloadedEvent(this));
+	}
+
+	private Map<String, Map<String, MessageTemplate>> load() {
+		Map<String, Properties> files = new HashMap<>();
+		Map<String, Map<String, MessageTemplate>> loaded = new HashMap<>();
+		for (String language : languages) {
+			Locale locale = Locale.of(language);
+			Map<String, MessageTemplate> byKey = new HashMap<>();
+			for (String filename : fallbackChain(language)) {
+				Properties props = files.computeIfAbsent(filename, this::loadFile);
+				for (String key : props.stringPropertyNames()) {
+					byKey.computeIfAbsent(key, k -> new MessageTemplate(props.getProperty(k), locale));
+				}
+			}
+			loaded.put(language, Map.copyOf(byKey));
+		}
+		log.info("Loaded {} message bundles for languages {}", files.size(), languages);
+		return Map.copyOf(loaded);
+	}
+
+	private List<String> fallbackChain(String language) {
+		List<String> chain = new ArrayList<>();
+		for (String basename : basenames) {
+			chain.add(basename + "_" + language);
+			chain.add(basename);
+		}
+		if (!language.equals(defaultLanguage)) {
+			for (String basename : basenames) {
+				chain.add(basename + "_" + defaultLanguage);
+			}
+		}
+		return chain;
+	}
+
+	private Properties loadFile(String filename) {
+		Resource resource = resourceLoader.getResource(filename + ".yml");
+		if (!resource.exists()) {
+			resource = resourceLoader.getResource(filename + ".yaml");
+		}
+		try {
+			return yamlLoader.load(resource);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Failed to load YAML messages from {}: {}", filename, e.getMessage());
+			return new Properties();
+		}
+	}
+}
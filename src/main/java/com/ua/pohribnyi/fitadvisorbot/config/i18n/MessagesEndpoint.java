@@ -0,0 +1,24 @@
+package com.ua.pohribnyi.fitadvisorbot.config.i18n;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Actuator trigger for reloading the message bundles
+ * ({@code POST /actuator/messages}). Not exposed unless listed in
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@Endpoint(id = "messages")
+public class MessagesEndpoint {
+
+	private final MessageTemplateRegistry registry;
+
+	public MessagesEndpoint(MessageTemplateRegistry registry) {
+		this.registry = registry;
+	}
+
+	@WriteOperation
+	public void reload() {
+		registry.reload();
+	}
+}
@@ -0,0 +1,14 @@
+package com.ua.pohribnyi.fitadvisorbot.config.i18n;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by {@link MessageTemplateRegistry} after the message bundles were
+ * reloaded, so caches of rendered texts can drop their entries.
+ */
+public class MessagesReloadedEvent extends ApplicationEvent {
+
+	public MessagesReloadedEvent(Object source) {
+		super(source);
+	}
+}
@@ -1,57 +1,37 @@
 package com.ua.pohribnyi.fitadvisorbot.config.i18n;
 
-import java.util.Properties;
+import java.text.MessageFormat;
+import java.util.Locale;
 
-import org.springframework.context.support.ReloadableResourceBundleMessageSource;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
-import org.springframework.lang.Nullable;
+import org.springframework.context.support.AbstractMessageSource;
 
-import lombok.extern.slf4j.Slf4j;
+/**
+ * Spring {@link org.springframework.context.MessageSource} view of the YAML
+ * bundles, backed by the pre-parsed templates of
+ * {@link MessageTemplateRegistry}. Unlike a reloadable bundle source it never
+ * checks the files on lookup; see {@link MessageTemplateRegistry#reload()}.
+ */
+public class YamlMessageSource extends AbstractMessageSource {
 
-@Slf4j
-public class YamlMessageSource extends ReloadableResourceBundleMessageSource {
+	private final MessageTemplateRegistry registry;
 
-	private final YamlPropertiesLoader yamlLoader = new YamlPropertiesLoader();
-	private ResourceLoader resourceLoader;
+	public YamlMessageSource(MessageTemplateRegistry registry) {
+		this.registry = registry;
+	}
 
 	@Override
-	public void setResourceLoader(ResourceLoader resourceLoader) {
-		this.resourceLoader = resourceLoader;
-		super.setResourceLoader(resourceLoader);
+	protected String resolveCodeWithoutArguments(String code, Locale locale) {
+		MessageTemplate template = registry.find(code, locale.getLanguage());
+		return template != null ? template.getText() : null;
 	}
 
 	@Override
-	protected PropertiesHolder refreshProperties(String filename, @Nullable PropertiesHolder holder) {
-		log.info(">>> refreshProperties CALLED: filename={}, holder={}", filename, holder != null ? "EXISTS" : "NULL");
-	    
-		Resource resource = resourceLoader.getResource(filename + ".yml");
-		if (!resource.exists()) {
-			resource = this.resourceLoader.getResource(filename + ".yaml");
-		}
-		if (!resource.exists()) {
-			return holder != null ? holder : new PropertiesHolder();
-		}
-		try {
-			long fileTimestamp = resource.lastModified();
-			if (holder != null) {
-	            long holderTimestamp = holder.getFileTimestamp();
-	            log.info(">>> TIMESTAMPS: holder={}, file={}, equal={}", 
-	                holderTimestamp, fileTimestamp, holderTimestamp == fileTimestamp);
-	        }
-			if (holder != null && holder.getFileTimestamp() == fileTimestamp) {
-				log.info(">>> RETURNING SAME HOLDER");
-	            return holder;
-			}
-			log.debug("Loading YAML properties from: {}", resource.getDescription());
-			Properties props = yamlLoader.load(resource);
-			PropertiesHolder newHolder = new PropertiesHolder(props, fileTimestamp);
-			log.info(">>> CREATED NEW HOLDER: timestamp={}", newHolder.getFileTimestamp());
-			return newHolder;
-		} catch (Exception ex) {
-			log.warn("Failed to load YAML properties from {}: {}", filename, ex.getMessage());
-			return holder != null ? holder : new PropertiesHolder();
+	protected MessageFormat resolveCode(String code, Locale locale) {
+		MessageTemplate template = registry.find(code, locale.getLanguage());
+		if (template == null) {
+			return null;
 		}
+		MessageFormat format = template.getMessageFormat();
+		return format != null ? format : createMessageFormat(template.getText(), locale);
 	}
-	
-}
\ No newline at end of file
+}
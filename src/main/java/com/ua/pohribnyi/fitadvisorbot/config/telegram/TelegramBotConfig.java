@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
@@ -21,16 +22,54 @@ public class TelegramBotConfig {
 	@Value("${telegram.bot.username}")
 	private String botUsername;
 
+	@Value("${telegram.bot.webhook.enabled:false}")
+	private boolean webhookEnabled;
+
+	@Value("${telegram.bot.webhook.url:}")
+	private String webhookUrl;
+
+	@Value("${telegram.bot.webhook.path:/telegram/webhook}")
+	private String webhookPath;
+
+	@Value("${telegram.bot.webhook.secret-token:}")
+	private String webhookSecretToken;
+
+	@Value("${telegram.bot.webhook.max-connections:40}")
+	private int webhookMaxConnections;
+
+	/**
+	 * Starts update delivery. In webhook mode Telegram pushes updates to
+	 * TelegramWebhookController, so no polling session is started; otherwise the
+	 * bot is registered for long polling.
+	 */
 	@Bean
 	public TelegramBotsApi telegramBotsApi(FitnessAdvisorBotService fitnessAdvisorBot) {
 		try {
 			TelegramBotsApi api = new TelegramBotsApi(DefaultBotSession.class);
-			api.registerBot(fitnessAdvisorBot);
-			log.info("Telegram bot registered successfully: {}", botUsername);
+			if (webhookEnabled) {
+				registerWebhook(fitnessAdvisorBot);
+			} else {
+				api.registerBot(fitnessAdvisorBot);
+				log.info("Telegram bot registered successfully: {}", botUsername);
+			}
 			return api;
 		} catch (TelegramApiException e) {
 			log.error("Failed to register Telegram bot", e);
 			throw new RuntimeException("Failed to register Telegram bot", e);
 		}
 	}
-}
\ No newline at end of file
+
+	private void registerWebhook(FitnessAdvisorBotService bot) throws TelegramApiException {
+		if (webhookUrl.isBlank() || webhookSecretToken.isBlank()) {
+			throw new IllegalStateException(
+					"telegram.bot.webhook.url and telegram.bot.webhook.secret-token are required in webhook mode");
+		}
+		SetWebhook setWebhook = SetWebhook.builder()
+				.url(webhookUrl + webhookPath)
+				.secretToken(webhookSecretToken)
+				.maxConnections(webhookMaxConnections)
+				.build();
+		bot.execute(setWebhook);
+		log.info("Telegram webhook registered for {}: {}", botUsername, webhookUrl + webhookPath);
+	}
+}
@@ -4,13 +4,12 @@ import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContext;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramErrorHandler;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.handler.CallbackQueryHandler;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.handler.CommandHandler;
-import com.ua.pohribnyi.fitadvisorbot.service.user.UserService;
-import com.ua.pohribnyi.fitadvisorbot.service.user.UserSessionService;
+import com.ua.pohribnyi.fitadvisorbot.service.user.DispatchContextLoader;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,8 +22,7 @@ public class TelegramUpdateDispatcher {
 	private static final String PREFIX_ONBOARDING = "onboarding:";
 	private final CommandHandler commandHandler;
 	private final CallbackQueryHandler callbackQueryHandler;
-	private final UserService userService;
-	private final UserSessionService userSessionService;
+	private final DispatchContextLoader dispatchContextLoader;
 	private final TelegramErrorHandler errorHandler;
 
 	private static final String PREFIX_DIARY = "diary:";
@@ -40,15 +38,14 @@ public class TelegramUpdateDispatcher {
 				return;
 			}
 
-			// 2. Find or Create our internal User
-			User user = userService.findOrCreateUser(telegramUser);
-
-			// 3. Get the User's *active* state (with timeout logic)
-			UserState activeState = userSessionService.getActiveState(user);
+			// 2. Find or Create our internal User together with its *active* state
+			// (with timeout logic); profile data is loaded in the same query or lazily
+			DispatchContext context = dispatchContextLoader.load(telegramUser);
+			UserState activeState = context.getState();
 
 			// 4. --- State-Based Routing ---
 			if (isGlobalCommand(update)) {
-				commandHandler.handleGlobalCommand(update.getMessage(), user, bot);
+				commandHandler.handleGlobalCommand(update.getMessage(), context, bot);
 				return;
 			}
 
@@ -59,10 +56,10 @@ public class TelegramUpdateDispatcher {
 			case AWAITING_PROFILE_GOAL:
 				// Onboarding flow is handled by CallbackQueryHandler
 				if (update.hasCallbackQuery()) {
-					callbackQueryHandler.handleOnboardingCallback(update.getCallbackQuery(), user, bot);
+					callbackQueryHandler.handleOnboardingCallback(update.getCallbackQuery(), context, bot);
 				} else {
 					// User is typing text when they should be clicking buttons
-					log.warn("User {} in state {} sent text, ignoring.", user.getId(), activeState);
+					log.warn("User {} in state {} sent text, ignoring.", context.getUser().getId(), activeState);
 					// (Optional: send a message "Please use the buttons")
 				}
 				break;
@@ -73,26 +70,26 @@ public class TelegramUpdateDispatcher {
 			case AWAITING_ACTIVITY_DURATION:
 			case AWAITING_ACTIVITY_INTENSITY:
 				if (update.hasCallbackQuery()) {
-					callbackQueryHandler.handleDiaryCallback(update.getCallbackQuery(), user, bot);
+					callbackQueryHandler.handleDiaryCallback(update.getCallbackQuery(), context, bot);
 				} else {
-					log.debug("User {} sent text during diary flow, ignoring.", user.getId());
+					log.debug("User {} sent text during diary flow, ignoring.", context.getUser().getId());
 				}
 				break;
 			case SETTINGS_EDITING:
 				if (update.hasCallbackQuery()) {
 					String data = update.getCallbackQuery().getData();
 					if (data.startsWith("settings:")) {
-						callbackQueryHandler.handleSettingsCallback(update.getCallbackQuery(), user, bot);
+						callbackQueryHandler.handleSettingsCallback(update.getCallbackQuery(), context, bot);
 					}
 				} else if (update.hasMessage() && update.getMessage().hasText()) {
-					commandHandler.handleDefaultCommand(update.getMessage(), user, bot);
+					commandHandler.handleDefaultCommand(update.getMessage(), context, bot);
 				}
 				break;
 			case DEFAULT:
 			case ONBOARDING_COMPLETED:
 			default:
 				// Normal operation: route to default handlers
-				routeDefaultState(update, user, bot);
+				routeDefaultState(update, context, bot);
 				break;
 			}
 		} catch (Exception e) {
@@ -103,24 +100,24 @@ public class TelegramUpdateDispatcher {
 	/**
 	 * Routes updates when the user is in the DEFAULT state.
 	 */
-	private void routeDefaultState(Update update, User user, FitnessAdvisorBotService bot) {
+	private void routeDefaultState(Update update, DispatchContext context, FitnessAdvisorBotService bot) {
 		if (update.hasMessage() && update.getMessage().hasText()) {
 			// Send ALL text (commands AND menu buttons) to the CommandHandler
-			commandHandler.handleDefaultCommand(update.getMessage(), user, bot);
+			commandHandler.handleDefaultCommand(update.getMessage(), context, bot);
 		} else if (update.hasCallbackQuery()) {
 			String data = update.getCallbackQuery().getData();
 			// Send to the *default* callback handler (e.g., for Strava, Settings)
 			if (data != null) {
 				if (data.startsWith(PREFIX_DIARY)) {
-					callbackQueryHandler.handleDiaryCallback(update.getCallbackQuery(), user, bot);
+					callbackQueryHandler.handleDiaryCallback(update.getCallbackQuery(), context, bot);
 				} else if (data.startsWith(PREFIX_ANALYTICS)) {
-					callbackQueryHandler.handleAnalyticsCallback(update.getCallbackQuery(), user, bot);
+					callbackQueryHandler.handleAnalyticsCallback(update.getCallbackQuery(), context, bot);
 				} else if (data.startsWith(PREFIX_SETTINGS)) {
-					callbackQueryHandler.handleSettingsCallback(update.getCallbackQuery(), user, bot);
+					callbackQueryHandler.handleSettingsCallback(update.getCallbackQuery(), context, bot);
 				} else if (data.startsWith(PREFIX_ONBOARDING)) {
-					callbackQueryHandler.handleOnboardingCallback(update.getCallbackQuery(), user, bot);
+					callbackQueryHandler.handleOnboardingCallback(update.getCallbackQuery(), context, bot);
 				} else {
-					callbackQueryHandler.handleDefaultCallback(update.getCallbackQuery(), user, bot);
+					callbackQueryHandler.handleDefaultCallback(update.getCallbackQuery(), context, bot);
 				}
 			}
 		} else {
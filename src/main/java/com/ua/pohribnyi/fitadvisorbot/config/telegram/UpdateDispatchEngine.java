@@ -0,0 +1,198 @@
+package com.ua.pohribnyi.fitadvisorbot.config.telegram;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramErrorHandler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs {@link TelegramUpdateDispatcher#dispatch} off the receiving thread.
+ *
+ * Updates of the same Telegram user are executed strictly one after another
+ * (a "lane"), different users are processed in parallel on virtual threads.
+ * The total number of accepted-but-not-finished updates is capped, so a burst
+ * applies backpressure to the receiver instead of growing memory unbounded.
+ *
+ * How the cap pushes back depends on the receiver: long polling has already
+ * moved the getUpdates offset past an update, so {@link #submit} waits for a
+ * permit rather than lose it; a webhook request can be refused, and Telegram
+ * redelivers it, so {@link #offer} rejects at once.
+ */
+@Slf4j
+@Component
+public class UpdateDispatchEngine {
+
+	private final TelegramUpdateDispatcher updateDispatcher;
+	private final TelegramErrorHandler errorHandler;
+
+	private final ExecutorService executor = Executors
+			.newThreadPerTaskExecutor(Thread.ofVirtual().name("tg-update-", 0).factory());
+	private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+	private final Semaphore inFlight;
+
+	private final DistributionSummary laneDepth;
+	private final Counter rejected;
+
+	public UpdateDispatchEngine(TelegramUpdateDispatcher updateDispatcher, TelegramErrorHandler errorHandler,
+			MeterRegistry meterRegistry,
+			@Value("${telegram.bot.dispatch.max-in-flight:1000}") int maxInFlight) {
+		this.updateDispatcher = updateDispatcher;
+		this.errorHandler = errorHandler;
+		this.inFlight = new Semaphore(maxInFlight);
+
+		Gauge.builder("telegram.dispatch.lanes.active", lanes, Map::size)
+				.description("Users with queued or running updates")
+				.register(meterRegistry);
+		Gauge.builder("telegram.dispatch.in_flight", inFlight, s -> maxInFlight - s.availablePermits())
+				.description("Accepted updates not yet processed")
+				.register(meterRegistry);
+		this.laneDepth = DistributionSummary.builder("telegram.dispatch.lane.depth")
+				.description("Lane depth observed when an update is enqueued")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("telegram.dispatch.rejected")
+				.description("Updates rejected because the in-flight cap was reached")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Enqueues the update into its user's lane, blocking while the in-flight cap
+	 * is reached. For the long-polling receiver, which cannot get an update back.
+	 *
+	 * @return {@code false} only if interrupted or the engine is shutting down
+	 */
+	public boolean submit(Update update, FitnessAdvisorBotService bot) {
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted while waiting to dispatch update {}", update.getUpdateId());
+			return false;
+		}
+		return enqueue(update, bot);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #submit} for callers that must answer
+	 * immediately and whose sender retries (webhook requests).
+	 *
+	 * @return {@code false} if the in-flight cap is reached
+	 */
+	public boolean offer(Update update, FitnessAdvisorBotService bot) {
+		if (!inFlight.tryAcquire()) {
+			rejected.increment();
+			log.warn("Dispatch saturated, rejecting update {}", update.getUpdateId());
+			return false;
+		}
+		return enqueue(update, bot);
+	}
+
+	/** Requires an in-flight permit, which the lane's drain releases. */
+	private boolean enqueue(Update update, FitnessAdvisorBotService bot) {
+		Long key = laneKey(update);
+		Runnable task = () -> runSafely(update, bot);
+		boolean[] startDrain = new boolean[1];
+
+		lanes.compute(key, (k, lane) -> {
+			Lane target = lane != null ? lane : new Lane();
+			target.tasks.addLast(task);
+			laneDepth.record(target.tasks.size());
+			if (!target.running) {
+				target.running = true;
+				startDrain[0] = true;
+			}
+			return target;
+		});
+
+		if (startDrain[0]) {
+			try {
+				executor.execute(() -> drain(key));
+			} catch (RejectedExecutionException e) {
+				// Engine is shutting down: drop everything queued for this lane
+				Lane dropped = lanes.remove(key);
+				int count = dropped != null ? dropped.tasks.size() : 1;
+				inFlight.release(count);
+				log.warn("Dispatch engine stopped, dropped {} update(s) for lane {}", count, key);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Processes the lane until it is empty. The lane is removed atomically with
+	 * the last poll, so a concurrent submit either lands in this loop or starts a
+	 * fresh drain — never both.
+	 */
+	private void drain(Long key) {
+		while (true) {
+			Runnable[] next = new Runnable[1];
+			lanes.computeIfPresent(key, (k, lane) -> {
+				next[0] = lane.tasks.pollFirst();
+				return next[0] == null ? null : lane;
+			});
+			if (next[0] == null) {
+				return;
+			}
+			try {
+				next[0].run();
+			} finally {
+				inFlight.release();
+			}
+		}
+	}
+
+	private void runSafely(Update update, FitnessAdvisorBotService bot) {
+		try {
+			updateDispatcher.dispatch(update, bot);
+		} catch (Exception e) {
+			errorHandler.handleGlobalError(e, update, bot);
+		}
+	}
+
+	private Long laneKey(Update update) {
+		if (update.hasMessage() && update.getMessage().getFrom() != null) {
+			return update.getMessage().getFrom().getId();
+		} else if (update.hasCallbackQuery()) {
+			return update.getCallbackQuery().getFrom().getId();
+		}
+		// Updates without a user have nothing to be ordered against
+		return -update.getUpdateId().longValue();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+				log.warn("Dispatch engine did not drain in time, {} lane(s) left", lanes.size());
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+		}
+	}
+
+	private static final class Lane {
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+		private boolean running;
+	}
+}
@@ -0,0 +1,77 @@
+package com.ua.pohribnyi.fitadvisorbot.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ua.pohribnyi.fitadvisorbot.config.telegram.UpdateDispatchEngine;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Receives Telegram updates in webhook mode.
+ *
+ * The request thread only validates the secret token, parses the update and
+ * hands it to {@link UpdateDispatchEngine}; all business logic runs after the
+ * response is sent. When the engine is saturated we answer 503 so Telegram
+ * redelivers the update later instead of losing it.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(name = "telegram.bot.webhook.enabled", havingValue = "true")
+public class TelegramWebhookController {
+
+	private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+	private final UpdateDispatchEngine dispatchEngine;
+	private final FitnessAdvisorBotService bot;
+	private final ObjectReader updateReader;
+	private final byte[] secretToken;
+
+	public TelegramWebhookController(UpdateDispatchEngine dispatchEngine, FitnessAdvisorBotService bot,
+			ObjectMapper objectMapper, @Value("${telegram.bot.webhook.secret-token}") String secretToken) {
+		this.dispatchEngine = dispatchEngine;
+		this.bot = bot;
+		// Telegram adds new fields to Update regularly, they must not break parsing
+		this.updateReader = objectMapper.readerFor(Update.class)
+				.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		this.secretToken = secretToken.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@PostMapping("${telegram.bot.webhook.path:/telegram/webhook}")
+	public ResponseEntity<Void> onUpdate(@RequestHeader(name = SECRET_HEADER, required = false) String token,
+			@RequestBody byte[] body) {
+		if (token == null || !MessageDigest.isEqual(secretToken, token.getBytes(StandardCharsets.UTF_8))) {
+			log.warn("Rejected webhook call with invalid secret token");
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+
+		Update update;
+		try {
+			update = updateReader.readValue(body);
+		} catch (IOException e) {
+			// Redelivery will not fix a malformed payload, so acknowledge it
+			log.error("Failed to parse webhook update: {}", e.getMessage());
+			return ResponseEntity.ok().build();
+		}
+
+		if (!dispatchEngine.offer(update, bot)) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+		}
+		return ResponseEntity.ok().build();
+	}
+}
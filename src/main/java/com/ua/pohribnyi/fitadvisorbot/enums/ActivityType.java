@@ -29,9 +29,23 @@ public enum ActivityType {
 		return stravaType;
 	}
 
+	/**
+	 * Accepts our own names as well as the API's activity types ("Run",
+	 * "TrailRun", "Ride", "VirtualRide", ...).
+	 */
 	public static ActivityType fromStravaType(String stravaType) {
+		if (stravaType == null) {
+			return OTHER;
+		}
+		String type = stravaType.toLowerCase();
+		if (type.endsWith("ride")) {
+			return BIKE;
+		}
+		if (type.endsWith("run")) {
+			return RUN;
+		}
 		return Arrays.stream(ActivityType.values())
-				.filter(t -> t.stravaType.equalsIgnoreCase(stravaType))
+				.filter(t -> t.stravaType.equalsIgnoreCase(stravaType) || t.displayName.equalsIgnoreCase(stravaType))
 				.findFirst()
 				.orElse(OTHER);
 	}
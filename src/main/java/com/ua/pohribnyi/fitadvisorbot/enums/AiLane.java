@@ -0,0 +1,28 @@
+package com.ua.pohribnyi.fitadvisorbot.enums;
+
+import java.time.Duration;
+
+/**
+ * Priority lanes for work that calls Gemini. Lanes share the workers in
+ * proportion to their weight; inside a lane the earliest deadline goes first.
+ */
+public enum AiLane {
+	INTERACTIVE(6, Duration.ofSeconds(30)), // User is waiting in chat (daily advice)
+	ONBOARDING(3, Duration.ofMinutes(2)); // New user waits for generated history
+
+	private final int weight;
+	private final Duration defaultDeadline;
+
+	AiLane(int weight, Duration defaultDeadline) {
+		this.weight = weight;
+		this.defaultDeadline = defaultDeadline;
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	public Duration getDefaultDeadline() {
+		return defaultDeadline;
+	}
+}
@@ -0,0 +1,13 @@
+package com.ua.pohribnyi.fitadvisorbot.model.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Row of {@code CheckInFanOutRepository.findDueCandidates}: just enough to
+ * prepare the job and send the first diary question without loading the user.
+ * {@code localDate} is today in the user's timezone, the date of the job;
+ * {@code sessionVersion} the version of the session row that was read.
+ */
+public record CheckInCandidate(Long userId, Long telegramUserId, String languageCode, LocalDate localDate,
+		long sessionVersion) {
+}
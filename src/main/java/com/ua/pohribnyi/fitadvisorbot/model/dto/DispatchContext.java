@@ -0,0 +1,84 @@
+package com.ua.pohribnyi.fitadvisorbot.model.dto;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
+
+/**
+ * Per-update view of the user, passed from the dispatcher to the handlers so
+ * they don't look up the same rows again.
+ *
+ * Profile and Strava flag are either preloaded or fetched lazily with a single
+ * query on first access. Not thread-safe: a context lives within the
+ * processing of one update.
+ */
+public class DispatchContext {
+
+	private final User user;
+	private final UserState state;
+	private Supplier<Optional<DispatchContextRow>> profileLoader;
+
+	private UserProfile profile;
+	private boolean stravaConnected;
+
+	public DispatchContext(User user, UserState state, UserProfile profile, boolean stravaConnected) {
+		this.user = user;
+		this.state = state;
+		this.profile = profile;
+		this.stravaConnected = stravaConnected;
+	}
+
+	public DispatchContext(User user, UserState state, Supplier<Optional<DispatchContextRow>> profileLoader) {
+		this.user = user;
+		this.state = state;
+		this.profileLoader = profileLoader;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	/**
+	 * Active state at the moment the update was dispatched.
+	 */
+	public UserState getState() {
+		return state;
+	}
+
+	public Optional<UserProfile> getProfile() {
+		ensureLoaded();
+		return Optional.ofNullable(profile);
+	}
+
+	public UserProfile getProfileOrThrow() {
+		return getProfile()
+				.orElseThrow(() -> new IllegalStateException("UserProfile not found for user " + user.getId()));
+	}
+
+	public boolean isStravaConnected() {
+		ensureLoaded();
+		return stravaConnected;
+	}
+
+	/**
+	 * Keeps the context in sync after a handler saved the profile.
+	 */
+	public void setProfile(UserProfile profile) {
+		ensureLoaded();
+		this.profile = profile;
+	}
+
+	private void ensureLoaded() {
+		if (profileLoader == null) {
+			return;
+		}
+		profileLoader.get().ifPresent(row -> {
+			this.profile = row.profile();
+			this.stravaConnected = Boolean.TRUE.equals(row.stravaConnected());
+		});
+		profileLoader = null;
+	}
+}
@@ -0,0 +1,13 @@
+package com.ua.pohribnyi.fitadvisorbot.model.dto;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserSession;
+
+/**
+ * Result of {@code UserRepository.findDispatchContext}: everything the
+ * dispatcher and handlers need about a user, fetched in one round trip.
+ * {@code session} and {@code profile} may be null.
+ */
+public record DispatchContextRow(User user, UserSession session, UserProfile profile, Boolean stravaConnected) {
+}
@@ -17,7 +17,7 @@ public record UserDto(
         String lastName,
        @JsonProperty("language_code")
        String languageCode,
-//        String timezone,
+       String timezone,
         @JsonProperty("created_at")
         LocalDateTime createdAt,
         @JsonProperty("updated_at")
@@ -35,6 +35,7 @@ public record UserDto(
 				user.getFirstName(),
                 user.getLastName(),
                 user.getLanguageCode(),
+                user.getTimezone(),
 				user.getCreatedAt(), 
 				user.getUpdatedAt());
 	}
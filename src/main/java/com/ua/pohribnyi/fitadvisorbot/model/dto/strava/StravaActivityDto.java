@@ -1,5 +1,6 @@
 package com.ua.pohribnyi.fitadvisorbot.model.dto.strava;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -9,6 +10,7 @@ public record StravaActivityDto(
 		String name, 
 		String type,
 		@JsonProperty("start_date_local") LocalDateTime startDateLocal,
+		@JsonProperty("start_date") Instant startDate,
 		@JsonProperty("utc_start_time") LocalDateTime utcStartTime, 
 		Double distance,
 		@JsonProperty("moving_time") Integer movingTime,
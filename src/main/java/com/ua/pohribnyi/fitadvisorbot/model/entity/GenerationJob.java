@@ -13,6 +13,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -21,7 +22,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "generation_jobs")
+@Table(name = "generation_jobs", indexes = {
+		@Index(name = "idx_generation_jobs_status_created", columnList = "status, created_at"),
+		@Index(name = "idx_generation_jobs_status_lease", columnList = "status, lease_until"),
+		@Index(name = "idx_generation_jobs_status_completed", columnList = "status, completed_at") })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -67,6 +71,30 @@ public class GenerationJob {
 	@Column(name = "error_code", length = 50)
 	private String errorCode;
 
+	/**
+	 * Prompt sent to Gemini. Persisted with the job so that any worker can pick it
+	 * up after a restart. Cleared once the job reaches a final state.
+	 */
+	@Column(name = "prompt", columnDefinition = "TEXT")
+	private String prompt;
+
+	/**
+	 * How many times a worker has claimed this job in its current stage. Bounds
+	 * re-delivery of jobs whose worker died mid-flight.
+	 */
+	@Column(name = "attempts", nullable = false, columnDefinition = "integer default 0")
+	private int attempts;
+
+	/**
+	 * Worker currently holding the job and until when. An expired lease means the
+	 * worker is gone and the job may be claimed again.
+	 */
+	@Column(name = "lease_owner", length = 100)
+	private String leaseOwner;
+
+	@Column(name = "lease_until")
+	private Instant leaseUntil;
+
 	@Column(name = "user_chat_id")
 	private Long userChatId;
 
@@ -83,10 +111,11 @@ public class GenerationJob {
 	 * Factory method to create a new, valid job. This ensures all NOT-NULL
 	 * constraints are met.
 	 */
-	public static GenerationJob createPendingJob(User user, Long userChatId, Integer notificationId) {
+	public static GenerationJob createPendingJob(User user, String prompt, Long userChatId, Integer notificationId) {
 		GenerationJob job = new GenerationJob();
 		job.setUser(user);
 		job.setStatus(JobStatus.PENDING);
+		job.setPrompt(prompt);
 		job.setCreatedAt(Instant.now());
 		job.setUserChatId(userChatId);
 		job.setNotificationMessageId(notificationId);
@@ -100,6 +129,8 @@ public class GenerationJob {
 		this.status = JobStatus.PROCESSED;
 		this.completedAt = Instant.now();
 		this.rawResponse = null; // Free up disk space
+		this.prompt = null;
+		releaseLease();
 	}
 
 	/**
@@ -116,6 +147,8 @@ public class GenerationJob {
 		this.errorMessage = truncate(errorMessage, 250);
 		this.errorDetails = truncate(errorDetails, 10000); // Limit to 10KB
 		this.rawResponse = null;
+		this.prompt = null;
+		releaseLease();
 	}
 
 	/**
@@ -128,10 +161,39 @@ public class GenerationJob {
 	public void stageResponse(String rawResponse) {
 		this.status = JobStatus.DOWNLOADED;
 		this.rawResponse = rawResponse;
+		this.attempts = 0; // Processing is a new stage with its own attempts
+		releaseLease();
+	}
+
+	/**
+	 * Puts the job back into the queue as a fresh job, e.g. when the user presses
+	 * "Retry".
+	 */
+	public void requeue(String prompt) {
+		this.status = JobStatus.PENDING;
+		this.prompt = prompt;
+		this.attempts = 0;
+		this.errorCode = null;
+		this.errorMessage = null;
+		this.errorDetails = null;
+		this.completedAt = null;
+		releaseLease();
+	}
+
+	/**
+	 * @return true if the job is in the given state and still leased by the owner
+	 */
+	public boolean isLeasedBy(String owner, JobStatus expectedStatus) {
+		return status == expectedStatus && owner != null && owner.equals(leaseOwner);
 	}
 
 	public boolean isProcessable() {
-		return status == JobStatus.DOWNLOADED && rawResponse != null;
+		return status == JobStatus.PROCESSING && rawResponse != null;
+	}
+
+	private void releaseLease() {
+		this.leaseOwner = null;
+		this.leaseUntil = null;
 	}
 
 	private static String truncate(String text, int maxLength) {
@@ -0,0 +1,34 @@
+package com.ua.pohribnyi.fitadvisorbot.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Named, time-limited lease on a scheduled task, so only one instance of the
+ * bot runs it at a time.
+ *
+ * Rows are only acquired, renewed and released by {@code SchedulerLeaseService}
+ * through atomic upserts, never through JPA.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+public class SchedulerLease {
+
+	@Id
+	@Column(name = "name", length = 100)
+	private String name;
+
+	@Column(name = "owner", nullable = false)
+	private String owner;
+
+	@Column(name = "lease_until", nullable = false)
+	private Instant leaseUntil;
+}
@@ -0,0 +1,89 @@
+package com.ua.pohribnyi.fitadvisorbot.model.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per user per day aggregate of {@link Activity} and {@link DailyMetric} rows.
+ *
+ * Derived data: rows are recomputed from the raw tables by
+ * {@code UserDailyRollupRepository} whenever a day is written, never edited
+ * through JPA.
+ */
+@Entity
+@Table(name = "user_daily_rollups", uniqueConstraints = {
+		@UniqueConstraint(columnNames = { "user_id", "rollup_date" }) })
+@Data
+@NoArgsConstructor
+public class UserDailyRollup {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "user_id", nullable = false)
+	private User user;
+
+	@Column(name = "rollup_date", nullable = false)
+	private LocalDate date;
+
+	// --- Activities of the day ---
+	@Column(name = "activity_count", nullable = false)
+	private int activityCount;
+
+	@Column(name = "duration_seconds", nullable = false)
+	private long durationSeconds;
+
+	@Column(name = "activity_minutes", nullable = false)
+	private int activityMinutes; // Sum of whole minutes per activity
+
+	@Column(name = "distance_meters", nullable = false)
+	private long distanceMeters;
+
+	@Column(name = "calories", nullable = false)
+	private int calories;
+
+	@Column(name = "hr_sum", nullable = false)
+	private long hrSum; // Sum of avg pulse over activities with pulse
+
+	@Column(name = "hr_count", nullable = false)
+	private int hrCount;
+
+	@Column(name = "run_count", nullable = false)
+	private int runCount;
+
+	@Column(name = "run_distance_meters", nullable = false)
+	private long runDistanceMeters;
+
+	// --- Daily metric of the day ---
+	@Column(name = "has_metric", nullable = false)
+	private boolean hasMetric;
+
+	@Column(name = "sleep_hours")
+	private Double sleepHours;
+
+	@Column(name = "steps")
+	private Integer steps;
+
+	@Column(name = "stress_level")
+	private Integer stressLevel; // 1-5
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.ua.pohribnyi.fitadvisorbot.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per user counter bumped by every write of the user's
+ * {@link UserDailyRollup} rows; the data version that keys cached reports.
+ *
+ * Rows are only bumped by {@code UserDailyRollupRepository} through atomic
+ * upserts at the start of a rollup write, never through JPA. The bump locks
+ * the row until the write commits, so concurrent writes of one user commit in
+ * version order and a version is never read before its rollups.
+ */
+@Entity
+@Table(name = "user_rollup_versions")
+@Data
+@NoArgsConstructor
+public class UserRollupVersion {
+
+	@Id
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Column(name = "version", nullable = false)
+	private long version;
+}
@@ -0,0 +1,35 @@
+package com.ua.pohribnyi.fitadvisorbot.model.entity.strava;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * High-water mark of the incremental Strava activity sync, one row per
+ * connected user: the start time (epoch seconds, UTC) of the newest activity
+ * already stored. The next sync asks Strava only for activities after it.
+ *
+ * Written by {@code StravaActivitySyncRepository} in the same transaction as
+ * the activities it covers, never through JPA.
+ */
+@Entity
+@Table(name = "strava_sync_cursors")
+@Data
+@NoArgsConstructor
+public class StravaSyncCursor {
+
+	@Id
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Column(name = "activities_after", nullable = false)
+	private long activitiesAfter;
+
+	@Column(name = "synced_at", nullable = false)
+	private Instant syncedAt;
+}
@@ -1,6 +1,8 @@
 package com.ua.pohribnyi.fitadvisorbot.model.entity.user;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -27,6 +29,8 @@ import lombok.NoArgsConstructor;
 @Data
 public class User {
 
+	public static final String DEFAULT_TIMEZONE = "Europe/Kyiv";
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
@@ -45,14 +49,15 @@ public class User {
 
 	@Column(name = "language_code")
 	private String languageCode;
+
+	// IANA zone id; decides when the morning check-in arrives and which day a diary belongs to
+	@Builder.Default
+	@Column(name = "timezone", length = 64)
+	private String timezone = DEFAULT_TIMEZONE;
 	
 	/*
 	 * @Column(name = "is_active") private Boolean isActive = true;
 	 * 
-	 * 
-	 * 
-	 * @Column(name = "timezone") private String timezone = "UTC";
-	 * 
 	 * @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch =
 	 * FetchType.LAZY) private List<UserPreference> preferences;
 	 * 
@@ -68,4 +73,19 @@ public class User {
 	@Column(name = "updated_at")
 	private LocalDateTime updatedAt;
 
+	/**
+	 * @return the user's zone; {@link #DEFAULT_TIMEZONE} for rows created before
+	 *         the column existed or holding an unknown id
+	 */
+	public ZoneId zoneId() {
+		if (timezone != null) {
+			try {
+				return ZoneId.of(timezone);
+			} catch (DateTimeException e) {
+				// fall through to the default
+			}
+		}
+		return ZoneId.of(DEFAULT_TIMEZONE);
+	}
+
 }
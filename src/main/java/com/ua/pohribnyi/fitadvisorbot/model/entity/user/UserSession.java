@@ -43,4 +43,11 @@ public class UserSession {
 	@Column(name = "state_updated_at", nullable = false)
 	private Instant stateUpdatedAt;
 
+	/**
+	 * Bumped by every state write of {@code SessionStateStore}, which only
+	 * writes over the version its state was based on.
+	 */
+	@Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+	private long version;
+
 }
\ No newline at end of file
@@ -1,11 +1,108 @@
 package com.ua.pohribnyi.fitadvisorbot.repository.ai;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.GenerationJob;
 
 @Repository
 public interface GenerationJobRepository extends JpaRepository<GenerationJob, Long> {
 
+	/**
+	 * Locks up to {@code limit} jobs that are ready for the given stage: either
+	 * waiting in {@code readyStatus}, or stuck in {@code leasedStatus} with an
+	 * expired lease. Rows locked by another worker are skipped, so concurrent
+	 * workers never claim the same job. Must run inside a transaction.
+	 */
+	@Query(value = """
+			SELECT id FROM generation_jobs
+			WHERE attempts < :maxAttempts
+			  AND (status = :readyStatus OR (status = :leasedStatus AND lease_until < :now))
+			ORDER BY created_at
+			LIMIT :limit
+			FOR UPDATE SKIP LOCKED
+			""", nativeQuery = true)
+	List<Long> lockClaimable(@Param("readyStatus") String readyStatus, @Param("leasedStatus") String leasedStatus,
+			@Param("now") Instant now, @Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+	/**
+	 * Hands the locked jobs to a worker until {@code leaseUntil}.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("""
+			UPDATE GenerationJob j
+			SET j.status = :status, j.leaseOwner = :owner, j.leaseUntil = :leaseUntil, j.attempts = j.attempts + 1
+			WHERE j.id IN :ids
+			""")
+	int lease(@Param("ids") Collection<Long> ids, @Param("status") JobStatus status, @Param("owner") String owner,
+			@Param("leaseUntil") Instant leaseUntil);
+
+	/**
+	 * Returns a claimed job to the queue without counting the attempt, e.g. when
+	 * the local executor rejected it.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("""
+			UPDATE GenerationJob j
+			SET j.status = :status, j.leaseOwner = null, j.leaseUntil = null, j.attempts = j.attempts - 1
+			WHERE j.id = :id AND j.leaseOwner = :owner
+			""")
+	int release(@Param("id") Long id, @Param("status") JobStatus status, @Param("owner") String owner);
+
+	/**
+	 * Fails every job in one of {@code statuses} that was created before
+	 * {@code cutoff} or whose lease expired with no attempts left, in a single
+	 * statement on the status indexes. Must run inside a transaction.
+	 *
+	 * @return IDs of the failed jobs
+	 */
+	@Query(value = """
+			UPDATE generation_jobs
+			SET status = 'FAILED',
+			    completed_at = :now,
+			    error_code = :errorCode,
+			    error_message = :errorMessage,
+			    error_details = 'Job stuck in ' || status || ' state. Created at: ' || created_at
+			        || ', Attempts: ' || attempts
+			        || '. Possible causes: queue saturation, API timeout, worker crashing on this job',
+			    raw_response = NULL,
+			    prompt = NULL,
+			    lease_owner = NULL,
+			    lease_until = NULL
+			WHERE status IN (:statuses)
+			  AND (created_at < :cutoff OR (lease_until < :now AND attempts >= :maxAttempts))
+			RETURNING id
+			""", nativeQuery = true)
+	List<Long> failStalled(@Param("statuses") Collection<String> statuses, @Param("cutoff") Instant cutoff,
+			@Param("now") Instant now, @Param("maxAttempts") int maxAttempts, @Param("errorCode") String errorCode,
+			@Param("errorMessage") String errorMessage);
+
+	/**
+	 * Deletes up to {@code limit} jobs in one of {@code statuses} completed
+	 * before {@code cutoff}. Each call is its own short transaction, so large
+	 * clean-ups do not hold locks for long.
+	 *
+	 * @return number of deleted jobs
+	 */
+	@Transactional
+	@Modifying
+	@Query(value = """
+			DELETE FROM generation_jobs
+			WHERE id IN (
+			    SELECT id FROM generation_jobs
+			    WHERE status IN (:statuses) AND completed_at < :cutoff
+			    LIMIT :limit)
+			""", nativeQuery = true)
+	int deleteCompletedBefore(@Param("statuses") Collection<String> statuses, @Param("cutoff") Instant cutoff,
+			@Param("limit") int limit);
+
 }
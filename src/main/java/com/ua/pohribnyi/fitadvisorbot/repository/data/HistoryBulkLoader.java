@@ -0,0 +1,131 @@
+package com.ua.pohribnyi.fitadvisorbot.repository.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bulk insert path for {@code activities} and {@code daily_metrics}.
+ *
+ * Rows are written with multi-row {@code INSERT ... VALUES} statements through
+ * JDBC, bypassing Hibernate's persistence context and per-entity dirty
+ * tracking. Participates in the surrounding transaction. The given entities
+ * are only read: they do not get IDs and are not attached to the session.
+ *
+ * IDs come from the same sequences Hibernate uses, with the same pooled
+ * layout: one {@code nextval} returning {@code v} reserves the block
+ * {@code v - increment + 1 .. v}, so bulk rows and Hibernate never share an
+ * ID. Blocks for a whole statement are fetched in one round trip, which burns
+ * one sequence value per {@code increment} rows instead of one per row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HistoryBulkLoader {
+
+	/** Keeps bind parameters per statement far below PostgreSQL's 32767 limit. */
+	private static final int ROWS_PER_STATEMENT = 500;
+
+	private static final String METRICS_SEQUENCE = "daily_metrics_id_seq";
+	private static final String METRICS_INSERT = "INSERT INTO daily_metrics "
+			+ "(id, user_id, metric_date, sleep_hours, daily_base_steps, stress_level, is_synthetic) VALUES ";
+	private static final String METRICS_ROW = "(?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String ACTIVITIES_SEQUENCE = "activities_id_seq";
+	private static final String ACTIVITIES_INSERT = "INSERT INTO activities "
+			+ "(id, user_id, activity_datetime, type, duration_seconds, distance_meters, avg_pulse, max_pulse, "
+			+ "min_pulse, calories, activity_steps, is_synthetic) VALUES ";
+	private static final String ACTIVITIES_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String INCREMENT_SQL = "SELECT increment_by FROM pg_sequences "
+			+ "WHERE schemaname = current_schema() AND sequencename = ?";
+	private static final String NEXTVALS_SQL = "SELECT nextval(CAST(? AS regclass)) FROM generate_series(1, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Map<String, Long> increments = new ConcurrentHashMap<>();
+
+	/**
+	 * @return number of inserted rows
+	 */
+	public int insertMetrics(List<DailyMetric> metrics) {
+		return insert(METRICS_SEQUENCE, METRICS_INSERT, METRICS_ROW, 7, metrics, (metric, args) -> {
+			args.add(metric.getUser().getId());
+			args.add(metric.getDate());
+			args.add(metric.getSleepHours());
+			args.add(metric.getDailyBaseSteps());
+			args.add(metric.getStressLevel());
+			args.add(metric.isSynthetic());
+		});
+	}
+
+	/**
+	 * @return number of inserted rows
+	 */
+	public int insertActivities(List<Activity> activities) {
+		return insert(ACTIVITIES_SEQUENCE, ACTIVITIES_INSERT, ACTIVITIES_ROW, 12, activities, (activity, args) -> {
+			args.add(activity.getUser().getId());
+			args.add(activity.getDateTime());
+			args.add(activity.getType());
+			args.add(activity.getDurationSeconds());
+			args.add(activity.getDistanceMeters());
+			args.add(activity.getAvgPulse());
+			args.add(activity.getMaxPulse());
+			args.add(activity.getMinPulse());
+			args.add(activity.getCaloriesBurned());
+			args.add(activity.getActivitySteps());
+			args.add(activity.isSynthetic());
+		});
+	}
+
+	private <T> int insert(String sequence, String insert, String row, int columns, List<T> rows,
+			BiConsumer<T, List<Object>> binder) {
+		int inserted = 0;
+		for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+			List<T> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+			long[] ids = allocateIds(sequence, chunk.size());
+			String sql = insert + String.join(", ", Collections.nCopies(chunk.size(), row));
+			List<Object> args = new ArrayList<>(chunk.size() * columns);
+			for (int i = 0; i < chunk.size(); i++) {
+				args.add(ids[i]);
+				binder.accept(chunk.get(i), args);
+			}
+			inserted += jdbcTemplate.update(sql, args.toArray());
+		}
+		return inserted;
+	}
+
+	/**
+	 * Reserves {@code count} IDs as whole pooled blocks. A block that would
+	 * start below 1 (the first value of a fresh sequence) is cut at 1, like
+	 * Hibernate does, and the loop simply asks for more.
+	 */
+	long[] allocateIds(String sequence, int count) {
+		long increment = increments.computeIfAbsent(sequence, this::incrementOf);
+		long[] ids = new long[count];
+		int n = 0;
+		while (n < count) {
+			long blocks = (count - n + increment - 1) / increment;
+			for (Long hi : jdbcTemplate.queryForList(NEXTVALS_SQL, Long.class, sequence, blocks)) {
+				for (long id = Math.max(1, hi - increment + 1); id <= hi && n < count; id++) {
+					ids[n++] = id;
+				}
+			}
+		}
+		return ids;
+	}
+
+	private long incrementOf(String sequence) {
+		Long increment = jdbcTemplate.queryForObject(INCREMENT_SQL, Long.class, sequence);
+		return increment != null && increment > 0 ? increment : 1;
+	}
+}
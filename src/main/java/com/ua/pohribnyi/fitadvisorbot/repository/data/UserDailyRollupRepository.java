@@ -0,0 +1,114 @@
+package com.ua.pohribnyi.fitadvisorbot.repository.data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.UserDailyRollup;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+
+public interface UserDailyRollupRepository extends JpaRepository<UserDailyRollup, Long> {
+
+	String ROLLUP_COLUMNS = "(user_id, rollup_date, activity_count, duration_seconds, activity_minutes, "
+			+ "distance_meters, calories, hr_sum, hr_count, run_count, run_distance_meters, has_metric, "
+			+ "sleep_hours, steps, stress_level, updated_at) ";
+
+	String ROLLUP_AGGREGATES = "SUM(d.activity_count), SUM(d.duration_seconds), SUM(d.activity_minutes), "
+			+ "SUM(d.distance_meters), SUM(d.calories), SUM(d.hr_sum), SUM(d.hr_count), SUM(d.run_count), "
+			+ "SUM(d.run_distance_meters), BOOL_OR(d.has_metric), MAX(d.sleep_hours), MAX(d.steps), "
+			+ "MAX(d.stress_level), now() ";
+
+	/** One row per activity, shaped like a rollup. */
+	String ACTIVITY_ROWS = "SELECT a.user_id, CAST(a.activity_datetime AS DATE) AS rollup_date, "
+			+ "1 AS activity_count, "
+			+ "COALESCE(a.duration_seconds, 0) AS duration_seconds, "
+			+ "COALESCE(a.duration_seconds, 0) / 60 AS activity_minutes, "
+			+ "COALESCE(a.distance_meters, 0) AS distance_meters, COALESCE(a.calories, 0) AS calories, "
+			+ "CASE WHEN a.avg_pulse > 0 THEN a.avg_pulse ELSE 0 END AS hr_sum, "
+			+ "CASE WHEN a.avg_pulse > 0 THEN 1 ELSE 0 END AS hr_count, "
+			+ "CASE WHEN LOWER(a.type) = 'run' THEN 1 ELSE 0 END AS run_count, "
+			+ "CASE WHEN LOWER(a.type) = 'run' THEN COALESCE(a.distance_meters, 0) ELSE 0 END AS run_distance_meters, "
+			+ "FALSE AS has_metric, CAST(NULL AS DOUBLE PRECISION) AS sleep_hours, CAST(NULL AS INTEGER) AS steps, "
+			+ "CAST(NULL AS INTEGER) AS stress_level FROM activities a ";
+
+	/** One row per daily metric, shaped like a rollup. */
+	String METRIC_ROWS = "SELECT m.user_id, m.metric_date, 0, 0, 0, 0, 0, 0, 0, 0, 0, TRUE, m.sleep_hours, "
+			+ "m.daily_base_steps, m.stress_level FROM daily_metrics m ";
+
+	String UPSERT = "ON CONFLICT (user_id, rollup_date) DO UPDATE SET activity_count = EXCLUDED.activity_count, "
+			+ "duration_seconds = EXCLUDED.duration_seconds, activity_minutes = EXCLUDED.activity_minutes, "
+			+ "distance_meters = EXCLUDED.distance_meters, calories = EXCLUDED.calories, hr_sum = EXCLUDED.hr_sum, "
+			+ "hr_count = EXCLUDED.hr_count, run_count = EXCLUDED.run_count, "
+			+ "run_distance_meters = EXCLUDED.run_distance_meters, has_metric = EXCLUDED.has_metric, "
+			+ "sleep_hours = EXCLUDED.sleep_hours, steps = EXCLUDED.steps, stress_level = EXCLUDED.stress_level, "
+			+ "updated_at = EXCLUDED.updated_at";
+
+	/**
+	 * Version of the user's rollups (see {@code UserRollupVersion}); 0 before
+	 * the first write.
+	 */
+	@Query(value = "SELECT COALESCE(MAX(version), 0) FROM user_rollup_versions WHERE user_id = :userId",
+			nativeQuery = true)
+	long findDataVersion(@Param("userId") Long userId);
+
+	/**
+	 * Bumps the user's rollup version. Call first in the transaction that
+	 * writes the rollups: the row lock orders concurrent writers of the user.
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO user_rollup_versions (user_id, version) VALUES (:userId, 1) "
+			+ "ON CONFLICT (user_id) DO UPDATE SET version = user_rollup_versions.version + 1", nativeQuery = true)
+	int bumpVersion(@Param("userId") Long userId);
+
+	/**
+	 * {@link #bumpVersion} for every user of {@code (afterUserId, toUserId]}.
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO user_rollup_versions (user_id, version) "
+			+ "SELECT id, 1 FROM users WHERE id > :afterUserId AND id <= :toUserId ORDER BY id "
+			+ "ON CONFLICT (user_id) DO UPDATE SET version = user_rollup_versions.version + 1", nativeQuery = true)
+	int bumpVersions(@Param("afterUserId") long afterUserId, @Param("toUserId") long toUserId);
+
+	/**
+	 * Fetches daily rollups for report generation.
+	 */
+	@Query("SELECT r FROM UserDailyRollup r WHERE r.user = :user AND r.date >= :since ORDER BY r.date ASC")
+	List<UserDailyRollup> findRollupsByUserAndDateAfter(@Param("user") User user, @Param("since") LocalDate since);
+
+	@Modifying
+	@Query(value = "DELETE FROM user_daily_rollups WHERE user_id = :userId AND rollup_date BETWEEN :from AND :to",
+			nativeQuery = true)
+	int deleteRange(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	/**
+	 * Recomputes the rollups of [from, to] for one user from the raw rows. Days
+	 * without any raw row get no rollup, so call {@link #deleteRange} first.
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO user_daily_rollups " + ROLLUP_COLUMNS + "SELECT d.user_id, d.rollup_date, "
+			+ ROLLUP_AGGREGATES + "FROM (" + ACTIVITY_ROWS
+			+ "WHERE a.user_id = :userId AND a.activity_datetime >= :fromTime AND a.activity_datetime < :untilTime "
+			+ "UNION ALL " + METRIC_ROWS + "WHERE m.user_id = :userId AND m.metric_date BETWEEN :from AND :to"
+			+ ") d GROUP BY d.user_id, d.rollup_date " + UPSERT, nativeQuery = true)
+	int rebuildRange(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to,
+			@Param("fromTime") LocalDateTime fromTime, @Param("untilTime") LocalDateTime untilTime);
+
+	/**
+	 * Builds the rollup of every (user, day) of users {@code (afterUserId,
+	 * toUserId]} that has raw rows but no rollup yet, e.g. history written
+	 * before the table existed or days whose refresh was missed. Existing
+	 * rollups are left alone.
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO user_daily_rollups " + ROLLUP_COLUMNS + "SELECT d.user_id, d.rollup_date, "
+			+ ROLLUP_AGGREGATES + "FROM (" + ACTIVITY_ROWS + "WHERE a.user_id > :afterUserId AND a.user_id <= :toUserId "
+			+ "UNION ALL " + METRIC_ROWS + "WHERE m.user_id > :afterUserId AND m.user_id <= :toUserId) d "
+			+ "WHERE NOT EXISTS (SELECT 1 FROM user_daily_rollups r WHERE r.user_id = d.user_id "
+			+ "AND r.rollup_date = d.rollup_date) GROUP BY d.user_id, d.rollup_date ON CONFLICT (user_id, rollup_date) DO NOTHING", nativeQuery = true)
+	int backfillMissingDays(@Param("afterUserId") long afterUserId, @Param("toUserId") long toUserId);
+}
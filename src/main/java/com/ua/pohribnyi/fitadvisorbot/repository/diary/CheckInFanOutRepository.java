@@ -0,0 +1,111 @@
+package com.ua.pohribnyi.fitadvisorbot.repository.diary;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ua.pohribnyi.fitadvisorbot.model.dto.CheckInCandidate;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC queries behind the morning check-in fan-out.
+ *
+ * Candidates are users whose local time (from {@code users.timezone}) is inside
+ * the check-in window. Zone ids PostgreSQL does not know fall back to
+ * {@link User#DEFAULT_TIMEZONE} instead of failing the whole page. Each user's window opens at its own offset of up to
+ * {@code jitter} seconds after the start, which spreads a timezone's users over
+ * the window instead of sending to all of them in the same minute.
+ *
+ * Candidates are read in keyset pages ({@code users.id > ?}) and never loaded
+ * as entities. A run can be split into shards by user id
+ * ({@code users.id % shards}) so several instances share one fan-out. Jobs are created with multi-row inserts that skip users who
+ * already have a job for their local date; the job rows double as the
+ * checkpoint of a run, because candidates with a job are not selected again.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CheckInFanOutRepository {
+
+	/** Keeps bind parameters per statement far below PostgreSQL's 32767 limit. */
+	private static final int ROWS_PER_STATEMENT = 500;
+
+	// Idle (or timed out) sessions of users that finished onboarding, inside their local window
+	private static final String CANDIDATES_SQL = "WITH zones AS MATERIALIZED (SELECT name FROM pg_timezone_names) "
+			+ "SELECT u.id, u.telegram_user_id, u.language_code, l.local_now::date, s.version "
+			+ "FROM users u "
+			+ "LEFT JOIN zones z ON z.name = u.timezone "
+			+ "CROSS JOIN LATERAL (SELECT now() AT TIME ZONE COALESCE(z.name, '" + User.DEFAULT_TIMEZONE
+			+ "') AS local_now) l "
+			+ "JOIN user_sessions s ON s.user_id = u.id "
+			+ "WHERE u.id > ? AND u.id % ? = ? "
+			+ "AND extract(epoch FROM l.local_now::time) >= ? + u.id % ? "
+			+ "AND extract(epoch FROM l.local_now::time) < ? "
+			+ "AND (s.user_state IN ('DEFAULT', 'ONBOARDING_COMPLETED') OR s.state_updated_at < ?) "
+			+ "AND EXISTS (SELECT 1 FROM user_profiles p WHERE p.user_id = u.id) "
+			+ "AND NOT EXISTS (SELECT 1 FROM daily_advice_jobs j WHERE j.user_id = u.id AND j.job_date = l.local_now::date) "
+			+ "ORDER BY u.id LIMIT ?";
+
+	private static final String JOBS_INSERT = "INSERT INTO daily_advice_jobs "
+			+ "(user_id, job_date, status, created_at, updated_at) VALUES ";
+	private static final String JOBS_ROW = "(?, ?, 'FILLING', ?, ?)";
+	private static final String JOBS_CONFLICT = " ON CONFLICT (user_id, job_date) DO NOTHING RETURNING user_id";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * @param afterUserId    last user id of the previous page, 0 for the first
+	 * @param shard          which of {@code shards} slices of users to read
+	 * @param windowStart    local time the window opens
+	 * @param jitter         spread of the per-user opening after
+	 *                       {@code windowStart}
+	 * @param windowEnd      local time after which the day is skipped; capped
+	 *                       at midnight
+	 * @param stateExpiredAt sessions updated before this count as idle
+	 */
+	public List<CheckInCandidate> findDueCandidates(long afterUserId, int shard, int shards, LocalTime windowStart,
+			Duration jitter, LocalTime windowEnd, Instant stateExpiredAt, int limit) {
+		long endSeconds = windowEnd.isAfter(windowStart) ? windowEnd.toSecondOfDay() : Duration.ofDays(1).toSeconds();
+		return jdbcTemplate.query(CANDIDATES_SQL,
+				(rs, i) -> new CheckInCandidate(rs.getLong(1), rs.getLong(2), rs.getString(3),
+						rs.getObject(4, LocalDate.class), rs.getLong(5)),
+				afterUserId, shards, shard, windowStart.toSecondOfDay(), Math.max(1, jitter.toSeconds()), endSeconds,
+				OffsetDateTime.ofInstant(stateExpiredAt, ZoneOffset.UTC), limit);
+	}
+
+	/**
+	 * Creates a {@code FILLING} job for each candidate that has none for its
+	 * local date.
+	 *
+	 * @return ids of the users a job was created for
+	 */
+	public List<Long> createJobs(List<CheckInCandidate> candidates) {
+		List<Long> created = new ArrayList<>(candidates.size());
+		LocalDateTime now = LocalDateTime.now();
+		for (int from = 0; from < candidates.size(); from += ROWS_PER_STATEMENT) {
+			List<CheckInCandidate> chunk = candidates.subList(from,
+					Math.min(from + ROWS_PER_STATEMENT, candidates.size()));
+			String sql = JOBS_INSERT + String.join(", ", Collections.nCopies(chunk.size(), JOBS_ROW)) + JOBS_CONFLICT;
+			List<Object> args = new ArrayList<>(chunk.size() * 4);
+			for (CheckInCandidate candidate : chunk) {
+				args.add(candidate.userId());
+				args.add(candidate.localDate());
+				args.add(now);
+				args.add(now);
+			}
+			created.addAll(jdbcTemplate.queryForList(sql, Long.class, args.toArray()));
+		}
+		return created;
+	}
+}
@@ -0,0 +1,145 @@
+package com.ua.pohribnyi.fitadvisorbot.repository.strava;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.ActivityType;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaActivityDto;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC write path of the incremental Strava sync.
+ *
+ * Activities are upserted with multi-row
+ * {@code INSERT ... ON CONFLICT (strava_activity_id) DO UPDATE}, so a page
+ * costs one statement no matter how many of its activities are new, and a
+ * page fetched twice simply overwrites the same rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StravaActivitySyncRepository {
+
+	/** Keeps bind parameters per statement far below PostgreSQL's 32767 limit. */
+	private static final int ROWS_PER_STATEMENT = 500;
+
+	private static final String ACTIVITIES_INSERT = "INSERT INTO strava_activities "
+			+ "(user_id, strava_activity_id, name, activity_type, start_date_local, distance, moving_time, "
+			+ "elapsed_time, total_elevation_gain, elev_high, elev_low, average_speed, max_speed, "
+			+ "average_heartrate, max_heartrate, has_heartrate, average_cadence, average_watts, calories, "
+			+ "description, device_name, commute, manual, private, flagged, kilojoules, last_synced_at, "
+			+ "created_at, updated_at) VALUES ";
+	private static final String ACTIVITIES_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, "
+			+ "?, ?, ?, ?, ?, ?, ?)";
+	private static final int ACTIVITIES_COLUMNS = 29;
+	private static final String ACTIVITIES_CONFLICT = " ON CONFLICT (strava_activity_id) DO UPDATE SET "
+			+ "name = EXCLUDED.name, activity_type = EXCLUDED.activity_type, "
+			+ "start_date_local = EXCLUDED.start_date_local, distance = EXCLUDED.distance, "
+			+ "moving_time = EXCLUDED.moving_time, elapsed_time = EXCLUDED.elapsed_time, "
+			+ "total_elevation_gain = EXCLUDED.total_elevation_gain, elev_high = EXCLUDED.elev_high, "
+			+ "elev_low = EXCLUDED.elev_low, average_speed = EXCLUDED.average_speed, "
+			+ "max_speed = EXCLUDED.max_speed, average_heartrate = EXCLUDED.average_heartrate, "
+			+ "max_heartrate = EXCLUDED.max_heartrate, has_heartrate = EXCLUDED.has_heartrate, "
+			+ "average_cadence = EXCLUDED.average_cadence, average_watts = EXCLUDED.average_watts, "
+			+ "calories = EXCLUDED.calories, description = EXCLUDED.description, "
+			+ "device_name = EXCLUDED.device_name, commute = EXCLUDED.commute, manual = EXCLUDED.manual, "
+			+ "private = EXCLUDED.private, flagged = EXCLUDED.flagged, kilojoules = EXCLUDED.kilojoules, "
+			+ "last_synced_at = EXCLUDED.last_synced_at, updated_at = EXCLUDED.updated_at";
+
+	private static final String CURSOR_SQL = "SELECT activities_after FROM strava_sync_cursors WHERE user_id = ?";
+	// Never moves back, even if an older page is written late
+	private static final String CURSOR_UPSERT = "INSERT INTO strava_sync_cursors (user_id, activities_after, synced_at) "
+			+ "VALUES (?, ?, ?) ON CONFLICT (user_id) DO UPDATE SET "
+			+ "activities_after = GREATEST(strava_sync_cursors.activities_after, EXCLUDED.activities_after), "
+			+ "synced_at = EXCLUDED.synced_at";
+	private static final String CURSOR_DELETE = "DELETE FROM strava_sync_cursors WHERE user_id = ?";
+
+	private static final String DUE_USERS_SQL = "SELECT t.user_id FROM strava_tokens t "
+			+ "LEFT JOIN strava_sync_cursors c ON c.user_id = t.user_id "
+			+ "WHERE t.user_id > ? AND (c.synced_at IS NULL OR c.synced_at < ?) "
+			+ "ORDER BY t.user_id LIMIT ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * @return number of inserted or updated rows
+	 */
+	public int upsertActivities(Long userId, List<StravaActivityDto> activities) {
+		int written = 0;
+		LocalDateTime now = LocalDateTime.now();
+		for (int from = 0; from < activities.size(); from += ROWS_PER_STATEMENT) {
+			List<StravaActivityDto> chunk = activities.subList(from,
+					Math.min(from + ROWS_PER_STATEMENT, activities.size()));
+			String sql = ACTIVITIES_INSERT + String.join(", ", Collections.nCopies(chunk.size(), ACTIVITIES_ROW))
+					+ ACTIVITIES_CONFLICT;
+			List<Object> args = new ArrayList<>(chunk.size() * ACTIVITIES_COLUMNS);
+			for (StravaActivityDto activity : chunk) {
+				args.add(userId);
+				args.add(activity.id());
+				args.add(activity.name() != null ? activity.name() : "");
+				args.add(ActivityType.fromStravaType(activity.type()).name());
+				args.add(activity.startDateLocal());
+				args.add(activity.distance());
+				args.add(activity.movingTime());
+				args.add(activity.elapsedTime());
+				args.add(activity.elevationGain());
+				args.add(activity.elevHigh());
+				args.add(activity.elevLow());
+				args.add(activity.averageSpeed());
+				args.add(activity.maxSpeed());
+				args.add(activity.averageHeartrate());
+				args.add(activity.maxHeartrate());
+				args.add(activity.averageHeartrate() != null);
+				args.add(activity.averageCadence());
+				args.add(activity.averageWatts());
+				args.add(activity.calories());
+				args.add(activity.description());
+				args.add(activity.deviceName());
+				args.add(activity.commute());
+				args.add(activity.manual());
+				args.add(activity.private_());
+				args.add(activity.flagged());
+				args.add(activity.kilojoules() != null ? activity.kilojoules().floatValue() : null);
+				args.add(now);
+				args.add(now);
+				args.add(now);
+			}
+			written += jdbcTemplate.update(sql, args.toArray());
+		}
+		return written;
+	}
+
+	/**
+	 * @return the sync high-water mark in epoch seconds, empty if the user was
+	 *         never synced
+	 */
+	public Optional<Long> findCursor(Long userId) {
+		return jdbcTemplate.queryForList(CURSOR_SQL, Long.class, userId).stream().findFirst();
+	}
+
+	public void saveCursor(Long userId, long activitiesAfter) {
+		jdbcTemplate.update(CURSOR_UPSERT, userId, activitiesAfter, OffsetDateTime.now(ZoneOffset.UTC));
+	}
+
+	public void deleteCursor(Long userId) {
+		jdbcTemplate.update(CURSOR_DELETE, userId);
+	}
+
+	/**
+	 * Keyset page of users with a Strava token that were never synced or not
+	 * since {@code syncedBefore}.
+	 */
+	public List<Long> findUserIdsDueForSync(long afterUserId, Instant syncedBefore, int limit) {
+		return jdbcTemplate.queryForList(DUE_USERS_SQL, Long.class, afterUserId,
+				OffsetDateTime.ofInstant(syncedBefore, ZoneOffset.UTC), limit);
+	}
+}
@@ -1,10 +1,16 @@
 package com.ua.pohribnyi.fitadvisorbot.repository.user;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContextRow;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 
 @Repository
@@ -12,5 +18,44 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 	Optional<User> findByTelegramUserId(Long telegramUserId);
 	
+	/**
+	 * Loads user, session, profile and the Strava-connected flag in one query.
+	 */
+	@Query("""
+			SELECT new com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContextRow(u, s, p,
+				CASE WHEN EXISTS (SELECT t.id FROM StravaToken t WHERE t.user = u) THEN true ELSE false END)
+			FROM User u
+			LEFT JOIN UserSession s ON s.user = u
+			LEFT JOIN UserProfile p ON p.user = u
+			WHERE u.telegramUserId = :telegramUserId
+			""")
+	Optional<DispatchContextRow> findDispatchContext(@Param("telegramUserId") Long telegramUserId);
+
+	/**
+	 * Keyset page of user ids, for jobs that walk all users in chunks.
+	 */
+	@Query(value = "SELECT id FROM users WHERE id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+	List<Long> findIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+	/**
+	 * Writes only the Telegram profile columns; a null keeps the stored value.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("""
+			UPDATE User u
+			SET u.languageCode = COALESCE(:languageCode, u.languageCode),
+				u.firstName = COALESCE(:firstName, u.firstName),
+				u.lastName = COALESCE(:lastName, u.lastName),
+				u.telegramUsername = COALESCE(:username, u.telegramUsername),
+				u.updatedAt = :now
+			WHERE u.id = :id
+			""")
+	int updateTelegramProfile(@Param("id") Long id, @Param("languageCode") String languageCode,
+			@Param("firstName") String firstName, @Param("lastName") String lastName,
+			@Param("username") String username, @Param("now") LocalDateTime now);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE User u SET u.timezone = :timezone, u.updatedAt = :now WHERE u.id = :id")
+	int updateTimezone(@Param("id") Long id, @Param("timezone") String timezone, @Param("now") LocalDateTime now);
 	
 }
@@ -1,27 +1,20 @@
 package com.ua.pohribnyi.fitadvisorbot.service.ai;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import com.google.genai.Client;
-import com.google.genai.types.Candidate;
-import com.google.genai.types.Content;
 import com.google.genai.types.GenerateContentConfig;
-import com.google.genai.types.GenerateContentResponse;
-import com.google.genai.types.Part;
-import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
+import com.ua.pohribnyi.fitadvisorbot.enums.AiLane;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService.Generation;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget.Reservation;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.event.JobProcessedEvent;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
-import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,185 +24,125 @@ import lombok.extern.slf4j.Slf4j;
 public class GeminiApiClient {
 
 	private final GenerationJobUpdaterService jobUpdaterService; 
-	private final Client geminiClient;
+	private final GeminiCallService callService;
 	private final GeminiConfigFactory configFactory; 
     private final GeminiSchemaDefiner schemaDefiner;
+    private final GeminiTokenBudget tokenBudget;
 
-    @Value("${google.gemini.api.model}")
-	private String model_name;
+    private static final int DEFAULT_MAX_OUTPUT_TOKENS = 8192;
 
 	/**
-	 * Async entry point for AI generation. Executed in dedicated thread pool
-	 * (aiGenerationExecutor).
+	 * Entry point for AI generation of a job claimed from the queue. Executed in
+	 * the ONBOARDING lane of AiWorkScheduler.
 	 * 
-	 * @param jobId  Database ID of the generation job
-	 * @param prompt Formatted prompt for Gemini API
+	 * @param jobId      Database ID of the generation job (already DOWNLOADING)
+	 * @param prompt     Formatted prompt for Gemini API
+	 * @param leaseOwner Worker that holds the job's lease
 	 */
-	public void generateAndStageHistory(Long jobId, String prompt) {
+	public void generateAndStageHistory(Long jobId, String prompt, String leaseOwner) {
+		generateHistory(jobId, prompt, leaseOwner, rawResponse -> {
+			// Clean and validate JSON
+			String cleanedJson = cleanupAndValidateJson(rawResponse);
+
+			// Stage response in DB (separate TX)
+			jobUpdaterService.stageJobResponse(jobId, cleanedJson, leaseOwner);
+			log.info("Job {} successfully downloaded and staged", jobId);
+		});
+	}
+
+	/**
+	 * Calls Gemini for a claimed job and passes the raw response to
+	 * {@code responseHandler}. Any failure marks the job as FAILED.
+	 *
+	 * @param jobId           Database ID of the generation job (already
+	 *                        DOWNLOADING)
+	 * @param prompt          Formatted prompt for Gemini API
+	 * @param leaseOwner      Worker that holds the job's lease
+	 * @param responseHandler Stages or imports the response
+	 */
+	public void generateHistory(Long jobId, String prompt, String leaseOwner, Consumer<String> responseHandler) {
 		String threadName = Thread.currentThread().getName();
 		log.info("[Thread: {}] Starting generation for job {}", threadName, jobId);
 
 		try {
-			// Step 1: Mark as DOWNLOADING (separate TX)
-			jobUpdaterService.updateJobStatus(jobId, JobStatus.DOWNLOADING);
+			// Step 1: Status is already DOWNLOADING, set when the job was claimed
+			if (prompt == null) {
+				throw new IllegalStateException("Job " + jobId + " has no stored prompt");
+			}
 
 			// Step 2: Call API with retry logic (no TX, can be slow)
 			String rawResponse = callGeminiApi(prompt);
 			log.info("[{}] Received response for job {}, length: {} chars", threadName, jobId, rawResponse.length());
 
-			// Step 3: Clean and validate JSON
-			String cleanedJson = cleanupAndValidateJson(rawResponse);
-			log.debug("[{}] JSON cleaned and validated for job {}", threadName, jobId);
-
-			// Step 4: Stage response in DB (separate TX)
-			jobUpdaterService.stageJobResponse(jobId, cleanedJson);
-
-			log.info("[{}] Job {} successfully downloaded and staged", threadName, jobId);
+			// Step 3: Hand the response over
+			responseHandler.accept(rawResponse);
 
 		} catch (Exception e) {
 			log.error("[{}] Job {} failed: {}", threadName, jobId, e.getMessage());
-			jobUpdaterService.markJobAsFailed(jobId, e);
+			jobUpdaterService.markJobAsFailed(jobId, leaseOwner, e);
 		}
 	}
 
 	/**
-	 * Makes actual API call to Gemini.
-	 * 
-     * Порядок застосування:
-     * 1. @RateLimiter → Чекає до 30s на доступний слот
-     * 2. @CircuitBreaker → Блокує якщо API недоступний
-     * 3. @Retry → 3 спроби з exponential backoff
-     */
-    @RateLimiter(name = "geminiApi")
-	@CircuitBreaker(name = "geminiApi", fallbackMethod = "apiFallback")
-	@Retry(name = "geminiApi")
+	 * Generates fitness history JSON for a new user's prompt.
+	 */
 	public String callGeminiApi(String prompt) {
-		
-    	log.debug("Calling Gemini API...");
-
-		Content content = Content.builder()
-				.role("user")
-				.parts(Part.builder().text(prompt).build())
-				.build();
-
 		GenerateContentConfig config = configFactory.createStructuredConfig(schemaDefiner.getFitnessHistorySchema());
-		GenerateContentResponse response = geminiClient.models.generateContent(model_name, List.of(content), config);
-
-		String text = extractResponseText(response);
-
-		return text;
+		return generateWithinBudget(prompt, config, AiLane.ONBOARDING);
 	}
 
 	/**
 	 * Generates creative text content without strict JSON schema. Used for daily
 	 * advice and motivation.
 	 */
-	@RateLimiter(name = "geminiApi")
-	@CircuitBreaker(name = "geminiApi", fallbackMethod = "apiFallback")
-	@Retry(name = "geminiApi")
 	public String generateText(String prompt) {
 		log.debug("Calling Gemini API for text generation...");
-		
-		Content content = Content
-				.builder()
-				.role("user")
-				.parts(Part.builder().text(prompt).build())
-				.build();
-
 		GenerateContentConfig config = configFactory.createCreativeConfig(schemaDefiner.getDailyAdviceSchema());
-		GenerateContentResponse response = geminiClient.models.generateContent(model_name, List.of(content), config);
-
-		return extractResponseText(response);
+		return generateWithinBudget(prompt, config, AiLane.INTERACTIVE);
 	}
 
 	/**
-	 * Extracts text from response, handling different response formats.
+	 * Waits until the TPM budget allows the call, sends it through the
+	 * resilience proxy and corrects the reservation with the usage reported by
+	 * Gemini. The wait happens outside the proxy, so a budget timeout fails the
+	 * call once instead of being retried or tripping the circuit breaker.
 	 */
-	private String extractResponseText(GenerateContentResponse response) {
-		// Primary method: direct text() call
-		if (response.text() != null && !response.text().isBlank()) {
-			return response.text();
-		}
-
-		// Fallback: extract from candidates structure
-		// candidates() returns Optional<List<Candidate>>
-		if (response.candidates().isEmpty()) {
-			log.error("No candidates in Gemini response: {}", response);
-			throw new IllegalStateException("Gemini response has no candidates");
-		}
-
-		List<Candidate> candidates = response.candidates().get();
-		if (candidates.isEmpty()) {
-			log.error("Empty candidates list in Gemini response: {}", response);
-			throw new IllegalStateException("Gemini candidates list is empty");
-		}
-
-		Candidate firstCandidate = candidates.get(0);
-		if (firstCandidate.content() == null) {
-			log.error("No content in first candidate");
-			throw new IllegalStateException("First candidate has no content");
-		}
-
-		Optional<Content> content = firstCandidate.content();
-		if (content.isEmpty() || content.get().parts() == null || content.get().parts().isEmpty()) {
-			log.error("No parts in candidate content");
-			throw new IllegalStateException("Candidate content has no parts");
-		}
-
-		// Find first non-empty text part
-		String responseText = content.get().parts()
-				.stream()
-				.flatMap(List::stream)
-				.map(Part::text)
-				.flatMap(Optional::stream) 
-				.filter(text -> !text.isBlank())
-				.findFirst()
-				.orElse(null);
-		
-		if (responseText == null || responseText.isBlank()) {
-			log.error("Empty response from Gemini. Response object: {}", response);
-			throw new IllegalStateException("Empty response from Gemini API");
+	private String generateWithinBudget(String prompt, GenerateContentConfig config, AiLane lane) {
+		int maxOutputTokens = config.maxOutputTokens().orElse(DEFAULT_MAX_OUTPUT_TOKENS);
+		Reservation reservation = tokenBudget.reserve(GeminiTokenBudget.estimate(prompt, maxOutputTokens), lane);
+		try {
+			Generation generation = callService.generate(prompt, config);
+			tokenBudget.reconcile(reservation, generation.usedTokens());
+			return generation.text();
+		} catch (RuntimeException e) {
+			// No output was produced, keep only the prompt part of the estimate
+			tokenBudget.reconcile(reservation, GeminiTokenBudget.estimate(prompt, 0));
+			throw e;
 		}
-		
-		return responseText;
-		
 	}
 
 	/**
-	 * Cleans Gemini response: extracts JSON, validates structure.
+	 * Cleans Gemini response: extracts JSON, validates structure. Markdown fences
+	 * never contain braces, so cutting at the outer braces removes them without
+	 * extra copies of the text.
 	 */
 	private String cleanupAndValidateJson(String response) {
-		// Remove markdown code blocks if present
-		String cleaned = response.replaceAll("```json\\s*", "").replaceAll("```\\s*", "").trim();
-
 		// Find JSON object boundaries
-		int firstBrace = cleaned.indexOf('{');
-		int lastBrace = cleaned.lastIndexOf('}');
+		int firstBrace = response.indexOf('{');
+		int lastBrace = response.lastIndexOf('}');
 
 		if (firstBrace == -1 || lastBrace == -1 || lastBrace < firstBrace) {
+			String cleaned = response.strip();
 			throw new IllegalStateException("Invalid JSON in Gemini response. First 200 chars: "
 					+ cleaned.substring(0, Math.min(200, cleaned.length())));
 		}
 
-		String json = cleaned.substring(firstBrace, lastBrace + 1);
-
 		// Basic validation: check for required keys
-		if (!json.contains("\"dailyMetrics\"") || !json.contains("\"activities\"")) {
+		if (!response.contains("\"dailyMetrics\"") || !response.contains("\"activities\"")) {
 			throw new IllegalStateException("Missing required keys in JSON response: dailyMetrics or activities");
 		}
 
-		return json;
+		return response.substring(firstBrace, lastBrace + 1);
 	}
 
-	/**
-     * Fallback if Circuit Breaker open.
-     */
-    private String apiFallback(String prompt, Exception e) {
-    	if (e instanceof IllegalArgumentException) {
-            throw (IllegalArgumentException) e;
-        }
-    	log.error("API unavailable, fallback triggered: {}", e.getMessage());
-        throw new RuntimeException("Gemini API temporarily unavailable. Please try again later.", e);
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.genai.Client;
+import com.google.genai.types.Candidate;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.GenerateContentResponseUsageMetadata;
+import com.google.genai.types.Part;
+
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import io.github.resilience4j.retry.annotation.Retry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends single requests to Gemini under the geminiApi rate limiter, circuit
+ * breaker and retry. Kept apart from GeminiApiClient so that the token budget
+ * is taken before a call enters the resilience proxy: waiting for budget must
+ * not use up rate limiter permits, be retried, or count as an API failure.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GeminiCallService {
+
+	private final Client geminiClient;
+
+	@Value("${google.gemini.api.model}")
+	private String model_name;
+
+	/**
+	 * Text of a response and the tokens it used (-1 if not reported).
+	 */
+	public record Generation(String text, long usedTokens) {
+	}
+
+	/**
+	 * Makes actual API call to Gemini.
+	 * 
+     * Порядок застосування:
+     * 1. @RateLimiter → Чекає до 30s на доступний слот
+     * 2. @CircuitBreaker → Блокує якщо API недоступний
+     * 3. @Retry → 3 спроби з exponential backoff
+     */
+	@RateLimiter(name = "geminiApi")
+	@CircuitBreaker(name = "geminiApi", fallbackMethod = "apiFallback")
+	@Retry(name = "geminiApi")
+	public Generation generate(String prompt, GenerateContentConfig config) {
+		log.debug("Calling Gemini API...");
+
+		Content content = Content.builder()
+				.role("user")
+				.parts(Part.builder().text(prompt).build())
+				.build();
+
+		GenerateContentResponse response = geminiClient.models.generateContent(model_name, List.of(content), config);
+		return new Generation(extractResponseText(response), usedTokens(response));
+	}
+
+	/**
+	 * @return total tokens from the usage metadata, or -1 if not reported
+	 */
+	private long usedTokens(GenerateContentResponse response) {
+		if (response == null) {
+			return -1;
+		}
+		return response.usageMetadata()
+				.flatMap(GenerateContentResponseUsageMetadata::totalTokenCount)
+				.map(Integer::longValue)
+				.orElse(-1L);
+	}
+
+	/**
+	 * Extracts text from response, handling different response formats.
+	 */
+	private String extractResponseText(GenerateContentResponse response) {
+		// Primary method: direct text() call
+		if (response.text() != null && !response.text().isBlank()) {
+			return response.text();
+		}
+
+		// Fallback: extract from candidates structure
+		// candidates() returns Optional<List<Candidate>>
+		if (response.candidates().isEmpty()) {
+			log.error("No candidates in Gemini response: {}", response);
+			throw new IllegalStateException("Gemini response has no candidates");
+		}
+
+		List<Candidate> candidates = response.candidates().get();
+		if (candidates.isEmpty()) {
+			log.error("Empty candidates list in Gemini response: {}", response);
+			throw new IllegalStateException("Gemini candidates list is empty");
+		}
+
+		Candidate firstCandidate = candidates.get(0);
+		if (firstCandidate.content() == null) {
+			log.error("No content in first candidate");
+			throw new IllegalStateException("First candidate has no content");
+		}
+
+		Optional<Content> content = firstCandidate.content();
+		if (content.isEmpty() || content.get().parts() == null || content.get().parts().isEmpty()) {
+			log.error("No parts in candidate content");
+			throw new IllegalStateException("Candidate content has no parts");
+		}
+
+		// Find first non-empty text part
+		String responseText = content.get().parts()
+				.stream()
+				.flatMap(List::stream)
+				.map(Part::text)
+				.flatMap(Optional::stream) 
+				.filter(text -> !text.isBlank())
+				.findFirst()
+				.orElse(null);
+		
+		if (responseText == null || responseText.isBlank()) {
+			log.error("Empty response from Gemini. Response object: {}", response);
+			throw new IllegalStateException("Empty response from Gemini API");
+		}
+		
+		return responseText;
+		
+	}
+
+	/**
+     * Fallback if Circuit Breaker open.
+     */
+    private Generation apiFallback(String prompt, GenerateContentConfig config, Exception e) {
+    	if (e instanceof IllegalArgumentException) {
+            throw (IllegalArgumentException) e;
+        }
+    	log.error("API unavailable, fallback triggered: {}", e.getMessage());
+        throw new RuntimeException("Gemini API temporarily unavailable. Please try again later.", e);
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.AiLane;
+import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.GenerationJob;
+import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.AiWorkScheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable queue worker on top of the {@code generation_jobs} table.
+ *
+ * Jobs are claimed with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so any
+ * number of instances can poll the same table without handing a job out
+ * twice. A claimed job is leased to this worker for a limited time; if the
+ * instance dies, the lease expires and another worker picks the job up again
+ * (up to {@code max-attempts} claims). Nothing lives only in memory, so jobs
+ * survive restarts and deploys.
+ *
+ * Stage 1 (PENDING → DOWNLOADING) runs in the ONBOARDING lane of
+ * {@link AiWorkScheduler}, stage 2 (DOWNLOADED → PROCESSING) on
+ * dataProcessingExecutor. With {@code stage-raw-response: false} the response
+ * is imported right after the download instead of being staged in the job row
+ * for stage 2. Events published by the pipeline only call {@link #wakeUp()}
+ * to cut latency; correctness relies on polling alone.
+ */
+@Slf4j
+@Service
+public class GenerationJobQueueWorker {
+
+	private final GenerationJobUpdaterService jobUpdaterService;
+	private final GenerationJobRepository jobRepository;
+	private final GeminiApiClient geminiApiClient;
+	private final SyntheticDataWorkerService dataWorkerService;
+	private final Executor aiExecutor;
+	private final Executor dataExecutor;
+
+	private final String workerId;
+	private final Duration lease;
+	private final int maxAttempts;
+	private final Semaphore downloadSlots;
+	private final Semaphore processingSlots;
+	private final boolean stageRawResponse;
+
+	public GenerationJobQueueWorker(GenerationJobUpdaterService jobUpdaterService,
+			GenerationJobRepository jobRepository, GeminiApiClient geminiApiClient,
+			SyntheticDataWorkerService dataWorkerService,
+			AiWorkScheduler aiWorkScheduler,
+			@Qualifier("dataProcessingExecutor") Executor dataExecutor,
+			@Value("${app.jobs.queue.lease:PT10M}") Duration lease,
+			@Value("${app.jobs.queue.max-attempts:3}") int maxAttempts,
+			@Value("${app.jobs.queue.download-slots:5}") int downloadSlots,
+			@Value("${app.jobs.queue.processing-slots:3}") int processingSlots,
+			@Value("${app.jobs.queue.stage-raw-response:true}") boolean stageRawResponse) {
+		this.jobUpdaterService = jobUpdaterService;
+		this.jobRepository = jobRepository;
+		this.geminiApiClient = geminiApiClient;
+		this.dataWorkerService = dataWorkerService;
+		this.aiExecutor = aiWorkScheduler.executor(AiLane.ONBOARDING);
+		this.dataExecutor = dataExecutor;
+		this.lease = lease;
+		this.maxAttempts = maxAttempts;
+		this.downloadSlots = new Semaphore(downloadSlots);
+		this.processingSlots = new Semaphore(processingSlots);
+		this.stageRawResponse = stageRawResponse;
+		this.workerId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	/**
+	 * Regular poll. Also resumes jobs left behind by a previous run once their
+	 * lease has expired.
+	 */
+	@Scheduled(fixedDelayString = "${app.jobs.queue.poll-interval-ms:5000}", initialDelayString = "${app.jobs.queue.initial-delay-ms:10000}")
+	public void poll() {
+		wakeUp();
+	}
+
+	/**
+	 * Claims as many jobs as there are free local slots and starts them.
+	 */
+	public void wakeUp() {
+		try {
+			claimAndRun(JobStatus.DOWNLOADED, JobStatus.PROCESSING, processingSlots, dataExecutor, this::process);
+			claimAndRun(JobStatus.PENDING, JobStatus.DOWNLOADING, downloadSlots, aiExecutor, this::download);
+		} catch (Exception e) {
+			log.error("Job queue poll failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private void claimAndRun(JobStatus readyStatus, JobStatus leasedStatus, Semaphore slots, Executor executor,
+			Consumer<Long> task) {
+		int free = slots.drainPermits();
+		if (free == 0) {
+			return;
+		}
+		List<Long> claimed;
+		try {
+			claimed = jobUpdaterService.claimJobs(readyStatus, leasedStatus, workerId, free, lease, maxAttempts);
+		} catch (RuntimeException e) {
+			slots.release(free);
+			throw e;
+		}
+		slots.release(free - claimed.size());
+
+		for (Long jobId : claimed) {
+			log.info("Worker {} claimed job {} for {}", workerId, jobId, leasedStatus);
+			try {
+				executor.execute(() -> {
+					try {
+						task.accept(jobId);
+					} finally {
+						slots.release();
+					}
+					// A slot just freed up, take the next job without waiting for the poll
+					wakeUp();
+				});
+			} catch (RejectedExecutionException e) {
+				slots.release();
+				log.warn("Executor rejected job {}, returning it to the queue", jobId);
+				jobUpdaterService.releaseJob(jobId, readyStatus, workerId);
+			}
+		}
+	}
+
+	private void download(Long jobId) {
+		String prompt = jobRepository.findById(jobId).map(GenerationJob::getPrompt).orElse(null);
+		if (stageRawResponse) {
+			geminiApiClient.generateAndStageHistory(jobId, prompt, workerId);
+		} else {
+			geminiApiClient.generateHistory(jobId, prompt, workerId,
+					response -> dataWorkerService.ingestJobResponse(jobId, response, workerId));
+		}
+	}
+
+	private void process(Long jobId) {
+		try {
+			dataWorkerService.processJobInTransaction(jobId, workerId);
+		} catch (Exception e) {
+			// The processing transaction rolled back, record the failure separately
+			log.error("Failed to process job {}: {}", jobId, e.getMessage());
+			Exception cause = e.getCause() instanceof Exception c ? c : e;
+			jobUpdaterService.markJobAsFailed(jobId, workerId, cause);
+		}
+	}
+
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			return "worker";
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package com.ua.pohribnyi.fitadvisorbot.service.ai;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -30,6 +34,35 @@ public class GenerationJobUpdaterService {
 
 	private static final int MAX_ERROR_DETAILS_LENGTH = 10000; // 10KB
 
+	/**
+	 * Claims up to {@code limit} jobs for one pipeline stage in a short
+	 * transaction. Jobs waiting in {@code readyStatus} and jobs whose lease in
+	 * {@code leasedStatus} has expired are moved to {@code leasedStatus} and
+	 * leased to {@code owner}; each claim counts as an attempt.
+	 *
+	 * @return IDs of the claimed jobs, oldest first
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 5)
+	public List<Long> claimJobs(JobStatus readyStatus, JobStatus leasedStatus, String owner, int limit,
+			Duration lease, int maxAttempts) {
+		Instant now = Instant.now();
+		List<Long> ids = jobRepository.lockClaimable(readyStatus.name(), leasedStatus.name(), now, maxAttempts,
+				limit);
+		if (!ids.isEmpty()) {
+			jobRepository.lease(ids, leasedStatus, owner, now.plus(lease));
+		}
+		return ids;
+	}
+
+	/**
+	 * Gives a claimed job back to the queue, e.g. when it could not be started
+	 * locally.
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 5)
+	public void releaseJob(Long jobId, JobStatus status, String owner) {
+		jobRepository.release(jobId, status, owner);
+	}
+
 	/**
 	 * Updates job status in a separate, short transaction.
 	 */
@@ -43,13 +76,18 @@ public class GenerationJobUpdaterService {
 	}
 
 	/**
-	 * Stages the cleaned response in a separate transaction.
+	 * Stages the cleaned response in a separate transaction. The response is
+	 * dropped if the worker lost its lease in the meantime.
 	 */
 	@Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 10)
 	@Retry(name = "dbRead")
-	public void stageJobResponse(Long jobId, String cleanedJson) {
+	public void stageJobResponse(Long jobId, String cleanedJson, String owner) {
 		GenerationJob job = jobRepository.findById(jobId)
 				.orElseThrow(() -> new IllegalStateException("Job not found: " + jobId));
+		if (!job.isLeasedBy(owner, JobStatus.DOWNLOADING)) {
+			log.warn("Job {} is no longer leased by {} (status {}), dropping response", jobId, owner, job.getStatus());
+			return;
+		}
 		// Step 1: Save data
 		job.stageResponse(cleanedJson);
 		// Step 2: Publish event (after TX commits)
@@ -57,12 +95,18 @@ public class GenerationJobUpdaterService {
 	}
 
 	/**
-	 * Marks job as failed in a separate transaction.
+	 * Marks job as failed in a separate transaction, unless another worker has
+	 * taken it over.
 	 */
 	@Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 5)
-	public void markJobAsFailed(Long jobId, Exception exception) {
+	public void markJobAsFailed(Long jobId, String owner, Exception exception) {
 		GenerationJob job = jobRepository.findById(jobId)
 				.orElseThrow(() -> new IllegalStateException("Job not found: " + jobId));
+		if (!job.isLeasedBy(owner, JobStatus.DOWNLOADING) && !job.isLeasedBy(owner, JobStatus.PROCESSING)) {
+			log.warn("Job {} is no longer leased by {} (status {}), not marking as failed", jobId, owner,
+					job.getStatus());
+			return;
+		}
 		// Determine error code for monitoring
 		String errorCode = categorizeError(exception);
 		String shortMessage = extractShortMessage(exception.getMessage());
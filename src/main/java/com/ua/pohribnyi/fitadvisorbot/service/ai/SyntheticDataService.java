@@ -1,7 +1,5 @@
 package com.ua.pohribnyi.fitadvisorbot.service.ai;
 
-import java.util.concurrent.RejectedExecutionException;
-
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,32 +21,24 @@ public class SyntheticDataService {
 
 	private final GenerationJobRepository jobRepository;
 	private final GeminiPromptBuilderService promptBuilderService;
-	private final GeminiApiClient geminiApiClient; // Worker 1
 	private final ApplicationEventPublisher eventPublisher;
 
 	/**
-	 * This is the main entry point, called synchronously by the Handler. It creates
-	 * the Job and triggers the *first* async worker.
+	 * This is the main entry point, called synchronously by the Handler. It
+	 * enqueues the Job; a {@link GenerationJobQueueWorker} picks it up once the
+	 * transaction commits, on this or any other instance.
 	 */
 	@Transactional
 	public void triggerHistoryGeneration(User user, UserProfile profile, Long chatId, Integer messageId) {
 		log.info("Creating PENDING job for user {}", user.getId());
 
-		GenerationJob job = GenerationJob.createPendingJob(user, chatId, messageId);
-		jobRepository.save(job); // 'job' now has an ID
-
 		String prompt = promptBuilderService.buildOnboardingPrompt(profile);
 
-		// Call the async worker to do the heavy lifting
-		try {
-			eventPublisher.publishEvent(new JobCreatedEvent(job.getId(), prompt));
-			
-			//geminiApiClient.generateAndStageHistory(job.getId(), prompt);
-			log.info("✅ Job {} created and async worker started for user {}", job.getId(), user.getId());
-		} catch (RejectedExecutionException e) {
-			log.error("❌ Thread pool full, cannot start job {} for user {}", job.getId(), user.getId());
-			jobRepository.delete(job);
-			throw new RuntimeException("System is currently overloaded. Please try again in a few minutes.", e);
-		}
+		GenerationJob job = GenerationJob.createPendingJob(user, prompt, chatId, messageId);
+		jobRepository.save(job); // 'job' now has an ID
+
+		// Wakes up the local worker after commit instead of waiting for the next poll
+		eventPublisher.publishEvent(new JobCreatedEvent(job.getId()));
+		log.info("✅ Job {} queued for user {}", job.getId(), user.getId());
 	}
 }
\ No newline at end of file
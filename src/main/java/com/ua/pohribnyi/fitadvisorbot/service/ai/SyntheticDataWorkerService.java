@@ -1,27 +1,28 @@
 package com.ua.pohribnyi.fitadvisorbot.service.ai;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
-import com.ua.pohribnyi.fitadvisorbot.model.dto.ParsedData;
-import com.ua.pohribnyi.fitadvisorbot.model.dto.google.ActivityDto;
-import com.ua.pohribnyi.fitadvisorbot.model.dto.google.DailyMetricDto;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.GenerationJob;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.data.ActivityRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.data.DailyMetricRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.data.HistoryBulkLoader;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.parser.GeminiHistoryReader;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.parser.HistoryBatchSink;
+import com.ua.pohribnyi.fitadvisorbot.service.analytics.DailyRollupService;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.event.JobProcessedEvent;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,8 +39,17 @@ public class SyntheticDataWorkerService {
 	private final GenerationJobRepository jobRepository;
 	private final ActivityRepository activityRepository;
 	private final DailyMetricRepository dailyMetricRepository;
-	private final ObjectMapper objectMapper;
+	private final HistoryBulkLoader bulkLoader;
+	private final GeminiHistoryReader historyReader;
+	private final DailyRollupService rollupService;
 	private final ApplicationEventPublisher eventPublisher;
+	private final EntityManager entityManager;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int insertBatchSize;
+
+	@Value("${app.jobs.queue.bulk-insert:true}")
+	private boolean bulkInsert;
 
 	private static final int MAX_ERROR_DETAILS_LENGTH = 10000;
 
@@ -48,10 +58,11 @@ public class SyntheticDataWorkerService {
 	 * 
 	 * On failure: - Mark job as FAILED - Rollback all DB inserts
 	 * 
-	 * @param jobId Database ID of the job
+	 * @param jobId      Database ID of the job (already PROCESSING)
+	 * @param leaseOwner Worker that holds the job's lease
 	 */
 	@Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 30)
-	public void processJobInTransaction(Long jobId) {
+	public void processJobInTransaction(Long jobId, String leaseOwner) {
 
 		String threadName = Thread.currentThread().getName();
 
@@ -59,45 +70,25 @@ public class SyntheticDataWorkerService {
 		GenerationJob job = jobRepository.findById(jobId)
 				.orElseThrow(() -> new IllegalStateException("Job not found: " + jobId));
 
-		// Step 2: Validate job state
-		if (!job.isProcessable()) {
-			log.warn("[{}] Job {} is not processable. Status: {}, hasResponse: {}", threadName, jobId, job.getStatus(),
-					job.getRawResponse() != null);
+		// Step 2: Validate job state (PROCESSING was set when the job was claimed)
+		if (!job.isLeasedBy(leaseOwner, JobStatus.PROCESSING) || !job.isProcessable()) {
+			log.warn("[{}] Job {} is not processable. Status: {}, owner: {}, hasResponse: {}", threadName, jobId,
+					job.getStatus(), job.getLeaseOwner(), job.getRawResponse() != null);
 			return;
 		}
 
-		// Step 3: Mark as PROCESSING
-		job.setStatus(JobStatus.PROCESSING);
-		jobRepository.save(job);
-		log.debug("[{}] Job {} marked as PROCESSING", threadName, jobId);
-
 		try {
-			// Step 4: Parse JSON
-			String rawJson = job.getRawResponse();
-			ParsedData parsed = parseJson(rawJson);
-
-			log.info("[{}] Parsed {} metrics and {} activities for job {}", threadName, parsed.metricDtos().size(),
-					parsed.activityDtos().size(), jobId);
-
-			// Step 5: Map to entities
-			List<DailyMetric> metrics = parsed.metricDtos().stream()
-					.map(dto -> DailyMetricDto.mapToEntity(dto, job.getUser())).toList();
-
-			List<Activity> activities = parsed.activityDtos().stream()
-					.map(dto -> ActivityDto.mapToEntity(dto, job.getUser())).toList();
-
-			// Step 6: Batch insert (uses hibernate.jdbc.batch_size from application.yml)
-			dailyMetricRepository.saveAll(metrics);
-			activityRepository.saveAll(activities);
+			// Step 3-5: Stream the staged JSON straight into batched inserts
+			GeminiHistoryReader.Counts counts = ingest(job, job.getRawResponse());
 
-			log.debug("[{}] Batch inserted {} metrics and {} activities", threadName, metrics.size(),
-					activities.size());
+			log.info("[{}] Inserted {} metrics and {} activities for job {}", threadName, counts.metrics(),
+					counts.activities(), jobId);
 
-			// Step 7: Mark as PROCESSED and clear rawResponse
+			// Step 6: Mark as PROCESSED and clear rawResponse
 			job.markAsProcessed();
 			jobRepository.save(job);
 
-			// Step 8: Publish event
+			// Step 7: Publish event
 			eventPublisher.publishEvent(new JobProcessedEvent(this, jobId, JobStatus.PROCESSED));
 
 			log.info("[{}] Job {} processed successfully", threadName, jobId);
@@ -116,52 +107,73 @@ public class SyntheticDataWorkerService {
 			// Publish FAILED event
 			eventPublisher.publishEvent(new JobProcessedEvent(this, jobId, JobStatus.FAILED));
 
-			// Rethrow to trigger transaction rollback
+			// Rethrow to trigger transaction rollback; the queue worker records the
+			// failure in a new transaction
 			throw new RuntimeException("Failed to process job " + jobId, e);
 		}
 	}
 
 	/**
-	 * Parses raw JSON into DTOs.
-	 * 
-	 * @throws Exception if JSON invalid or missing required fields
+	 * Imports a Gemini response directly, without staging it in the job row
+	 * first (DOWNLOADING → PROCESSED). Failures are rethrown; the caller records
+	 * them in a new transaction.
+	 *
+	 * @param jobId      Database ID of the job (DOWNLOADING)
+	 * @param response   Raw Gemini response, markdown fences allowed
+	 * @param leaseOwner Worker that holds the job's lease
 	 */
-	private ParsedData parseJson(String rawJson) {
-		try {
-			JsonNode rootNode = objectMapper.readTree(rawJson);
-
-			// Validate required keys exist
-			if (!rootNode.has("dailyMetrics")) {
-				throw new IllegalArgumentException("Missing 'dailyMetrics' in JSON");
-			}
-			if (!rootNode.has("activities")) {
-				throw new IllegalArgumentException("Missing 'activities' in JSON");
-			}
+	@Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 30)
+	public void ingestJobResponse(Long jobId, String response, String leaseOwner) {
+		GenerationJob job = jobRepository.findById(jobId)
+				.orElseThrow(() -> new IllegalStateException("Job not found: " + jobId));
+		if (!job.isLeasedBy(leaseOwner, JobStatus.DOWNLOADING)) {
+			log.warn("Job {} is no longer leased by {} (status {}), dropping response", jobId, leaseOwner,
+					job.getStatus());
+			return;
+		}
 
-			List<DailyMetricDto> metricDtos = objectMapper.convertValue(rootNode.get("dailyMetrics"),
-					new TypeReference<>() {
-					});
+		GeminiHistoryReader.Counts counts = ingest(job, response);
+		log.info("Inserted {} metrics and {} activities for job {} without staging", counts.metrics(),
+				counts.activities(), jobId);
 
-			List<ActivityDto> activityDtos = objectMapper.convertValue(rootNode.get("activities"),
-					new TypeReference<>() {
-					});
+		job.markAsProcessed();
+		jobRepository.save(job);
+		eventPublisher.publishEvent(new JobProcessedEvent(this, jobId, JobStatus.PROCESSED));
+	}
 
-			// Validate counts
-			if (metricDtos.isEmpty()) {
-				throw new IllegalArgumentException("dailyMetrics array is empty");
-			}
-			if (activityDtos.isEmpty()) {
-				log.warn("activities array is empty (acceptable but unusual)");
+	/**
+	 * Streams the history rows into batched inserts: multi-row JDBC inserts by
+	 * default, or JPA batching (hibernate.jdbc.batch_size) when bulk-insert is
+	 * off. The daily rollups of the covered dates are rebuilt afterwards.
+	 */
+	private GeminiHistoryReader.Counts ingest(GenerationJob job, String json) {
+		HistoryBatchSink sink = bulkInsert
+				? new HistoryBatchSink(job.getUser(), insertBatchSize, bulkLoader::insertMetrics,
+						bulkLoader::insertActivities)
+				: new HistoryBatchSink(job.getUser(), insertBatchSize,
+						batch -> saveAndDetach(dailyMetricRepository, batch),
+						batch -> saveAndDetach(activityRepository, batch));
+		try {
+			GeminiHistoryReader.Counts counts = historyReader.read(json, sink::metric, sink::activity);
+			sink.flush();
+			if (sink.firstDate() != null) {
+				rollupService.refresh(job.getUser(), sink.firstDate(), sink.lastDate());
 			}
-
-			return new ParsedData(metricDtos, activityDtos);
-
-		} catch (Exception e) {
-			log.error("JSON parsing failed: {}", e.getMessage());
-			throw new RuntimeException("Invalid JSON structure: " + e.getMessage(), e);
+			return counts;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Invalid JSON structure: " + e.getMessage(), e);
 		}
 	}
 
+	/**
+	 * Flushes a JPA batch and detaches its rows, so the persistence context does
+	 * not grow with (and dirty-check) the whole history. Only the batch is
+	 * detached, not cleared: the job and its user stay managed.
+	 */
+	private <T> void saveAndDetach(JpaRepository<T, Long> repository, List<T> batch) {
+		repository.saveAllAndFlush(batch).forEach(entityManager::detach);
+	}
+
 	/**
 	 * Categorizes processing errors for monitoring.
 	 * 
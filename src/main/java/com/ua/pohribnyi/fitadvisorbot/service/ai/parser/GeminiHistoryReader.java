@@ -0,0 +1,105 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.google.ActivityDto;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.google.DailyMetricDto;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streaming reader for the generated fitness history.
+ *
+ * Walks the response token by token and hands every {@code dailyMetrics} and
+ * {@code activities} element to a consumer as soon as it is read, so neither a
+ * cleaned copy of the text nor a JSON tree of the whole payload is built.
+ * Markdown fences around the object are skipped: parsing starts at the first
+ * '{' and stops at the end of the root object.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GeminiHistoryReader {
+
+	private static final String METRICS_FIELD = "dailyMetrics";
+	private static final String ACTIVITIES_FIELD = "activities";
+
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * @return number of metrics and activities passed to the consumers
+	 * @throws IllegalArgumentException if the response holds no JSON object, a
+	 *                                  required array is missing or
+	 *                                  dailyMetrics is empty
+	 * @throws IOException              if the JSON is malformed
+	 */
+	public Counts read(String response, Consumer<DailyMetricDto> metricConsumer,
+			Consumer<ActivityDto> activityConsumer) throws IOException {
+		int start = response == null ? -1 : response.indexOf('{');
+		if (start == -1) {
+			throw new IllegalArgumentException("Invalid JSON in Gemini response. First 200 chars: "
+					+ (response == null ? null : response.substring(0, Math.min(200, response.length()))));
+		}
+
+		int metrics = -1;
+		int activities = -1;
+		StringReader reader = new StringReader(response);
+		reader.skip(start);
+		try (JsonParser parser = objectMapper.createParser(reader)) {
+			expect(parser.nextToken(), JsonToken.START_OBJECT, "root");
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				parser.nextToken();
+				switch (field) {
+				case METRICS_FIELD -> metrics = readArray(parser, DailyMetricDto.class, metricConsumer, field);
+				case ACTIVITIES_FIELD -> activities = readArray(parser, ActivityDto.class, activityConsumer, field);
+				default -> parser.skipChildren();
+				}
+			}
+		}
+
+		if (metrics == -1) {
+			throw new IllegalArgumentException("Missing '" + METRICS_FIELD + "' in JSON");
+		}
+		if (activities == -1) {
+			throw new IllegalArgumentException("Missing '" + ACTIVITIES_FIELD + "' in JSON");
+		}
+		if (metrics == 0) {
+			throw new IllegalArgumentException(METRICS_FIELD + " array is empty");
+		}
+		if (activities == 0) {
+			log.warn("activities array is empty (acceptable but unusual)");
+		}
+		return new Counts(metrics, activities);
+	}
+
+	private <T> int readArray(JsonParser parser, Class<T> type, Consumer<T> consumer, String field)
+			throws IOException {
+		expect(parser.currentToken(), JsonToken.START_ARRAY, field);
+		int count = 0;
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			consumer.accept(parser.readValueAs(type));
+			count++;
+		}
+		expect(parser.currentToken(), JsonToken.END_ARRAY, field);
+		return count;
+	}
+
+	private static void expect(JsonToken actual, JsonToken expected, String where) {
+		if (actual != expected) {
+			throw new IllegalArgumentException("Invalid JSON structure at '" + where + "': expected " + expected
+					+ " but found " + actual);
+		}
+	}
+
+	public record Counts(int metrics, int activities) {
+	}
+}
@@ -0,0 +1,105 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.parser;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.ua.pohribnyi.fitadvisorbot.model.dto.google.ActivityDto;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.google.DailyMetricDto;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+
+/**
+ * Collects parsed history rows for one user and writes them in batches of
+ * {@code batchSize}, so only one batch is held in memory at a time. Must be
+ * used inside a transaction; call {@link #flush()} after the last row.
+ *
+ * The writers are chosen by the call site, e.g. the JPA repositories'
+ * {@code saveAllAndFlush} or the JDBC {@code HistoryBulkLoader}. The range of
+ * dates seen so far is tracked for the daily rollup refresh.
+ */
+public class HistoryBatchSink {
+
+	private final User user;
+	private final int batchSize;
+	private final Consumer<List<DailyMetric>> metricWriter;
+	private final Consumer<List<Activity>> activityWriter;
+
+	private final List<DailyMetric> metrics;
+	private final List<Activity> activities;
+
+	private LocalDate firstDate;
+	private LocalDate lastDate;
+
+	public HistoryBatchSink(User user, int batchSize, Consumer<List<DailyMetric>> metricWriter,
+			Consumer<List<Activity>> activityWriter) {
+		this.user = user;
+		this.batchSize = batchSize;
+		this.metricWriter = metricWriter;
+		this.activityWriter = activityWriter;
+		this.metrics = new ArrayList<>(batchSize);
+		this.activities = new ArrayList<>(batchSize);
+	}
+
+	public void metric(DailyMetricDto dto) {
+		DailyMetric metric = DailyMetricDto.mapToEntity(dto, user);
+		track(metric.getDate());
+		metrics.add(metric);
+		if (metrics.size() >= batchSize) {
+			flushMetrics();
+		}
+	}
+
+	public void activity(ActivityDto dto) {
+		Activity activity = ActivityDto.mapToEntity(dto, user);
+		track(activity.getDateTime().toLocalDate());
+		activities.add(activity);
+		if (activities.size() >= batchSize) {
+			flushActivities();
+		}
+	}
+
+	public void flush() {
+		flushMetrics();
+		flushActivities();
+	}
+
+	/**
+	 * @return earliest date of the rows passed in, or null if there were none
+	 */
+	public LocalDate firstDate() {
+		return firstDate;
+	}
+
+	/**
+	 * @return latest date of the rows passed in, or null if there were none
+	 */
+	public LocalDate lastDate() {
+		return lastDate;
+	}
+
+	private void track(LocalDate date) {
+		if (firstDate == null || date.isBefore(firstDate)) {
+			firstDate = date;
+		}
+		if (lastDate == null || date.isAfter(lastDate)) {
+			lastDate = date;
+		}
+	}
+
+	private void flushMetrics() {
+		if (!metrics.isEmpty()) {
+			metricWriter.accept(metrics);
+			metrics.clear();
+		}
+	}
+
+	private void flushActivities() {
+		if (!activities.isEmpty()) {
+			activityWriter.accept(activities);
+			activities.clear();
+		}
+	}
+}
@@ -2,9 +2,8 @@ package com.ua.pohribnyi.fitadvisorbot.service.ai.prompt;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
@@ -13,7 +12,9 @@ import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class GeminiPromptBuilderService {
@@ -36,7 +37,7 @@ public class GeminiPromptBuilderService {
 
 		int maxActivities = minActivities + 4;
 
-        return promptService.format("ai.history-generation",
+        String prompt = promptService.format(PromptService.HISTORY_GENERATION,
                 // Context
                 level, goal, today,
                 today,
@@ -49,6 +50,7 @@ public class GeminiPromptBuilderService {
                 level,
                 config.activityPatterns
         );
+        return promptService.measure(PromptService.HISTORY_GENERATION, prompt);
 	}
 	
 	public String buildDailyAdvicePrompt(UserProfile profile, List<Activity> weekActivities, DailyMetric todayMetric,
@@ -60,31 +62,63 @@ public class GeminiPromptBuilderService {
 		int stress = todayMetric.getStressLevel() != null ? todayMetric.getStressLevel() : 3;
 		String activityStatus = hadActivityYesterday ? "YES" : "NO";
 
-		String historyJson = formatActivitiesToJson(weekActivities);
+		List<String> history = formatActivities(weekActivities);
+		String historyJson = joinNewest(history, Integer.MAX_VALUE);
 
-		return promptService.format("ai.daily-advice", 
+		String prompt = promptService.format(PromptService.DAILY_ADVICE,
 				level, 
 				goal, 
 				sleep, 
 				stress, 
 				activityStatus, 
 				historyJson);
+
+		// Over the token budget: keep only as much recent history as fits
+		int overflow = promptService.overBudgetChars(PromptService.DAILY_ADVICE, prompt);
+		if (overflow > 0) {
+			historyJson = joinNewest(history, historyJson.length() - overflow);
+			log.debug("Daily advice history trimmed by {} chars to fit the prompt budget", overflow);
+			prompt = promptService.format(PromptService.DAILY_ADVICE, level, goal, sleep, stress, activityStatus,
+					historyJson);
+		}
+		return promptService.measure(PromptService.DAILY_ADVICE, prompt);
+	}
+
+	private List<String> formatActivities(List<Activity> activities) {
+		List<String> entries = new ArrayList<>(activities.size());
+		for (Activity a : activities) {
+			entries.add("{\"date\":\"" + a.getDateTime().format(DATE_FMT)
+					+ "\", \"type\":\"" + (a.getType() != null ? a.getType() : "Workout")
+					+ "\", \"mins\":" + a.getDurationSeconds() / 60
+					+ ", \"pulse\":" + (a.getAvgPulse() != null ? a.getAvgPulse() : 0) + "}");
+		}
+		return entries;
 	}
 
-	private String formatActivitiesToJson(List<Activity> activities) {
-        if (activities.isEmpty()) {
-            return "[]";
-        }
-        return activities.stream()
-                .map(a -> String.format(Locale.US,
-                        "{\"date\":\"%s\", \"type\":\"%s\", \"mins\":%d, \"pulse\":%d}",
-                        a.getDateTime().format(DATE_FMT),
-                        a.getType() != null ? a.getType() : "Workout",
-                        a.getDurationSeconds() / 60,
-                        a.getAvgPulse() != null ? a.getAvgPulse() : 0
-                ))
-                .collect(Collectors.joining(", ", "[", "]"));
-    }
+	/**
+	 * Joins the entries (oldest first) into a JSON array of at most
+	 * {@code maxChars}, dropping the oldest entries that do not fit.
+	 */
+	private static String joinNewest(List<String> entries, int maxChars) {
+		int first = entries.size();
+		int length = 2; // []
+		while (first > 0) {
+			int added = entries.get(first - 1).length() + (first < entries.size() ? 2 : 0);
+			if (length + added > maxChars) {
+				break;
+			}
+			length += added;
+			first--;
+		}
+		StringBuilder sb = new StringBuilder(length).append('[');
+		for (int i = first; i < entries.size(); i++) {
+			if (i > first) {
+				sb.append(", ");
+			}
+			sb.append(entries.get(i));
+		}
+		return sb.append(']').toString();
+	}
 
 	private record GenerationConfig(double minSleep, double maxSleep, int minSteps, int maxSteps, int minStress,
 			int maxStress, String activityPatterns, String activityDistribution) {
@@ -1,31 +1,91 @@
 package com.ua.pohribnyi.fitadvisorbot.service.ai.prompt;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
-import lombok.RequiredArgsConstructor;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class PromptService {
 
-	public PromptService(@Qualifier("promptMessageSource") MessageSource promptMessageSource) {
+	public static final String DAILY_ADVICE = "ai.daily-advice";
+	public static final String HISTORY_GENERATION = "ai.history-generation";
+
+	private final MessageSource promptMessageSource;
+	private final MeterRegistry meterRegistry;
+
+	// Templates are parsed on first use and kept, like the message source keeps the YAML
+	private final Map<String, PromptTemplate> templates = new ConcurrentHashMap<>();
+	private final Map<String, Long> budgets;
+	private final Map<String, DistributionSummary> sizes = new ConcurrentHashMap<>();
+
+	public PromptService(@Qualifier("promptMessageSource") MessageSource promptMessageSource,
+			MeterRegistry meterRegistry,
+			@Value("${app.ai.prompts.daily-advice.max-tokens:2000}") long dailyAdviceMaxTokens,
+			@Value("${app.ai.prompts.history-generation.max-tokens:1500}") long historyGenerationMaxTokens) {
 		this.promptMessageSource = promptMessageSource;
+		this.meterRegistry = meterRegistry;
+		this.budgets = Map.of(DAILY_ADVICE, dailyAdviceMaxTokens, HISTORY_GENERATION, historyGenerationMaxTokens);
 	}
 
-	private final MessageSource promptMessageSource;
-	
 	/**
 	 * Форматує промпт з параметрами
-	 * 
+	 *
 	 * @param key  ключ промпту (ai.daily-advice, ai.history-generation)
-	 * @param args параметри для String.format()
+	 * @param args параметри у форматі String.format() (%s, %d, %.1f)
 	 */
 	public String format(String key, Object... args) {
-		String template = promptMessageSource.getMessage(key, null, Locale.ENGLISH);
-		return String.format(Locale.US, template, args);
+		return template(key).render(args);
+	}
+
+	public PromptTemplate template(String key) {
+		return templates.computeIfAbsent(key, k -> PromptTemplate.compile(getRaw(k)));
+	}
+
+	/**
+	 * @return by how many characters the prompt exceeds the token budget of
+	 *         {@code key}, 0 if it fits or the key has no budget
+	 */
+	public int overBudgetChars(String key, String prompt) {
+		Long budget = budgets.get(key);
+		if (budget == null) {
+			return 0;
+		}
+		return (int) Math.max(0, prompt.length() - GeminiTokenBudget.charsFor(budget));
+	}
+
+	/**
+	 * Records the estimated token size of a finished prompt
+	 * ({@code ai.prompt.tokens}) and warns if it is still over budget.
+	 *
+	 * @return the prompt, for chaining
+	 */
+	public String measure(String key, String prompt) {
+		long tokens = GeminiTokenBudget.estimate(prompt, 0);
+		sizes.computeIfAbsent(key, k -> DistributionSummary.builder("ai.prompt.tokens")
+				.description("Estimated prompt size in tokens")
+				.tag("prompt", k)
+				.register(meterRegistry))
+			.record(tokens);
+
+		Long budget = budgets.get(key);
+		if (budget != null && tokens > budget) {
+			Counter.builder("ai.prompt.over_budget").tag("prompt", key).register(meterRegistry).increment();
+			log.warn("⚠️ Prompt {} is ~{} tokens, over its budget of {}", key, tokens, budget);
+		}
+		return prompt;
 	}
 
 	public String getRaw(String key) {
@@ -40,4 +100,4 @@ public class PromptService {
 			return false;
 		}
 	}
-}
\ No newline at end of file
+}
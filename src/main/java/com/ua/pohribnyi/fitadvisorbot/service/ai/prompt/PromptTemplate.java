@@ -0,0 +1,154 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.prompt;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link String#format} prompt template parsed once into literal segments
+ * and typed slots.
+ *
+ * Supported specifiers are the ones our prompts use: {@code %s}, {@code %d},
+ * {@code %.Nf}, {@code %n} and {@code %%}. Rendering appends the segments into
+ * one pre-sized builder and gives the same output as
+ * {@code String.format(Locale.US, pattern, args)}. Templates with any other
+ * specifier, and values the fast path does not cover (NaN, negative or
+ * non-double floats), are rendered with {@link String#format} itself.
+ */
+public final class PromptTemplate {
+
+	private enum SlotType {
+		STRING, INTEGER, FIXED
+	}
+
+	private record Slot(SlotType type, int precision) {
+	}
+
+	private final String pattern;
+	private final String[] literals; // literals[i] precedes slots[i]; the last one ends the template
+	private final Slot[] slots;
+	private final int literalLength;
+	private final boolean compiled;
+
+	private PromptTemplate(String pattern, List<String> literals, List<Slot> slots, boolean compiled) {
+		this.pattern = pattern;
+		this.literals = literals.toArray(String[]::new);
+		this.slots = slots.toArray(Slot[]::new);
+		this.literalLength = literals.stream().mapToInt(String::length).sum();
+		this.compiled = compiled;
+	}
+
+	public static PromptTemplate compile(String pattern) {
+		List<String> literals = new ArrayList<>();
+		List<Slot> slots = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i++);
+			if (c != '%') {
+				literal.append(c);
+				continue;
+			}
+			int end = specifierEnd(pattern, i);
+			String spec = end > 0 ? pattern.substring(i, end) : "";
+			if (spec.equals("%")) {
+				literal.append('%');
+			} else if (spec.equals("n")) {
+				literal.append(System.lineSeparator());
+			} else if (spec.equals("s") || spec.equals("d")) {
+				literals.add(literal.toString());
+				literal.setLength(0);
+				slots.add(new Slot(spec.equals("s") ? SlotType.STRING : SlotType.INTEGER, 0));
+			} else if (spec.matches("\\.\\d{1,2}f")) {
+				literals.add(literal.toString());
+				literal.setLength(0);
+				slots.add(new Slot(SlotType.FIXED, Integer.parseInt(spec.substring(1, spec.length() - 1))));
+			} else {
+				// Flags, widths, indices, ...: not worth a second formatter
+				return new PromptTemplate(pattern, List.of(pattern), List.of(), false);
+			}
+			i = end;
+		}
+		literals.add(literal.toString());
+		return new PromptTemplate(pattern, literals, slots, true);
+	}
+
+	/**
+	 * @return the rendered prompt; throws {@link IllegalArgumentException} if an
+	 *         argument is missing or of the wrong type for its slot
+	 */
+	public String render(Object... args) {
+		if (!compiled) {
+			return String.format(Locale.US, pattern, args);
+		}
+		if (args.length < slots.length) {
+			throw new IllegalArgumentException(
+					"Prompt template expects " + slots.length + " arguments, got " + args.length);
+		}
+		StringBuilder sb = new StringBuilder(literalLength + 64 * slots.length);
+		for (int i = 0; i < slots.length; i++) {
+			sb.append(literals[i]);
+			appendSlot(sb, slots[i], args[i], i);
+		}
+		return sb.append(literals[slots.length]).toString();
+	}
+
+	/**
+	 * @return number of arguments the template consumes
+	 */
+	public int slotCount() {
+		return compiled ? slots.length : -1;
+	}
+
+	/**
+	 * @return length of the fixed text, i.e. the prompt size before arguments
+	 */
+	public int literalLength() {
+		return literalLength;
+	}
+
+	private static void appendSlot(StringBuilder sb, Slot slot, Object arg, int index) {
+		if (arg == null) {
+			sb.append("null");
+			return;
+		}
+		switch (slot.type()) {
+		case STRING -> sb.append(arg);
+		case INTEGER -> {
+			if (!(arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte)) {
+				throw new IllegalArgumentException("Argument " + index + " must be an integer, got "
+						+ arg.getClass().getSimpleName());
+			}
+			sb.append(((Number) arg).longValue());
+		}
+		case FIXED -> {
+			if (!(arg instanceof Double || arg instanceof Float || arg instanceof BigDecimal)) {
+				throw new IllegalArgumentException("Argument " + index + " must be a floating-point number, got "
+						+ arg.getClass().getSimpleName());
+			}
+			if (arg instanceof Double value && Double.isFinite(value) && value >= 0) {
+				// Same HALF_UP rounding of the shortest decimal form as Formatter
+				sb.append(new BigDecimal(Double.toString(value)).setScale(slot.precision(), RoundingMode.HALF_UP)
+						.toPlainString());
+			} else {
+				sb.append(String.format(Locale.US, "%." + slot.precision() + "f", arg));
+			}
+		}
+		}
+	}
+
+	/**
+	 * @return index just past the conversion character of the specifier at
+	 *         {@code from}, or -1 if the pattern ends inside it
+	 */
+	private static int specifierEnd(String pattern, int from) {
+		for (int i = from; i < pattern.length(); i++) {
+			if (Character.isLetter(pattern.charAt(i)) || pattern.charAt(i) == '%') {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,228 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.AiLane;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Priority scheduler in front of all work that calls Gemini.
+ *
+ * Each {@link AiLane} has its own bounded queue ordered by deadline. A fixed
+ * number of workers take tasks from the lanes by stride scheduling: every lane
+ * gets a share of the workers proportional to its weight while it has work,
+ * and an idle lane's share goes to the others. A morning wave of daily advice
+ * therefore cannot starve onboarding (or the other way round), and a full lane
+ * rejects new work instead of growing without limit.
+ */
+@Slf4j
+@Component
+public class AiWorkScheduler {
+
+	/** Divisible by every lane weight, so strides stay integral. */
+	private static final long STRIDE_BASE = 60;
+
+	private static final Comparator<Task> EARLIEST_DEADLINE = Comparator.comparingLong((Task t) -> t.deadline)
+			.thenComparingLong(t -> t.sequence);
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Map<AiLane, Lane> lanes = new EnumMap<>(AiLane.class);
+
+	private final int concurrency;
+	private final ExecutorService workers = Executors
+			.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-work-", 0).factory());
+	private volatile boolean running = true;
+
+	private long sequence;
+	private long virtualTime;
+
+	public AiWorkScheduler(MeterRegistry meterRegistry,
+			@Value("${app.ai.scheduler.concurrency:5}") int concurrency,
+			@Value("${app.ai.scheduler.interactive-queue-size:500}") int interactiveQueueSize,
+			@Value("${app.ai.scheduler.onboarding-queue-size:200}") int onboardingQueueSize) {
+		this.concurrency = concurrency;
+		lanes.put(AiLane.INTERACTIVE, new Lane(AiLane.INTERACTIVE, interactiveQueueSize, meterRegistry));
+		lanes.put(AiLane.ONBOARDING, new Lane(AiLane.ONBOARDING, onboardingQueueSize, meterRegistry));
+	}
+
+	@PostConstruct
+	public void start() {
+		for (int i = 0; i < concurrency; i++) {
+			workers.execute(this::runWorker);
+		}
+		log.info("AI work scheduler started: concurrency={}", concurrency);
+	}
+
+	/**
+	 * Queues a task with the lane's default deadline.
+	 *
+	 * @throws RejectedExecutionException if the lane is full or shutting down
+	 */
+	public void submit(AiLane lane, Runnable task) {
+		submit(lane, Instant.now().plus(lane.getDefaultDeadline()), task);
+	}
+
+	/**
+	 * Queues a task; within its lane, tasks with earlier deadlines run first.
+	 *
+	 * @throws RejectedExecutionException if the lane is full or shutting down
+	 */
+	public void submit(AiLane lane, Instant deadline, Runnable task) {
+		Lane queue = lanes.get(lane);
+		lock.lock();
+		try {
+			if (!running) {
+				throw new RejectedExecutionException("AI work scheduler is shut down");
+			}
+			if (queue.tasks.size() >= queue.maxSize) {
+				queue.rejected.increment();
+				log.warn("AI lane {} is full ({}), rejecting task", lane, queue.tasks.size());
+				throw new RejectedExecutionException("AI lane " + lane + " is full");
+			}
+			if (queue.tasks.isEmpty()) {
+				// A lane that was idle must not claim the share it did not use
+				queue.pass = Math.max(queue.pass, virtualTime);
+			}
+			queue.tasks.add(new Task(deadline.toEpochMilli(), sequence++, System.nanoTime(), task));
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adapter for code that expects an {@link Executor}.
+	 */
+	public Executor executor(AiLane lane) {
+		return task -> submit(lane, task);
+	}
+
+	private void runWorker() {
+		while (running) {
+			Task task;
+			Lane lane;
+			lock.lock();
+			try {
+				while ((lane = nextLane()) == null) {
+					if (!running) {
+						return;
+					}
+					available.await();
+				}
+				task = lane.tasks.poll();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			lane.waitTimer.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+			if (System.currentTimeMillis() > task.deadline) {
+				lane.deadlineMissed.increment();
+			}
+			try {
+				task.runnable.run();
+			} catch (Throwable e) {
+				log.error("AI task in lane {} failed: {}", lane.lane, e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Picks the non-empty lane with the lowest pass and advances it by its
+	 * stride. Must be called under lock.
+	 */
+	private Lane nextLane() {
+		Lane next = null;
+		for (Lane lane : lanes.values()) {
+			if (!lane.tasks.isEmpty() && (next == null || lane.pass < next.pass)) {
+				next = lane;
+			}
+		}
+		if (next != null) {
+			virtualTime = next.pass;
+			next.pass += next.stride;
+		}
+		return next;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		lock.lock();
+		try {
+			running = false;
+			available.signalAll();
+			int pending = lanes.values().stream().mapToInt(l -> l.tasks.size()).sum();
+			if (pending > 0) {
+				log.warn("AI work scheduler stopped with {} queued task(s)", pending);
+			}
+		} finally {
+			lock.unlock();
+		}
+		workers.shutdown();
+		try {
+			workers.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Lane {
+		private final AiLane lane;
+		private final int maxSize;
+		private final long stride;
+		private final PriorityQueue<Task> tasks = new PriorityQueue<>(EARLIEST_DEADLINE);
+		private long pass;
+
+		private final Timer waitTimer;
+		private final Counter rejected;
+		private final Counter deadlineMissed;
+
+		private Lane(AiLane lane, int maxSize, MeterRegistry meterRegistry) {
+			this.lane = lane;
+			this.maxSize = maxSize;
+			this.stride = STRIDE_BASE / lane.getWeight();
+
+			String tag = lane.name().toLowerCase();
+			Gauge.builder("ai.scheduler.queue.size", tasks, PriorityQueue::size)
+					.description("AI tasks waiting for a worker")
+					.tag("lane", tag)
+					.register(meterRegistry);
+			this.waitTimer = Timer.builder("ai.scheduler.wait")
+					.description("Time AI tasks spent queued")
+					.tag("lane", tag)
+					.register(meterRegistry);
+			this.rejected = Counter.builder("ai.scheduler.rejected").tag("lane", tag).register(meterRegistry);
+			this.deadlineMissed = Counter.builder("ai.scheduler.deadline.missed")
+					.description("AI tasks started after their deadline")
+					.tag("lane", tag)
+					.register(meterRegistry);
+		}
+	}
+
+	private record Task(long deadline, long sequence, long enqueuedAt, Runnable runnable) {
+	}
+}
@@ -0,0 +1,213 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.AiLane;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.GeminiApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for Gemini's tokens-per-minute limit.
+ *
+ * The Resilience4j rate limiter only counts requests, but one onboarding call
+ * may reserve 16k output tokens. Every call therefore reserves its estimated
+ * prompt + max output tokens from a sliding one-minute window before it is
+ * sent, and corrects the reservation to the real usage reported by the API
+ * afterwards. Calls that do not fit wait instead of failing, so bursts are
+ * smoothed out rather than turned into 429s and retries.
+ *
+ * Waiting calls are admitted by {@link AiLane} priority, then in arrival order,
+ * so daily advice does not queue behind onboarding history. Non-interactive
+ * lanes also leave {@code interactive-headroom} tokens of the window free,
+ * which lets an interactive call in without waiting for old reservations to
+ * expire.
+ */
+@Slf4j
+@Component
+public class GeminiTokenBudget {
+
+	private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	/**
+	 * Rough chars-per-token ratio; prompts are partly Cyrillic, which tokenizes
+	 * denser than English, so this errs on the high side.
+	 */
+	private static final double CHARS_PER_TOKEN = 3.0;
+
+	private static final Comparator<Ticket> ADMISSION_ORDER = Comparator
+			.comparingInt((Ticket t) -> t.lane.ordinal())
+			.thenComparingLong(t -> t.sequence);
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final ArrayDeque<Reservation> window = new ArrayDeque<>();
+	private final PriorityQueue<Ticket> waiters = new PriorityQueue<>(ADMISSION_ORDER);
+
+	private final long tokensPerMinute;
+	private final long interactiveHeadroom;
+	private final long maxWaitNanos;
+
+	private long reserved;
+	private long sequence;
+
+	private final Timer waitTimer;
+	private final Counter usedTokens;
+	private final Counter timeouts;
+
+	public GeminiTokenBudget(MeterRegistry meterRegistry,
+			@Value("${app.gemini.budget.tokens-per-minute:250000}") long tokensPerMinute,
+			@Value("${app.gemini.budget.interactive-headroom:20000}") long interactiveHeadroom,
+			@Value("${app.gemini.budget.max-wait-ms:300000}") long maxWaitMs) {
+		this.tokensPerMinute = tokensPerMinute;
+		// Other lanes must still be able to make progress
+		this.interactiveHeadroom = Math.min(Math.max(interactiveHeadroom, 0), tokensPerMinute / 2);
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+
+		Gauge.builder("gemini.tokens.reserved", this, b -> b.reserved)
+				.description("Tokens reserved in the current one-minute window")
+				.register(meterRegistry);
+		Gauge.builder("gemini.tokens.waiting", waiters, PriorityQueue::size)
+				.description("Calls waiting for token budget")
+				.register(meterRegistry);
+		this.waitTimer = Timer.builder("gemini.tokens.wait")
+				.description("Time spent waiting for token budget")
+				.register(meterRegistry);
+		this.usedTokens = Counter.builder("gemini.tokens.used")
+				.description("Tokens reported by the API usage metadata")
+				.register(meterRegistry);
+		this.timeouts = Counter.builder("gemini.tokens.timeouts").register(meterRegistry);
+	}
+
+	/**
+	 * Estimates the tokens a call will use in the worst case.
+	 */
+	public static long estimate(String prompt, int maxOutputTokens) {
+		long promptTokens = prompt == null ? 0 : (long) Math.ceil(prompt.length() / CHARS_PER_TOKEN);
+		return promptTokens + maxOutputTokens;
+	}
+
+	/**
+	 * Inverse of {@link #estimate}: prompt length that fits into {@code tokens}.
+	 */
+	public static long charsFor(long tokens) {
+		return (long) (tokens * CHARS_PER_TOKEN);
+	}
+
+	/**
+	 * Waits until {@code tokens} fit into the window and reserves them. Callers
+	 * of a higher-priority lane are admitted first; within a lane, in arrival
+	 * order.
+	 *
+	 * @throws GeminiApiException if the budget did not free up within max-wait
+	 */
+	public Reservation reserve(long tokens, AiLane lane) {
+		long limit = lane == AiLane.INTERACTIVE ? tokensPerMinute : tokensPerMinute - interactiveHeadroom;
+		long amount = Math.min(Math.max(tokens, 1), limit);
+		long start = System.nanoTime();
+		long deadline = start + maxWaitNanos;
+
+		lock.lock();
+		try {
+			Ticket ticket = new Ticket(lane, sequence++);
+			waiters.add(ticket);
+			try {
+				while (true) {
+					long now = System.nanoTime();
+					expire(now);
+					if (waiters.peek() == ticket && reserved + amount <= limit) {
+						Reservation reservation = new Reservation(now, amount);
+						window.addLast(reservation);
+						reserved += amount;
+						if (now - start > TimeUnit.SECONDS.toNanos(1)) {
+							log.info("Admitted Gemini call for {} tokens after waiting {} ms", amount,
+									TimeUnit.NANOSECONDS.toMillis(now - start));
+						}
+						return reservation;
+					}
+					long remaining = deadline - now;
+					if (remaining <= 0) {
+						timeouts.increment();
+						throw new GeminiApiException("Gemini token budget timeout: waited "
+								+ TimeUnit.NANOSECONDS.toSeconds(now - start) + "s for " + amount + " tokens");
+					}
+					long untilExpiry = window.isEmpty() ? remaining
+							: window.peekFirst().admittedAt + WINDOW_NANOS - now;
+					changed.awaitNanos(Math.max(1, Math.min(remaining, untilExpiry)));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GeminiApiException("Interrupted while waiting for Gemini token budget", e);
+			} finally {
+				// Admitted, timed out or interrupted: let the next caller check
+				waiters.remove(ticket);
+				changed.signalAll();
+			}
+		} finally {
+			lock.unlock();
+			waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Replaces the estimate with the tokens the call actually used. Freed tokens
+	 * become available to waiting calls immediately.
+	 */
+	public void reconcile(Reservation reservation, long actualTokens) {
+		if (actualTokens < 0) {
+			return;
+		}
+		usedTokens.increment(actualTokens);
+		lock.lock();
+		try {
+			if (!reservation.expired) {
+				reserved += actualTokens - reservation.tokens;
+			}
+			reservation.tokens = actualTokens;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void expire(long now) {
+		while (!window.isEmpty() && now - window.peekFirst().admittedAt >= WINDOW_NANOS) {
+			Reservation oldest = window.pollFirst();
+			oldest.expired = true;
+			reserved -= oldest.tokens;
+		}
+	}
+
+	private record Ticket(AiLane lane, long sequence) {
+	}
+
+	/**
+	 * Tokens held by one call in the current window.
+	 */
+	public static final class Reservation {
+		private final long admittedAt;
+		private long tokens;
+		private boolean expired;
+
+		private Reservation(long admittedAt, long tokens) {
+			this.admittedAt = admittedAt;
+			this.tokens = tokens;
+		}
+
+		public long getTokens() {
+			return tokens;
+		}
+	}
+}
@@ -4,13 +4,14 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.GenerationJob;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,8 +26,31 @@ import lombok.extern.slf4j.Slf4j;
 public class JobWatchdog {
 
 	private final GenerationJobRepository jobRepository;
+	private final SchedulerLeaseService leaseService;
 
-	private static final Duration TIMEOUT = Duration.ofMinutes(5);
+	/**
+	 * Upper bound for a job to stay unfinished, queue wait included. Crashed
+	 * workers are handled by the queue itself (lease expiry), so this only
+	 * catches jobs that cannot make progress at all.
+	 */
+	private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+	/** Stages in which a job is still expected to make progress. */
+	private static final List<String> INTERMEDIATE_STATES = List.of(JobStatus.PENDING.name(),
+			JobStatus.DOWNLOADING.name(), JobStatus.DOWNLOADED.name(), JobStatus.PROCESSING.name());
+
+	private static final List<String> FINAL_STATES = List.of(JobStatus.PROCESSED.name(), JobStatus.FAILED.name());
+
+	private static final int DELETE_BATCH_SIZE = 1000;
+
+	// Only one replica runs each task; leases are a bit shorter than the interval
+	private static final String STALLED_LEASE = "job-watchdog:stalled";
+	private static final Duration STALLED_LEASE_DURATION = Duration.ofSeconds(110);
+	private static final String CLEANUP_LEASE = "job-watchdog:cleanup";
+	private static final Duration CLEANUP_LEASE_DURATION = Duration.ofHours(1);
+
+	@Value("${app.jobs.queue.max-attempts:3}")
+	private int maxAttempts;
 
 	/**
 	 * ═══════════════════════════════════════════════════════════════════ TASK #1:
@@ -36,19 +60,28 @@ public class JobWatchdog {
 	 * Запускається кожні 2 хвилини (fixedRate = 120_000 ms) Затримка старту: 1
 	 * хвилина після запуску додатку (initialDelay)
 	 * 
-	 * ЩО РОБИТЬ: 1. Знаходить Job старше 5 хвилин в проміжних станах 2. Маркує їх
+	 * ЩО РОБИТЬ: 1. Знаходить Job, що застрягли в проміжних станах 2. Маркує їх
 	 * як FAILED 3. Зберігає error details для debugging
 	 */
 	@Scheduled(fixedRate = 120_000, initialDelay = 60_000)
-	@Transactional // CRITICAL: Весь метод в одній транзакції
+	@Transactional // Один UPDATE, транзакція коротка
 	public void cleanupStalledJobs() {
-		// Cutoff time = 5 хвилин тому
-		Instant cutoff = Instant.now().minus(TIMEOUT);
+		if (!leaseService.tryAcquire(STALLED_LEASE, STALLED_LEASE_DURATION)) {
+			return;
+		}
+		// Cutoff time = 30 хвилин тому
+		Instant now = Instant.now();
+		Instant cutoff = now.minus(TIMEOUT);
 
 		log.debug("🔍 Scanning for stalled jobs (cutoff: {})", cutoff);
 
-		// Знаходимо всі "підозрілі" Job
-		List<GenerationJob> stalled = jobRepository.findAll().stream().filter(job -> isStalled(job, cutoff)).toList();
+		// Job вважається зависшим якщо він в проміжному стані і: 1. Його createdAt
+		// старше 30 хвилин, або 2. Його lease прострочений, а спроби вичерпані —
+		// черга його більше не візьме. Пошук і маркування як FAILED — одним
+		// запитом по індексах (status, created_at) / (status, lease_until)
+		List<Long> stalled = jobRepository.failStalled(INTERMEDIATE_STATES, cutoff, now, maxAttempts,
+				"JOB_TIMEOUT", // Error code для моніторингу
+				"Processing timeout exceeded"); // User-friendly message
 
 		// Якщо все OK → просто логуємо та виходимо
 		if (stalled.isEmpty()) {
@@ -57,49 +90,7 @@ public class JobWatchdog {
 		}
 
 		// ALERT: Знайдені зависші Job
-		log.warn("🚨 Found {} stalled jobs!", stalled.size());
-
-		// Обробляємо кожен зависший Job
-		stalled.forEach(job -> {
-			// Детальне логування для debugging
-			log.error("Job {} stalled in state {} for >5min. User: {}, Created: {}", job.getId(), job.getStatus(),
-					job.getUser().getTelegramUserId(), job.getCreatedAt());
-
-			// Маркуємо як FAILED з детальним описом
-			job.markAsFailed("JOB_TIMEOUT", // Error code для моніторингу
-					"Processing timeout exceeded (5 minutes)", // User-friendly message
-					String.format(
-							"Job stuck in %s state. " + "Created at: %s, " + "User: %s, "
-									+ "Possible causes: thread pool saturation, API timeout, application restart",
-							job.getStatus(), job.getCreatedAt(), job.getUser().getTelegramUserId()));
-		});
-
-		// Зберігаємо всі зміни одним batch запитом
-		jobRepository.saveAll(stalled);
-
-		log.info("✅ Marked {} stalled jobs as FAILED", stalled.size());
-	}
-
-	/**
-	 * ═══════════════════════════════════════════════════════════════════ HELPER:
-	 * Перевірка чи Job зависший
-	 * ═══════════════════════════════════════════════════════════════════
-	 * 
-	 * Job вважається зависшим якщо: 1. Він в проміжному стані
-	 * (PENDING/DOWNLOADING/PROCESSING) 2. Його createdAt старше 5 хвилин
-	 * 
-	 * ЧИ НЕ зависші стани: - PROCESSED → Job завершений успішно - FAILED → Job вже
-	 * маркований як failed - DOWNLOADED → може бути в черзі Worker 2
-	 */
-	private boolean isStalled(GenerationJob job, Instant cutoff) {
-		// Фільтруємо тільки проміжні стани
-		boolean isIntermediateState = job.getStatus() == JobStatus.PENDING || job.getStatus() == JobStatus.DOWNLOADING
-				|| job.getStatus() == JobStatus.PROCESSING;
-
-		// Перевіряємо час створення
-		boolean isTooOld = job.getCreatedAt().isBefore(cutoff);
-
-		return isIntermediateState && isTooOld;
+		log.warn("🚨 Marked {} stalled jobs as FAILED: {}", stalled.size(), stalled);
 	}
 
 	/**
@@ -119,24 +110,27 @@ public class JobWatchdog {
 	 * ЩО НЕ ВИДАЛЯЄТЬСЯ: - PENDING/DOWNLOADING/PROCESSING (можуть бути активними)
 	 */
 	@Scheduled(cron = "0 0 2 * * *") // Кожну ніч о 2:00 AM
-	@Transactional
 	public void cleanupOldJobs() {
+		if (!leaseService.tryAcquire(CLEANUP_LEASE, CLEANUP_LEASE_DURATION)) {
+			return;
+		}
 		log.info("🗑️ Starting nightly job cleanup...");
 
 		// Видаляємо Job старше 7 днів
 		Instant cutoff = Instant.now().minus(Duration.ofDays(7));
 
-		List<GenerationJob> oldJobs = jobRepository.findAll().stream()
-				// Тільки завершені Job
-				.filter(job -> job.getStatus() == JobStatus.PROCESSED || job.getStatus() == JobStatus.FAILED)
-				// Тільки старі
-				.filter(job -> job.getCompletedAt() != null && job.getCompletedAt().isBefore(cutoff)).toList();
+		// Порціями по DELETE_BATCH_SIZE, кожна порція — окрема коротка транзакція
+		int total = 0;
+		int deleted;
+		do {
+			deleted = jobRepository.deleteCompletedBefore(FINAL_STATES, cutoff, DELETE_BATCH_SIZE);
+			total += deleted;
+		} while (deleted == DELETE_BATCH_SIZE);
 
-		if (!oldJobs.isEmpty()) {
-			jobRepository.deleteAll(oldJobs);
-			log.info("✅ Deleted {} old jobs (>7 days)", oldJobs.size());
+		if (total > 0) {
+			log.info("✅ Deleted {} old jobs (>7 days)", total);
 		} else {
 			log.debug("✅ No old jobs to cleanup");
 		}
 	}
-}
\ No newline at end of file
+}
@@ -1,17 +1,12 @@
 package com.ua.pohribnyi.fitadvisorbot.service.analytics;
 
 import java.time.Duration;
-import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.AnalyticsMetricType;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageService;
 import com.ua.pohribnyi.fitadvisorbot.util.math.MathUtils;
@@ -62,13 +57,13 @@ public abstract class AbstractGoalStrategy implements GoalAnalyticsStrategy {
     /**
      * Calculates universal metrics relevant for ANY goal.
      */
-    public List<MetricResult> calculateBaseMetrics(User user, List<Activity> activities, List<DailyMetric> dailyMetrics, Duration duration) {
+    public List<MetricResult> calculateBaseMetrics(User user, MetricsSnapshot snapshot, Duration duration) {
         List<MetricResult> results = new ArrayList<>();
         String lang = user.getLanguageCode();
 
         // 1. Regularity Index (RI)
         long totalDays = Math.max(1, duration.toDays());
-        long activeDaysCount = calculateActiveDays(activities, dailyMetrics);
+        long activeDaysCount = calculateActiveDays(snapshot);
 
 		double activeDaysPerWeek = ((double) activeDaysCount / totalDays) * DAYS_IN_WEEK;
 
@@ -82,8 +77,8 @@ public abstract class AbstractGoalStrategy implements GoalAnalyticsStrategy {
 
         // 2. Recovery Balance (RB)
         // Logic: AvgSleep - AvgStress. Example: 7.5h - 2.5 = 5.0 (Great). 6.0h - 4.0 = 2.0 (Poor).
-        double avgSleep = dailyMetrics.stream().mapToDouble(DailyMetric::getSleepHours).average().orElse(7.0);
-        double avgStress = dailyMetrics.stream().mapToDouble(DailyMetric::getStressLevel).average().orElse(3.0);
+        double avgSleep = snapshot.metricCount() > 0 ? snapshot.averageSleepHours() : 7.0;
+        double avgStress = snapshot.averageStress();
         double rbScore = avgSleep - avgStress;
 
         results.add(buildResult(
@@ -97,10 +92,11 @@ public abstract class AbstractGoalStrategy implements GoalAnalyticsStrategy {
 
         // 3. Load Consistency (LS)
         // Logic: Stability of daily steps/load. 100 - Coefficient of Variation (CV).
-        List<Double> dailyLoads = dailyMetrics.stream()
-                .map(d -> (double) d.getDailyBaseSteps())
-                .toList();
-        
+        double[] dailyLoads = new double[snapshot.metricCount()];
+        for (int i = 0; i < dailyLoads.length; i++) {
+            dailyLoads[i] = snapshot.steps(i);
+        }
+
         double cv = MathUtils.calculateCV(dailyLoads); // e.g. 0.15 (15% variance)
         double consistency = Math.max(0, (1.0 - cv) * 100);
 
@@ -138,18 +134,12 @@ public abstract class AbstractGoalStrategy implements GoalAnalyticsStrategy {
         return Math.max(1, duration.toDays() / DAYS_IN_WEEK);
     }
 
-    protected double getAverageSleep(List<DailyMetric> dailyMetrics) {
-        return dailyMetrics.stream()
-                .mapToDouble(dm -> dm.getSleepHours() != null ? dm.getSleepHours() : 0.0)
-                .average()
-                .orElse(0.0);
+    protected double getAverageSleep(MetricsSnapshot snapshot) {
+        return snapshot.averageSleepHours();
     }
 
-    protected double getAverageStress(List<DailyMetric> dailyMetrics) {
-        return dailyMetrics.stream()
-                .mapToInt(dm -> dm.getStressLevel() != null ? dm.getStressLevel() : 3)
-                .average()
-                .orElse(3.0); // Default average
+    protected double getAverageStress(MetricsSnapshot snapshot) {
+        return snapshot.averageStress(); // Missing stress counts as 3
     }
 
     /**
@@ -223,15 +213,15 @@ public abstract class AbstractGoalStrategy implements GoalAnalyticsStrategy {
                 .build();
     }
     
-    private long calculateActiveDays(List<Activity> activities, List<DailyMetric> dailyMetrics) {
-        Set<LocalDate> activeDates = new HashSet<>();
-
-        activities.forEach(a -> activeDates.add(a.getDateTime().toLocalDate()));
-
-        dailyMetrics.stream()
-                .filter(d -> d.getDailyBaseSteps() != null && d.getDailyBaseSteps() >= ACTIVE_STEPS_THRESHOLD)
-                .forEach(d -> activeDates.add(d.getDate()));
-
-        return activeDates.size();
+    private long calculateActiveDays(MetricsSnapshot snapshot) {
+        long activeDays = 0;
+        for (int day = snapshot.firstDay(); day <= snapshot.lastDay(); day++) {
+            int metric = snapshot.metricIndexOn(day);
+            boolean stepsOk = metric != -1 && snapshot.steps(metric) >= ACTIVE_STEPS_THRESHOLD;
+            if (snapshot.activityCountOn(day) > 0 || stepsOk) {
+                activeDays++;
+            }
+        }
+        return activeDays;
     }
 }
@@ -0,0 +1,108 @@
+package com.ua.pohribnyi.fitadvisorbot.service.analytics;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.data.UserDailyRollupRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@code user_daily_rollups} in sync with the raw activity and metric
+ * tables.
+ *
+ * Every writer of {@code activities}/{@code daily_metrics} calls
+ * {@link #refresh} for the days it touched, inside its own transaction and
+ * after its inserts are flushed. A refresh recomputes those days from the raw
+ * rows, so it is idempotent and also covers updates and deletes. Every write
+ * of rollups also bumps the user's data version that keys the cached reports
+ * (see {@link ReportCache}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyRollupService {
+
+	private static final String BACKFILL_LEASE = "rollup-backfill";
+	// Renewed after every page, so it only has to outlast one
+	private static final Duration BACKFILL_LEASE_DURATION = Duration.ofMinutes(10);
+
+	private final UserDailyRollupRepository rollupRepository;
+	private final UserRepository userRepository;
+	private final SchedulerLeaseService leaseService;
+	private final TransactionTemplate transactionTemplate;
+
+	@Value("${app.analytics.rollups.backfill-on-startup:false}")
+	private boolean backfillOnStartup;
+
+	@Value("${app.analytics.rollups.backfill-page-size:200}")
+	private int backfillPageSize;
+
+	@Transactional
+	public void refresh(User user, LocalDate day) {
+		refresh(user, day, day);
+	}
+
+	/**
+	 * Recomputes the rollups of {@code [from, to]} for the user.
+	 */
+	@Transactional
+	public void refresh(User user, LocalDate from, LocalDate to) {
+		rollupRepository.bumpVersion(user.getId());
+		rollupRepository.deleteRange(user.getId(), from, to);
+		int days = rollupRepository.rebuildRange(user.getId(), from, to, from.atStartOfDay(),
+				to.plusDays(1).atStartOfDay());
+		log.debug("Refreshed {} daily rollups for user {} ({}..{})", days, user.getId(), from, to);
+	}
+
+	/**
+	 * Builds rollups for days that have raw rows but none yet, e.g. history
+	 * written before the table existed. Opt-in for the deploy that needs it
+	 * ({@code backfill-on-startup}); only the replica holding the lease runs it.
+	 * Users are walked in pages of {@code backfill-page-size}, each page in its
+	 * own short transaction, so no transaction spans the whole history.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfillMissingDays() {
+		if (!backfillOnStartup || !leaseService.tryAcquire(BACKFILL_LEASE, BACKFILL_LEASE_DURATION)) {
+			return;
+		}
+		long started = System.currentTimeMillis();
+		long afterUserId = 0;
+		int total = 0;
+		while (true) {
+			List<Long> page = userRepository.findIdsAfter(afterUserId, backfillPageSize);
+			if (page.isEmpty()) {
+				break;
+			}
+			long from = afterUserId;
+			long to = page.get(page.size() - 1);
+			Integer days = transactionTemplate.execute(status -> {
+				rollupRepository.bumpVersions(from, to);
+				return rollupRepository.backfillMissingDays(from, to);
+			});
+			total += days != null ? days : 0;
+			afterUserId = to;
+			if (page.size() < backfillPageSize) {
+				break;
+			}
+			if (!leaseService.tryAcquire(BACKFILL_LEASE, BACKFILL_LEASE_DURATION)) {
+				log.warn("Lost the rollup backfill lease after user {}, stopping", afterUserId);
+				break;
+			}
+		}
+		log.info("Backfilled {} daily rollups in {} ms", total, System.currentTimeMillis() - started);
+	}
+}
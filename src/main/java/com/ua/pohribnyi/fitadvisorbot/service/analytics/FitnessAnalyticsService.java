@@ -11,11 +11,11 @@ import org.springframework.transaction.annotation.Transactional;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.UserDailyRollup;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.repository.data.ActivityRepository;
-import com.ua.pohribnyi.fitadvisorbot.repository.data.DailyMetricRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.data.UserDailyRollupRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageService;
 
@@ -28,30 +28,33 @@ import lombok.extern.slf4j.Slf4j;
 public class FitnessAnalyticsService {
 
 	private final ActivityRepository activityRepository;
-	private final DailyMetricRepository dailyMetricRepository;
+	private final UserDailyRollupRepository rollupRepository;
 	private final UserProfileRepository userProfileRepository;
 	private final List<GoalAnalyticsStrategy> strategies;
+	private final ReportCache reportCache;
 
 	@Transactional(readOnly = true)
 	public PeriodReportDto generateOnboardingReport(User user) {
 		return generateReport(user, Duration.ofDays(30), "analytics.report.period.initial");
 	}
 
+	/**
+	 * Served from {@link ReportCache} until new data lands for the user (on any
+	 * instance) or the profile changes, so toggling details does not recompute
+	 * the report.
+	 */
 	@Transactional(readOnly = true)
 	public PeriodReportDto generateReport(User user, UserProfile profile, Duration duration, String periodKey) {
+		long dataVersion = rollupRepository.findDataVersion(user.getId());
+		return reportCache.get(user.getId(), dataVersion, profile.getGoal(), profile.getAge(), duration, periodKey,
+				() -> buildReport(user, profile, duration, periodKey));
+	}
+
+	private PeriodReportDto buildReport(User user, UserProfile profile, Duration duration, String periodKey) {
 		LocalDateTime sinceDateTime = LocalDateTime.now().minus(duration);
 		LocalDate sinceDate = LocalDate.now().minusDays(duration.toDays());
 
-		// 1. Base Metrics
-		List<Activity> activities = activityRepository.findActivitiesByUserAndDateAfter(user, sinceDateTime);
-		List<DailyMetric> dailyMetrics = dailyMetricRepository.findMetricsByUserAndDateAfter(user, sinceDate);
-
-		
-		int totalActivities = activities.size();
-		double totalDistKm = activities.stream().mapToDouble(Activity::getDistanceMeters).sum() / 1000.0;
-		double totalDurationHours = activities.stream().mapToDouble(Activity::getDurationSeconds).sum() / 3600.0;
-
-		// 2. Determine Strategy
+		// 1. Determine Strategy
 		String goal = profile.getGoal() != null ? profile.getGoal() : "health";
 
 		GoalAnalyticsStrategy strategy = strategies.stream()
@@ -62,15 +65,28 @@ public class FitnessAnalyticsService {
 						.findFirst()
 						.orElseThrow(() -> new IllegalStateException("No strategies available"))); 
 
+		// 2. Base Metrics: one rollup row per day, raw activities only if the strategy needs them
+		List<UserDailyRollup> rollups = rollupRepository.findRollupsByUserAndDateAfter(user, sinceDate);
+		List<Activity> activities = strategy.requiresActivityDetail()
+				? activityRepository.findActivitiesByUserAndDateAfter(user, sinceDateTime)
+				: List.of();
+
+		// Columnar copy shared by every calculation below
+		MetricsSnapshot snapshot = MetricsSnapshot.ofRollups(rollups, activities);
+
+		int totalActivities = snapshot.totalActivities();
+		double totalDistKm = snapshot.totalDistanceMeters() / 1000.0;
+		double totalDurationHours = snapshot.totalDurationSeconds() / 3600.0;
+
 		// 3. Metrics Calculation
-		List<MetricResult> baseMetrics = strategy.calculateBaseMetrics(user, activities, dailyMetrics, duration);
+		List<MetricResult> baseMetrics = strategy.calculateBaseMetrics(user, snapshot, duration);
 
-		List<MetricResult> advancedMetrics = strategy.calculateMetrics(user, profile, activities, dailyMetrics, duration);
+		List<MetricResult> advancedMetrics = strategy.calculateMetrics(user, profile, snapshot, duration);
 
-		MetricResult predictionMetric = strategy.calculatePredictionMetric(user, profile, activities, dailyMetrics);
+		MetricResult predictionMetric = strategy.calculatePredictionMetric(user, profile, snapshot);
 		
 		// 4. Consistency & Advisor
-		int consistencyScore = strategy.calculateConsistencyScore(user, activities, dailyMetrics, duration, advancedMetrics);
+		int consistencyScore = strategy.calculateConsistencyScore(user, snapshot, duration, advancedMetrics);
 		String advisorKey = strategy.getAdvisorSummaryKey(consistencyScore);
 
 		return PeriodReportDto.builder()
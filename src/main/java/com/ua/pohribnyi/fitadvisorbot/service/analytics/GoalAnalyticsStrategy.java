@@ -4,14 +4,13 @@ import java.time.Duration;
 import java.util.List;
 
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 
 /**
  * Strategy interface for goal-oriented analytics. Each implementation handles a
- * specific UserProfile goal.
+ * specific UserProfile goal. All calculations of one report read the same
+ * {@link MetricsSnapshot}.
  */
 public interface GoalAnalyticsStrategy {
 
@@ -24,30 +23,37 @@ public interface GoalAnalyticsStrategy {
 	
 	String getGoalTitleKey();
 
-	List<MetricResult> calculateBaseMetrics(User user, List<Activity> activities, List<DailyMetric> dailyMetrics,
-			Duration duration);
+	/**
+	 * Whether the calculations read per-activity columns of the snapshot. When
+	 * false, the report is built from daily rollups only and no activity rows
+	 * are loaded.
+	 */
+	default boolean requiresActivityDetail() {
+		return true;
+	}
+
+	List<MetricResult> calculateBaseMetrics(User user, MetricsSnapshot snapshot, Duration duration);
 
 	/**
 	 * Calculates specific advanced metrics based on the goal. * @param duration The
 	 * time period covered by this report (e.g. 7 days, 60 days). Crucial for
 	 * calculating averages and volumes correctly.
 	 */
-	List<MetricResult> calculateMetrics(User user, UserProfile userProfile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics, Duration duration);
+	List<MetricResult> calculateMetrics(User user, UserProfile userProfile, MetricsSnapshot snapshot,
+			Duration duration);
 
 	/**
 	 * Calculates the single most important prediction metric for the goal. E.g.,
 	 * Race Predictor for runners, Calorie Forecast for weight loss.
 	 */
-	MetricResult calculatePredictionMetric(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics);
+	MetricResult calculatePredictionMetric(User user, UserProfile profile, MetricsSnapshot snapshot);
 
 	/**
 	 * Calculates consistency score using ALREADY calculated metrics to avoid
 	 * redundancy.
 	 */
-	int calculateConsistencyScore(User user, List<Activity> activities, List<DailyMetric> dailyMetrics,
-			Duration duration, List<MetricResult> advancedMetrics);
+	int calculateConsistencyScore(User user, MetricsSnapshot snapshot, Duration duration,
+			List<MetricResult> advancedMetrics);
 
 	/**
 	 * Returns a message key for the Smart Advisor summary based on user
@@ -4,20 +4,13 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.springframework.stereotype.Component;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.AnalyticsMetricType;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageService;
@@ -77,8 +70,13 @@ public class HealthStrategy extends AbstractGoalStrategy {
 	}
 
 	@Override
-	public List<MetricResult> calculateMetrics(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics, Duration duration) {
+	public boolean requiresActivityDetail() {
+		return false; // Daily sums are enough
+	}
+
+	@Override
+	public List<MetricResult> calculateMetrics(User user, UserProfile profile, MetricsSnapshot snapshot,
+			Duration duration) {
 		List<MetricResult> results = new ArrayList<>();
 		
 		String lang = user.getLanguageCode();
@@ -86,43 +84,32 @@ public class HealthStrategy extends AbstractGoalStrategy {
 		double weeks = getWeeks(duration);
 
 		// 1. WHO Activity Compliance
-		results.add(calcActiveLoad(activities, dailyMetrics, weeks, lang));
+		results.add(calcActiveLoad(snapshot, weeks, lang));
 
 		// 2. Zen Day (Best Stress Day)
-		results.add(calcZenDay(dailyMetrics, lang));
+		results.add(calcZenDay(snapshot, lang));
 
         // 3. Restorative Nights (Frequency)
-		results.add(calcRestorativeNights(dailyMetrics, reportDurationDays, lang));
+		results.add(calcRestorativeNights(snapshot, reportDurationDays, lang));
 		
 		return results;
 	}
 
 	@Override
-	public MetricResult calculatePredictionMetric(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics) {
+	public MetricResult calculatePredictionMetric(User user, UserProfile profile, MetricsSnapshot snapshot) {
 
 		String lang = user.getLanguageCode();
-		LocalDate today = LocalDate.now();
-
-		// Map dates to Activity Duration
-		Map<LocalDate, Integer> activityMinutesMap = activities.stream()
-				.collect(Collectors.groupingBy(
-						a -> a.getDateTime().toLocalDate(), 
-						Collectors.summingInt(a -> a.getDurationSeconds() / 60)
-						));
-
-		Map<LocalDate, DailyMetric> metricsMap = dailyMetrics.stream()
-                .collect(Collectors.toMap(DailyMetric::getDate, Function.identity(), (e1, e2) -> e1));
+		int today = MetricsSnapshot.epochDay(LocalDate.now());
 
-		
-		// 2. Check Today (Bonus)
+		// 1. Check Today (Bonus)
         // If today is “green,” we add +1. If not, it’s okay — the streak doesn’t break.
-        boolean isTodayGreen = isGreenDay(today, metricsMap, activityMinutesMap);
+        boolean isTodayGreen = isGreenDay(snapshot, today);
 
-		// 3. Calculate History Streak
-        long historyStreak = Stream.iterate(today.minusDays(1), date -> date.minusDays(1))
-                .takeWhile(date -> isGreenDay(date, metricsMap, activityMinutesMap))
-                .count();
+		// 2. Calculate History Streak
+        long historyStreak = 0;
+        for (int day = today - 1; isGreenDay(snapshot, day); day--) {
+            historyStreak++;
+        }
 
         int totalStreak = (int) historyStreak + (isTodayGreen ? 1 : 0);
 
@@ -137,24 +124,24 @@ public class HealthStrategy extends AbstractGoalStrategy {
     }
 	
 	@Override
-	public int calculateConsistencyScore(User user, List<Activity> activities, List<DailyMetric> dailyMetrics,
-			Duration duration, List<MetricResult> advancedMetrics) {
+	public int calculateConsistencyScore(User user, MetricsSnapshot snapshot, Duration duration,
+			List<MetricResult> advancedMetrics) {
 
 		double weeklyMinutes = extractMetricValue(advancedMetrics, AnalyticsMetricType.ACTIVE_LOAD);
 		// Fallback if metric not found (e.g. error): Estimate based on daily metrics NEAT
-		if (weeklyMinutes == 0.0 && !dailyMetrics.isEmpty()) {
+		if (weeklyMinutes == 0.0 && snapshot.metricCount() > 0) {
 			double weeks = getWeeks(duration);
-			weeklyMinutes = calcActiveLoad(activities, dailyMetrics, weeks, user.getLanguageCode()).getRawValue();
+			weeklyMinutes = calcActiveLoad(snapshot, weeks, user.getLanguageCode()).getRawValue();
 		}
 		
 		int volumeScore = calcComponentScore(weeklyMinutes, TARGET_ACTIVE_LOAD, 40);
 
 		// 2. Sleep (30%) - Target: 7.0h Avg
-		double avgSleep = getAverageSleep(dailyMetrics);
+		double avgSleep = getAverageSleep(snapshot);
 		int sleepScore = calcComponentScore(avgSleep, DEFAULT_SLEEP_GOAL, 30);
 
 		// 3. Stress (30%) - Target: <= 2.5 (Low Stress)
-		double avgStress = getAverageStress(dailyMetrics);
+		double avgStress = getAverageStress(snapshot);
 		// Inverse logic: 2.5 -> 100%, 5.0 -> 0%
 		double stressPerformance = Math.max(0, (5.0 - avgStress) / (5.0 - LOW_STRESS_THRESHOLD)); 
 		int stressScore = (int) (Math.min(1.0, stressPerformance) * 30);
@@ -162,13 +149,12 @@ public class HealthStrategy extends AbstractGoalStrategy {
 		return volumeScore + sleepScore + stressScore;
 	}
 
-	private MetricResult calcActiveLoad(List<Activity> activities, List<DailyMetric> dailyMetrics, double weeks,
-			String lang) {
+	private MetricResult calcActiveLoad(MetricsSnapshot snapshot, double weeks, String lang) {
 		// 1. Total Base Steps
-		double workoutMinutes = activities.stream().mapToLong(Activity::getDurationSeconds).sum() / 60.0;
+		double workoutMinutes = snapshot.totalDurationSeconds() / 60.0;
 
 		// 2. "Smart" Walking Minutes
-		double effectiveWalkingMinutes = calcNEATSteps(dailyMetrics) / STEPS_TO_MINUTES_RATIO;
+		double effectiveWalkingMinutes = calcNEATSteps(snapshot) / STEPS_TO_MINUTES_RATIO;
 
 		// Total Weekly Average
 		double weeklyTotal = (workoutMinutes + effectiveWalkingMinutes) / weeks;
@@ -183,16 +169,21 @@ public class HealthStrategy extends AbstractGoalStrategy {
 		);
 	}
 
-	private MetricResult calcZenDay(List<DailyMetric> dailyMetrics, String lang) {
-        // Find day with MINIMUM stress
-        DailyMetric bestDay = dailyMetrics.stream()
-                .min(Comparator.comparingInt(DailyMetric::getStressLevel))
-                .orElse(null);
+	private MetricResult calcZenDay(MetricsSnapshot snapshot, String lang) {
+        // Find day with MINIMUM stress (first one on ties)
+        int bestDay = -1;
+        for (int i = 0; i < snapshot.metricCount(); i++) {
+            int stress = snapshot.stress(i);
+            if (stress != MetricsSnapshot.NO_STRESS && (bestDay == -1 || stress < snapshot.stress(bestDay))) {
+                bestDay = i;
+            }
+        }
 
         String valueText = "N/A";
-        if (bestDay != null) {
+        if (bestDay != -1) {
             Locale locale = "uk".equals(lang) ? Locale.of("uk", "UA") : Locale.ENGLISH;
-            String dayName = bestDay.getDate().getDayOfWeek().getDisplayName(TextStyle.FULL, locale);
+            String dayName = LocalDate.ofEpochDay(snapshot.metricDay(bestDay)).getDayOfWeek()
+                    .getDisplayName(TextStyle.FULL, locale);
             // Capitalize first letter
             dayName = dayName.substring(0, 1).toUpperCase() + dayName.substring(1);
             
@@ -209,10 +200,13 @@ public class HealthStrategy extends AbstractGoalStrategy {
         );
     }
 
-	private MetricResult calcRestorativeNights(List<DailyMetric> dailyMetrics, long totalDays, String lang) {
-        long goodSleepDays = dailyMetrics.stream()
-                .filter(d -> d.getSleepHours() != null && d.getSleepHours() >= DEFAULT_SLEEP_GOAL)
-                .count();
+	private MetricResult calcRestorativeNights(MetricsSnapshot snapshot, long totalDays, String lang) {
+        long goodSleepDays = 0;
+        for (int i = 0; i < snapshot.metricCount(); i++) {
+            if (snapshot.sleepHours(i) >= DEFAULT_SLEEP_GOAL) {
+                goodSleepDays++;
+            }
+        }
         
         double validDays = Math.min(goodSleepDays, totalDays);
         double nightsPerWeek = (validDays / totalDays) * DAYS_IN_WEEK;
@@ -227,32 +221,29 @@ public class HealthStrategy extends AbstractGoalStrategy {
         );
     }
 	
-	private int calcNEATSteps(List<DailyMetric> dailyMetrics) {
-		return dailyMetrics.stream()
-				.mapToInt(dm -> {
-					int totalSteps = dm.getDailyBaseSteps() != null ? dm.getDailyBaseSteps() : 0;
-					int effectiveSteps = Math.max(0, totalSteps - STEPS_BASELINE);
-					return effectiveSteps;
-					})
-				.sum();
+	private int calcNEATSteps(MetricsSnapshot snapshot) {
+		int effectiveSteps = 0;
+		for (int i = 0; i < snapshot.metricCount(); i++) {
+			effectiveSteps += Math.max(0, snapshot.steps(i) - STEPS_BASELINE);
+		}
+		return effectiveSteps;
 	}
 	
 	/**
 	 * Validates if a specific day meets all "Green Day" criteria.
 	 */
-	private boolean isGreenDay(LocalDate date, Map<LocalDate, DailyMetric> metricsMap,
-			Map<LocalDate, Integer> activityMap) {
+	private boolean isGreenDay(MetricsSnapshot snapshot, int epochDay) {
 		// Fail fast if no data for the day
-		if (!metricsMap.containsKey(date))
+		int i = snapshot.metricIndexOn(epochDay);
+		if (i == -1)
 			return false;
 
-		DailyMetric dm = metricsMap.get(date);
-		int sportMinutes = activityMap.getOrDefault(date, 0);
+		int sportMinutes = snapshot.activityMinutesOn(epochDay);
 
 		// Extract values with defaults
-		int baseSteps = dm.getDailyBaseSteps() != null ? dm.getDailyBaseSteps() : 0;
-		double sleep = dm.getSleepHours() != null ? dm.getSleepHours() : 0.0;
-		int stress = dm.getStressLevel() != null ? dm.getStressLevel() : 5; // Pessimistic default
+		int baseSteps = snapshot.steps(i);
+		double sleep = snapshot.sleepHours(i);
+		int stress = snapshot.stress(i) != MetricsSnapshot.NO_STRESS ? snapshot.stress(i) : 5; // Pessimistic default
 
 		// Calculate Logic
 		double eqSteps = baseSteps + (sportMinutes * SPORT_TO_STEPS_RATIO);
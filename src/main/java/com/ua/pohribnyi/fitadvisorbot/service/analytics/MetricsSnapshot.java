@@ -0,0 +1,374 @@
+package com.ua.pohribnyi.fitadvisorbot.service.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.UserDailyRollup;
+
+/**
+ * Columnar, read-only view of the data of one report.
+ *
+ * Built once per report: every field the strategies need is copied into
+ * primitive arrays in a single pass, together with the period totals, so
+ * strategies loop over ints and doubles instead of re-streaming entities.
+ * Dates are stored as epoch days.
+ *
+ * Three parts:
+ * - daily metrics (sleep, steps, stress), one slot per metric day
+ * - per-day activity sums, one slot per calendar day of the covered range
+ * - activity columns, one slot per activity; only filled when the strategy
+ *   needs per-activity detail (see {@link GoalAnalyticsStrategy#requiresActivityDetail()})
+ *
+ * Missing values become 0, except stress, which is stored as
+ * {@link #NO_STRESS} so each metric can apply its own default.
+ *
+ * Activity selections (e.g. the runs) are computed on first use and kept for
+ * the rest of the report. A snapshot is confined to the thread building the
+ * report and is not thread-safe.
+ */
+public final class MetricsSnapshot {
+
+	public static final int NO_STRESS = -1;
+
+	private static final int DEFAULT_STRESS = 3;
+
+	// --- Activities (one slot per activity) ---
+	private final int activityCount;
+	private final String[] types;
+	private final int[] activityDays;
+	private final int[] durationSeconds;
+	private final int[] distanceMeters;
+	private final int[] avgPulse;
+	private final int[] maxPulse;
+	private final int[] calories;
+	private final Map<String, int[]> selections = new HashMap<>();
+
+	// --- Daily metrics (one slot per metric row) ---
+	private int metricCount;
+	private final int[] metricDays;
+	private final double[] sleepHours;
+	private final int[] steps;
+	private final int[] stress;
+
+	// --- Per calendar day, indexed by (epochDay - firstDay) ---
+	private final int firstDay;
+	private final int[] metricIndexByDay;
+	private final int[] activityCountByDay;
+	private final int[] activityMinutesByDay;
+	private final int[] activityCaloriesByDay;
+
+	// --- Period totals ---
+	private int totalActivities;
+	private long totalDurationSeconds;
+	private long totalDistanceMeters;
+	private long totalCalories;
+	private double totalSleepHours;
+	private long totalStress;
+
+	private MetricsSnapshot(int firstDay, int lastDay, int metrics, int activities) {
+		int span = lastDay < firstDay ? 0 : lastDay - firstDay + 1;
+		this.firstDay = firstDay;
+		metricIndexByDay = new int[span];
+		activityCountByDay = new int[span];
+		activityMinutesByDay = new int[span];
+		activityCaloriesByDay = new int[span];
+		Arrays.fill(metricIndexByDay, -1);
+
+		metricDays = new int[metrics];
+		sleepHours = new double[metrics];
+		steps = new int[metrics];
+		stress = new int[metrics];
+
+		activityCount = activities;
+		types = new String[activities];
+		activityDays = new int[activities];
+		durationSeconds = new int[activities];
+		distanceMeters = new int[activities];
+		avgPulse = new int[activities];
+		maxPulse = new int[activities];
+		calories = new int[activities];
+	}
+
+	/**
+	 * Builds the snapshot from raw rows.
+	 */
+	public static MetricsSnapshot of(List<Activity> activities, List<DailyMetric> dailyMetrics) {
+		int minDay = Integer.MAX_VALUE;
+		int maxDay = Integer.MIN_VALUE;
+		for (DailyMetric metric : dailyMetrics) {
+			int day = epochDay(metric.getDate());
+			minDay = Math.min(minDay, day);
+			maxDay = Math.max(maxDay, day);
+		}
+		for (Activity activity : activities) {
+			int day = epochDay(activity.getDateTime().toLocalDate());
+			minDay = Math.min(minDay, day);
+			maxDay = Math.max(maxDay, day);
+		}
+
+		MetricsSnapshot snapshot = new MetricsSnapshot(minDay, maxDay, dailyMetrics.size(), activities.size());
+		for (DailyMetric metric : dailyMetrics) {
+			snapshot.addMetric(epochDay(metric.getDate()), metric.getSleepHours(), metric.getDailyBaseSteps(),
+					metric.getStressLevel());
+		}
+		for (int i = 0; i < activities.size(); i++) {
+			snapshot.setActivity(i, activities.get(i));
+			snapshot.addDayActivities(snapshot.activityDays[i], 1, snapshot.durationSeconds[i] / 60,
+					snapshot.calories[i], snapshot.durationSeconds[i], snapshot.distanceMeters[i]);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Builds the snapshot from daily rollups. Totals and per-day sums come from
+	 * the rollups; the activity columns are filled from {@code activities},
+	 * which may be empty when no per-activity detail is needed.
+	 */
+	public static MetricsSnapshot ofRollups(List<UserDailyRollup> rollups, List<Activity> activities) {
+		int minDay = Integer.MAX_VALUE;
+		int maxDay = Integer.MIN_VALUE;
+		int metrics = 0;
+		for (UserDailyRollup rollup : rollups) {
+			int day = epochDay(rollup.getDate());
+			minDay = Math.min(minDay, day);
+			maxDay = Math.max(maxDay, day);
+			if (rollup.isHasMetric()) {
+				metrics++;
+			}
+		}
+
+		MetricsSnapshot snapshot = new MetricsSnapshot(minDay, maxDay, metrics, activities.size());
+		for (UserDailyRollup rollup : rollups) {
+			int day = epochDay(rollup.getDate());
+			if (rollup.isHasMetric()) {
+				snapshot.addMetric(day, rollup.getSleepHours(), rollup.getSteps(), rollup.getStressLevel());
+			}
+			snapshot.addDayActivities(day, rollup.getActivityCount(), rollup.getActivityMinutes(),
+					rollup.getCalories(), rollup.getDurationSeconds(), rollup.getDistanceMeters());
+		}
+		for (int i = 0; i < activities.size(); i++) {
+			snapshot.setActivity(i, activities.get(i));
+		}
+		return snapshot;
+	}
+
+	private void addMetric(int day, Double sleep, Integer dailySteps, Integer stressLevel) {
+		int i = metricCount++;
+		metricDays[i] = day;
+		sleepHours[i] = sleep != null ? sleep : 0.0;
+		steps[i] = orZero(dailySteps);
+		stress[i] = stressLevel != null ? stressLevel : NO_STRESS;
+
+		totalSleepHours += sleepHours[i];
+		totalStress += stress[i] != NO_STRESS ? stress[i] : DEFAULT_STRESS;
+		int slot = day - firstDay;
+		if (metricIndexByDay[slot] == -1) {
+			metricIndexByDay[slot] = i; // First row wins for a duplicated day
+		}
+	}
+
+	private void addDayActivities(int day, int count, int minutes, int dayCalories, long seconds, long meters) {
+		int slot = day - firstDay;
+		activityCountByDay[slot] += count;
+		activityMinutesByDay[slot] += minutes;
+		activityCaloriesByDay[slot] += dayCalories;
+
+		totalActivities += count;
+		totalDurationSeconds += seconds;
+		totalDistanceMeters += meters;
+		totalCalories += dayCalories;
+	}
+
+	private void setActivity(int i, Activity activity) {
+		types[i] = activity.getType();
+		activityDays[i] = epochDay(activity.getDateTime().toLocalDate());
+		durationSeconds[i] = orZero(activity.getDurationSeconds());
+		distanceMeters[i] = orZero(activity.getDistanceMeters());
+		avgPulse[i] = orZero(activity.getAvgPulse());
+		maxPulse[i] = orZero(activity.getMaxPulse());
+		calories[i] = orZero(activity.getCaloriesBurned());
+	}
+
+	// --- Activities ---
+
+	/**
+	 * @return number of activity columns (0 if no per-activity detail was
+	 *         loaded); see {@link #totalActivities()} for the period count
+	 */
+	public int activityCount() {
+		return activityCount;
+	}
+
+	public String type(int i) {
+		return types[i];
+	}
+
+	public boolean isType(int i, String type) {
+		return type.equalsIgnoreCase(types[i]);
+	}
+
+	/**
+	 * @return indices of the activities of the given type (case-insensitive),
+	 *         computed once per snapshot; callers must not modify the array
+	 */
+	public int[] indicesOfType(String type) {
+		return select("type:" + type.toLowerCase(Locale.ROOT), i -> isType(i, type));
+	}
+
+	/**
+	 * Indices of the activities matching {@code filter}, computed on the first
+	 * call for {@code key} and reused afterwards, so metrics of one report share
+	 * a single pass. Callers must not modify the array.
+	 */
+	public int[] select(String key, IntPredicate filter) {
+		int[] cached = selections.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		int[] indices = new int[activityCount];
+		int n = 0;
+		for (int i = 0; i < activityCount; i++) {
+			if (filter.test(i)) {
+				indices[n++] = i;
+			}
+		}
+		int[] selected = Arrays.copyOf(indices, n);
+		selections.put(key, selected);
+		return selected;
+	}
+
+	public int activityDay(int i) {
+		return activityDays[i];
+	}
+
+	public int durationSeconds(int i) {
+		return durationSeconds[i];
+	}
+
+	public int distanceMeters(int i) {
+		return distanceMeters[i];
+	}
+
+	public int avgPulse(int i) {
+		return avgPulse[i];
+	}
+
+	public int maxPulse(int i) {
+		return maxPulse[i];
+	}
+
+	public int calories(int i) {
+		return calories[i];
+	}
+
+	// --- Daily metrics ---
+
+	public int metricCount() {
+		return metricCount;
+	}
+
+	public int metricDay(int i) {
+		return metricDays[i];
+	}
+
+	public double sleepHours(int i) {
+		return sleepHours[i];
+	}
+
+	public int steps(int i) {
+		return steps[i];
+	}
+
+	/**
+	 * @return stress level 1-5 or {@link #NO_STRESS}
+	 */
+	public int stress(int i) {
+		return stress[i];
+	}
+
+	// --- Per day ---
+
+	/**
+	 * First covered epoch day; days run up to {@link #lastDay()} inclusive.
+	 */
+	public int firstDay() {
+		return firstDay;
+	}
+
+	public int lastDay() {
+		return firstDay + metricIndexByDay.length - 1;
+	}
+
+	/**
+	 * @return index of the first metric row for the day, or -1 if there is none
+	 */
+	public int metricIndexOn(int epochDay) {
+		int slot = epochDay - firstDay;
+		return slot >= 0 && slot < metricIndexByDay.length ? metricIndexByDay[slot] : -1;
+	}
+
+	public int activityCountOn(int epochDay) {
+		int slot = epochDay - firstDay;
+		return slot >= 0 && slot < activityCountByDay.length ? activityCountByDay[slot] : 0;
+	}
+
+	/**
+	 * Sum of whole activity minutes on the day.
+	 */
+	public int activityMinutesOn(int epochDay) {
+		int slot = epochDay - firstDay;
+		return slot >= 0 && slot < activityMinutesByDay.length ? activityMinutesByDay[slot] : 0;
+	}
+
+	public int activityCaloriesOn(int epochDay) {
+		int slot = epochDay - firstDay;
+		return slot >= 0 && slot < activityCaloriesByDay.length ? activityCaloriesByDay[slot] : 0;
+	}
+
+	// --- Totals ---
+
+	public int totalActivities() {
+		return totalActivities;
+	}
+
+	public long totalDurationSeconds() {
+		return totalDurationSeconds;
+	}
+
+	public long totalDistanceMeters() {
+		return totalDistanceMeters;
+	}
+
+	public long totalCalories() {
+		return totalCalories;
+	}
+
+	/**
+	 * Average sleep per metric row, missing sleep counted as 0.
+	 */
+	public double averageSleepHours() {
+		return metricCount == 0 ? 0.0 : totalSleepHours / metricCount;
+	}
+
+	/**
+	 * Average stress per metric row, missing stress counted as 3.
+	 */
+	public double averageStress() {
+		return metricCount == 0 ? DEFAULT_STRESS : (double) totalStress / metricCount;
+	}
+
+	public static int epochDay(LocalDate date) {
+		return (int) date.toEpochDay();
+	}
+
+	private static int orZero(Integer value) {
+		return value != null ? value : 0;
+	}
+}
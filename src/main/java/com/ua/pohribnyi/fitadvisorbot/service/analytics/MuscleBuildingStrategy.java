@@ -8,8 +8,6 @@ import org.springframework.stereotype.Component;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.AnalyticsMetricType;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageService;
@@ -55,6 +53,8 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
             "WeightTraining", "Workout", "Strength", "Gym", "Crossfit", "HIIT", "CircuitTraining"
     );
 	
+	private static final String STRENGTH_SELECTION = "muscle:strength";
+
 	// Explicitly exclude cardio types to prevent false positives in Strength Workload
     private static final List<String> CARDIO_TYPES = List.of(
             "Run", "Ride", "Swim", "Hike", "Walk", "Elliptical", "NordicSki"
@@ -75,39 +75,38 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
     }
 
     @Override
-	public List<MetricResult> calculateMetrics(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics, Duration duration) {
+	public List<MetricResult> calculateMetrics(User user, UserProfile profile, MetricsSnapshot snapshot,
+			Duration duration) {
 
 		List<MetricResult> results = new ArrayList<>();
         String lang = user.getLanguageCode();
         long totalDays = Math.max(1, duration.toDays());
         double weeks = totalDays / DAYS_IN_WEEK;
 
-		List<Activity> workouts = activities.stream().filter(this::isStrengthSession).toList();
+		// Single pass over the strength sessions
+		int[] strengthSessions = strengthSessions(snapshot);
+		long strengthSeconds = totalSeconds(snapshot, strengthSessions);
+		long validSessions = strengthSessions.length;
         
         // 1. Strength Workload
-        results.add(calcStrengthWorkload(workouts, weeks, lang));
+        results.add(calcStrengthWorkload(strengthSeconds, weeks, lang));
 
         // 2. Growth Frequency
-        results.add(calcFrequency(workouts, weeks, lang));
+        results.add(calcFrequency(validSessions, weeks, lang));
 
         // 3. Anabolic Sleep
-        results.add(calcAnabolicSleep(dailyMetrics, lang));
+        results.add(calcAnabolicSleep(snapshot, lang));
 
         return results;
     }
     
     
 	@Override
-	public MetricResult calculatePredictionMetric(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics) {
+	public MetricResult calculatePredictionMetric(User user, UserProfile profile, MetricsSnapshot snapshot) {
 		String lang = user.getLanguageCode();
 
         // Total accumulated minutes in hypertrophy zone
-        long totalStrengthMinutes = activities.stream()
-                .filter(this::isStrengthSession)
-                .mapToLong(Activity::getDurationSeconds)
-                .sum() / 60;
+        long totalStrengthMinutes = totalSeconds(snapshot, strengthSessions(snapshot)) / 60;
         
 		// Protection: If total volume is very low (< 60 min), show "Start" status
 		// to avoid predicting "280 days to finish"
@@ -124,7 +123,7 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
         long remainingMinutes = HYPERTROPHY_BLOCK_MINUTES - currentBlockProgress;
 
         // Daily Pace
-        long totalDays = Math.max(1, dailyMetrics.size());
+        long totalDays = Math.max(1, snapshot.metricCount());
         double dailyPaceMinutes = (double) totalStrengthMinutes / totalDays;
         
         if (dailyPaceMinutes < 1.0) dailyPaceMinutes = 1.0; // Floor to avoid div/0
@@ -144,8 +143,8 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
     }
     
 	@Override
-	public int calculateConsistencyScore(User user, List<Activity> activities, List<DailyMetric> dailyMetrics,
-			Duration duration, List<MetricResult> advancedMetrics) {
+	public int calculateConsistencyScore(User user, MetricsSnapshot snapshot, Duration duration,
+			List<MetricResult> advancedMetrics) {
 
 		// 1. Strength Frequency (40%) - Target 3 sessions/week
 		double freqPerWeek = extractMetricValue(advancedMetrics, AnalyticsMetricType.GROWTH_FREQUENCY);
@@ -162,12 +161,8 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
 		return freqScore + sleepScore + volumeScore;
 	}
 	
-	private MetricResult calcStrengthWorkload(List<Activity> activities, double weeks, String lang) {
-        // Sum duration of ALL effective strength sessions
-        long strengthSeconds = activities.stream()
-                .mapToLong(Activity::getDurationSeconds)
-                .sum();
-        
+	private MetricResult calcStrengthWorkload(long strengthSeconds, double weeks, String lang) {
+        // Duration of ALL effective strength sessions
         double weeklyMinutes = (strengthSeconds / 60.0) / weeks;
 
         return buildResult(
@@ -180,10 +175,8 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
         );
     }
 
-    private MetricResult calcFrequency(List<Activity> activities, double weeks, String lang) {
-		// Count sessions that qualify as strength work
-		long validSessions = activities.stream()
-				.count();
+    private MetricResult calcFrequency(long validSessions, double weeks, String lang) {
+		// Sessions that qualify as strength work
 		double sessionsPerWeek = validSessions / weeks;
 
         return buildResult(
@@ -196,11 +189,14 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
         );
     }
 
-    private MetricResult calcAnabolicSleep(List<DailyMetric> metrics, String lang) {
-        long totalDays = Math.max(1, metrics.size());
-        long goodDays = metrics.stream()
-                .filter(d -> d.getSleepHours() != null && d.getSleepHours() >= MIN_SLEEP_HOURS)
-                .count();
+    private MetricResult calcAnabolicSleep(MetricsSnapshot snapshot, String lang) {
+        long totalDays = Math.max(1, snapshot.metricCount());
+        long goodDays = 0;
+        for (int i = 0; i < snapshot.metricCount(); i++) {
+            if (snapshot.sleepHours(i) >= MIN_SLEEP_HOURS) {
+                goodDays++;
+            }
+        }
         
         double nightsPerWeek = ((double) goodDays / totalDays) * DAYS_IN_WEEK;
 
@@ -214,6 +210,22 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
         );
     }
 
+    /**
+     * Strength sessions of the snapshot; classified once and shared by the
+     * metrics and the prediction of one report.
+     */
+    private int[] strengthSessions(MetricsSnapshot snapshot) {
+        return snapshot.select(STRENGTH_SELECTION, i -> isStrengthSession(snapshot, i));
+    }
+
+    private static long totalSeconds(MetricsSnapshot snapshot, int[] sessions) {
+        long seconds = 0;
+        for (int i : sessions) {
+            seconds += snapshot.durationSeconds(i);
+        }
+        return seconds;
+    }
+
     /**
      * Smart Filter: Identifies Strength Training.
      * Criteria:
@@ -221,31 +233,29 @@ public class MuscleBuildingStrategy extends AbstractGoalStrategy{
      * 2. OR Pulse Profile (High Peak + Moderate Avg) - for generic "Workout" types or unclassified.
      * 3. EXCLUDE Cardio types (Run, Ride) unless they are explicitly marked as CrossFit/HIIT (which is handled by step 1 list).
      */
-    private boolean isStrengthSession(Activity a) {
-        if (a.getType() == null) return false;
+    private boolean isStrengthSession(MetricsSnapshot snapshot, int i) {
+        String activityType = snapshot.type(i);
+        if (activityType == null) return false;
         
         // 1. Whitelist Check (Explicit Strength)
         boolean isExplicitStrength = STRENGTH_TYPES.stream()
-                .anyMatch(type -> type.equalsIgnoreCase(a.getType()));
+                .anyMatch(type -> type.equalsIgnoreCase(activityType));
         
         if (isExplicitStrength) return true;
 
         // 2. Blacklist Check (Cardio)
         // If it's explicitly cardio and NOT in strength list, reject it.
         boolean isCardio = CARDIO_TYPES.stream()
-                .anyMatch(type -> type.equalsIgnoreCase(a.getType()));
+                .anyMatch(type -> type.equalsIgnoreCase(activityType));
         
         if (isCardio) return false;
 
         // 3. Fallback: Pulse Profile Check
         // For generic types like "Other" or "Activity"
-        if (a.getMaxPulse() != null && a.getAvgPulse() != null) {
-            boolean hasIntensity = a.getMaxPulse() >= MIN_MAX_PULSE_PEAK; // e.g. > 130
-            boolean hasDensity = a.getAvgPulse() >= MIN_AVG_PULSE_FLOOR;  // e.g. > 100 
-            return hasIntensity && hasDensity;
-        }
-
-        return false;
+        // Missing pulse is 0 in the snapshot and never passes the floors
+        boolean hasIntensity = snapshot.maxPulse(i) >= MIN_MAX_PULSE_PEAK; // e.g. > 130
+        boolean hasDensity = snapshot.avgPulse(i) >= MIN_AVG_PULSE_FLOOR;  // e.g. > 100 
+        return hasIntensity && hasDensity;
     }
     
 }
\ No newline at end of file
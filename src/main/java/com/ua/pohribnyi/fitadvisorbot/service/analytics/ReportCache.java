@@ -0,0 +1,61 @@
+package com.ua.pohribnyi.fitadvisorbot.service.analytics;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, TTL-evicting cache of generated {@link PeriodReportDto}s, so that
+ * expand/collapse taps and repeated /analytics commands re-render a report
+ * instead of recomputing it.
+ *
+ * Entries are keyed by everything a report depends on, including the data
+ * version of the user's rollups as read from the database (see
+ * {@code UserDailyRollupRepository#findDataVersion}). Every rollup write on
+ * any instance bumps that version, so every replica misses and rebuilds on
+ * its next request; older entries simply stop matching and age out.
+ *
+ * Cached reports are shared between readers and must not be modified.
+ * Hit/miss/eviction counters are published as {@code cache.*{cache=reports}}.
+ */
+@Component
+public class ReportCache {
+
+	private final Cache<Key, PeriodReportDto> cache;
+
+	public ReportCache(MeterRegistry meterRegistry,
+			@Value("${app.cache.reports.max-size:10000}") long maxSize,
+			@Value("${app.cache.reports.ttl:PT10M}") Duration ttl) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "reports");
+	}
+
+	/**
+	 * @param dataVersion read before the report data, so a concurrent write
+	 *                    can at worst store newer data under the older version
+	 */
+	public PeriodReportDto get(Long userId, long dataVersion, String goal, Integer age, Duration duration,
+			String periodKey, Supplier<PeriodReportDto> loader) {
+		Key key = new Key(userId, dataVersion, LocalDate.now(), goal, age, duration, periodKey);
+		return cache.get(key, k -> loader.get());
+	}
+
+	// "today" is part of the key because the report window moves with the date
+	private record Key(Long userId, long version, LocalDate today, String goal, Integer age, Duration duration,
+			String periodKey) {
+	}
+}
@@ -8,8 +8,6 @@ import org.springframework.stereotype.Component;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.AnalyticsMetricType;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageService;
@@ -68,6 +66,7 @@ public class RunningStrategy extends AbstractGoalStrategy {
 			new MetricThreshold(55.0, "analytics.running.predict.avg"),
 			new MetricThreshold(65.0, "analytics.running.predict.start"));
 	
+	private static final String RUN_TYPE = "Run";
 	private static final double MIN_SLEEP_HOURS = 7.5;
 	private static final double RUNS_PER_WEEK = 3.0;
 	private static final double SOLID_WEEKLY_KM = 20.0;
@@ -83,49 +82,74 @@ public class RunningStrategy extends AbstractGoalStrategy {
 	}
 
 	@Override
-	public List<MetricResult> calculateMetrics(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics, Duration duration) {
+	public List<MetricResult> calculateMetrics(User user, UserProfile profile, MetricsSnapshot snapshot,
+			Duration duration) {
 
 		List<MetricResult> results = new ArrayList<>();
 		String lang = user.getLanguageCode();
 
-		List<Activity> runs = activities.stream().
-				filter(a -> "Run".equalsIgnoreCase(a.getType()))
-				.toList();
+		int[] runs = snapshot.indicesOfType(RUN_TYPE);
+
+		if (runs.length == 0) return results;
+
+		int age = profile.getAge() != null ? profile.getAge() : 30;
+		int maxHr = 220 - age;
+		int aerobicLimit = (int) (maxHr * 0.85); // 85% MaxHR
+
+		// Single pass over the runs
+		int maxAerobicDistMeters = 0;
+		long totalDistMeters = 0;
+		long pulseSum = 0;
+		int pulseCount = 0;
+		double[] paces = new double[runs.length];
+		int paceCount = 0;
+
+		for (int i : runs) {
+			int distance = snapshot.distanceMeters(i);
+			int pulse = snapshot.avgPulse(i);
+			totalDistMeters += distance;
+			if (pulse <= aerobicLimit) {
+				maxAerobicDistMeters = Math.max(maxAerobicDistMeters, distance);
+			}
+			if (pulse > 0) {
+				pulseSum += pulse;
+				pulseCount++;
+			}
+			double pace = MathUtils.safeDivide(snapshot.durationSeconds(i), distance);
+			if (pace > 0) {
+				paces[paceCount++] = pace;
+			}
+		}
+		double avgPulse = pulseCount > 0 ? (double) pulseSum / pulseCount : 0.0;
 
-		if (runs.isEmpty()) return results;
-		
 		// 1. Running Capacity
-        results.add(calcRunningCapacity(runs, profile, lang));
+        results.add(calcRunningCapacity(maxAerobicDistMeters / 1000.0, lang));
 
         // 2. Aerobic Efficiency (NEW)
-        results.add(calcHeartComfort(runs, profile, lang));
+        results.add(calcHeartComfort(avgPulse, maxHr, lang));
 
         // 3. Pace Stability
-        results.add(calcPaceStability(runs, lang));
+        results.add(calcPaceStability(paces, paceCount, lang));
 
         // 4. Endurance Reserve
-        results.add(calcEnduranceReserve(runs, profile, lang));
+        results.add(calcEnduranceReserve(pulseCount > 0 ? avgPulse : 150.0, maxHr, lang));
         
         // 5. Weekly volume
-		results.add(calcWeeklyVolume(runs, duration, lang));
+		results.add(calcWeeklyVolume(totalDistMeters / 1000.0, duration, lang));
 
 		return results;
 	}
 	
 	@Override
-    public MetricResult calculatePredictionMetric(User user, UserProfile profile, List<Activity> activities, List<DailyMetric> dailyMetrics) {
+    public MetricResult calculatePredictionMetric(User user, UserProfile profile, MetricsSnapshot snapshot) {
         String lang = user.getLanguageCode();
-        List<Activity> runs = activities.stream()
-                .filter(a -> "Run".equalsIgnoreCase(a.getType()))
-                .toList();
 
-        return calcRacePredictor(runs, lang);
+        return calcRacePredictor(snapshot, snapshot.indicesOfType(RUN_TYPE), lang);
     }
 	
 	@Override
-	public int calculateConsistencyScore(User user, List<Activity> activities, List<DailyMetric> dailyMetrics,
-			Duration duration, List<MetricResult> advancedMetrics) {
+	public int calculateConsistencyScore(User user, MetricsSnapshot snapshot, Duration duration,
+			List<MetricResult> advancedMetrics) {
 		double weeks = Math.max(1, duration.toDays() / DAYS_IN_WEEK);
 
 		// 1. Volume (40%) - Target: 20 km/week ("Solid" level)
@@ -135,27 +159,18 @@ public class RunningStrategy extends AbstractGoalStrategy {
 
 		// 2. Frequency (40%) - Target: 3 runs/week
 		// Calculate from raw data as it is not explicit in metrics
-		long runCount = activities.stream().filter(a -> "Run".equalsIgnoreCase(a.getType())).count();
+		long runCount = snapshot.indicesOfType(RUN_TYPE).length;
 		double runsPerWeek = runCount / weeks;
 		int freqScore = calcComponentScore(runsPerWeek, RUNS_PER_WEEK, 40);
 
 		// 3. Sleep (20%) - Target: 7.5h (Recovery is key for runners)
-		double avgSleep = getAverageSleep(dailyMetrics);
+		double avgSleep = getAverageSleep(snapshot);
 		int sleepScore = calcComponentScore(avgSleep, MIN_SLEEP_HOURS, 20);
 
 		return volumeScore + freqScore + sleepScore;
 	}
 	
-	private MetricResult calcRunningCapacity(List<Activity> runs, UserProfile profile, String lang) {
-        int age = profile.getAge() != null ? profile.getAge() : 30;
-        int maxHr = 220 - age;
-        int aerobicLimit = (int) (maxHr * 0.85); // 85% MaxHR
-
-        double maxAerobicDistKm = runs.stream()
-				.filter(a -> a.getAvgPulse() <= aerobicLimit)
-                .mapToDouble(Activity::getDistanceMeters)
-                .max().orElse(0.0) / 1000.0;
-
+	private MetricResult calcRunningCapacity(double maxAerobicDistKm, String lang) {
         return buildResult(
                 AnalyticsMetricType.RUNNING_CAPACITY,
                 maxAerobicDistKm,
@@ -166,16 +181,7 @@ public class RunningStrategy extends AbstractGoalStrategy {
         );
     }
 
-	private MetricResult calcHeartComfort(List<Activity> runs, UserProfile profile, String lang) {
-        int age = profile.getAge() != null ? profile.getAge() : 30;
-        int maxHr = 220 - age;
-
-        double avgPulse = runs.stream()
-                .mapToInt(Activity::getAvgPulse)
-                .filter(p -> p > 0)
-                .average()
-                .orElse(0);
-        
+	private MetricResult calcHeartComfort(double avgPulse, int maxHr, String lang) {
         if (maxHr == 0) maxHr = 190; // Safety
         double percentMax = (avgPulse / maxHr) * 100.0;
 
@@ -190,13 +196,8 @@ public class RunningStrategy extends AbstractGoalStrategy {
         );
     }
 	
-    private MetricResult calcPaceStability(List<Activity> runs, String lang) {
-        List<Double> paces = runs.stream()
-                .map(a -> MathUtils.safeDivide(a.getDurationSeconds(), a.getDistanceMeters()))
-                .filter(p -> p > 0)
-                .toList();
-        
-        double cv = MathUtils.calculateCV(paces);
+    private MetricResult calcPaceStability(double[] paces, int paceCount, String lang) {
+        double cv = MathUtils.calculateCV(paces, 0, paceCount);
         double stability = Math.max(0, (1.0 - cv) * 100.0);
 
         return buildResult(
@@ -209,15 +210,7 @@ public class RunningStrategy extends AbstractGoalStrategy {
         );
     }
 
-    private MetricResult calcEnduranceReserve(List<Activity> runs, UserProfile profile, String lang) {
-        int age = profile.getAge() != null ? profile.getAge() : 30;
-        int maxHr = 220 - age;
-        
-        double avgRunPulse = runs.stream()
-                .mapToInt(a -> (a.getAvgPulse() != null) ? a.getAvgPulse() : 0)
-                .filter(p -> p > 0)
-                .average().orElse(150.0);
-        
+    private MetricResult calcEnduranceReserve(double avgRunPulse, int maxHr, String lang) {
         double reserve = Math.max(0, maxHr - avgRunPulse);
 
         return buildResult(
@@ -230,11 +223,7 @@ public class RunningStrategy extends AbstractGoalStrategy {
         );
     }
     
-    private MetricResult calcWeeklyVolume(List<Activity> runs, Duration duration, String lang) {
-        double totalDistKm = runs.stream()
-        		.mapToDouble(Activity::getDistanceMeters)
-        		.sum() / 1000.0;
-
+    private MetricResult calcWeeklyVolume(double totalDistKm, Duration duration, String lang) {
         long days = Math.max(1, duration.toDays());
         double weeks = days / DAYS_IN_WEEK;
         double weeklyAvg = MathUtils.safeDivide(totalDistKm, weeks);
@@ -249,11 +238,17 @@ public class RunningStrategy extends AbstractGoalStrategy {
         );
     }
     
-    private MetricResult calcRacePredictor(List<Activity> runs, String lang) {
-    	double avgPaceSec = runs.stream()
-				.filter(a -> a.getDistanceMeters() > 0)
-				.mapToDouble(a -> (double) a.getDurationSeconds() / (a.getDistanceMeters() / 1000.0))
-				.average().orElse(360.0); // 6:00 min/km default
+    private MetricResult calcRacePredictor(MetricsSnapshot snapshot, int[] runs, String lang) {
+    	double paceSum = 0.0;
+    	int paceCount = 0;
+    	for (int i : runs) {
+    		int distance = snapshot.distanceMeters(i);
+    		if (distance > 0) {
+    			paceSum += snapshot.durationSeconds(i) / (distance / 1000.0);
+    			paceCount++;
+    		}
+    	}
+    	double avgPaceSec = paceCount > 0 ? paceSum / paceCount : 360.0; // 6:00 min/km default
 		
 		double racePace = Math.max(180, avgPaceSec - 30); 
 		double predictedTimeMinutes = (racePace * 10) / 60.0; // 10 km time
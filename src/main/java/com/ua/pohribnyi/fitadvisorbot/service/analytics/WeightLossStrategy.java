@@ -1,18 +1,13 @@
 package com.ua.pohribnyi.fitadvisorbot.service.analytics;
 
 import java.time.Duration;
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.AnalyticsMetricType;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageService;
@@ -70,8 +65,13 @@ public class WeightLossStrategy extends AbstractGoalStrategy{
 	}
 
 	@Override
-	public List<MetricResult> calculateMetrics(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics, Duration duration) {
+	public boolean requiresActivityDetail() {
+		return false; // Daily sums are enough
+	}
+
+	@Override
+	public List<MetricResult> calculateMetrics(User user, UserProfile profile, MetricsSnapshot snapshot,
+			Duration duration) {
 
 		List<MetricResult> results = new ArrayList<>();
 		String lang = user.getLanguageCode();
@@ -79,27 +79,26 @@ public class WeightLossStrategy extends AbstractGoalStrategy{
         long totalDays = Math.max(1, duration.toDays());
 
 		// SINGLE SOURCE OF TRUTH: Calculate average daily burn once
-		double avgDailyBurn = calculateUnifiedAvgDailyBurn(activities, dailyMetrics);
+		double avgDailyBurn = calculateUnifiedAvgDailyBurn(snapshot);
         
         // 1. Burn Level
         results.add(calcBurnLevel(avgDailyBurn, lang));
 
         // 2. Active Days
-        results.add(calcActiveDays(activities, dailyMetrics, totalDays, lang));
+        results.add(calcActiveDays(snapshot, totalDays, lang));
 
         // 3. Peak Day
-        results.add(calcPeakDay(dailyMetrics, lang));
+        results.add(calcPeakDay(snapshot, lang));
 
         return results;
 	}
 
 	@Override
-	public MetricResult calculatePredictionMetric(User user, UserProfile profile, List<Activity> activities,
-			List<DailyMetric> dailyMetrics) {
+	public MetricResult calculatePredictionMetric(User user, UserProfile profile, MetricsSnapshot snapshot) {
 		String lang = user.getLanguageCode();
 
 		// SINGLE SOURCE OF TRUTH: Reuse same logic
-        double avgDailyBurn = calculateUnifiedAvgDailyBurn(activities, dailyMetrics);
+        double avgDailyBurn = calculateUnifiedAvgDailyBurn(snapshot);
 		double kcalInKg = UserPhysiologyService.getKcalInKgFat(); 
 		
         if (avgDailyBurn < 100) avgDailyBurn = 100; // Safety floor
@@ -118,8 +117,8 @@ public class WeightLossStrategy extends AbstractGoalStrategy{
     }
 
 	@Override
-	public int calculateConsistencyScore(User user, List<Activity> activities, List<DailyMetric> dailyMetrics,
-			Duration duration, List<MetricResult> advancedMetrics) {
+	public int calculateConsistencyScore(User user, MetricsSnapshot snapshot, Duration duration,
+			List<MetricResult> advancedMetrics) {
 		// 1. Consistency (40%) - Target: 4.0 active days/week
 		// Extract from metrics
 		double activeDaysPerWeek = extractMetricValue(advancedMetrics, AnalyticsMetricType.ACTIVE_DAYS_WEEKLY);
@@ -131,7 +130,7 @@ public class WeightLossStrategy extends AbstractGoalStrategy{
 		int burnScore = calcComponentScore(avgBurn, TARGET_DAILY_BURN, 30);
 
 		// 3. Sleep (30%) - Target: 7.0h
-		double avgSleep = getAverageSleep(dailyMetrics);
+		double avgSleep = getAverageSleep(snapshot);
 		int sleepScore = calcComponentScore(avgSleep, DEFAULT_SLEEP_GOAL, 30);
 
 		return activeScore + burnScore + sleepScore;
@@ -149,8 +148,8 @@ public class WeightLossStrategy extends AbstractGoalStrategy{
         );
     }
 	
-	private MetricResult calcActiveDays(List<Activity> activities, List<DailyMetric> dailyMetrics, long totalDays, String lang) {
-        long activeDaysCount = countActiveDays(dailyMetrics, activities);
+	private MetricResult calcActiveDays(MetricsSnapshot snapshot, long totalDays, String lang) {
+        long activeDaysCount = countActiveDays(snapshot);
         double activeDaysPerWeek = ((double) activeDaysCount / totalDays) * DAYS_IN_WEEK;
 
         return buildResult(
@@ -163,10 +162,11 @@ public class WeightLossStrategy extends AbstractGoalStrategy{
         );
     }
 	
-	private MetricResult calcPeakDay(List<DailyMetric> dailyMetrics, String lang) {
-        int maxSteps = dailyMetrics.stream()
-                .mapToInt(DailyMetric::getDailyBaseSteps)
-                .max().orElse(0);
+	private MetricResult calcPeakDay(MetricsSnapshot snapshot, String lang) {
+        int maxSteps = 0;
+        for (int i = 0; i < snapshot.metricCount(); i++) {
+            maxSteps = Math.max(maxSteps, snapshot.steps(i));
+        }
         
         // Always return "Good" status (positive reinforcement for personal record)
         return buildResult(
@@ -182,38 +182,35 @@ public class WeightLossStrategy extends AbstractGoalStrategy{
 	/**
      * Counts days where User met EITHER the steps threshold OR the calories threshold.
      */
-    private long countActiveDays(List<DailyMetric> metrics, List<Activity> activities) {
-        // Map dates to sum of calories for that day
-        Map<LocalDate, Integer> caloriesByDate = activities.stream()
-                .collect(Collectors.groupingBy(
-                        a -> a.getDateTime().toLocalDate(),
-                        Collectors.summingInt(Activity::getCaloriesBurned)
-                ));
-
-        return metrics.stream()
-        		.filter(d -> {
-        			boolean stepsOk = d.getDailyBaseSteps() != null && d.getDailyBaseSteps() >= ACTIVE_DAY_STEPS_THRESHOLD;
-        			boolean calsOk = caloriesByDate.getOrDefault(d.getDate(), 0) >= ACTIVE_DAY_CALORIES_THRESHOLD;
-        			return stepsOk || calsOk;
-        			})
-        		.count();
+    private long countActiveDays(MetricsSnapshot snapshot) {
+        long activeDays = 0;
+        for (int i = 0; i < snapshot.metricCount(); i++) {
+            boolean stepsOk = snapshot.steps(i) >= ACTIVE_DAY_STEPS_THRESHOLD;
+            boolean calsOk = snapshot.activityCaloriesOn(snapshot.metricDay(i)) >= ACTIVE_DAY_CALORIES_THRESHOLD;
+            if (stepsOk || calsOk) {
+                activeDays++;
+            }
+        }
+        return activeDays;
     }
     
     /**
      * Unified logic for calculating Average Daily Active Burn (Activities + NEAT).
      * Uses actual data points count (dailyMetrics.size) to be accurate even if data has gaps.
      */
-    private double calculateUnifiedAvgDailyBurn(List<Activity> activities, List<DailyMetric> dailyMetrics) {
-        if (dailyMetrics.isEmpty()) return 0.0;
+    private double calculateUnifiedAvgDailyBurn(MetricsSnapshot snapshot) {
+        if (snapshot.metricCount() == 0) return 0.0;
 
         double kcalPerStep = UserPhysiologyService.getKcalPerStep();
-        double totalWorkoutCalories = activities.stream().mapToInt(Activity::getCaloriesBurned).sum();
-        double totalNeatCalories = dailyMetrics.stream()
-                .mapToInt(DailyMetric::getDailyBaseSteps)
-                .sum() * kcalPerStep;
+        double totalWorkoutCalories = snapshot.totalCalories();
+        long totalSteps = 0;
+        for (int i = 0; i < snapshot.metricCount(); i++) {
+            totalSteps += snapshot.steps(i);
+        }
+        double totalNeatCalories = totalSteps * kcalPerStep;
 
         // Use actual data count, not report duration, to get true intensity per recorded day
-        long dataPoints = dailyMetrics.size(); 
+        long dataPoints = snapshot.metricCount(); 
         return (totalWorkoutCalories + totalNeatCalories) / dataPoints;
     }
 
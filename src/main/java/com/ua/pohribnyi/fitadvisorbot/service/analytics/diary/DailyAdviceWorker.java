@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -20,6 +21,7 @@ import com.ua.pohribnyi.fitadvisorbot.repository.diary.DailyAdviceJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.GeminiPromptBuilderService;
+import com.ua.pohribnyi.fitadvisorbot.service.analytics.DailyRollupService;
 import com.ua.pohribnyi.fitadvisorbot.service.analytics.UserPhysiologyService;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramViewService;
@@ -42,6 +44,7 @@ public class DailyAdviceWorker {
 	private final TelegramViewService viewService;
 	private final FitnessAdvisorBotService botService;
 	private final UserPhysiologyService userPhysiologyService;
+	private final DailyRollupService rollupService;
 	private final ObjectMapper objectMapper;
 
 	@Transactional
@@ -96,6 +99,21 @@ public class DailyAdviceWorker {
 		}
 	}
 
+	/**
+	 * Fails a job that could not be queued for generation and tells the user.
+	 * Runs in its own transaction because it is called after the submitting
+	 * transaction has already committed.
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public void rejectJob(Long jobId, String reason) {
+		jobRepository.findById(jobId).ifPresent(job -> {
+			job.setStatus(Status.FAILED);
+			job.setErrorMessage(reason);
+			jobRepository.save(job);
+			botService.sendMessage(viewService.getGeneralErrorMessage(job.getUserChatId()));
+		});
+	}
+
 	private DailyMetric saveDailyMetric(DailyAdviceJob job) {
 		DailyMetric metric = metricRepository.findMetricsByUserAndDateAfter(job.getUser(), job.getDate()).stream()
 				.filter(m -> m.getDate().equals(job.getDate()))
@@ -114,7 +132,9 @@ public class DailyAdviceWorker {
 		}
 		metric.setDailyBaseSteps(totalSteps);
 
-		return metricRepository.save(metric);
+		DailyMetric saved = metricRepository.saveAndFlush(metric);
+		rollupService.refresh(job.getUser(), saved.getDate());
+		return saved;
 	}
 
 	private void saveActivity(DailyAdviceJob job) {
@@ -143,6 +163,7 @@ public class DailyAdviceWorker {
 		// Rough distance approx
 		activity.setDistanceMeters((int) (steps * 0.75));
 
-		activityRepository.save(activity);
+		activityRepository.saveAndFlush(activity);
+		rollupService.refresh(job.getUser(), activityDate.toLocalDate());
 	}
 }
@@ -42,7 +42,7 @@ public class DiaryService {
 	 */
 	@Transactional
 	public SendMessage startDailyCheckIn(User user, boolean isManual) {
-		LocalDate today = LocalDate.now();
+		LocalDate today = LocalDate.now(user.zoneId());
 		// Idempotency: If job exists, reuse it or check status
 		DailyAdviceJob job = jobRepository.findByUserAndDate(user, today).orElseGet(() -> createNewJob(user, today));
 		
@@ -164,7 +164,7 @@ public class DiaryService {
 	}
 
 	private DailyAdviceJob getJobOrThrow(User user) {
-		return jobRepository.findByUserAndDate(user, LocalDate.now())
+		return jobRepository.findByUserAndDate(user, LocalDate.now(user.zoneId()))
 				.orElseThrow(() -> new IllegalStateException("No active job found for user " + user.getId()));
 	}
 	
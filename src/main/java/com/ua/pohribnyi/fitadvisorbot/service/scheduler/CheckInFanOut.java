@@ -0,0 +1,229 @@
+package com.ua.pohribnyi.fitadvisorbot.service.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.CheckInCandidate;
+import com.ua.pohribnyi.fitadvisorbot.repository.diary.CheckInFanOutRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramSendQueue;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramViewService;
+import com.ua.pohribnyi.fitadvisorbot.service.user.UserSessionService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends the morning check-in to every eligible user whose local check-in
+ * window is open, without loading them all.
+ *
+ * Runs are triggered every few minutes by {@link ScheduledCheckInService}; each
+ * one picks up the users whose (jittered) local start time has passed since,
+ * so sends are spread across the day and across the window instead of one
+ * burst at 08:00 Kyiv.
+ *
+ * A run streams candidates page by page from {@link CheckInFanOutRepository},
+ * creates their jobs with one bulk insert per page, moves their sessions to
+ * {@code AWAITING_SLEEP} and hands the first question to
+ * {@link TelegramSendQueue}, which sends in parallel within Telegram's limits.
+ * Before every page the run waits until the queue is below
+ * {@code app.check-in.max-queued}, so it never crowds out interactive replies.
+ *
+ * With {@code app.check-in.shards} > 1 users are split by id into shards,
+ * each guarded by a {@link SchedulerLeaseService} lease, so replicas ticking
+ * at the same time work on different shards. The lease is renewed after every
+ * page and kept after the shard is done, so a replica ticking shortly after
+ * does not scan it again.
+ *
+ * Progress is checkpointed by the job rows: a run that is restarted (or
+ * triggered twice) skips everyone who already has today's job. The flip side
+ * is that a crash between the insert and the send leaves a few users with a
+ * job but no message; they can still start the diary manually.
+ */
+@Slf4j
+@Component
+public class CheckInFanOut {
+
+	private static final String LEASE_PREFIX = "check-in-fan-out:";
+
+	private static final Set<UserState> IDLE_STATES = Set.of(UserState.DEFAULT, UserState.ONBOARDING_COMPLETED);
+
+	private final CheckInFanOutRepository fanOutRepository;
+	private final UserSessionService sessionService;
+	private final TelegramViewService viewService;
+	private final FitnessAdvisorBotService botService;
+	private final TelegramSendQueue sendQueue;
+	private final SchedulerLeaseService leaseService;
+
+	private final LocalTime windowStart;
+	private final LocalTime windowEnd;
+	private final Duration jitter;
+	private final int shards;
+	private final Duration shardLease;
+	private final int pageSize;
+	private final int maxQueued;
+	private final long queueWaitMs;
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	private final Counter sent;
+	private final Counter skipped;
+
+	public CheckInFanOut(CheckInFanOutRepository fanOutRepository, UserSessionService sessionService,
+			TelegramViewService viewService, FitnessAdvisorBotService botService, TelegramSendQueue sendQueue,
+			SchedulerLeaseService leaseService, MeterRegistry meterRegistry,
+			@Value("${app.check-in.window-start:08:00}") String windowStart,
+			@Value("${app.check-in.window-end:11:00}") String windowEnd,
+			@Value("${app.check-in.jitter:PT30M}") Duration jitter,
+			@Value("${app.check-in.shards:1}") int shards,
+			@Value("${app.check-in.shard-lease:PT4M}") Duration shardLease,
+			@Value("${app.check-in.page-size:500}") int pageSize,
+			@Value("${app.check-in.max-queued:5000}") int maxQueued,
+			@Value("${app.check-in.queue-wait-ms:600000}") long queueWaitMs) {
+		this.fanOutRepository = fanOutRepository;
+		this.sessionService = sessionService;
+		this.viewService = viewService;
+		this.botService = botService;
+		this.sendQueue = sendQueue;
+		this.leaseService = leaseService;
+		this.shards = Math.max(1, shards);
+		this.shardLease = shardLease;
+		this.windowStart = LocalTime.parse(windowStart);
+		this.windowEnd = LocalTime.parse(windowEnd);
+		this.jitter = jitter;
+		if (this.windowEnd.isAfter(this.windowStart)
+				&& jitter.toSeconds() >= this.windowEnd.toSecondOfDay() - this.windowStart.toSecondOfDay()) {
+			log.warn("Check-in jitter {} is not shorter than the window {}-{}; some users will never be due", jitter,
+					windowStart, windowEnd);
+		}
+		this.pageSize = pageSize;
+		this.maxQueued = maxQueued;
+		this.queueWaitMs = queueWaitMs;
+		this.sent = Counter.builder("checkin.fanout.sent")
+				.description("Morning check-ins handed to the send queue")
+				.register(meterRegistry);
+		this.skipped = Counter.builder("checkin.fanout.skipped")
+				.description("Candidates skipped because they were busy or already had a job")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Starts a run on its own thread and returns right away.
+	 *
+	 * @return {@code false} if a run is already in progress
+	 */
+	public boolean start() {
+		if (!running.compareAndSet(false, true)) {
+			log.warn("Check-in fan-out is still running, skipping this trigger");
+			return false;
+		}
+		Thread.ofVirtual().name("check-in-fan-out").start(() -> {
+			try {
+				run();
+			} catch (Exception e) {
+				log.error("Check-in fan-out failed", e);
+			} finally {
+				running.set(false);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Processes every shard this instance can lease, on the calling thread.
+	 *
+	 * @return number of check-ins sent
+	 */
+	int run() throws InterruptedException {
+		// Start at a random shard so replicas ticking together rarely contend
+		int first = ThreadLocalRandom.current().nextInt(shards);
+		int total = 0;
+		for (int i = 0; i < shards; i++) {
+			int shard = (first + i) % shards;
+			if (leaseService.tryAcquire(LEASE_PREFIX + shard, shardLease)) {
+				total += runShard(shard);
+			}
+		}
+		return total;
+	}
+
+	private int runShard(int shard) throws InterruptedException {
+		long started = System.currentTimeMillis();
+		long afterUserId = 0;
+		int total = 0;
+		int pages = 0;
+
+		while (true) {
+			if (!sendQueue.awaitQueuedBelow(maxQueued, queueWaitMs, TimeUnit.MILLISECONDS)) {
+				log.warn("Send queue did not drain in {} ms, stopping fan-out after user {}", queueWaitMs,
+						afterUserId);
+				break;
+			}
+			List<CheckInCandidate> page = fanOutRepository.findDueCandidates(afterUserId, shard, shards, windowStart,
+					jitter, windowEnd, Instant.now().minus(UserSessionService.STATE_TIMEOUT), pageSize);
+			if (page.isEmpty()) {
+				break;
+			}
+			afterUserId = page.get(page.size() - 1).userId();
+			total += processPage(page);
+			pages++;
+			log.info("Check-in fan-out checkpoint: shard {}/{}, page {}, up to user {}, {} sent", shard, shards,
+					pages, afterUserId, total);
+			if (page.size() < pageSize) {
+				break;
+			}
+			if (!leaseService.tryAcquire(LEASE_PREFIX + shard, shardLease)) {
+				log.warn("Lost the lease of check-in shard {}, another instance continues it", shard);
+				break;
+			}
+		}
+
+		if (pages > 0) {
+			log.info("✅ Check-in fan-out shard {}/{} finished: {} sent in {} page(s), {} ms", shard, shards, total,
+					pages, System.currentTimeMillis() - started);
+		}
+		return total;
+	}
+
+	private int processPage(List<CheckInCandidate> page) {
+		// The DB row may lag behind the write-behind session store
+		List<CheckInCandidate> idle = new ArrayList<>(page.size());
+		for (CheckInCandidate candidate : page) {
+			UserState state = sessionService.peekActiveState(candidate.userId());
+			if (state == null || IDLE_STATES.contains(state)) {
+				idle.add(candidate);
+			}
+		}
+		Set<Long> created = idle.isEmpty() ? Set.of() : new HashSet<>(fanOutRepository.createJobs(idle));
+
+		int count = 0;
+		for (CheckInCandidate candidate : page) {
+			if (!created.contains(candidate.userId())) {
+				skipped.increment();
+				continue;
+			}
+			try {
+				sessionService.setState(candidate.userId(), UserState.AWAITING_SLEEP, candidate.sessionVersion());
+				botService.sendMessage(
+						viewService.getDiaryStartMessage(candidate.telegramUserId(), candidate.languageCode(), false));
+				sent.increment();
+				count++;
+			} catch (Exception e) {
+				log.error("Failed to start check-in for user {}", candidate.userId(), e);
+			}
+		}
+		return count;
+	}
+}
@@ -1,17 +1,7 @@
 package com.ua.pohribnyi.fitadvisorbot.service.scheduler;
 
-import java.util.List;
-
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
-
-import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
-import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
-import com.ua.pohribnyi.fitadvisorbot.service.analytics.diary.DiaryService;
-import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
-import com.ua.pohribnyi.fitadvisorbot.service.user.UserSessionService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,29 +11,13 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class ScheduledCheckInService {
 
-	private final UserRepository userRepository;
-	private final UserSessionService sessionService;
-	private final DiaryService diaryService;
-	private final FitnessAdvisorBotService botService;
+	private final CheckInFanOut checkInFanOut;
 
-	// 08:00 AM Kyiv Time
-	@Scheduled(cron = "0 0 8 * * *", zone = "Europe/Kyiv")
+	// Every few minutes; each user is due once their local window opens (see CheckInFanOut)
+	@Scheduled(cron = "${app.check-in.tick-cron:0 */5 * * * *}")
 	public void triggerMorningCheckIn() {
-		log.info("Triggering Morning Daily Check-in...");
-
-		List<User> users = userRepository.findAll();
-
-		for (User user : users) {
-			UserState state = sessionService.getActiveState(user);
-			// Send only if user is not stuck in onboarding
-			if (state == UserState.DEFAULT || state == UserState.ONBOARDING_COMPLETED) {
-				try {
-					SendMessage msg = diaryService.startDailyCheckIn(user, false);
-					botService.sendMessage(msg);
-				} catch (Exception e) {
-					log.error("Failed to start check-in for user {}", user.getId(), e);
-				}
-			}
-		}
+		log.debug("Triggering due Daily Check-ins...");
+		// Runs on its own thread so the scheduler is not held for the whole fan-out
+		checkInFanOut.start();
 	}
-}
\ No newline at end of file
+}
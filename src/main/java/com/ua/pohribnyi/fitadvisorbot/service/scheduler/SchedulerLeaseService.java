@@ -0,0 +1,86 @@
+package com.ua.pohribnyi.fitadvisorbot.service.scheduler;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cluster-wide leases for {@code @Scheduled} tasks, backed by the
+ * {@code scheduler_leases} table.
+ *
+ * Every replica runs the same schedules; a task only does its work on the
+ * instance that holds its lease. Acquiring is a single upsert that succeeds if
+ * the lease is free, expired or already ours (which renews it), so a holder
+ * that keeps ticking keeps the task and a crashed holder is replaced once its
+ * lease runs out. Expiry is checked against the database clock, so skew
+ * between instances does not matter.
+ *
+ * A table rather than advisory locks: advisory locks live on one connection
+ * and would pin a pooled connection for as long as a task may hold them.
+ *
+ * The upsert always commits in its own transaction, even when the caller is
+ * {@code @Transactional}: otherwise the row lock on the lease would be held,
+ * and the lease left invisible to other instances, until the task's own work
+ * commits, and a failed upsert would abort the caller's transaction.
+ */
+@Slf4j
+@Service
+public class SchedulerLeaseService {
+
+	private static final String ACQUIRE_SQL = "INSERT INTO scheduler_leases (name, owner, lease_until) "
+			+ "VALUES (?, ?, now() + make_interval(secs => ?)) "
+			+ "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, lease_until = EXCLUDED.lease_until "
+			+ "WHERE scheduler_leases.lease_until < now() OR scheduler_leases.owner = EXCLUDED.owner";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+
+	@Getter
+	private final String owner;
+
+	public SchedulerLeaseService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	/**
+	 * Takes or renews the lease for {@code duration}. Should be a bit shorter
+	 * than the task's interval, so a holder that stopped ticking is replaced by
+	 * the next instance that does.
+	 *
+	 * @return {@code true} if this instance now holds the lease; {@code false}
+	 *         if another instance does or the database is unavailable
+	 */
+	public boolean tryAcquire(String name, Duration duration) {
+		try {
+			boolean acquired = Boolean.TRUE.equals(transactionTemplate.execute(
+					status -> jdbcTemplate.update(ACQUIRE_SQL, name, owner, duration.toMillis() / 1000.0) == 1));
+			if (!acquired) {
+				log.debug("Lease {} is held by another instance", name);
+			}
+			return acquired;
+		} catch (RuntimeException e) {
+			log.error("Failed to acquire lease {}: {}", name, e.getMessage());
+			return false;
+		}
+	}
+
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			return "instance";
+		}
+	}
+}
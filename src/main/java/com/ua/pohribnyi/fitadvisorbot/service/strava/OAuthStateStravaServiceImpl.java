@@ -1,5 +1,6 @@
 package com.ua.pohribnyi.fitadvisorbot.service.strava;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -10,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.strava.OAuthState;
 import com.ua.pohribnyi.fitadvisorbot.repository.oauth.OAuthStateRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ouath.OAuthStateService;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
 import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaAuthException;
 
 import lombok.extern.slf4j.Slf4j;
@@ -19,12 +21,15 @@ import lombok.extern.slf4j.Slf4j;
 public class OAuthStateStravaServiceImpl implements OAuthStateService {
 
 	private final OAuthStateRepository OAuthStateRepository;
+	private final SchedulerLeaseService leaseService;
 	// OAuth state token validity: 15 minutes
     private static final int STATE_EXPIRY_MINUTES = 15;
 	
 
-	public OAuthStateStravaServiceImpl(OAuthStateRepository oAuthStateRepository) {
+	public OAuthStateStravaServiceImpl(OAuthStateRepository oAuthStateRepository,
+			SchedulerLeaseService leaseService) {
 		this.OAuthStateRepository = oAuthStateRepository;
+		this.leaseService = leaseService;
 	}
 
 	@Override
@@ -91,6 +96,10 @@ public class OAuthStateStravaServiceImpl implements OAuthStateService {
 	@Scheduled(fixedDelay = 3600000) // Run every hour
 	@Transactional
 	public void cleanupExpiredStates() {
+		// One replica per hour is enough
+		if (!leaseService.tryAcquire("oauth-state-cleanup", Duration.ofMinutes(55))) {
+			return;
+		}
 		log.info("Cleaning up expired OAuth states");
 
 		LocalDateTime expiryTime = LocalDateTime.now();
@@ -0,0 +1,225 @@
+package com.ua.pohribnyi.fitadvisorbot.service.strava;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaActivityDto;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.strava.StravaToken;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaActivityRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaActivitySyncRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaTokenRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
+import com.ua.pohribnyi.fitadvisorbot.service.token.AccessTokenCache;
+import com.ua.pohribnyi.fitadvisorbot.service.token.TokenEncryptionService;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaAuthException;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaRateLimitException;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.UserNotFoundException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Incremental sync of Strava activities into {@code strava_activities}.
+ *
+ * Every connected user has a high-water mark (see
+ * {@link StravaActivitySyncRepository#findCursor}); a sync asks Strava only for
+ * activities that started after it, {@code per_page} at a time, and stops at
+ * the first short page. Each page is upserted together with the advanced mark
+ * in one transaction, so an interrupted sync resumes after the last stored
+ * page and the cost of a refresh is proportional to what is new.
+ *
+ * Users without a mark start from their latest stored activity (minus a day,
+ * since only its local start time is stored) or from
+ * {@code app.strava.sync.initial-days} ago.
+ *
+ * Every {@code app.strava.sync.interval-ms} the instance holding the
+ * {@code strava-sync} lease sweeps the connected users that were not synced
+ * within {@code app.strava.sync.stale-after}, renewing the lease after every
+ * page of users. Each due user costs at least one request, so the staleness
+ * interval, not the sweep interval, sets the baseline load: at the default 12
+ * hours and 800 background requests a day (80% of 1000), about 400 users fit
+ * into the daily quota. Raise it as the number of connected users grows.
+ *
+ * All requests of the sync, token refreshes included, have background
+ * priority in {@link StravaRateLimiter}: once the sync's share of the quota is
+ * used, the sweep stops and the remaining users (and pages) wait for the next
+ * round.
+ */
+@Slf4j
+@Service
+public class StravaActivitySyncService {
+
+	private static final String LEASE = "strava-sync";
+	private static final int USERS_PER_PAGE = 100;
+
+	private final StravaApiClient stravaApiClient;
+	private final StravaIntegrationService stravaIntegrationService;
+	private final StravaActivitySyncRepository syncRepository;
+	private final StravaActivityRepository activityRepository;
+	private final StravaTokenRepository tokenRepository;
+	private final UserRepository userRepository;
+	private final TokenEncryptionService tokenEncryptionService;
+	private final AccessTokenCache accessTokenCache;
+	private final SchedulerLeaseService leaseService;
+	private final TransactionTemplate transactionTemplate;
+
+	private final int perPage;
+	private final Duration initialWindow;
+	private final Duration staleAfter;
+	private final Duration sweepLease;
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+
+	private final Counter pagesFetched;
+	private final Counter activitiesWritten;
+
+	public StravaActivitySyncService(StravaApiClient stravaApiClient,
+			StravaIntegrationService stravaIntegrationService, StravaActivitySyncRepository syncRepository,
+			StravaActivityRepository activityRepository, StravaTokenRepository tokenRepository,
+			UserRepository userRepository, TokenEncryptionService tokenEncryptionService,
+			AccessTokenCache accessTokenCache, SchedulerLeaseService leaseService,
+			TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+			@Value("${app.strava.sync.per-page:200}") int perPage,
+			@Value("${app.strava.sync.initial-days:90}") int initialDays,
+			@Value("${app.strava.sync.interval-ms:3600000}") long intervalMs,
+			@Value("${app.strava.sync.stale-after:PT12H}") Duration staleAfter) {
+		this.stravaApiClient = stravaApiClient;
+		this.stravaIntegrationService = stravaIntegrationService;
+		this.syncRepository = syncRepository;
+		this.activityRepository = activityRepository;
+		this.tokenRepository = tokenRepository;
+		this.userRepository = userRepository;
+		this.tokenEncryptionService = tokenEncryptionService;
+		this.accessTokenCache = accessTokenCache;
+		this.leaseService = leaseService;
+		this.transactionTemplate = transactionTemplate;
+		this.perPage = perPage;
+		this.initialWindow = Duration.ofDays(initialDays);
+		this.staleAfter = staleAfter;
+		// Held for most of the interval so only one replica sweeps per round
+		this.sweepLease = Duration.ofMillis(intervalMs * 9 / 10);
+		this.pagesFetched = Counter.builder("strava.sync.pages")
+				.description("Activity pages fetched from Strava by the incremental sync")
+				.register(meterRegistry);
+		this.activitiesWritten = Counter.builder("strava.sync.activities")
+				.description("Activities upserted by the incremental sync")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Starts a sweep over all connected users on its own thread, unless one is
+	 * running or another instance holds the lease.
+	 */
+	@Scheduled(fixedDelayString = "${app.strava.sync.interval-ms:3600000}", initialDelayString = "${app.strava.sync.initial-delay-ms:120000}")
+	public void syncAll() {
+		if (!leaseService.tryAcquire(LEASE, sweepLease) || !sweeping.compareAndSet(false, true)) {
+			return;
+		}
+		Thread.ofVirtual().name("strava-sync").start(() -> {
+			try {
+				sweep();
+			} finally {
+				sweeping.set(false);
+			}
+		});
+	}
+
+	void sweep() {
+		long started = System.currentTimeMillis();
+		Instant syncedBefore = Instant.now().minus(staleAfter);
+		long afterUserId = 0;
+		int users = 0;
+		int activities = 0;
+		boolean deferred = false;
+		List<Long> page;
+		do {
+			if (afterUserId > 0 && !leaseService.tryAcquire(LEASE, sweepLease)) {
+				log.warn("Lost the {} lease after user {}, another instance continues the sweep", LEASE, afterUserId);
+				break;
+			}
+			page = syncRepository.findUserIdsDueForSync(afterUserId, syncedBefore, USERS_PER_PAGE);
+			for (Long userId : page) {
+				try {
+					activities += sync(userId);
+					users++;
+				} catch (StravaRateLimitException e) {
+					log.info("⏸️ Strava quota reserved for interactive requests, deferring sync from user {} "
+							+ "(window resets in {})", userId, e.getRetryAfter());
+					deferred = true;
+					break;
+				} catch (Exception e) {
+					log.warn("Strava sync failed for user {}: {}", userId, e.getMessage());
+				}
+			}
+			if (!page.isEmpty()) {
+				afterUserId = page.get(page.size() - 1);
+			}
+		} while (!deferred && page.size() == USERS_PER_PAGE);
+		log.info("🔄 Strava sync: {} activities for {} user(s) in {} ms", activities, users,
+				System.currentTimeMillis() - started);
+	}
+
+	/**
+	 * Fetches and stores the user's activities newer than the high-water mark.
+	 *
+	 * @return number of activities written
+	 */
+	public int sync(Long userId) {
+		User user = userRepository.findById(userId)
+				.orElseThrow(() -> new UserNotFoundException("User not found by id: " + userId));
+		stravaIntegrationService.ensureValidToken(user, Priority.BACKGROUND);
+		StravaToken token = tokenRepository.findByUser(user)
+				.orElseThrow(() -> new StravaAuthException("No active Strava token found"));
+		String accessToken = accessTokenCache.get(userId, token.getAccessToken(), tokenEncryptionService::decrypt);
+
+		long after = syncRepository.findCursor(userId).orElseGet(() -> initialCursor(user));
+		int written = 0;
+		for (int page = 1;; page++) {
+			List<StravaActivityDto> activities = stravaApiClient.getActivitiesAfter(accessToken, after, page, perPage);
+			pagesFetched.increment();
+			if (activities.isEmpty()) {
+				break;
+			}
+			long cursor = activities.stream()
+				.map(StravaActivityDto::startDate)
+				.filter(Objects::nonNull)
+				.mapToLong(Instant::getEpochSecond)
+				.max()
+				.orElse(after);
+			written += transactionTemplate.execute(status -> {
+				int rows = syncRepository.upsertActivities(userId, activities);
+				syncRepository.saveCursor(userId, cursor);
+				return rows;
+			});
+			if (activities.size() < perPage) {
+				break;
+			}
+		}
+		activitiesWritten.increment(written);
+		if (written > 0) {
+			log.info("Synced {} Strava activities for user {}", written, userId);
+		} else {
+			// Nothing new: still record the check, so the user is not due again
+			syncRepository.saveCursor(userId, after);
+		}
+		return written;
+	}
+
+	private long initialCursor(User user) {
+		return activityRepository.getLatestActivityDate(user)
+			.map(latest -> latest.minusDays(1).toEpochSecond(ZoneOffset.UTC))
+			.orElseGet(() -> Instant.now().minus(initialWindow).getEpochSecond());
+	}
+}
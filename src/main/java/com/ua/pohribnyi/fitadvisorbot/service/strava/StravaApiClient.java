@@ -5,12 +5,16 @@ import java.util.List;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaActivityDto;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaAthleteDto;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaTokenResponseDto;
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
 
 public interface StravaApiClient {
 
 	StravaTokenResponseDto exchangeCodeForToken(String code);
 
-	StravaTokenResponseDto refreshAccessToken(String refreshToken);
+	/**
+	 * @param priority quota priority of the work that needs the new token
+	 */
+	StravaTokenResponseDto refreshAccessToken(String refreshToken, Priority priority);
 
 	StravaAthleteDto getAthlete(String accessToken);
 
@@ -18,5 +22,10 @@ public interface StravaApiClient {
 	
 	List<StravaActivityDto> getAthleteActivities(String accessToken, Integer limit, Integer page);
 
+	/**
+	 * Activities that started after {@code afterEpochSecond}, oldest first.
+	 */
+	List<StravaActivityDto> getActivitiesAfter(String accessToken, long afterEpochSecond, int page, int perPage);
+
 	boolean validateToken(String accessToken);
 }
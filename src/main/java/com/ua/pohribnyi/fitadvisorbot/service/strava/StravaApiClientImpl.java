@@ -1,5 +1,6 @@
 package com.ua.pohribnyi.fitadvisorbot.service.strava;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -7,12 +8,16 @@ import java.util.Map;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
@@ -20,6 +25,7 @@ import com.ua.pohribnyi.fitadvisorbot.config.StravaConfig;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaActivityDto;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaAthleteDto;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaTokenResponseDto;
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
 import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaAuthException;
 import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaException;
 
@@ -31,15 +37,30 @@ public class StravaApiClientImpl implements StravaApiClient {
 
 	private final RestTemplate restTemplate;
 	private final StravaConfig stravaConfig;
-
-	public StravaApiClientImpl(RestTemplate restTemplate, StravaConfig stravaConfig) {
-		this.restTemplate = restTemplate;
+	private final StravaRateLimiter rateLimiter;
+
+	public StravaApiClientImpl(RestTemplate restTemplate, StravaConfig stravaConfig, StravaRateLimiter rateLimiter) {
+		// Own copy with the shared template's full setup, so the quota interceptor
+		// only sees Strava traffic. The shared request factory already applies the
+		// shared interceptors; ours runs around them, each exactly once
+		this.restTemplate = new RestTemplate(restTemplate.getMessageConverters());
+		this.restTemplate.setRequestFactory(restTemplate.getRequestFactory());
+		this.restTemplate.setErrorHandler(restTemplate.getErrorHandler());
+		this.restTemplate.setUriTemplateHandler(restTemplate.getUriTemplateHandler());
+		this.restTemplate.setClientHttpRequestInitializers(restTemplate.getClientHttpRequestInitializers());
+		this.restTemplate.setObservationRegistry(restTemplate.getObservationRegistry());
+		if (restTemplate.getObservationConvention() != null) {
+			this.restTemplate.setObservationConvention(restTemplate.getObservationConvention());
+		}
+		this.restTemplate.getInterceptors().add(this::recordQuota);
 		this.stravaConfig = stravaConfig;
+		this.rateLimiter = rateLimiter;
 	}
 
 	@Override
 	public StravaTokenResponseDto exchangeCodeForToken(String code) {
 		log.info("Exchanging authorization code for access token");
+		rateLimiter.acquire(Priority.INTERACTIVE);
 		
 		try {
 			MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
@@ -73,8 +94,9 @@ public class StravaApiClientImpl implements StravaApiClient {
 
 	
 	@Override
-	public StravaTokenResponseDto refreshAccessToken(String refreshToken) {
+	public StravaTokenResponseDto refreshAccessToken(String refreshToken, Priority priority) {
 		log.info("Refreshing Strava access token");
+		rateLimiter.acquire(priority);
 
 		try {
 			MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
@@ -94,12 +116,16 @@ public class StravaApiClientImpl implements StravaApiClient {
 					StravaTokenResponseDto.class);
 
 			if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-				throw new StravaAuthException("Failed to refresh access token");
+				throw new StravaException("Failed to refresh access token");
 			}
 
 			log.info("Successfully refreshed access token");
 			return response.getBody();
 
+		} catch (HttpClientErrorException.BadRequest | HttpClientErrorException.Unauthorized e) {
+			// invalid_grant: the refresh token was revoked or already rotated
+			log.warn("Strava rejected the refresh token: {}", e.getMessage());
+			throw new StravaAuthException("Strava rejected the refresh token", e);
 		} catch (RestClientException e) {
 			log.error("Error refreshing token: {}", e.getMessage(), e);
 			throw new StravaException("Failed to refresh Strava token", e);
@@ -108,6 +134,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 
 	public StravaAthleteDto getAuthenticatedAthlete(String accessToken) {
         log.debug("Fetching authenticated athlete info");
+        rateLimiter.acquire(Priority.INTERACTIVE);
 
         String url = stravaConfig.getApiBaseUrl() + "/api/v3/athlete";
         HttpHeaders headers = createAuthHeaders(accessToken);
@@ -136,6 +163,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 	@Override
 	public List<StravaActivityDto> getAthleteActivities(String accessToken, Integer page, Integer perPage) {
 		log.debug("Fetching athlete activities with page: {}, perPage: {}", page, perPage);
+		rateLimiter.acquire(Priority.INTERACTIVE);
 
 		try {
 			String url = stravaConfig.getActivitiesUrl() + "?page=" + page + "&per_page=" + perPage;
@@ -164,9 +192,18 @@ public class StravaApiClientImpl implements StravaApiClient {
 
 	public List<StravaActivityDto> getActivitiesAfter(String accessToken, LocalDateTime after, Integer page,
 			Integer perPage) {
-		log.debug("Fetching activities after: {}, page={}, perPage={}", after, page, perPage);
+		return getActivitiesAfter(accessToken, after.atZone(java.time.ZoneId.systemDefault()).toEpochSecond(), page,
+				perPage);
+	}
+
+	/**
+	 * Background priority: used by the activity sync, deferred near the quota.
+	 */
+	@Override
+	public List<StravaActivityDto> getActivitiesAfter(String accessToken, long afterEpoch, int page, int perPage) {
+		log.debug("Fetching activities after: {}, page={}, perPage={}", afterEpoch, page, perPage);
+		rateLimiter.acquire(Priority.BACKGROUND);
 
-		long afterEpoch = after.atZone(java.time.ZoneId.systemDefault()).toEpochSecond();
 		String url = stravaConfig.getActivitiesUrl() + "?after=" + afterEpoch + "&page=" + page + "&per_page="
 				+ perPage;
 
@@ -181,7 +218,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 			if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
 				return List.of();
 			}
-			log.debug("Successfully fetched {} activities after {}", response.getBody().size(), after);
+			log.debug("Successfully fetched {} activities after {}", response.getBody().size(), afterEpoch);
 			return response.getBody();
 		} catch (Exception e) {
 			log.error("Failed to fetch activities after date: {}", e.getMessage());
@@ -192,6 +229,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 	@Override
 	public StravaActivityDto getActivity(String accessToken, Long activityId) {
 		log.debug("Fetching activity with id: {}", activityId);
+		rateLimiter.acquire(Priority.INTERACTIVE);
 
 		try {
 			String url = stravaConfig.getApiBaseUrl() + "/api/v3/activities/" + activityId;
@@ -219,6 +257,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 
 	public Map<String, Object> getAthleteStats(String accessToken, Long athleteId) {
 		log.debug("Fetching athlete stats for ID: {}", athleteId);
+		rateLimiter.acquire(Priority.INTERACTIVE);
 
 		String url = stravaConfig.getApiBaseUrl() + "/api/v3/athletes/" + athleteId + "/stats";
 		HttpHeaders headers = createAuthHeaders(accessToken);
@@ -241,6 +280,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 
 	public void deauthorize(String accessToken) {
 		log.debug("Deauthorizing Strava access");
+		rateLimiter.acquire(Priority.INTERACTIVE);
 
 		String url = stravaConfig.getApiBaseUrl() + "/api/v3/oauth/deauthorize";
 		HttpHeaders headers = createAuthHeaders(accessToken);
@@ -258,6 +298,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 	@Override
 	public boolean validateToken(String accessToken) {
 		log.debug("Validating Strava access token");
+		rateLimiter.acquire(Priority.INTERACTIVE);
 
 		try {
 			String url = stravaConfig.getApiBaseUrl() + "/api/v3/athlete";
@@ -280,6 +321,7 @@ public class StravaApiClientImpl implements StravaApiClient {
 	@Override
 	public StravaAthleteDto getAthlete(String accessToken) {
 		log.debug("Fetching authenticated athlete");
+		rateLimiter.acquire(Priority.INTERACTIVE);
 
 		try {
 			String url = stravaConfig.getApiBaseUrl() + "/api/v3/athlete";
@@ -305,6 +347,16 @@ public class StravaApiClientImpl implements StravaApiClient {
 		}
 	}
 	
+	private ClientHttpResponse recordQuota(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		ClientHttpResponse response = execution.execute(request, body);
+		rateLimiter.record(response.getHeaders());
+		if (response.getStatusCode().value() == 429) {
+			rateLimiter.markExhausted();
+		}
+		return response;
+	}
+
 	private HttpHeaders createAuthHeaders(String accessToken) {
 		HttpHeaders headers = new HttpHeaders();
 		headers.set("Authorization", "Bearer " + accessToken);
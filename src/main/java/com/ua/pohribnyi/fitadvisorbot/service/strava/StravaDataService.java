@@ -11,6 +11,7 @@ import com.ua.pohribnyi.fitadvisorbot.model.entity.strava.StravaToken;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaTokenRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.token.AccessTokenCache;
 import com.ua.pohribnyi.fitadvisorbot.service.token.TokenEncryptionService;
 import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaAuthException;
 import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaException;
@@ -29,6 +30,7 @@ public class StravaDataService {
 	private final UserRepository userRepository;
 	private final StravaTokenRepository stravaTokenRepository;
 	private final TokenEncryptionService tokenEncryptionService;
+	private final AccessTokenCache accessTokenCache;
 
 	@Transactional(readOnly = true)
 	public StravaAthleteDto getAthlete(Long telegramUserId) {
@@ -38,7 +40,7 @@ public class StravaDataService {
 		StravaToken token = getActiveToken(user);
 		stravaIntegrationService.ensureValidToken(user);
 
-		String accessToken = tokenEncryptionService.decrypt(token.getAccessToken());
+		String accessToken = decryptAccessToken(user, token);
 
 		try {
 			return stravaApiClient.getAthlete(accessToken);
@@ -56,7 +58,7 @@ public class StravaDataService {
 		StravaToken token = getActiveToken(user);
 		stravaIntegrationService.ensureValidToken(user);
 
-		String accessToken = tokenEncryptionService.decrypt(token.getAccessToken());
+		String accessToken = decryptAccessToken(user, token);
 
 		try {
 			return stravaApiClient.getAthleteActivities(accessToken, 1, limit);
@@ -74,7 +76,7 @@ public class StravaDataService {
 		StravaToken token = getActiveToken(user);
 		stravaIntegrationService.ensureValidToken(user);
 
-		String accessToken = tokenEncryptionService.decrypt(token.getAccessToken());
+		String accessToken = decryptAccessToken(user, token);
 
 		try {
 			return stravaApiClient.getActivity(accessToken, activityId);
@@ -89,6 +91,10 @@ public class StravaDataService {
 				.orElseThrow(() -> new UserNotFoundException("User not found by telegram user id: " + telegramUserId));
 	}
 
+	private String decryptAccessToken(User user, StravaToken token) {
+		return accessTokenCache.get(user.getId(), token.getAccessToken(), tokenEncryptionService::decrypt);
+	}
+
 	private StravaToken getActiveToken(User user) {
 		return stravaTokenRepository.findByUser(user)
 				.orElseThrow(() -> new StravaAuthException("No active Strava token found"));
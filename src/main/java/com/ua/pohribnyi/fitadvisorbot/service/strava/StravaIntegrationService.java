@@ -2,6 +2,7 @@ package com.ua.pohribnyi.fitadvisorbot.service.strava;
 
 import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaAuthStatusDto;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
 
 public interface StravaIntegrationService {
 
@@ -13,6 +14,12 @@ public interface StravaIntegrationService {
 
 	void ensureValidToken(User user);
 
+	/**
+	 * Like {@link #ensureValidToken(User)}; a refresh counts against the quota
+	 * with the given priority.
+	 */
+	void ensureValidToken(User user, Priority priority);
+
 	void disconnectStrava(Long telegramUserId);
 
 }
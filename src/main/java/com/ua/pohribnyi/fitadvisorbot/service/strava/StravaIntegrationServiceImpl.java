@@ -12,9 +12,12 @@ import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaTokenResponseDto;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.strava.OAuthState;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.strava.StravaToken;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaActivitySyncRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaTokenRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ouath.OAuthStateService;
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
+import com.ua.pohribnyi.fitadvisorbot.service.token.AccessTokenCache;
 import com.ua.pohribnyi.fitadvisorbot.service.token.TokenEncryptionService;
 import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaAuthException;
 import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaException;
@@ -29,8 +32,10 @@ public class StravaIntegrationServiceImpl implements StravaIntegrationService {
 	private final StravaApiClient stravaApiClient;
 	private final OAuthStateService OAuthStateService;
 	private final TokenEncryptionService tokenEncryptionService;
+	private final AccessTokenCache accessTokenCache;
 	private final UserRepository userRepository;
 	private final StravaTokenRepository stravaTokenRepository;
+	private final StravaActivitySyncRepository activitySyncRepository;
 	// TODO:
 	// remove sending message from this service through bot service
 	//private final FitnessAdvisorBotService fitnessAdvisorBotService;
@@ -39,14 +44,17 @@ public class StravaIntegrationServiceImpl implements StravaIntegrationService {
 
 	public StravaIntegrationServiceImpl(StravaConfig stravaConfig, StravaApiClient stravaApiClient,
 			OAuthStateService oAuthStateService,
-			TokenEncryptionService tokenEncryptionService, UserRepository userRepository,
-			StravaTokenRepository stravaTokenRepository) {
+			TokenEncryptionService tokenEncryptionService, AccessTokenCache accessTokenCache,
+			UserRepository userRepository, StravaTokenRepository stravaTokenRepository,
+			StravaActivitySyncRepository activitySyncRepository) {
 		this.stravaConfig = stravaConfig;
 		this.stravaApiClient = stravaApiClient;
 		this.OAuthStateService  = oAuthStateService;
 		this.tokenEncryptionService = tokenEncryptionService;
+		this.accessTokenCache = accessTokenCache;
 		this.userRepository = userRepository;
 		this.stravaTokenRepository = stravaTokenRepository;
+		this.activitySyncRepository = activitySyncRepository;
 		//this.fitnessAdvisorBotService = fitnessAdvisorBotService;
 	}
 
@@ -125,6 +133,11 @@ public class StravaIntegrationServiceImpl implements StravaIntegrationService {
 
 	@Override
 	public void ensureValidToken(User user) {
+		ensureValidToken(user, Priority.INTERACTIVE);
+	}
+
+	@Override
+	public void ensureValidToken(User user, Priority priority) {
 		log.debug("Ensuring valid Strava token for user: {}", user.getId());
 
 		StravaToken token = stravaTokenRepository.findByUser(user)
@@ -132,7 +145,7 @@ public class StravaIntegrationServiceImpl implements StravaIntegrationService {
 
 		if (tokenIsExpired(token)) {
 			log.info("Token expired for user {}, refreshing...", user.getTelegramUserId());
-			refreshToken(token);
+			refreshToken(token, priority);
 		} else {
 			log.debug("Token is still valid for user: {}", user.getTelegramUserId());
 		}
@@ -148,6 +161,9 @@ public class StravaIntegrationServiceImpl implements StravaIntegrationService {
 
 		stravaTokenRepository.findByUser(user).ifPresent(token -> {
 			stravaTokenRepository.delete(token);
+			accessTokenCache.invalidate(user.getId());
+			// A reconnect may be a different athlete: start its sync afresh
+			activitySyncRepository.deleteCursor(user.getId());
             log.info("Deleted Strava token for user {}", telegramUserId);
 		});
 
@@ -170,14 +186,17 @@ public class StravaIntegrationServiceImpl implements StravaIntegrationService {
 				.build();
 
         stravaTokenRepository.save(newToken);
+        accessTokenCache.invalidate(user.getId());
         log.info("Saved new Strava token for user {}", user.getTelegramUserId());
     }
 	
 	@Transactional
-	private void refreshToken(StravaToken token) {
+	private void refreshToken(StravaToken token, Priority priority) {
+		// The old access token is dead either way
+		accessTokenCache.invalidate(token.getUser().getId());
 		try {
 			String refreshToken = tokenEncryptionService.decrypt(token.getRefreshToken());
-			StravaTokenResponseDto tokenResponse = stravaApiClient.refreshAccessToken(refreshToken);
+			StravaTokenResponseDto tokenResponse = stravaApiClient.refreshAccessToken(refreshToken, priority);
 
 			token.setAccessToken(tokenEncryptionService.encrypt(tokenResponse.accessToken()));
 			token.setRefreshToken(tokenEncryptionService.encrypt(tokenResponse.refreshToken()));
@@ -187,11 +206,20 @@ public class StravaIntegrationServiceImpl implements StravaIntegrationService {
 
 			log.info("Token refreshed successfully for user: {}", token.getUser().getTelegramUserId());
 
-		} catch (Exception e) {
+		} catch (StravaAuthException e) {
+			// Only a rejected refresh token means the connection is gone
 			log.error("Failed to refresh token for user {}: {}", token.getUser().getTelegramUserId(), e.getMessage(),
 					e);
             stravaTokenRepository.delete(token);
-			throw new StravaAuthException("Failed to refresh Strava token", e);
+			throw e;
+		} catch (StravaException e) {
+			// Quota, 429 or 5xx: the refresh token is still good, try again later
+			log.warn("Token refresh deferred for user {}: {}", token.getUser().getTelegramUserId(), e.getMessage());
+			throw e;
+		} catch (Exception e) {
+			log.error("Failed to refresh token for user {}: {}", token.getUser().getTelegramUserId(), e.getMessage(),
+					e);
+			throw new StravaException("Failed to refresh Strava token", e);
 		}
 	}
 
@@ -0,0 +1,209 @@
+package com.ua.pohribnyi.fitadvisorbot.service.strava;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaRateLimitException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client-side view of Strava's per-application quota.
+ *
+ * Strava counts requests in a 15-minute window (reset at :00, :15, :30, :45)
+ * and a daily window (reset at midnight UTC) and reports both after every call
+ * in {@code X-RateLimit-Usage}/{@code X-RateLimit-Limit}, plus the stricter
+ * read-only pair {@code X-ReadRateLimit-*}. Every response updates the
+ * windows from whichever pair is closer to its cap; between responses, each
+ * admitted request is counted locally.
+ *
+ * Interactive requests may use the whole quota. Background work (the activity
+ * sync) is only admitted below {@code app.strava.rate-limit.background-share}
+ * of either window, so bulk syncing can never use up the quota users need for
+ * their own requests.
+ */
+@Slf4j
+@Component
+public class StravaRateLimiter {
+
+	public enum Priority {
+		INTERACTIVE, BACKGROUND
+	}
+
+	private static final long SHORT_WINDOW_SECONDS = Duration.ofMinutes(15).toSeconds();
+	private static final long DAILY_WINDOW_SECONDS = Duration.ofDays(1).toSeconds();
+
+	private final Clock clock;
+	private final double backgroundShare;
+	private final Window shortWindow;
+	private final Window dailyWindow;
+
+	private final Counter rejectedInteractive;
+	private final Counter deferredBackground;
+
+	@Autowired
+	public StravaRateLimiter(MeterRegistry meterRegistry,
+			@Value("${app.strava.rate-limit.short-limit:100}") int shortLimit,
+			@Value("${app.strava.rate-limit.daily-limit:1000}") int dailyLimit,
+			@Value("${app.strava.rate-limit.background-share:0.8}") double backgroundShare) {
+		this(meterRegistry, shortLimit, dailyLimit, backgroundShare, Clock.systemUTC());
+	}
+
+	StravaRateLimiter(MeterRegistry meterRegistry, int shortLimit, int dailyLimit, double backgroundShare,
+			Clock clock) {
+		this.clock = clock;
+		this.backgroundShare = backgroundShare;
+		this.shortWindow = new Window(SHORT_WINDOW_SECONDS, shortLimit);
+		this.dailyWindow = new Window(DAILY_WINDOW_SECONDS, dailyLimit);
+
+		Gauge.builder("strava.ratelimit.usage", this, l -> l.utilization(l.shortWindow))
+				.description("Share of the Strava quota used in the current window")
+				.tag("window", "15m")
+				.register(meterRegistry);
+		Gauge.builder("strava.ratelimit.usage", this, l -> l.utilization(l.dailyWindow))
+				.description("Share of the Strava quota used in the current window")
+				.tag("window", "daily")
+				.register(meterRegistry);
+		this.rejectedInteractive = Counter.builder("strava.ratelimit.rejected")
+				.tag("priority", "interactive")
+				.register(meterRegistry);
+		this.deferredBackground = Counter.builder("strava.ratelimit.rejected")
+				.tag("priority", "background")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Admits one request of the given priority and counts it.
+	 *
+	 * @throws StravaRateLimitException if the quota (or, for background work,
+	 *                                  its share) is used up
+	 */
+	public synchronized void acquire(Priority priority) {
+		long now = clock.instant().getEpochSecond();
+		double share = priority == Priority.BACKGROUND ? backgroundShare : 1.0;
+		Window blocking = !shortWindow.allows(now, share) ? shortWindow
+				: !dailyWindow.allows(now, share) ? dailyWindow : null;
+		if (blocking != null) {
+			Duration retryAfter = Duration.ofSeconds(blocking.secondsUntilReset(now));
+			if (priority == Priority.BACKGROUND) {
+				deferredBackground.increment();
+			} else {
+				rejectedInteractive.increment();
+				log.warn("⚠️ Strava quota exhausted ({}/{} in the {}s window), next reset in {}", blocking.used,
+						blocking.limit, blocking.lengthSeconds, retryAfter);
+			}
+			throw new StravaRateLimitException("Strava rate limit reached", retryAfter);
+		}
+		shortWindow.used++;
+		dailyWindow.used++;
+	}
+
+	/**
+	 * Updates both windows from the rate limit headers of a response; no-op if
+	 * they are missing.
+	 */
+	public synchronized void record(HttpHeaders headers) {
+		if (headers == null) {
+			return;
+		}
+		int[] overallLimit = parse(headers.getFirst("X-RateLimit-Limit"));
+		int[] overallUsage = parse(headers.getFirst("X-RateLimit-Usage"));
+		int[] readLimit = parse(headers.getFirst("X-ReadRateLimit-Limit"));
+		int[] readUsage = parse(headers.getFirst("X-ReadRateLimit-Usage"));
+		long now = clock.instant().getEpochSecond();
+		for (int i = 0; i < 2; i++) {
+			Window window = i == 0 ? shortWindow : dailyWindow;
+			window.roll(now);
+			if (overallLimit != null && overallUsage != null) {
+				window.observe(overallLimit[i], overallUsage[i]);
+			}
+			if (readLimit != null && readUsage != null) {
+				window.observe(readLimit[i], readUsage[i]);
+			}
+		}
+	}
+
+	/**
+	 * A 429 means the server-side count is at the cap, whatever we believed.
+	 */
+	public synchronized void markExhausted() {
+		shortWindow.roll(clock.instant().getEpochSecond());
+		shortWindow.used = Math.max(shortWindow.used, shortWindow.limit);
+	}
+
+	private synchronized double utilization(Window window) {
+		window.roll(clock.instant().getEpochSecond());
+		return window.limit > 0 ? (double) window.used / window.limit : 0;
+	}
+
+	/**
+	 * @return the {15-minute, daily} pair of a header, or null if absent or
+	 *         malformed
+	 */
+	private static int[] parse(String header) {
+		if (header == null) {
+			return null;
+		}
+		String[] parts = header.split(",");
+		if (parts.length < 2) {
+			return null;
+		}
+		try {
+			return new int[] { Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()) };
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/** Fixed window aligned to the epoch, like Strava's (UTC midnight for days). */
+	private static final class Window {
+		private final long lengthSeconds;
+		private int limit;
+		private int used;
+		private long start;
+		private boolean observed;
+
+		private Window(long lengthSeconds, int limit) {
+			this.lengthSeconds = lengthSeconds;
+			this.limit = limit;
+		}
+
+		private void roll(long now) {
+			long currentStart = now - now % lengthSeconds;
+			if (currentStart != start) {
+				start = currentStart;
+				used = 0;
+				observed = false;
+			}
+		}
+
+		private boolean allows(long now, double share) {
+			roll(now);
+			return used < limit * share;
+		}
+
+		/** Keeps the pair that is closer to its cap. */
+		private void observe(int headerLimit, int headerUsage) {
+			if (headerLimit <= 0) {
+				return;
+			}
+			if (!observed || (double) headerUsage / headerLimit > (double) used / limit) {
+				limit = headerLimit;
+				used = headerUsage;
+				observed = true;
+			}
+		}
+
+		private long secondsUntilReset(long now) {
+			return start + lengthSeconds - now;
+		}
+	}
+}
@@ -1,16 +1,18 @@
 package com.ua.pohribnyi.fitadvisorbot.service.telegram;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
-import com.ua.pohribnyi.fitadvisorbot.config.telegram.TelegramUpdateDispatcher;
+import com.ua.pohribnyi.fitadvisorbot.config.telegram.UpdateDispatchEngine;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,42 +20,52 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class FitnessAdvisorBotService extends TelegramLongPollingBot {
 
-	private final TelegramUpdateDispatcher updateDispatcher;
-	private final TelegramErrorHandler errorHandler;
+	private final UpdateDispatchEngine dispatchEngine;
+	private final TelegramSendQueue sendQueue;
 	private final String botUsername;
 
 	public FitnessAdvisorBotService(@Value("${telegram.bot.token}") String botToken,
-			@Value("${telegram.bot.username}") String botUsername, TelegramUpdateDispatcher updateDispatcher,
-			TelegramErrorHandler errorHandler, @Qualifier("yamlMessageSource") MessageSource messageSource) {
+			@Value("${telegram.bot.username}") String botUsername, UpdateDispatchEngine dispatchEngine,
+			TelegramSendQueue sendQueue, @Qualifier("yamlMessageSource") MessageSource messageSource) {
 		super(botToken);
 		this.botUsername = botUsername;
-		this.updateDispatcher = updateDispatcher;
-		this.errorHandler = errorHandler;
+		this.dispatchEngine = dispatchEngine;
+		this.sendQueue = sendQueue;
 	}
 
 	/**
-	 * This is the single entry point for all updates. It delegates ALL logic to the
-	 * dispatcher.
+	 * This is the single entry point for all updates. It hands the update to the
+	 * dispatch engine, so the polling thread never waits for business logic; it
+	 * only waits, instead of dropping the update, while the engine is saturated.
 	 */
 	@Override
 	public void onUpdateReceived(Update update) {
-		try {
-			updateDispatcher.dispatch(update, this);
-		} catch (Exception e) {
-			errorHandler.handleGlobalError(e, update, this);
+		if (!dispatchEngine.submit(update, this)) {
+			log.warn("Update {} was not accepted by the dispatch engine", update.getUpdateId());
 		}
 	}
 
-	public Message executeAndReturn(SendMessage message) throws TelegramApiException {
-        return execute(message);
-    }
+	/**
+	 * Queues the message like {@link #sendMessage} and completes with the sent
+	 * message, for flows that need it back (e.g. its id).
+	 */
+	public CompletableFuture<Message> sendAndReturn(SendMessage message) {
+		return sendQueue.submitForResult(message.getChatId(), message, this);
+	}
 	
+	/**
+	 * Queues the message for rate-shaped delivery. Failures are logged by the
+	 * queue.
+	 */
 	public void sendMessage(SendMessage message) {
-		try {
-			execute(message);
-		} catch (TelegramApiException e) {
-			log.error("Failed to send message: {}", e.getMessage(), e);
-		}
+		sendQueue.submit(message.getChatId(), message, this);
+	}
+
+	/**
+	 * Queues any API call (edit, delete...) behind the chat's pending messages.
+	 */
+	public void enqueue(Long chatId, BotApiMethod<?> method) {
+		sendQueue.submit(chatId.toString(), method, this);
 	}
 
 	@Override
@@ -1,36 +1,25 @@
 package com.ua.pohribnyi.fitadvisorbot.service.telegram;
 
-import java.util.Locale;
-
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.context.MessageSource;
-import org.springframework.context.NoSuchMessageException;
 import org.springframework.stereotype.Service;
 
+import com.ua.pohribnyi.fitadvisorbot.config.i18n.MessageTemplateRegistry;
 import com.ua.pohribnyi.fitadvisorbot.service.user.UserService;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 
 @Service
-@Slf4j
+@RequiredArgsConstructor
 public class MessageService {
 
-	private final MessageSource messageSource;
+	private final MessageTemplateRegistry templates;
 	private final UserService userService;
 
-	public MessageService(@Qualifier("yamlMessageSource") MessageSource messageSource, UserService userService) {
-		this.messageSource = messageSource;
-		this.userService = userService;
-	}
-
+	/**
+	 * Looks the pre-parsed template up directly; missing keys fall back to the
+	 * Ukrainian text and then to the key itself (see {@link MessageTemplateRegistry}).
+	 */
 	public String getMessage(String key, String languageCode, Object... args) {
-		try {
-			Locale locale = getLocale(languageCode);
-			return messageSource.getMessage(key, args, locale);
-		} catch (NoSuchMessageException e) {
-			log.warn("No message found for key: {} and locale: {}", key, languageCode);
-			return messageSource.getMessage(key, args, Locale.of("uk", "UA"));
-		}
+		return templates.getMessage(key, normalizeLanguage(languageCode), args);
 	}
 
 	public String getMessageForChat(String key, Long chatId, Object... args) {
@@ -42,11 +31,11 @@ public class MessageService {
 		return userService.getUserLanguageCode(chatId);
 	}
 
-	private Locale getLocale(String languageCode) {
-		return switch (languageCode) {
-		case "uk", "ua" -> Locale.of("uk");
-		case "en" -> Locale.ENGLISH;
-		default -> Locale.of("uk");
-		};
+	/**
+	 * Maps a Telegram language code to one of the supported languages ("uk",
+	 * "en"); unknown or missing codes fall back to "uk".
+	 */
+	public static String normalizeLanguage(String languageCode) {
+		return "en".equals(languageCode) ? "en" : "uk";
 	}
 }
\ No newline at end of file
@@ -0,0 +1,414 @@
+package com.ua.pohribnyi.fitadvisorbot.service.telegram;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageReplyMarkup;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import com.ua.pohribnyi.fitadvisorbot.util.concurrency.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Central outbound scheduler for Telegram API calls.
+ *
+ * Every chat has its own FIFO queue and token bucket (Telegram allows about
+ * one message per second per chat); a global bucket keeps the bot under ~30
+ * messages per second overall. A single scheduler thread picks chats
+ * round-robin and hands the HTTP call to a virtual thread; a chat is not
+ * picked again until its previous call finished, which keeps per-chat order.
+ *
+ * Pending edits of the same message are coalesced: only the latest text is
+ * sent. A 429 response puts the call back at the head of its chat queue and
+ * pauses sending for {@code retry_after} seconds. Callback answers go to a
+ * separate lane of their chat that spends no chat token, since they post
+ * nothing to the chat: they never wait behind rate-limited messages or edits,
+ * and the client's spinner stops right away.
+ */
+@Slf4j
+@Component
+public class TelegramSendQueue {
+
+	private static final int MAX_ATTEMPTS = 5;
+	private static final long IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+	private static final String CALLBACK_LANE_SUFFIX = ":callbacks";
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final Condition drained = lock.newCondition();
+	private final Map<String, ChatLane> chats = new HashMap<>();
+	private final ArrayDeque<ChatLane> rotation = new ArrayDeque<>();
+	private final TokenBucket globalBucket;
+
+	private final double perChatRate;
+	private final int perChatBurst;
+	private final int maxQueueSize;
+
+	private final ExecutorService senders = Executors
+			.newThreadPerTaskExecutor(Thread.ofVirtual().name("tg-send-", 0).factory());
+	private final Thread scheduler = Thread.ofPlatform().name("tg-send-scheduler").daemon().unstarted(this::run);
+	private volatile boolean running = true;
+
+	private int queued;
+	private int inFlight;
+	private long globalPausedUntil;
+	private long lastSweep = System.nanoTime();
+
+	private final Counter sent;
+	private final Counter failed;
+	private final Counter throttled;
+	private final Counter coalesced;
+	private final Counter dropped;
+
+	public TelegramSendQueue(MeterRegistry meterRegistry,
+			@Value("${telegram.bot.outbound.global-rate:30}") double globalRate,
+			@Value("${telegram.bot.outbound.per-chat-rate:1}") double perChatRate,
+			@Value("${telegram.bot.outbound.per-chat-burst:1}") int perChatBurst,
+			@Value("${telegram.bot.outbound.max-queue-size:10000}") int maxQueueSize) {
+		this.globalBucket = new TokenBucket(globalRate, globalRate, System.nanoTime());
+		this.perChatRate = perChatRate;
+		this.perChatBurst = perChatBurst;
+		this.maxQueueSize = maxQueueSize;
+
+		Gauge.builder("telegram.outbound.queue.size", this, q -> q.queued)
+				.description("Outbound calls waiting to be sent")
+				.register(meterRegistry);
+		Gauge.builder("telegram.outbound.in_flight", this, q -> q.inFlight)
+				.description("Outbound calls currently being sent")
+				.register(meterRegistry);
+		this.sent = Counter.builder("telegram.outbound.sent").register(meterRegistry);
+		this.failed = Counter.builder("telegram.outbound.failed").register(meterRegistry);
+		this.throttled = Counter.builder("telegram.outbound.throttled")
+				.description("429 responses received from Telegram")
+				.register(meterRegistry);
+		this.coalesced = Counter.builder("telegram.outbound.coalesced").register(meterRegistry);
+		this.dropped = Counter.builder("telegram.outbound.dropped")
+				.description("Calls rejected because the queue was full")
+				.register(meterRegistry);
+	}
+
+	@PostConstruct
+	void start() {
+		scheduler.start();
+	}
+
+	/**
+	 * Queues an API call for the given chat. Returns immediately; delivery
+	 * failures are logged, not propagated.
+	 *
+	 * @return {@code false} if the queue is full and the call was dropped
+	 */
+	public boolean submit(String chatId, BotApiMethod<?> method, AbsSender sender) {
+		return enqueue(chatId, method, sender, coalesceKey(method), null);
+	}
+
+	/**
+	 * Queues an API call like {@link #submit} and completes with Telegram's
+	 * response once it has been sent, for callers that need the result (e.g. the
+	 * id of a sent message). Calls with a result are never coalesced.
+	 *
+	 * @return a future that fails with the last {@link TelegramApiException} if
+	 *         the call could not be delivered, was dropped or the queue stopped
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Serializable> CompletableFuture<T> submitForResult(String chatId, BotApiMethod<T> method,
+			AbsSender sender) {
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		if (!enqueue(chatId, method, sender, null, result)) {
+			result.completeExceptionally(new TelegramApiException("Outbound queue is full"));
+		}
+		return (CompletableFuture<T>) (CompletableFuture<?>) result;
+	}
+
+	private boolean enqueue(String chatId, BotApiMethod<?> method, AbsSender sender, String coalesceKey,
+			CompletableFuture<Object> result) {
+		lock.lock();
+		try {
+			boolean callback = method instanceof AnswerCallbackQuery;
+			ChatLane lane = chats.computeIfAbsent(callback ? chatId + CALLBACK_LANE_SUFFIX : chatId,
+					id -> new ChatLane(chatId, !callback));
+			if (coalesceKey != null && lane.replacePending(coalesceKey, method)) {
+				coalesced.increment();
+				return true;
+			}
+			if (queued >= maxQueueSize) {
+				dropped.increment();
+				log.warn("Outbound queue is full ({}), dropping {} for chat {}", queued, method.getMethod(), chatId);
+				return false;
+			}
+			lane.items.addLast(new OutboundCall(method, sender, coalesceKey, result));
+			queued++;
+			if (!lane.inFlight && !lane.inRotation) {
+				lane.inRotation = true;
+				rotation.addLast(lane);
+			}
+			changed.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Blocks a bulk producer until fewer than {@code limit} calls are queued, so
+	 * fan-outs leave room in the queue for interactive replies instead of
+	 * filling it up and getting dropped.
+	 *
+	 * @return {@code false} if the timeout elapsed or the queue is shutting down
+	 */
+	public boolean awaitQueuedBelow(int limit, long timeout, TimeUnit unit) throws InterruptedException {
+		long remaining = unit.toNanos(timeout);
+		lock.lock();
+		try {
+			while (running && queued >= limit) {
+				if (remaining <= 0) {
+					return false;
+				}
+				remaining = drained.awaitNanos(remaining);
+			}
+			return running;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void run() {
+		lock.lock();
+		try {
+			while (running) {
+				long wait = dispatchReady(System.nanoTime());
+				if (wait > 0) {
+					changed.awaitNanos(wait);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sends everything that is allowed right now. Must be called under lock.
+	 *
+	 * @return nanoseconds to wait before something may become ready
+	 */
+	private long dispatchReady(long now) {
+		sweepIdleChats(now);
+		if (now < globalPausedUntil) {
+			return globalPausedUntil - now;
+		}
+
+		long minWait = IDLE_WAIT_NANOS;
+		int candidates = rotation.size();
+		for (int i = 0; i < candidates; i++) {
+			long globalWait = globalBucket.nanosUntilAvailable(now);
+			if (globalWait > 0) {
+				return globalWait;
+			}
+
+			ChatLane lane = rotation.pollFirst();
+			long laneWait = Math.max(lane.pausedUntil - now,
+					lane.chatLimited ? lane.bucket.nanosUntilAvailable(now) : 0);
+			if (laneWait > 0) {
+				rotation.addLast(lane);
+				minWait = Math.min(minWait, laneWait);
+				continue;
+			}
+
+			globalBucket.tryAcquire(now);
+			if (lane.chatLimited) {
+				lane.bucket.tryAcquire(now);
+			}
+			OutboundCall call = lane.items.pollFirst();
+			lane.inRotation = false;
+			lane.inFlight = true;
+			queued--;
+			inFlight++;
+			drained.signalAll();
+			senders.execute(() -> send(lane, call));
+		}
+		return minWait;
+	}
+
+	private void send(ChatLane lane, OutboundCall call) {
+		long retryAfterSeconds = 0;
+		try {
+			Serializable response = call.sender.execute(call.method);
+			sent.increment();
+			call.succeed(response);
+		} catch (TelegramApiRequestException e) {
+			if (isTooManyRequests(e) && call.attempts + 1 < MAX_ATTEMPTS) {
+				throttled.increment();
+				retryAfterSeconds = retryAfter(e);
+				log.warn("Telegram throttled chat {}, retrying in {}s", lane.chatId, retryAfterSeconds);
+			} else {
+				failed.increment();
+				log.error("Failed to send {} to chat {}: {}", call.method.getMethod(), lane.chatId, e.getMessage());
+				call.fail(e);
+			}
+		} catch (TelegramApiException e) {
+			failed.increment();
+			log.error("Failed to send {} to chat {}: {}", call.method.getMethod(), lane.chatId, e.getMessage());
+			call.fail(e);
+		} catch (RuntimeException e) {
+			failed.increment();
+			log.error("Unexpected error sending to chat {}: {}", lane.chatId, e.getMessage(), e);
+			call.fail(e);
+		} finally {
+			complete(lane, call, retryAfterSeconds);
+		}
+	}
+
+	private void complete(ChatLane lane, OutboundCall call, long retryAfterSeconds) {
+		lock.lock();
+		try {
+			inFlight--;
+			lane.inFlight = false;
+			if (retryAfterSeconds > 0) {
+				long pausedUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfterSeconds);
+				call.attempts++;
+				lane.items.addFirst(call);
+				queued++;
+				lane.pausedUntil = pausedUntil;
+				// Flood limits are enforced per bot, so back off globally as well
+				globalPausedUntil = Math.max(globalPausedUntil, pausedUntil);
+			}
+			if (!lane.items.isEmpty()) {
+				lane.inRotation = true;
+				rotation.addLast(lane);
+			}
+			changed.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void sweepIdleChats(long now) {
+		if (now - lastSweep < SWEEP_INTERVAL_NANOS) {
+			return;
+		}
+		lastSweep = now;
+		chats.values().removeIf(lane -> !lane.inFlight && lane.items.isEmpty() && lane.pausedUntil <= now
+				&& lane.bucket.isFull(now));
+	}
+
+	private static boolean isTooManyRequests(TelegramApiRequestException e) {
+		return e.getErrorCode() != null && e.getErrorCode() == 429;
+	}
+
+	private static long retryAfter(TelegramApiRequestException e) {
+		if (e.getParameters() != null && e.getParameters().getRetryAfter() != null) {
+			return Math.max(1, e.getParameters().getRetryAfter());
+		}
+		return 1;
+	}
+
+	private static String coalesceKey(BotApiMethod<?> method) {
+		if (method instanceof EditMessageText edit && edit.getMessageId() != null) {
+			return "text:" + edit.getMessageId();
+		}
+		if (method instanceof EditMessageReplyMarkup edit && edit.getMessageId() != null) {
+			return "markup:" + edit.getMessageId();
+		}
+		return null;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		lock.lock();
+		try {
+			changed.signalAll();
+			drained.signalAll();
+			if (queued > 0) {
+				log.warn("Outbound queue stopped with {} unsent call(s)", queued);
+				TelegramApiException stopped = new TelegramApiException("Outbound queue stopped");
+				chats.values().forEach(lane -> lane.items.forEach(call -> call.fail(stopped)));
+			}
+		} finally {
+			lock.unlock();
+		}
+		senders.shutdown();
+		try {
+			senders.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private final class ChatLane {
+		private final String chatId;
+		private final boolean chatLimited;
+		private final ArrayDeque<OutboundCall> items = new ArrayDeque<>();
+		private final TokenBucket bucket = new TokenBucket(perChatRate, perChatBurst, System.nanoTime());
+		private boolean inFlight;
+		private boolean inRotation;
+		private long pausedUntil;
+
+		private ChatLane(String chatId, boolean chatLimited) {
+			this.chatId = chatId;
+			this.chatLimited = chatLimited;
+		}
+
+		private boolean replacePending(String key, BotApiMethod<?> method) {
+			for (OutboundCall call : items) {
+				if (key.equals(call.coalesceKey)) {
+					call.method = method;
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static final class OutboundCall {
+		private BotApiMethod<?> method;
+		private final AbsSender sender;
+		private final String coalesceKey;
+		private final CompletableFuture<Object> result;
+		private int attempts;
+
+		private OutboundCall(BotApiMethod<?> method, AbsSender sender, String coalesceKey,
+				CompletableFuture<Object> result) {
+			this.method = method;
+			this.sender = sender;
+			this.coalesceKey = coalesceKey;
+			this.result = result;
+		}
+
+		private void succeed(Serializable response) {
+			if (result != null) {
+				result.complete(response);
+			}
+		}
+
+		private void fail(Exception e) {
+			if (result != null) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+}
@@ -3,12 +3,16 @@ package com.ua.pohribnyi.fitadvisorbot.service.telegram;
 import java.util.List;
 import java.util.Locale;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto.MetricResult;
+import com.ua.pohribnyi.fitadvisorbot.enums.AnalyticsMetricType;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.google.DailyAdviceResponse;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
@@ -25,9 +29,41 @@ public class TelegramViewService {
 	private final MessageService messageService;
 	private final MessageBuilderService messageBuilder;
 	private final KeyboardBuilderService keyboardBuilder;
+	private final ViewFragmentCache fragments;
 	private static final String SPECIAL_CHARS = "_*[]()~`>#+-=|{}.!\\";
 	private static final String ALLOWED_MARKDOWN_CHARS = "*_`";
 
+	private static final List<String> LANGUAGES = List.of("uk", "en");
+	private static final List<String> REPORT_PERIOD_KEYS = List.of("analytics.report.period.weekly",
+			"analytics.report.period.initial");
+	private static final List<String> REPORT_STATIC_KEYS = List.of("analytics.report.base_metrics_header",
+			"analytics.report.insights_header", "analytics.report.predict_header", "analytics.report.footer",
+			"analytics.consistency.iron", "analytics.consistency.good", "analytics.consistency.start",
+			"analytics.consistency.lazy");
+
+	/**
+	 * Fills the fragment cache with the static parts of the analytics and
+	 * settings views, so the first users after a deploy do not pay for it.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUpFragments() {
+		for (String lang : LANGUAGES) {
+			REPORT_STATIC_KEYS.forEach(key -> fragments.escapedText(key, lang));
+			REPORT_PERIOD_KEYS.forEach(key -> fragments.text(key, lang));
+			for (AnalyticsMetricType type : AnalyticsMetricType.values()) {
+				fragments.text("analytics.metric.title." + type.name(), lang);
+				fragments.escapedText("analytics.metric.desc." + type.name(), lang);
+			}
+			for (String periodKey : REPORT_PERIOD_KEYS) {
+				analyticsKeyboard(lang, false, periodKey);
+				analyticsKeyboard(lang, true, periodKey);
+			}
+			settingsKeyboard(lang, false);
+			settingsKeyboard(lang, true);
+		}
+		log.debug("View fragments warmed up for {}", LANGUAGES);
+	}
+
 	/**
 	 * Message for existing users (returning to the bot). Sends a welcome message
 	 * and the main ReplyKeyboard menu.
@@ -109,29 +145,36 @@ public class TelegramViewService {
 				keyboardBuilder.createAgeSelectionKeyboard(lang));
 	}
 
-	public SendMessage getAnalyticsReportMessage(Long chatId, PeriodReportDto report) {
-		String lang = messageService.getLangCode(chatId);
-		String text = buildAnalyticsReportText(chatId, report, lang, false);
+	public SendMessage getAnalyticsReportMessage(Long chatId, User user, PeriodReportDto report) {
+		String lang = user.getLanguageCode();
+		String text = buildAnalyticsReportText(report, lang, false);
 
 		return messageBuilder.createMessageWithKeyboard(chatId, text,
-				keyboardBuilder.createAnalyticsKeyboard(lang, false, report.getPeriodKey()));
+				analyticsKeyboard(lang, false, report.getPeriodKey()));
 	}
 
-	public EditMessageText getAnalyticsReportEditMessage(Long chatId, Integer messageId, PeriodReportDto report,
-			boolean showDetails) {
-		String lang = messageService.getLangCode(chatId);
-		String text = buildAnalyticsReportText(chatId, report, lang, showDetails);
+	public EditMessageText getAnalyticsReportEditMessage(Long chatId, Integer messageId, User user,
+			PeriodReportDto report, boolean showDetails) {
+		String lang = user.getLanguageCode();
+		String text = buildAnalyticsReportText(report, lang, showDetails);
 
 		return messageBuilder.createEditMessageWithKeyboard(chatId, messageId, text,
-				keyboardBuilder.createAnalyticsKeyboard(lang, showDetails, report.getPeriodKey()));
+				analyticsKeyboard(lang, showDetails, report.getPeriodKey()));
     }
 	
 	public SendMessage getDiaryStartMessage(Long chatId, boolean isManual) {
-        String lang = messageService.getLangCode(chatId);
+		return getDiaryStartMessage(chatId, messageService.getLangCode(chatId), isManual);
+    }
+
+	/**
+	 * Variant for bulk senders that already know the language; no DB lookup.
+	 */
+	public SendMessage getDiaryStartMessage(Long chatId, String lang, boolean isManual) {
+		String language = MessageService.normalizeLanguage(lang);
 		String textKey = isManual ? "diary.question.sleep_manual" : "diary.question.sleep";
-		String text = escapeMarkdownV2(messageService.getMessage(textKey, lang));
-		return messageBuilder.createMessageWithKeyboard(chatId, text, 
-				keyboardBuilder.createSleepRatingKeyboard(lang));
+		String text = fragments.escapedText(textKey, language);
+		return messageBuilder.createMessageWithKeyboard(chatId, text, fragments.keyboard("diary.sleep", language, "",
+				() -> keyboardBuilder.createSleepRatingKeyboard(language)));
     }
 
     public EditMessageText getDiaryStressQuestion(Long chatId, Integer messageId) {
@@ -185,16 +228,14 @@ public class TelegramViewService {
 
     public EditMessageText recoverFromMissingDraft(User user, Integer messageId) {
         // Returns a "Session expired" message update
-        String lang = messageService.getLangCode(user.getTelegramUserId());
-        String text = escapeMarkdownV2(messageService.getMessage("diary.error.missing_draft", lang));
+        String text = fragments.escapedText("diary.error.missing_draft", user.getLanguageCode());
 		return messageBuilder.createEditMessage(user.getTelegramUserId(), messageId, text);
     }
 
 	public SendMessage getSettingsMessage(Long chatId, User user, UserProfile profile, boolean isStravaConnected) {
-		String text = buildSettingsText(chatId, user, profile, isStravaConnected);
-		String lang = messageService.getLangCode(chatId);
+		String text = buildSettingsText(user, profile, isStravaConnected);
 		return messageBuilder.createMessageWithKeyboard(chatId, text,
-				keyboardBuilder.createSettingsKeyboard(lang, isStravaConnected));
+				settingsKeyboard(user.getLanguageCode(), isStravaConnected));
 
 	}
 	
@@ -203,11 +244,10 @@ public class TelegramViewService {
 	 */
 	public EditMessageText getSettingsEditMessage(Long chatId, Integer messageId, User user, UserProfile profile,
 			boolean isStravaConnected) {
-		String text = buildSettingsText(chatId, user, profile, isStravaConnected);
-		String lang = messageService.getLangCode(chatId);
+		String text = buildSettingsText(user, profile, isStravaConnected);
 
 		return messageBuilder.createEditMessageWithKeyboard(chatId, messageId, text,
-				keyboardBuilder.createSettingsKeyboard(lang, isStravaConnected));
+				settingsKeyboard(user.getLanguageCode(), isStravaConnected));
 	}
 
 	/**
@@ -265,33 +305,38 @@ public class TelegramViewService {
 		return result.toString();
 	}
 
-    private String buildSettingsText(Long chatId, User user, UserProfile profile, boolean isStravaConnected) {
-    	String lang = messageService.getLangCode(chatId);
+    private String buildSettingsText(User user, UserProfile profile, boolean isStravaConnected) {
+    	String lang = user.getLanguageCode();
 
 		// Safe access to profile fields with fallback
 		String goalText = profile.getGoal() != null
-				? messageService.getMessage("onboarding.goal.text." + profile.getGoal().toLowerCase(), lang)
+				? fragments.text("onboarding.goal.text." + profile.getGoal().toLowerCase(), lang)
 				: "N/A";
 
 		String levelText = profile.getLevel() != null
-				? messageService.getMessage("onboarding.level.text." + profile.getLevel().toLowerCase(), lang)
+				? fragments.text("onboarding.level.text." + profile.getLevel().toLowerCase(), lang)
 				: "N/A";
 
 		String ageText = profile.getAge() != null ? String.valueOf(profile.getAge()) : "N/A";
 
-		String stravaStatus = isStravaConnected ? messageService.getMessage("settings.strava_status.connected", lang)
-				: messageService.getMessage("settings.strava_status.disconnected", lang);
+		String stravaStatus = isStravaConnected ? fragments.text("settings.strava_status.connected", lang)
+				: fragments.text("settings.strava_status.disconnected", lang);
 
 		return escapeMarkdownV2(messageService.getMessage("settings.header", lang, user.getFirstName(), ageText,
 				levelText, goalText, stravaStatus));
 	}
     
-	private String buildAnalyticsReportText(Long chatId, PeriodReportDto report, String lang, boolean showDetails) {
-		StringBuilder sb = new StringBuilder();
+	/**
+	 * Static fragments (headers, titles, descriptions) come pre-escaped from
+	 * {@link ViewFragmentCache}; only the lines carrying report values are
+	 * formatted and escaped here.
+	 */
+	private String buildAnalyticsReportText(PeriodReportDto report, String lang, boolean showDetails) {
+		StringBuilder sb = new StringBuilder(2048);
 
-		String goalTitle = messageService.getMessage(report.getGoalName(), lang);
-		String consistencyVerdict = messageService.getMessage(report.getConsistencyVerdictKey(), lang);
-		String periodName = messageService.getMessage(report.getPeriodKey(), lang);
+		String goalTitle = fragments.text(report.getGoalName(), lang);
+		String consistencyVerdict = fragments.text(report.getConsistencyVerdictKey(), lang);
+		String periodName = fragments.text(report.getPeriodKey(), lang);
 		
 		// Header
 		sb.append(escapeMarkdownV2(messageService.getMessage("analytics.report.header", lang, periodName))).append("\n\n");
@@ -306,30 +351,30 @@ public class TelegramViewService {
 				String.format(Locale.US, "%.1f", report.getTotalDurationHours())))).append("\n\n");
 
 		// Base Metrics (Foundation)
-		sb.append(escapeMarkdownV2(messageService.getMessage("analytics.report.base_metrics_header", lang))).append("\n");
+		sb.append(fragments.escapedText("analytics.report.base_metrics_header", lang)).append("\n");
 		appendMetricsList(sb, report.getBaseMetrics(), lang, showDetails);
 		sb.append("\n");
 
 		// Smart Insights
-		sb.append(escapeMarkdownV2(messageService.getMessage("analytics.report.insights_header", lang))).append("\n");
+		sb.append(fragments.escapedText("analytics.report.insights_header", lang)).append("\n");
 		appendMetricsList(sb, report.getAdvancedMetrics(), lang, showDetails);
 		sb.append("\n");
 		
 		// 6. Prediction 
         if (report.getPredictionMetric() != null) {
-        	sb.append(escapeMarkdownV2(messageService.getMessage("analytics.report.predict_header", lang))).append("\n");
+        	sb.append(fragments.escapedText("analytics.report.predict_header", lang)).append("\n");
         	appendMetricsList(sb, List.of(report.getPredictionMetric()), lang, showDetails);
             sb.append("\n");
         }
 		
 		// Advisor Summary (Behavioral Frame)
-        String advisorText = messageService.getMessage(report.getAdvisorSummaryKey(), lang);
+        String advisorText = fragments.text(report.getAdvisorSummaryKey(), lang);
         String expertBlock = escapeMarkdownV2(
                 messageService.getMessage("analytics.report.advisor_section", lang, advisorText));
         sb.append(expertBlock).append("\n");
         
 		// Footer
-		sb.append(escapeMarkdownV2(messageService.getMessage("analytics.report.footer", lang)));
+		sb.append(fragments.escapedText("analytics.report.footer", lang));
 
 		return sb.toString();
 		
@@ -337,9 +382,7 @@ public class TelegramViewService {
 	
 	private void appendMetricsList(StringBuilder sb, List<MetricResult> metrics, String lang, boolean showDetails) {
 		for (MetricResult metric : metrics) {
-			String titleKey = "analytics.metric.title." + metric.getType().name();
-
-			String title = messageService.getMessage(titleKey, lang);
+			String title = fragments.text("analytics.metric.title." + metric.getType().name(), lang);
 
 			// {0}=Title, {1}=Value, {2}=Emoji
 			String line = escapeMarkdownV2(
@@ -347,12 +390,22 @@ public class TelegramViewService {
 			sb.append(line).append("\n");
 
 			if (showDetails) {
-				String descKey = "analytics.metric.desc." + metric.getType().name();
-				String desc = messageService.getMessage(descKey, lang);
-				sb.append(escapeMarkdownV2("_" + desc + "_")).append("\n");
+				sb.append('_')
+					.append(fragments.escapedText("analytics.metric.desc." + metric.getType().name(), lang))
+					.append('_')
+					.append("\n");
 			}
 			sb.append("\n");
 		}
 	}
 
+	private InlineKeyboardMarkup analyticsKeyboard(String lang, boolean showDetails, String periodKey) {
+		return fragments.keyboard("analytics", lang, showDetails + ":" + periodKey,
+				() -> keyboardBuilder.createAnalyticsKeyboard(lang, showDetails, periodKey));
+	}
+
+	private InlineKeyboardMarkup settingsKeyboard(String lang, boolean isStravaConnected) {
+		return fragments.keyboard("settings", lang, String.valueOf(isStravaConnected),
+				() -> keyboardBuilder.createSettingsKeyboard(lang, isStravaConnected));
+	}
 }
\ No newline at end of file
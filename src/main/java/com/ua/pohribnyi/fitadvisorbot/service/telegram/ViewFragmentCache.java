@@ -0,0 +1,69 @@
+package com.ua.pohribnyi.fitadvisorbot.service.telegram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
+
+import com.ua.pohribnyi.fitadvisorbot.config.i18n.MessagesReloadedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Locale-specific pieces of rendered views that do not depend on user data:
+ * message texts without arguments (raw and MarkdownV2-escaped) and keyboards.
+ *
+ * The key space is bounded by the message bundles and the keyboard variants,
+ * so plain maps are enough. Language codes are normalised first, so e.g. "ru"
+ * and "uk" share one entry, exactly like {@link MessageService} resolves them.
+ *
+ * Keyboards are shared between messages and must not be modified. Everything
+ * is dropped when the message bundles are reloaded.
+ */
+@Component
+@RequiredArgsConstructor
+public class ViewFragmentCache {
+
+	private final MessageService messageService;
+
+	private final Map<String, String> texts = new ConcurrentHashMap<>();
+	private final Map<String, String> escapedTexts = new ConcurrentHashMap<>();
+	private final Map<String, ReplyKeyboard> keyboards = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the message without arguments, as {@link MessageService#getMessage}
+	 *         returns it
+	 */
+	public String text(String key, String lang) {
+		String language = MessageService.normalizeLanguage(lang);
+		return texts.computeIfAbsent(language + ':' + key, k -> messageService.getMessage(key, language));
+	}
+
+	/**
+	 * @return the message without arguments, escaped for MarkdownV2
+	 */
+	public String escapedText(String key, String lang) {
+		String language = MessageService.normalizeLanguage(lang);
+		return escapedTexts.computeIfAbsent(language + ':' + key,
+				k -> TelegramViewService.escapeMarkdownV2(text(key, language)));
+	}
+
+	/**
+	 * @param variant everything besides the language the keyboard depends on
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends ReplyKeyboard> T keyboard(String name, String lang, String variant, Supplier<T> builder) {
+		String language = MessageService.normalizeLanguage(lang);
+		return (T) keyboards.computeIfAbsent(name + ':' + language + ':' + variant, k -> builder.get());
+	}
+
+	@EventListener(MessagesReloadedEvent.class)
+	public void clear() {
+		texts.clear();
+		escapedTexts.clear();
+		keyboards.clear();
+	}
+}
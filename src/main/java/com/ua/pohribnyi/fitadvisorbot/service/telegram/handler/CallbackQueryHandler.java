@@ -10,17 +10,17 @@ import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.Message;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
 import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContext;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.GenerationJob;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
-import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobQueueWorker;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.SyntheticDataService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.GeminiPromptBuilderService;
 import com.ua.pohribnyi.fitadvisorbot.service.analytics.FitnessAnalyticsService;
@@ -46,7 +46,7 @@ public class CallbackQueryHandler {
 	private final UserProfileRepository userProfileRepository;
 	private final SyntheticDataService syntheticDataService;
 	private final GenerationJobRepository jobRepository;
-	private final GeminiApiClient geminiApiClient;
+	private final GenerationJobQueueWorker queueWorker;
 	private final GeminiPromptBuilderService promptBuilderService;
 	private final MessageService messageService;
 	private final MessageBuilderService messageBuilder;
@@ -57,29 +57,29 @@ public class CallbackQueryHandler {
 	/**
 	 * Handles callbacks when user is in the DEFAULT state (e.g., Strava buttons).
 	 */
-	public void handleDefaultCallback(CallbackQuery callbackQuery, User user, FitnessAdvisorBotService bot) {
+	public void handleDefaultCallback(CallbackQuery callbackQuery, DispatchContext context, FitnessAdvisorBotService bot) {
 		log.warn("Received unhandled callback in DEFAULT state: {}", callbackQuery.getData());
-		answerCallback(callbackQuery.getId(), bot);
+		answerCallback(callbackQuery, bot);
 	}
 
 	/**
 	 * Handles callbacks during the Onboarding flow. This is our state machine for
 	 * the poll.
 	 */
-	public void handleOnboardingCallback(CallbackQuery callbackQuery, User user, FitnessAdvisorBotService bot) {
+	public void handleOnboardingCallback(CallbackQuery callbackQuery, DispatchContext context, FitnessAdvisorBotService bot) {
 		String data = callbackQuery.getData();
 		Long chatId = callbackQuery.getMessage().getChatId();
 		Integer messageId = callbackQuery.getMessage().getMessageId();
 
 		try {
 			if (data.startsWith("onboarding:level:")) {
-				handleLevelSelection(data, chatId, messageId, user, bot);
+				handleLevelSelection(data, chatId, messageId, context, bot);
 			} else if (data.startsWith("onboarding:goal:")) {
-				handleGoalSelection(data, chatId, messageId, user, bot);
+				handleGoalSelection(data, chatId, messageId, context, bot);
 			} else if (data.startsWith("onboarding:age:")) { 
-		        handleAgeSelection(data, chatId, messageId, user, bot);
+		        handleAgeSelection(data, chatId, messageId, context, bot);
 			} else if (data.startsWith("job:retry:")) {
-				handleJobRetry(data, chatId, messageId, user, bot);
+				handleJobRetry(data, chatId, messageId, context, bot);
 			} else {
 				log.warn("Unknown onboarding callback: {}", data);
 			}
@@ -87,12 +87,13 @@ public class CallbackQueryHandler {
 			log.error("Error handling onboarding callback {}: {}", data, e.getMessage(), e);
 			bot.sendMessage(viewService.getGeneralErrorMessage(chatId));
 		} finally {
-			answerCallback(callbackQuery.getId(), bot);
+			answerCallback(callbackQuery, bot);
 		}
 
 	}
 	
-	public void handleAnalyticsCallback(CallbackQuery callbackQuery, User user, FitnessAdvisorBotService bot) {
+	public void handleAnalyticsCallback(CallbackQuery callbackQuery, DispatchContext context, FitnessAdvisorBotService bot) {
+		User user = context.getUser();
 		String data = callbackQuery.getData();
 		// Format: "analytics:expand:analytics.report.period.weekly"
 		String[] parts = data.split(":");
@@ -104,24 +105,22 @@ public class CallbackQueryHandler {
 		// Re-generate report to get data for rendering
 		// (Assuming standard 7 days for weekly report for now)
 		Duration duration = Duration.ofDays(7);
-		PeriodReportDto report = analyticsService.generateReport(user, duration, periodKey);
+		PeriodReportDto report = analyticsService.generateReport(user, context.getProfileOrThrow(), duration,
+				periodKey);
 
 		EditMessageText editMsg = viewService.getAnalyticsReportEditMessage(user.getTelegramUserId(),
-				callbackQuery.getMessage().getMessageId(), report, showDetails);
-		try {
-			bot.execute(editMsg);
-		} catch (TelegramApiException e) {
-			log.error("Failed to toggle analytics view", e);
-		} finally {
-			answerCallback(callbackQuery.getId(), bot);
-		}
+				callbackQuery.getMessage().getMessageId(), user, report, showDetails);
+		bot.enqueue(callbackQuery.getMessage().getChatId(), editMsg);
+		answerCallback(callbackQuery, bot);
 	}
 	
 	/**
 	 * Handles Diary flow callbacks.
 	 */
-	public void handleDiaryCallback(CallbackQuery callbackQuery, User user, FitnessAdvisorBotService bot) {
+	public void handleDiaryCallback(CallbackQuery callbackQuery, DispatchContext context, FitnessAdvisorBotService bot) {
+		User user = context.getUser();
 		String data = callbackQuery.getData();
+		Long chatId = callbackQuery.getMessage().getChatId();
 		Integer messageId = callbackQuery.getMessage().getMessageId();
 
 		try {
@@ -143,43 +142,42 @@ public class CallbackQueryHandler {
 
 			// Якщо сервіс повернув UI оновлення - виконуємо його
 			if (response != null) {
-				bot.execute(response);
+				bot.enqueue(chatId, response);
 			}
 
-		} catch (TelegramApiException e) {
-			log.error("Telegram API Error during diary callback: {}", e.getMessage());
 		} catch (Exception e) {
 			log.error("Error processing diary callback: {}", e.getMessage(), e);
 			bot.sendMessage(viewService.getGeneralErrorMessage(user.getTelegramUserId()));
 		} finally {
 			// Завжди відповідаємо на колбек, щоб зупинити "спінер" завантаження
-			answerCallback(callbackQuery.getId(), bot);
+			answerCallback(callbackQuery, bot);
 		}
 	}
 	
 	/**
      * Handles callbacks starting with "settings:".
      */
-    public void handleSettingsCallback(CallbackQuery callbackQuery, User user, FitnessAdvisorBotService bot) {
+    public void handleSettingsCallback(CallbackQuery callbackQuery, DispatchContext context, FitnessAdvisorBotService bot) {
         String data = callbackQuery.getData();
+        Long chatId = callbackQuery.getMessage().getChatId();
         Integer messageId = callbackQuery.getMessage().getMessageId();
 
         try {
 			if (data.startsWith("settings:nav:")) {
 				String target = extractValue(data);
 				if ("main".equals(target)) {
-					bot.execute(settingsService.refreshSettings(user, messageId));
+					bot.enqueue(chatId, settingsService.refreshSettings(context, messageId));
 				} else {
-					bot.execute(settingsService.startEditing(user, messageId, target));
+					bot.enqueue(chatId, settingsService.startEditing(context, messageId, target));
 				}
 			} else if (data.startsWith("settings:goal:")) {
 				String value = extractValue(data);
-				bot.execute(settingsService.updateGoalAndReturn(user, value, messageId));
+				bot.enqueue(chatId, settingsService.updateGoalAndReturn(context, value, messageId));
 			} else if (data.startsWith("settings:level:")) {
 				String value = extractValue(data);
-				bot.execute(settingsService.updateLevelAndReturn(user, value, messageId));
+				bot.enqueue(chatId, settingsService.updateLevelAndReturn(context, value, messageId));
 			} else if (data.equals("settings:control:close")) {
-				bot.execute(settingsService.closeSettings(user, messageId));
+				bot.enqueue(chatId, settingsService.closeSettings(context.getUser(), messageId));
 			} else if (data.equals("settings:control:strava")) {
 				// stub for future use
 			}
@@ -187,49 +185,64 @@ public class CallbackQueryHandler {
             log.error("Settings callback error", e);
             // Handle error gracefully
         } finally {
-            answerCallback(callbackQuery.getId(), bot);
+            answerCallback(callbackQuery, bot);
         }
     }
 	
-    private void handleLevelSelection(String data, Long chatId, Integer messageId, User user,
-			FitnessAdvisorBotService bot) throws TelegramApiException {
+    private void handleLevelSelection(String data, Long chatId, Integer messageId, DispatchContext context,
+			FitnessAdvisorBotService bot) {
+		User user = context.getUser();
 		String level = extractValue(data);
-		UserState currentState = userSessionService.getActiveState(user);
+		UserState currentState = context.getState();
 
 		if (currentState != UserState.SETTINGS_EDITING) {
-			saveProfileLevel(user, level);
+			context.setProfile(saveProfileLevel(context, level));
 			userSessionService.setState(user, UserState.AWAITING_PROFILE_GOAL);
-			bot.execute(viewService.getOnboardingGoalQuestion(chatId, messageId));
+			bot.enqueue(chatId, viewService.getOnboardingGoalQuestion(chatId, messageId));
 		} else {
-			bot.execute(settingsService.updateLevelAndReturn(user, level, messageId));
+			bot.enqueue(chatId, settingsService.updateLevelAndReturn(context, level, messageId));
 		}
 		log.info("User {} selected level: {}", user.getId(), level);
 	}
 
-	private void handleGoalSelection(String data, Long chatId, Integer messageId, User user,
-			FitnessAdvisorBotService bot) throws TelegramApiException {
+	private void handleGoalSelection(String data, Long chatId, Integer messageId, DispatchContext context,
+			FitnessAdvisorBotService bot) {
+		User user = context.getUser();
 		String goal = extractValue(data);
-		UserState currentState = userSessionService.getActiveState(user);
+		UserState currentState = context.getState();
 
 		if (currentState != UserState.SETTINGS_EDITING) {
-			saveProfileGoal(user, goal);
+			context.setProfile(saveProfileGoal(context, goal));
 			userSessionService.setState(user, UserState.AWAITING_PROFILE_AGE);
-			bot.execute(viewService.getOnboardingAgeQuestion(chatId, messageId)); // Or edit version if preferred
+			bot.enqueue(chatId, viewService.getOnboardingAgeQuestion(chatId, messageId)); // Or edit version if preferred
 		} else {
-			bot.execute(settingsService.updateGoalAndReturn(user, goal, messageId));
+			bot.enqueue(chatId, settingsService.updateGoalAndReturn(context, goal, messageId));
 		}
 		log.info("User {} selected goal: {}. Asking for age.", user.getId(), goal);
 	}
 
-	private void handleAgeSelection(String data, Long chatId, Integer messageId, User user,
-			FitnessAdvisorBotService bot) throws TelegramApiException {
-
+	private void handleAgeSelection(String data, Long chatId, Integer messageId, DispatchContext context,
+			FitnessAdvisorBotService bot) {
+		User user = context.getUser();
 		int age = Integer.parseInt(extractValue(data));
-		UserProfile profile = saveProfileAge(user, age);
+		UserProfile profile = saveProfileAge(context, age);
+		context.setProfile(profile);
 		userSessionService.setState(user, UserState.ONBOARDING_COMPLETED);
 		deleteMessage(chatId, messageId, bot);
+		// The job needs the wait message id to edit it later. Generation starts
+		// once the queued send completes, so the dispatch lane is not held
+		// through a rate-limit back-off
+		bot.sendAndReturn(viewService.getGenerationWaitMessage(chatId))
+				.thenAccept(sentMessage -> startHistoryGeneration(user, profile, chatId, sentMessage, bot))
+				.exceptionally(e -> {
+					log.error("Could not send the generation wait message to user {}", user.getId(), e);
+					return null;
+				});
+	}
+
+	private void startHistoryGeneration(User user, UserProfile profile, Long chatId, Message sentMessage,
+			FitnessAdvisorBotService bot) {
 		try {
-			Message sentMessage = bot.executeAndReturn(viewService.getGenerationWaitMessage(chatId));
 			syntheticDataService.triggerHistoryGeneration(user, profile, chatId, sentMessage.getMessageId());
 		} catch (RuntimeException e) {
 			if (e.getMessage().contains("overloaded")) {
@@ -252,82 +265,78 @@ public class CallbackQueryHandler {
 	}
 
 	@Transactional
-	private void saveProfileLevel(User user, String level) {
-		UserProfile profile = userProfileRepository.findByUser(user).orElse(new UserProfile());
-		profile.setUser(user);
+	private UserProfile saveProfileLevel(DispatchContext context, String level) {
+		UserProfile profile = context.getProfile().orElse(new UserProfile());
+		profile.setUser(context.getUser());
 		profile.setLevel(level);
-		userProfileRepository.save(profile);
+		return userProfileRepository.save(profile);
 	}
 
 	@Transactional
-	private UserProfile saveProfileGoal(User user, String goal) {
-		UserProfile profile = userProfileRepository.findByUser(user)
-				.orElseThrow(() -> new IllegalStateException("UserProfile not found for user " + user.getId()));
+	private UserProfile saveProfileGoal(DispatchContext context, String goal) {
+		UserProfile profile = context.getProfileOrThrow();
 		profile.setGoal(goal);
 		return userProfileRepository.save(profile);
 	}
 
 	@Transactional
-	private UserProfile saveProfileAge(User user, int age) {
-		UserProfile profile = userProfileRepository.findByUser(user)
-				.orElseThrow(() -> new IllegalStateException("UserProfile not found for user " + user.getId()));
+	private UserProfile saveProfileAge(DispatchContext context, int age) {
+		UserProfile profile = context.getProfileOrThrow();
 		profile.setAge(age);
 		return userProfileRepository.save(profile);
 	}
 	
 	@Transactional
-	private void handleJobRetry(String data, Long chatId, Integer messageId, User user, FitnessAdvisorBotService bot) {
+	private void handleJobRetry(String data, Long chatId, Integer messageId, DispatchContext context,
+			FitnessAdvisorBotService bot) {
+		User user = context.getUser();
 		Long jobId = Long.parseLong(data.split(":")[2]);
 		String lang = user.getLanguageCode();
 
 		GenerationJob job = jobRepository.findById(jobId)
 				.orElseThrow(() -> new IllegalStateException("Job not found for retry: " + jobId));
 
+		if (job.getStatus() != JobStatus.FAILED) {
+			log.info("Ignoring retry for job {} in status {}", jobId, job.getStatus());
+			return;
+		}
+
 		// 1. Редагуємо повідомлення про помилку назад на "В процесі"
 		String text = messageService.getMessage("onboarding.job.started", lang);
 		EditMessageText waitMsg = messageBuilder.createEditMessage(chatId, messageId, text);
 		// Прибираємо клавіатуру "Повторити"
 		waitMsg.setReplyMarkup(null);
 
-		try {
-			bot.execute(waitMsg);
-		} catch (TelegramApiException e) {
-			log.warn("Failed to edit message for retry: {}", e.getMessage());
-		}
-
-		// 2. Очищуємо статус помилки і готуємо до повторного запуску
-		job.setStatus(JobStatus.PENDING);
-		job.setErrorMessage(null);
-		job.setErrorDetails(null);
-		job.setErrorCode(null);
-		jobRepository.save(job); // Зберігаємо PENDING
+		bot.enqueue(chatId, waitMsg);
 
-		// 3. Отримуємо профіль і запускаємо АПІ
-		UserProfile profile = userProfileRepository.findByUser(user)
+		// 2. Отримуємо профіль і будуємо новий промпт
+		UserProfile profile = context.getProfile()
 				.orElseThrow(() -> new IllegalStateException("Profile not found for retry"));
 
 		String prompt = promptBuilderService.buildOnboardingPrompt(profile);
 
-		// Запускаємо воркер 1 (Gemini) знову
-		geminiApiClient.generateAndStageHistory(job.getId(), prompt);
+		// 3. Очищуємо статус помилки і повертаємо Job у чергу (PENDING)
+		job.requeue(prompt);
+		jobRepository.save(job);
+
+		// Будимо воркер черги, щоб не чекати наступного опитування
+		queueWorker.wakeUp();
 
 		log.info("Retrying job {} for user {}", jobId, user.getId());
 	}
 
 	private void deleteMessage(Long chatId, Integer messageId, FitnessAdvisorBotService bot) {
-		try {
-			bot.execute(DeleteMessage.builder().chatId(chatId).messageId(messageId).build());
-		} catch (Exception e) {
-			log.warn("Failed to delete message {}: {}", messageId, e.getMessage());
-		}
+		bot.enqueue(chatId, DeleteMessage.builder().chatId(chatId).messageId(messageId).build());
 	}
 
-	private void answerCallback(String callbackQueryId, FitnessAdvisorBotService bot) {
-		try {
-			bot.execute(AnswerCallbackQuery.builder().callbackQueryId(callbackQueryId).build());
-		} catch (Exception e) {
-			log.error("Failed to answer callback query: {}", e.getMessage());
-		}
+	/**
+	 * Queued behind the edits above so the spinner stops once they are on their
+	 * way; the queue does not charge it against the chat's rate.
+	 */
+	private void answerCallback(CallbackQuery callbackQuery, FitnessAdvisorBotService bot) {
+		Long chatId = callbackQuery.getMessage() != null ? callbackQuery.getMessage().getChatId()
+				: callbackQuery.getFrom().getId();
+		bot.enqueue(chatId, AnswerCallbackQuery.builder().callbackQueryId(callbackQuery.getId()).build());
 	}
 	
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Message;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContext;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
@@ -14,6 +15,7 @@ import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.analytics.FitnessAnalyticsService;
 import com.ua.pohribnyi.fitadvisorbot.service.analytics.diary.DiaryService;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageBuilderService;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.MessageService;
 import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramViewService;
 import com.ua.pohribnyi.fitadvisorbot.service.user.SettingsService;
@@ -34,17 +36,20 @@ public class CommandHandler {
     private final FitnessAnalyticsService analyticsService;
     private final DiaryService diaryService;
     private final SettingsService settingsService;
+    private final UserService userService;
+    private final MessageBuilderService messageBuilder;
     
     
     /**
      * Handles global commands that run regardless of state (e.g., /start).
      */
-    public void handleGlobalCommand(Message message, User user, FitnessAdvisorBotService bot) {
+    public void handleGlobalCommand(Message message, DispatchContext context, FitnessAdvisorBotService bot) {
         Long chatId = message.getChatId();
+        User user = context.getUser();
 
         if (message.getText().equals("/start")) {
             log.info("Processing global /start for user {}", user.getTelegramUserId());
-            UserState currentState = userSessionService.findOrCreateSession(user).getState();
+            UserState currentState = userSessionService.getState(user);
             if (currentState == UserState.DEFAULT || currentState == UserState.ONBOARDING_COMPLETED) {
             	handleStartForExistingUser(chatId, user, bot);
             } else {
@@ -56,14 +61,15 @@ public class CommandHandler {
     /**
      * Handles text commands and menu buttons when user is in DEFAULT state.
      */
-    public void handleDefaultCommand(Message message, User user, FitnessAdvisorBotService bot) {
+    public void handleDefaultCommand(Message message, DispatchContext context, FitnessAdvisorBotService bot) {
         Long chatId = message.getChatId();
+        User user = context.getUser();
         String commandText = message.getText();
         String lang = user.getLanguageCode();
 
         log.info("Processing DEFAULT command: {} from user: {}", commandText, user.getTelegramUserId());
 
-        SendMessage response = routeDefaultCommand(chatId, commandText, lang, user);
+        SendMessage response = routeDefaultCommand(chatId, commandText, lang, context);
         bot.sendMessage(response);
         
     }
@@ -84,14 +90,17 @@ public class CommandHandler {
 		bot.sendMessage(questionMessage);
 	}
 	
-	private SendMessage routeDefaultCommand(Long chatId, String commandText, String lang, User user) {
+	private SendMessage routeDefaultCommand(Long chatId, String commandText, String lang, DispatchContext context) {
+		User user = context.getUser();
 		try {
 			if (commandText.equals(messageService.getMessage("menu.diary", lang))) {
 				return handleDiaryCommand(user);
 			} else if (commandText.equals(messageService.getMessage("menu.analytics", lang))) {
-				return handleAnalyticsCommand(chatId, user);
+				return handleAnalyticsCommand(chatId, context);
 			} else if (commandText.equals(messageService.getMessage("menu.settings", lang))) {
-				return handleSettingsCommand(chatId, user);
+				return handleSettingsCommand(chatId, context);
+			} else if (commandText.equals("/timezone") || commandText.startsWith("/timezone ")) {
+				return handleTimezoneCommand(chatId, user, commandText.substring("/timezone".length()).trim(), lang);
 			} else if (commandText.equals("/my_profile") || commandText.equals("/activities")) {
 				return viewService.getGeneralErrorMessage(chatId);
 			} else {
@@ -108,15 +117,34 @@ public class CommandHandler {
         return diaryService.startDailyCheckIn(user, true);
     }
 
-    private SendMessage handleAnalyticsCommand(Long chatId, User user) {
+    private SendMessage handleAnalyticsCommand(Long chatId, DispatchContext context) {
 		String periodKey = "analytics.report.period.weekly";
-		PeriodReportDto report = analyticsService.generateReport(user, Duration.ofDays(7), periodKey);
-		return viewService.getAnalyticsReportMessage(chatId, report);
+		PeriodReportDto report = analyticsService.generateReport(context.getUser(), context.getProfileOrThrow(),
+				Duration.ofDays(7), periodKey);
+		return viewService.getAnalyticsReportMessage(chatId, context.getUser(), report);
 	}
 
-	private SendMessage handleSettingsCommand(Long chatId, User user) {
-		log.info("User {} opened settings", user.getId());
-		return settingsService.openSettings(user);
+	/**
+	 * "/timezone" shows the current zone, "/timezone Europe/Kyiv" changes it.
+	 */
+	private SendMessage handleTimezoneCommand(Long chatId, User user, String zoneId, String lang) {
+		String text;
+		if (zoneId.isEmpty()) {
+			text = messageService.getMessage("settings.timezone.current", lang, user.getTimezone());
+		} else {
+			try {
+				text = messageService.getMessage("settings.timezone.updated", lang,
+						userService.updateTimezone(user, zoneId));
+			} catch (IllegalArgumentException e) {
+				text = messageService.getMessage("settings.timezone.invalid", lang, zoneId);
+			}
+		}
+		return messageBuilder.createMessage(chatId, TelegramViewService.escapeMarkdownV2(text));
+	}
+
+	private SendMessage handleSettingsCommand(Long chatId, DispatchContext context) {
+		log.info("User {} opened settings", context.getUser().getId());
+		return settingsService.openSettings(context);
 	}
 
 }
@@ -0,0 +1,61 @@
+package com.ua.pohribnyi.fitadvisorbot.service.token;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Short-lived cache of decrypted Strava access tokens keyed by user id, so
+ * sync fan-outs do not decrypt the same token for every request.
+ *
+ * Each entry remembers the ciphertext it was decrypted from and is only used
+ * while the stored token still matches, so a token rewritten elsewhere can
+ * never be served stale. Writers of the token should still call
+ * {@link #invalidate(Long)} to drop the plaintext right away.
+ * Hit/miss/eviction counters are published as {@code cache.*{cache=access-tokens}}.
+ */
+@Component
+public class AccessTokenCache {
+
+	private record Entry(String encrypted, String plain) {
+	}
+
+	private final Cache<Long, Entry> cache;
+
+	public AccessTokenCache(MeterRegistry meterRegistry,
+			@Value("${app.cache.access-tokens.max-size:10000}") long maxSize,
+			@Value("${app.cache.access-tokens.ttl:PT5M}") Duration ttl) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "access-tokens");
+	}
+
+	/**
+	 * @return the plaintext of {@code encrypted}, decrypted with
+	 *         {@code decryptor} unless cached for this user and ciphertext
+	 */
+	public String get(Long userId, String encrypted, Function<String, String> decryptor) {
+		Entry entry = cache.getIfPresent(userId);
+		if (entry != null && entry.encrypted().equals(encrypted)) {
+			return entry.plain();
+		}
+		String plain = decryptor.apply(encrypted);
+		cache.put(userId, new Entry(encrypted, plain));
+		return plain;
+	}
+
+	public void invalidate(Long userId) {
+		cache.invalidate(userId);
+	}
+}
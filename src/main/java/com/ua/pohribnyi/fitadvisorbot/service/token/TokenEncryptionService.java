@@ -1,6 +1,10 @@
 package com.ua.pohribnyi.fitadvisorbot.service.token;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -9,21 +13,32 @@ import javax.crypto.spec.SecretKeySpec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import lombok.AllArgsConstructor;
-import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Encrypts OAuth tokens at rest.
+ *
+ * The key is decoded once. {@link Cipher} instances are not thread-safe and
+ * {@code Cipher.getInstance} goes through the JCA provider lookup every time,
+ * so calls borrow one from a small shared pool and return it afterwards. A
+ * pool rather than a {@code ThreadLocal}: callers run on short-lived virtual
+ * threads, which would build a new cipher on nearly every call.
+ */
 @Service
-@NoArgsConstructor
-@AllArgsConstructor
 @Slf4j
 public class TokenEncryptionService {
 
-	@Value("${security.encryption.key}")
-	private String encryptionKeyString;
-
 	private static final String ALGORITHM = "AES";
 	private static final String CIPHER_ALGORITHM = "AES";
+	private static final int POOL_SIZE = 16;
+
+	private final SecretKey secretKey;
+	private final BlockingQueue<Cipher> ciphers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+	public TokenEncryptionService(@Value("${security.encryption.key}") String encryptionKeyString) {
+		byte[] decodedKey = Base64.getDecoder().decode(encryptionKeyString);
+		this.secretKey = new SecretKeySpec(decodedKey, 0, decodedKey.length, ALGORITHM);
+	}
 
 	public String encrypt(String plainText) {
 		try {
@@ -31,12 +46,14 @@ public class TokenEncryptionService {
 				return plainText;
 			}
 
-			SecretKey key = getSecretKey();
-			Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
-			cipher.init(Cipher.ENCRYPT_MODE, key);
-
-			byte[] encryptedBytes = cipher.doFinal(plainText.getBytes());
-			return Base64.getEncoder().encodeToString(encryptedBytes);
+			Cipher cipher = borrowCipher();
+			try {
+				cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+				byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+				return Base64.getEncoder().encodeToString(encryptedBytes);
+			} finally {
+				ciphers.offer(cipher);
+			}
 
 		} catch (Exception e) {
 			log.error("Error encrypting token: {}", e.getMessage(), e);
@@ -50,13 +67,15 @@ public class TokenEncryptionService {
 				return encryptedText;
 			}
 
-			SecretKey key = getSecretKey();
-			Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
-			cipher.init(Cipher.DECRYPT_MODE, key);
-
 			byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
-			byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-			return new String(decryptedBytes);
+			Cipher cipher = borrowCipher();
+			try {
+				cipher.init(Cipher.DECRYPT_MODE, secretKey);
+				byte[] decryptedBytes = cipher.doFinal(decodedBytes);
+				return new String(decryptedBytes, StandardCharsets.UTF_8);
+			} finally {
+				ciphers.offer(cipher);
+			}
 
 		} catch (Exception e) {
 			log.error("Error decrypting token: {}", e.getMessage(), e);
@@ -64,8 +83,20 @@ public class TokenEncryptionService {
 		}
 	}
 
-	private SecretKey getSecretKey() {
-		byte[] decodedKey = Base64.getDecoder().decode(encryptionKeyString);
-		return new SecretKeySpec(decodedKey, 0, decodedKey.length, ALGORITHM);
+	/**
+	 * Takes an idle cipher or creates one when all are in use; extra ciphers
+	 * are dropped on return once the pool is full.
+	 */
+	private Cipher borrowCipher() {
+		Cipher cipher = ciphers.poll();
+		return cipher != null ? cipher : newCipher();
+	}
+
+	private static Cipher newCipher() {
+		try {
+			return Cipher.getInstance(CIPHER_ALGORITHM);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cipher " + CIPHER_ALGORITHM + " is not available", e);
+		}
 	}
 }
@@ -0,0 +1,64 @@
+package com.ua.pohribnyi.fitadvisorbot.service.user;
+
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContext;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContextRow;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the {@link DispatchContext} for an incoming update with at most one
+ * database round trip:
+ * <ul>
+ * <li>cached user: user and state come from memory, profile and Strava flag
+ * are fetched lazily by one joined query if a handler needs them;</li>
+ * <li>uncached user: one joined query returns user, session, profile and
+ * Strava flag, and warms the user and session caches;</li>
+ * <li>unknown user: created via {@link UserService#findOrCreateUser}.</li>
+ * </ul>
+ * Name or language changes made in Telegram are written back through
+ * {@link UserService#syncTelegramProfile}, which also refreshes the cached
+ * user.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DispatchContextLoader {
+
+	private final UserRepository userRepository;
+	private final UserService userService;
+	private final UserSessionService userSessionService;
+	private final UserIdentityCache userIdentityCache;
+
+	public DispatchContext load(org.telegram.telegrambots.meta.api.objects.User telegramUser) {
+		Long telegramUserId = telegramUser.getId();
+
+		Optional<User> cached = userIdentityCache.getIfPresent(telegramUserId);
+		if (cached.isPresent()) {
+			return lazyContext(userService.syncTelegramProfile(cached.get(), telegramUser));
+		}
+
+		Optional<DispatchContextRow> row = userRepository.findDispatchContext(telegramUserId);
+		if (row.isPresent()) {
+			DispatchContextRow loaded = row.get();
+			User user = userService.syncTelegramProfile(loaded.user(), telegramUser);
+			userIdentityCache.put(user);
+			userSessionService.primeState(user, loaded.session());
+			return new DispatchContext(user, userSessionService.getActiveState(user), loaded.profile(),
+					Boolean.TRUE.equals(loaded.stravaConnected()));
+		}
+
+		return lazyContext(userService.findOrCreateUser(telegramUser));
+	}
+
+	private DispatchContext lazyContext(User user) {
+		return new DispatchContext(user, userSessionService.getActiveState(user),
+				() -> userRepository.findDispatchContext(user.getTelegramUserId()));
+	}
+}
@@ -0,0 +1,225 @@
+package com.ua.pohribnyi.fitadvisorbot.service.user;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory, write-behind store for {@code user_sessions} state.
+ *
+ * Reads are served from memory for {@code app.session.cache-ttl} after a load
+ * and then read through to the database again. Writes update memory
+ * immediately and are written to the database in batches every
+ * {@code app.session.flush-interval-ms}.
+ *
+ * Durability: a crash loses at most the last flush interval of state changes.
+ * The user then sees an earlier step of the flow again (e.g. the diary asks
+ * the previous question). No domain data is at risk, because profiles, metrics
+ * and jobs are still written synchronously. A graceful shutdown flushes
+ * everything. Session rows are created synchronously with the user, so a flush
+ * only ever UPDATEs.
+ *
+ * Several replicas: the database row is the shared state, and its
+ * {@code version} is bumped by every write. Each state in memory remembers the
+ * row version it is based on, and a flush only writes over that exact
+ * version, so a write made on a stale copy can never overwrite a newer state
+ * of another instance, whatever the instances' clocks say. The losing write
+ * is dropped from memory together with the cached state, and the next read
+ * loads the winner. Reads themselves are only as fresh as the cache TTL, so
+ * with several replicas the webhook should be routed sticky by chat id; the
+ * version check keeps non-sticky routing safe, not seamless.
+ */
+@Slf4j
+@Component
+public class SessionStateStore {
+
+	/** Version of a state whose row was never read, e.g. set by a bulk job. */
+	public static final long UNKNOWN_VERSION = -1;
+
+	// An unknown base version writes unconditionally (last writer wins)
+	private static final String UPDATE_SQL = "UPDATE user_sessions "
+			+ "SET user_state = ?, state_updated_at = ?, version = version + 1 "
+			+ "WHERE user_id = ? AND (? < 0 OR version = ?)";
+
+	/**
+	 * @param version row version this state is, or for an unflushed write is
+	 *                based on
+	 */
+	public record SessionState(UserState state, Instant updatedAt, long version) {
+
+		SessionState withVersion(long newVersion) {
+			return new SessionState(state, updatedAt, newVersion);
+		}
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Cache<Long, SessionState> cache;
+	private final Map<Long, SessionState> pending = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SessionStateStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+			@Value("${app.session.max-size:50000}") long maxSize,
+			@Value("${app.session.cache-ttl:PT5M}") Duration cacheTtl) {
+		this(jdbcTemplate, meterRegistry, maxSize, cacheTtl, Ticker.systemTicker());
+	}
+
+	SessionStateStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, long maxSize, Duration cacheTtl,
+			Ticker ticker) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(cacheTtl)
+				.ticker(ticker)
+				.build();
+		Gauge.builder("user.session.pending_writes", pending, Map::size)
+				.description("Session state changes not yet flushed to the database")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Returns the current state of the user, loading it with {@code loader} on a
+	 * miss. Unflushed writes always win over the cache.
+	 */
+	public SessionState get(Long userId, Function<Long, SessionState> loader) {
+		SessionState unflushed = pending.get(userId);
+		if (unflushed != null) {
+			return unflushed;
+		}
+		return cache.get(userId, loader);
+	}
+
+	/**
+	 * @return the state held in memory, or null; never loads
+	 */
+	public SessionState peek(Long userId) {
+		SessionState unflushed = pending.get(userId);
+		return unflushed != null ? unflushed : cache.getIfPresent(userId);
+	}
+
+	/**
+	 * Changes the state in memory, based on the version the store holds for the
+	 * user; {@link #UNKNOWN_VERSION} if it holds none.
+	 */
+	public void put(Long userId, UserState state) {
+		put(userId, state, UNKNOWN_VERSION);
+	}
+
+	/**
+	 * Like {@link #put(Long, UserState)}, with the row version the caller read
+	 * for when the store holds none.
+	 */
+	public void put(Long userId, UserState state, long rowVersion) {
+		SessionState known = peek(userId);
+		SessionState updated = new SessionState(state, Instant.now(), known != null ? known.version() : rowVersion);
+		cache.put(userId, updated);
+		pending.put(userId, updated);
+	}
+
+	/**
+	 * Seeds the cache with a state that is already persisted.
+	 */
+	public void putPersisted(Long userId, SessionState state) {
+		cache.put(userId, state);
+	}
+
+	/**
+	 * Like {@link #putPersisted}, but never overrides what the store already
+	 * knows (the DB row may be older than an unflushed write).
+	 */
+	public void putPersistedIfAbsent(Long userId, SessionState state) {
+		cache.asMap().putIfAbsent(userId, state);
+	}
+
+	@Scheduled(fixedDelayString = "${app.session.flush-interval-ms:1000}")
+	public void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		List<Map.Entry<Long, SessionState>> batch = new ArrayList<>(pending.entrySet());
+		List<Object[]> args = new ArrayList<>(batch.size());
+		for (Map.Entry<Long, SessionState> entry : batch) {
+			SessionState state = entry.getValue();
+			args.add(new Object[] { state.state().name(), OffsetDateTime.ofInstant(state.updatedAt(), ZoneOffset.UTC),
+					entry.getKey(), state.version(), state.version() });
+		}
+
+		int[] updated;
+		try {
+			updated = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+		} catch (RuntimeException e) {
+			// Entries stay pending and are retried on the next tick
+			log.error("Failed to flush {} session state(s): {}", batch.size(), e.getMessage());
+			return;
+		}
+
+		int superseded = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			Map.Entry<Long, SessionState> entry = batch.get(i);
+			if (i < updated.length && updated[i] == 0) {
+				superseded(entry.getKey(), entry.getValue());
+				superseded++;
+			} else {
+				written(entry.getKey(), entry.getValue());
+			}
+		}
+		log.debug("Flushed {} session state(s), {} superseded by another instance", batch.size(), superseded);
+	}
+
+	/**
+	 * The row now has version {@code base + 1}. States still based on
+	 * {@code base} (ours, or a write made meanwhile on top of it) move on to it;
+	 * a newer write stays pending. The cache is updated first, so a concurrent
+	 * put never bases itself on the old version once ours left pending.
+	 */
+	private void written(Long userId, SessionState written) {
+		long base = written.version();
+		if (base == UNKNOWN_VERSION) {
+			// The new version is unknown too: reload it with the next read
+			cache.asMap().remove(userId, written);
+			pending.remove(userId, written);
+			return;
+		}
+		cache.asMap().computeIfPresent(userId, (k, cur) -> cur.version() == base ? cur.withVersion(base + 1) : cur);
+		pending.computeIfPresent(userId,
+				(k, cur) -> cur == written ? null : cur.version() == base ? cur.withVersion(base + 1) : cur);
+	}
+
+	/**
+	 * Another instance wrote the row since {@code lost} was based on it: drop
+	 * every state built on that version and load theirs with the next read.
+	 */
+	private void superseded(Long userId, SessionState lost) {
+		cache.invalidate(userId);
+		pending.computeIfPresent(userId, (k, cur) -> cur.version() == lost.version() ? null : cur);
+	}
+
+	@PreDestroy
+	public void flushOnShutdown() {
+		flush();
+		if (!pending.isEmpty()) {
+			log.warn("{} session state change(s) were not persisted on shutdown", pending.size());
+		}
+	}
+}
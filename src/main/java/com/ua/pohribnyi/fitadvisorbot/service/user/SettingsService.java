@@ -7,6 +7,7 @@ import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.DispatchContext;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
@@ -23,36 +24,33 @@ public class SettingsService {
 	private final UserProfileRepository userProfileRepository;
 	private final TelegramViewService viewService;
 	private final UserSessionService sessionService;
-	private final UserService userService;
 
 	/**
      * Entry point: Sends a NEW message with the settings menu.
      * Sets user state to SETTINGS_EDITING.
      */
-	@Transactional(readOnly = true)
-	public SendMessage openSettings(User user) {
-		sessionService.setState(user, UserState.SETTINGS_EDITING);
-		return createSettingsView(user);
+	public SendMessage openSettings(DispatchContext context) {
+		sessionService.setState(context.getUser(), UserState.SETTINGS_EDITING);
+		return createSettingsView(context);
 	}
 
 	/**
      * Refreshes the existing settings message (e.g. after connecting Strava).
      */
-	@Transactional(readOnly = true)
-	public EditMessageText refreshSettings(User user, Integer messageId) {
-		return createSettingsEditView(user, messageId);
+	public EditMessageText refreshSettings(DispatchContext context, Integer messageId) {
+		return createSettingsEditView(context, messageId);
 	}
 
 	
 	/**
      * Transitions the UI to the specific editor (Goal, Level, Age).
      */
-    public EditMessageText startEditing(User user, Integer messageId, String field) {
-        Long chatId = user.getTelegramUserId();
+    public EditMessageText startEditing(DispatchContext context, Integer messageId, String field) {
+        Long chatId = context.getUser().getTelegramUserId();
         return switch (field) {
             case "goal" -> viewService.getSettingsGoalEditMessage(chatId, messageId);
             case "level" -> viewService.getSettingsLevelEditMessage(chatId, messageId);
-            default -> createSettingsEditView(user, messageId);
+            default -> createSettingsEditView(context, messageId);
         };
     }
 
@@ -60,24 +58,24 @@ public class SettingsService {
      * Saves the new GOAL and returns to the main settings menu.
      */
     @Transactional
-    public EditMessageText updateGoalAndReturn(User user, String newGoal, Integer messageId) {
-        UserProfile profile = getProfileOrThrow(user);
+    public EditMessageText updateGoalAndReturn(DispatchContext context, String newGoal, Integer messageId) {
+        UserProfile profile = context.getProfileOrThrow();
         profile.setGoal(newGoal);
-        userProfileRepository.save(profile);
+        context.setProfile(userProfileRepository.save(profile));
         
-        return createSettingsEditView(user, messageId);
+        return createSettingsEditView(context, messageId);
     }
 
 	/**
 	 * Saves the new LEVEL and returns to the main settings menu.
 	 */
 	@Transactional
-	public EditMessageText updateLevelAndReturn(User user, String newLevel, Integer messageId) {
-		UserProfile profile = getProfileOrThrow(user);
+	public EditMessageText updateLevelAndReturn(DispatchContext context, String newLevel, Integer messageId) {
+		UserProfile profile = context.getProfileOrThrow();
 		profile.setLevel(newLevel);
-		userProfileRepository.save(profile);
+		context.setProfile(userProfileRepository.save(profile));
 
-		return createSettingsEditView(user, messageId);
+		return createSettingsEditView(context, messageId);
 	}
     
 	public DeleteMessage closeSettings(User user, Integer messageId) {
@@ -88,20 +86,15 @@ public class SettingsService {
                 .build();
     }
 
-	private SendMessage createSettingsView(User user) {
-		UserProfile profile = getProfileOrThrow(user);
-		boolean isConnected = userService.isStravaConnected(user.getTelegramUserId());
-		return viewService.getSettingsMessage(user.getTelegramUserId(), user, profile, isConnected);
+	private SendMessage createSettingsView(DispatchContext context) {
+		User user = context.getUser();
+		return viewService.getSettingsMessage(user.getTelegramUserId(), user, context.getProfileOrThrow(),
+				context.isStravaConnected());
 	}
 
-	private EditMessageText createSettingsEditView(User user, Integer messageId) {
-		UserProfile profile = getProfileOrThrow(user);
-		boolean isConnected = userService.isStravaConnected(user.getTelegramUserId());
-		return viewService.getSettingsEditMessage(user.getTelegramUserId(), messageId, user, profile, isConnected);
-	}
-
-	private UserProfile getProfileOrThrow(User user) {
-		return userProfileRepository.findByUser(user)
-				.orElseThrow(() -> new IllegalStateException("UserProfile not found for user " + user.getId()));
+	private EditMessageText createSettingsEditView(DispatchContext context, Integer messageId) {
+		User user = context.getUser();
+		return viewService.getSettingsEditMessage(user.getTelegramUserId(), messageId, user,
+				context.getProfileOrThrow(), context.isStravaConnected());
 	}
 }
\ No newline at end of file
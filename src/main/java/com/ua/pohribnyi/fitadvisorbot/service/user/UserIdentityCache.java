@@ -0,0 +1,61 @@
+package com.ua.pohribnyi.fitadvisorbot.service.user;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, TTL-evicting cache of {@link User} entities keyed by Telegram user
+ * id. Entries are detached entities, exactly what the dispatcher got from the
+ * repository before, so they can be used as references in new associations.
+ *
+ * Loads are single-flight: concurrent misses for the same id wait for one
+ * loader call, so two first updates of a new user cannot both try to insert.
+ * Hit/miss/eviction counters are published as {@code cache.*{cache=users}}.
+ */
+@Component
+public class UserIdentityCache {
+
+	private final Cache<Long, User> cache;
+
+	public UserIdentityCache(MeterRegistry meterRegistry,
+			@Value("${app.cache.users.max-size:10000}") long maxSize,
+			@Value("${app.cache.users.ttl:PT30M}") Duration ttl) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+	}
+
+	public User get(Long telegramUserId, Function<Long, User> loader) {
+		return cache.get(telegramUserId, loader);
+	}
+
+	public Optional<User> getIfPresent(Long telegramUserId) {
+		return Optional.ofNullable(cache.getIfPresent(telegramUserId));
+	}
+
+	public void put(User user) {
+		cache.put(user.getTelegramUserId(), user);
+	}
+
+	/**
+	 * Must be called after any change to the users row, otherwise readers keep
+	 * the stale copy until the TTL expires.
+	 */
+	public void invalidate(Long telegramUserId) {
+		cache.invalidate(telegramUserId);
+	}
+}
@@ -1,9 +1,13 @@
 package com.ua.pohribnyi.fitadvisorbot.service.user;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.ua.pohribnyi.fitadvisorbot.model.dto.UserDto;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
@@ -26,10 +30,19 @@ public class UserService {
     private final SyntheticDataService syntheticDataService;
 	private final StravaTokenRepository stravaTokenRepository;
 	private final UserSessionService userSessionService;
-
-	@Transactional
+	private final UserIdentityCache userIdentityCache;
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Resolves the internal user for an incoming update. Served from
+	 * {@link UserIdentityCache} on the hot path; on a miss the lookup (and, for a
+	 * new user, user + session creation) runs in one transaction, once per id even
+	 * under concurrent updates.
+	 */
 	public User findOrCreateUser(org.telegram.telegrambots.meta.api.objects.User telegramUser) {
-		return userRepository.findByTelegramUserId(telegramUser.getId()).orElseGet(() -> createUser(telegramUser));
+		return userIdentityCache.get(telegramUser.getId(),
+				id -> transactionTemplate.execute(status -> userRepository.findByTelegramUserId(id)
+						.orElseGet(() -> createUser(telegramUser))));
 	}
 
 	private User createUser(org.telegram.telegrambots.meta.api.objects.User telegramUser) {
@@ -52,6 +65,69 @@ public class UserService {
 		return savedUser;
 	}
 
+	/**
+	 * Copies name, username and language changes made in Telegram to the users
+	 * row and refreshes the cached copy, so handlers do not keep answering in
+	 * the old language until the cache TTL expires. Fields Telegram did not send
+	 * are left as they are.
+	 *
+	 * Only those columns are written, and {@code user} (possibly the shared
+	 * cached instance) is never modified: merging a cached copy back could
+	 * overwrite columns another instance changed since it was loaded.
+	 *
+	 * @return the user to use for the current update
+	 */
+	public User syncTelegramProfile(User user, org.telegram.telegrambots.meta.api.objects.User telegramUser) {
+		boolean changed = changed(user.getLanguageCode(), telegramUser.getLanguageCode())
+				|| changed(user.getFirstName(), telegramUser.getFirstName())
+				|| changed(user.getLastName(), telegramUser.getLastName())
+				|| changed(user.getTelegramUsername(), telegramUser.getUserName());
+		if (!changed) {
+			return user;
+		}
+		transactionTemplate.executeWithoutResult(status -> userRepository.updateTelegramProfile(user.getId(),
+				telegramUser.getLanguageCode(), telegramUser.getFirstName(), telegramUser.getLastName(),
+				telegramUser.getUserName(), LocalDateTime.now()));
+		log.info("Updated Telegram profile of user {}", user.getId());
+		return refreshCached(user);
+	}
+
+	/**
+	 * Replaces the cached copy with the committed row.
+	 */
+	private User refreshCached(User user) {
+		userIdentityCache.invalidate(user.getTelegramUserId());
+		Optional<User> fresh = userRepository.findById(user.getId());
+		fresh.ifPresent(userIdentityCache::put);
+		return fresh.orElse(user);
+	}
+
+	private static boolean changed(String stored, String received) {
+		return received != null && !Objects.equals(stored, received);
+	}
+
+	/**
+	 * Sets the user's IANA zone (e.g. {@code Europe/Kyiv}). Only region ids are
+	 * accepted: PostgreSQL reads fixed offsets like {@code +02:00} with the
+	 * opposite sign.
+	 *
+	 * Writes only the timezone column, like {@link #syncTelegramProfile}, and
+	 * evicts the cached user.
+	 *
+	 * @return the stored zone id
+	 * @throws IllegalArgumentException if {@code zoneId} is not a known region
+	 */
+	public String updateTimezone(User user, String zoneId) {
+		if (zoneId == null || !ZoneId.getAvailableZoneIds().contains(zoneId)) {
+			throw new IllegalArgumentException("Unknown timezone: " + zoneId);
+		}
+		transactionTemplate
+				.executeWithoutResult(status -> userRepository.updateTimezone(user.getId(), zoneId, LocalDateTime.now()));
+		userIdentityCache.invalidate(user.getTelegramUserId());
+		log.info("User {} changed timezone to {}", user.getId(), zoneId);
+		return zoneId;
+	}
+
 	@Transactional(readOnly = true)
 	public Optional<UserDto> findByTelegramUserId(Long telegramUserId) {
 		return userRepository.findByTelegramUserId(telegramUserId).map(this::convertToDto);
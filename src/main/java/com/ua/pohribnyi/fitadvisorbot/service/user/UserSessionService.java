@@ -10,6 +10,7 @@ import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserSession;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserSessionRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.user.SessionStateStore.SessionState;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,8 +21,9 @@ import lombok.extern.slf4j.Slf4j;
 public class UserSessionService {
 
 	// State times out after 1 hour of inactivity
-	private static final Duration STATE_TIMEOUT = Duration.ofHours(1);
+	public static final Duration STATE_TIMEOUT = Duration.ofHours(1);
 	private final UserSessionRepository userSessionRepository;
+	private final SessionStateStore sessionStateStore;
 
 	@Transactional
 	public UserSession findOrCreateSession(User user) {
@@ -36,41 +38,92 @@ public class UserSessionService {
 				.state(UserState.ONBOARDING_START) // Initial state
 				.stateUpdatedAt(Instant.now())
 				.build();
-		return userSessionRepository.save(newSession);
+		UserSession saved = userSessionRepository.save(newSession);
+		sessionStateStore.putPersisted(user.getId(), stateOf(saved));
+		return saved;
 	}
 
 	/**
 	 * Gets the user's current *active* state. If the state has expired, it resets
-	 * it to DEFAULT.
+	 * it to DEFAULT. Served from {@link SessionStateStore}; the DB is only read on
+	 * the first access.
 	 */
-	@Transactional
 	public UserState getActiveState(User user) {
-		UserSession session = findOrCreateSession(user);
-		UserState currentState = session.getState();
+		SessionState session = loadState(user);
+		UserState currentState = session.state();
 
 		if (currentState == UserState.DEFAULT) {
 			return UserState.DEFAULT;
 		}
 
-		Instant stateUpdatedAt = session.getStateUpdatedAt();
+		Instant stateUpdatedAt = session.updatedAt();
 		if (stateUpdatedAt != null && Instant.now().isAfter(stateUpdatedAt.plus(STATE_TIMEOUT))) {
 			log.warn("User {} state {} timed out. Resetting to DEFAULT.", user.getId(), currentState);
-			setState(session, UserState.DEFAULT);
+			setState(user, UserState.DEFAULT);
 			return UserState.DEFAULT;
 		}
 
 		return currentState;
 	}
 
-	@Transactional
+	/**
+	 * Makes a session row loaded elsewhere (e.g. by a joined query) available to
+	 * the store, saving its own lookup.
+	 */
+	public void primeState(User user, UserSession session) {
+		if (session != null) {
+			sessionStateStore.putPersistedIfAbsent(user.getId(), stateOf(session));
+		}
+	}
+
+	/**
+	 * Returns the stored state without applying the timeout.
+	 */
+	public UserState getState(User user) {
+		return loadState(user).state();
+	}
+
+	/**
+	 * Changes the state in memory; the row is updated by the store's next flush.
+	 */
 	public void setState(User user, UserState newState) {
-		UserSession session = findOrCreateSession(user);
-		setState(session, newState);
+		sessionStateStore.put(user.getId(), newState);
+	}
+
+	/**
+	 * Same as {@link #setState(User, UserState)} for callers that only have the
+	 * id, e.g. bulk jobs reading plain rows, with the session row version they
+	 * read; the version the store holds wins, it is never older.
+	 */
+	public void setState(Long userId, UserState newState, long sessionVersion) {
+		sessionStateStore.put(userId, newState, sessionVersion);
+	}
+
+	/**
+	 * Returns the active state if the store already holds it in memory, with the
+	 * timeout applied but not persisted; null if it would have to be loaded. Lets
+	 * bulk readers double-check a state they filtered on in the database, which
+	 * may lag behind unflushed writes. Writes of other instances reach the
+	 * database within their flush interval and are not seen here before.
+	 */
+	public UserState peekActiveState(Long userId) {
+		SessionState session = sessionStateStore.peek(userId);
+		if (session == null) {
+			return null;
+		}
+		Instant stateUpdatedAt = session.updatedAt();
+		if (session.state() != UserState.DEFAULT && stateUpdatedAt != null
+				&& Instant.now().isAfter(stateUpdatedAt.plus(STATE_TIMEOUT))) {
+			return UserState.DEFAULT;
+		}
+		return session.state();
+	}
+
+	private SessionState loadState(User user) {
+		return sessionStateStore.get(user.getId(), id -> stateOf(findOrCreateSession(user)));
 	}
 
-	private void setState(UserSession session, UserState newState) {
-		session.setState(newState);
-		session.setStateUpdatedAt(Instant.now());
-		userSessionRepository.save(session);
+	private static SessionState stateOf(UserSession session) {
+		return new SessionState(session.getState(), session.getStateUpdatedAt(), session.getVersion());
 	}
 }
@@ -0,0 +1,61 @@
+package com.ua.pohribnyi.fitadvisorbot.util.concurrency;
+
+/**
+ * Classic token bucket driven by {@link System#nanoTime()} values supplied by
+ * the caller, so several buckets can be evaluated against one clock reading.
+ */
+public class TokenBucket {
+
+	private final double capacity;
+	private final double tokensPerNano;
+
+	private double tokens;
+	private long lastRefill;
+
+	public TokenBucket(double tokensPerSecond, double capacity, long nowNanos) {
+		if (tokensPerSecond <= 0 || capacity < 1) {
+			throw new IllegalArgumentException("Rate must be positive and capacity at least 1");
+		}
+		this.capacity = capacity;
+		this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+		this.tokens = capacity;
+		this.lastRefill = nowNanos;
+	}
+
+	public synchronized boolean tryAcquire(long nowNanos) {
+		return tryAcquire(1, nowNanos);
+	}
+
+	public synchronized boolean tryAcquire(double permits, long nowNanos) {
+		refill(nowNanos);
+		if (tokens >= permits) {
+			tokens -= permits;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return nanoseconds until one permit is available, 0 if available now
+	 */
+	public synchronized long nanosUntilAvailable(long nowNanos) {
+		refill(nowNanos);
+		if (tokens >= 1) {
+			return 0;
+		}
+		return (long) Math.ceil((1 - tokens) / tokensPerNano);
+	}
+
+	public synchronized boolean isFull(long nowNanos) {
+		refill(nowNanos);
+		return tokens >= capacity;
+	}
+
+	private void refill(long nowNanos) {
+		long elapsed = nowNanos - lastRefill;
+		if (elapsed > 0) {
+			tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+			lastRefill = nowNanos;
+		}
+	}
+}
@@ -1,30 +1,42 @@
 package com.ua.pohribnyi.fitadvisorbot.util.concurrency.listener;
 
-import org.springframework.scheduling.annotation.Async;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.ua.pohribnyi.fitadvisorbot.enums.AiLane;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.AiWorkScheduler;
 import com.ua.pohribnyi.fitadvisorbot.service.analytics.diary.DailyAdviceWorker;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.event.DailyAdviceJobSubmittedEvent;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class DailyAdviceJobListener {
 
 	private final DailyAdviceWorker processingService;
+	private final AiWorkScheduler aiWorkScheduler;
 	
 	
 	/**
 	 * Triggered AFTER the transaction in DiaryService commits. Ensures the Job
-	 * actually exists in DB before we try to process it.
+	 * actually exists in DB before we try to process it. The user is waiting in
+	 * chat, so the job goes to the interactive lane.
 	 */
-	@Async("aiGenerationExecutor")
 	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
 	public void handleJobSubmitted(DailyAdviceJobSubmittedEvent event) {
-		processingService.processJob(event.getJobId());
+		Long jobId = event.getJobId();
+		try {
+			aiWorkScheduler.submit(AiLane.INTERACTIVE, () -> processingService.processJob(jobId));
+		} catch (RejectedExecutionException e) {
+			log.warn("Daily advice job {} rejected: {}", jobId, e.getMessage());
+			processingService.rejectJob(jobId, e.getMessage());
+		}
 	}
 	
 }
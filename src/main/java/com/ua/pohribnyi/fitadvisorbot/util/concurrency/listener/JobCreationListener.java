@@ -5,7 +5,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
-import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobQueueWorker;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.event.JobCreatedEvent;
 
 import lombok.RequiredArgsConstructor;
@@ -14,11 +14,15 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class JobCreationListener {
     
-	private final GeminiApiClient geminiApiClient; 
+	private final GenerationJobQueueWorker queueWorker;
 	
+	/**
+	 * The job is already durable at this point; this only saves the new job the
+	 * wait until the next poll.
+	 */
 	@Async("aiGenerationExecutor")
 	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
 	public void onJobCreated(JobCreatedEvent event) {
-		geminiApiClient.generateAndStageHistory(event.getJobId(), event.getPrompt());
+		queueWorker.wakeUp();
 	}
-}
\ No newline at end of file
+}
@@ -1,31 +1,12 @@
 package com.ua.pohribnyi.fitadvisorbot.util.concurrency.listener;
 
-import java.util.List;
-
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
-import com.ua.pohribnyi.fitadvisorbot.model.dto.ParsedData;
-import com.ua.pohribnyi.fitadvisorbot.model.dto.google.ActivityDto;
-import com.ua.pohribnyi.fitadvisorbot.model.dto.google.DailyMetricDto;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
-import com.ua.pohribnyi.fitadvisorbot.model.entity.GenerationJob;
-import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
-import com.ua.pohribnyi.fitadvisorbot.repository.data.ActivityRepository;
-import com.ua.pohribnyi.fitadvisorbot.repository.data.DailyMetricRepository;
-import com.ua.pohribnyi.fitadvisorbot.service.ai.SyntheticDataWorkerService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobQueueWorker;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.event.JobDownloadedEvent;
-import com.ua.pohribnyi.fitadvisorbot.util.concurrency.event.JobProcessedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,31 +16,21 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class JobDownloadedEventListener {
 
-	private final SyntheticDataWorkerService dataWorkerService;
+	private final GenerationJobQueueWorker queueWorker;
 
 	/**
 	 * Listens for JobDownloadedEvent AFTER Worker 1's transaction commits.
 	 * 
-	 * TransactionPhase.AFTER_COMMIT guarantees: - job.rawResponse is persisted in
-	 * DB - No race conditions with Worker 1
+	 * The job is already DOWNLOADED in DB, so this only wakes up the queue worker
+	 * to claim it for processing right away instead of on the next poll.
 	 * 
 	 * @Async: Runs in separate thread (dataProcessingExecutor)
 	 */
 	@Async("dataProcessingExecutor")
 	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
 	public void handleJobDownloadedEvent(JobDownloadedEvent event) {
-		Long jobId = event.getJobId();
-		String threadName = Thread.currentThread().getName();
-
-		log.info("[Thread: {}] Received event for job {}", threadName, jobId);
-
-		try {
-			// Call the public, proxied method on the new service.
-			// This ensures @Transactional(REQUIRES_NEW) is triggered.
-			dataWorkerService.processJobInTransaction(jobId);
-		} catch (Exception e) {
-			log.error("[{}] Failed to process job {}", threadName, jobId);
-		}
+		log.debug("Job {} downloaded, waking up queue worker", event.getJobId());
+		queueWorker.wakeUp();
 	}
 
 }
\ No newline at end of file
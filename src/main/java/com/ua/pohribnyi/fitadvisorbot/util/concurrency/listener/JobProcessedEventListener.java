@@ -8,7 +8,6 @@ import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 import com.ua.pohribnyi.fitadvisorbot.enums.JobStatus;
 import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto;
@@ -59,57 +58,43 @@ public class JobProcessedEventListener {
 			return;
 		}
 
-		try {
-			if (event.getStatus() == JobStatus.PROCESSED) {
-				handleSuccess(job, chatId, messageId, lang);
-			} else if (event.getStatus() == JobStatus.FAILED) {
-				handleFailure(job, chatId, messageId, lang);
-			}
-		} catch (TelegramApiException e) {
-			log.error("Failed to deliver job notification for job {}: {}", job.getId(), e.getMessage());
+		// Notifications go through the send queue, which keeps them in order per chat
+		if (event.getStatus() == JobStatus.PROCESSED) {
+			handleSuccess(job, chatId, messageId, lang);
+		} else if (event.getStatus() == JobStatus.FAILED) {
+			handleFailure(job, chatId, messageId, lang);
 		}
 
 	}
 	
-	private void handleSuccess(GenerationJob job, Long chatId, Integer messageId, String lang)
-			throws TelegramApiException {
+	private void handleSuccess(GenerationJob job, Long chatId, Integer messageId, String lang) {
 		// 1. Delete the "Processing..." loader message to clean up the chat.
 		// We delete instead of edit because we need to switch from Inline to Reply
 		// keyboard (Main Menu),
 		// which is not supported by the EditMessageText API.
-		deleteMessageSafely(chatId, messageId);
+		bot.enqueue(chatId, new DeleteMessage(chatId.toString(), messageId));
 
 		// 2. Send a NEW "Success" message with the Main Menu attached.
 		String successText = TelegramViewService
 				.escapeMarkdownV2(messageService.getMessage("onboarding.job.success", lang));
 		SendMessage successMsg = messageBuilder.createMessageWithKeyboard(chatId, successText,
 				keyboardBuilder.createMainMenuKeyboard(lang));
-		bot.execute(successMsg);
+		bot.sendMessage(successMsg);
 
 		// 3. Send the generated analytics report as a separate message.
 		PeriodReportDto report = analyticsService.generateOnboardingReport(job.getUser());
-		SendMessage reportMsg = viewService.getAnalyticsReportMessage(chatId, report);
+		SendMessage reportMsg = viewService.getAnalyticsReportMessage(chatId, job.getUser(), report);
 		bot.sendMessage(reportMsg);
 	}
 
-	private void handleFailure(GenerationJob job, Long chatId, Integer messageId, String lang)
-			throws TelegramApiException {
+	private void handleFailure(GenerationJob job, Long chatId, Integer messageId, String lang) {
 		String error = job.getErrorMessage() != null ? job.getErrorMessage() : "Unknown error";
 		String text = TelegramViewService
 				.escapeMarkdownV2(messageService.getMessage("onboarding.job.failed", lang, error));
 
 		// For failure, editing the existing message is sufficient UX.
 		EditMessageText errorMsg = messageBuilder.createEditMessage(chatId, messageId, text);
-		bot.execute(errorMsg);
-	}
-
-	private void deleteMessageSafely(Long chatId, Integer messageId) {
-		try {
-			bot.execute(new DeleteMessage(chatId.toString(), messageId));
-		} catch (TelegramApiException e) {
-			// Message might be too old or already deleted; this is not critical.
-			log.debug("Could not delete processing message (id: {}): {}", messageId, e.getMessage());
-		}
+		bot.enqueue(chatId, errorMsg);
 	}
 
 }
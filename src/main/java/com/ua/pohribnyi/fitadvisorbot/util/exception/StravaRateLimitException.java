@@ -0,0 +1,22 @@
+package com.ua.pohribnyi.fitadvisorbot.util.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown before a Strava request is sent when the application quota does not
+ * allow it; {@link #getRetryAfter()} tells when the blocking window resets.
+ */
+public class StravaRateLimitException extends StravaException {
+
+	private final Duration retryAfter;
+
+	public StravaRateLimitException(String message, Duration retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+}
@@ -1,7 +1,6 @@
 package com.ua.pohribnyi.fitadvisorbot.util.math;
 
 import java.util.List;
-import java.util.stream.IntStream;
 
 /**
  * Utility class for statistical calculations. Used to calculate trends,
@@ -23,13 +22,41 @@ public class MathUtils {
 	public static double calculateCV(List<Double> values) {
 		if (values == null || values.isEmpty())
 			return 0.0;
-		double mean = values.stream().mapToDouble(val -> val).average().orElse(0.0);
-		if (mean == 0)
+		return calculateCV(toArray(values));
+	}
+
+	/**
+	 * Primitive variant of {@link #calculateCV(List)}.
+	 *
+	 * @param values numerical values
+	 * @return CV value or 0.0 if array is empty
+	 */
+	public static double calculateCV(double[] values) {
+		if (values == null)
 			return 0.0;
+		return calculateCV(values, 0, values.length);
+	}
 
-		double variance = values.stream().mapToDouble(val -> Math.pow(val - mean, 2)).average().orElse(0.0);
-		double stdDev = Math.sqrt(variance);
-		return stdDev / mean;
+	/**
+	 * Calculates the CV of {@code values[offset, offset + length)} in a single
+	 * pass (Welford's online mean/variance).
+	 *
+	 * @return CV value or 0.0 if the slice is empty or its mean is 0
+	 */
+	public static double calculateCV(double[] values, int offset, int length) {
+		if (values == null || length <= 0)
+			return 0.0;
+		double mean = 0.0;
+		double m2 = 0.0;
+		for (int i = 0; i < length; i++) {
+			double value = values[offset + i];
+			double delta = value - mean;
+			mean += delta / (i + 1);
+			m2 += delta * (value - mean);
+		}
+		if (mean == 0)
+			return 0.0;
+		return Math.sqrt(m2 / length) / mean;
 	}
 
 	/**
@@ -43,11 +70,35 @@ public class MathUtils {
 	public static double calculateSlope(List<Double> values) {
 		if (values == null || values.size() < 2)
 			return 0.0;
-		int n = values.size();
-		double sumX = IntStream.range(0, n).sum();
-		double sumY = values.stream().mapToDouble(v -> v).sum();
-		double sumXY = IntStream.range(0, n).mapToDouble(i -> i * values.get(i)).sum();
-		double sumX2 = IntStream.range(0, n).mapToDouble(i -> i * i).sum();
+		return calculateSlope(toArray(values));
+	}
+
+	/**
+	 * Primitive variant of {@link #calculateSlope(List)}.
+	 */
+	public static double calculateSlope(double[] values) {
+		if (values == null)
+			return 0.0;
+		return calculateSlope(values, 0, values.length);
+	}
+
+	/**
+	 * Slope of {@code values[offset, offset + length)} against x = 0, 1, 2...
+	 * Only the y sums need a pass; the x sums have closed forms.
+	 */
+	public static double calculateSlope(double[] values, int offset, int length) {
+		if (values == null || length < 2)
+			return 0.0;
+		double n = length;
+		double sumX = n * (n - 1) / 2.0;
+		double sumX2 = (n - 1) * n * (2 * n - 1) / 6.0;
+		double sumY = 0.0;
+		double sumXY = 0.0;
+		for (int i = 0; i < length; i++) {
+			double y = values[offset + i];
+			sumY += y;
+			sumXY += i * y;
+		}
 
 		double denominator = (n * sumX2 - sumX * sumX);
 		if (denominator == 0)
@@ -73,18 +124,53 @@ public class MathUtils {
 	public static double calculateCorrelation(List<Double> xs, List<Double> ys) {
 		if (xs.size() != ys.size() || xs.isEmpty())
 			return 0.0;
+		return calculateCorrelation(toArray(xs), toArray(ys));
+	}
 
-		double sx = xs.stream().mapToDouble(x -> x).sum();
-		double sy = ys.stream().mapToDouble(y -> y).sum();
-		double sxx = xs.stream().mapToDouble(x -> x * x).sum();
-		double syy = ys.stream().mapToDouble(y -> y * y).sum();
-		double sxy = IntStream.range(0, xs.size()).mapToDouble(i -> xs.get(i) * ys.get(i)).sum();
+	/**
+	 * Primitive variant of {@link #calculateCorrelation(List, List)}.
+	 */
+	public static double calculateCorrelation(double[] xs, double[] ys) {
+		if (xs.length != ys.length)
+			return 0.0;
+		return calculateCorrelation(xs, ys, 0, xs.length);
+	}
+
+	/**
+	 * Correlation of the paired slices {@code xs/ys[offset, offset + length)}.
+	 * Means, variances and the co-moment are updated together in one pass.
+	 */
+	public static double calculateCorrelation(double[] xs, double[] ys, int offset, int length) {
+		if (length <= 0)
+			return 0.0;
+		double meanX = 0.0;
+		double meanY = 0.0;
+		double m2x = 0.0;
+		double m2y = 0.0;
+		double cxy = 0.0;
+		for (int i = 0; i < length; i++) {
+			double x = xs[offset + i];
+			double y = ys[offset + i];
+			double dx = x - meanX;
+			meanX += dx / (i + 1);
+			double dy = y - meanY;
+			meanY += dy / (i + 1);
+			m2x += dx * (x - meanX);
+			m2y += dy * (y - meanY);
+			cxy += dx * (y - meanY);
+		}
 
-		int n = xs.size();
-		double num = n * sxy - sx * sy;
-		double den = Math.sqrt((n * sxx - sx * sx) * (n * syy - sy * sy));
+		double den = Math.sqrt(m2x * m2y);
+		return den == 0 ? 0 : cxy / den;
+	}
 
-		return den == 0 ? 0 : num / den;
+	private static double[] toArray(List<Double> values) {
+		double[] array = new double[values.size()];
+		int i = 0;
+		for (Double value : values) {
+			array[i++] = value;
+		}
+		return array;
 	}
-	
+
 }
\ No newline at end of file
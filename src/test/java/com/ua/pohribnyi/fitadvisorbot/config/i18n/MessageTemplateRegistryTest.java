@@ -0,0 +1,61 @@
+package com.ua.pohribnyi.fitadvisorbot.config.i18n;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+/**
+ * Unit tests for MessageTemplateRegistry.
+ *
+ * Testing: - Fallback chain - Formatting rules - Unknown languages - Reload
+ */
+class MessageTemplateRegistryTest {
+
+	private final List<Object> events = new ArrayList<>();
+	private MessageTemplateRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new MessageTemplateRegistry(new DefaultResourceLoader(), events::add,
+				List.of("classpath:messages-test/test", "classpath:messages-test/missing"), List.of("uk", "en"), "uk");
+	}
+
+	@Test
+	@DisplayName("Language file, then base file, then default language, then the key")
+	void fallbackChain() {
+		assertThat(registry.getMessage("greeting", "en", "Max")).isEqualTo("Hello, Max!");
+		assertThat(registry.getMessage("common.only_base", "en", 1)).isEqualTo("Overridden 1");
+		assertThat(registry.getMessage("common.only_base", "uk", 1)).isEqualTo("Base 1");
+		assertThat(registry.getMessage("common.brand", "en")).isEqualTo("Smart Fitness Advisor");
+		assertThat(registry.getMessage("only_uk", "en")).isEqualTo("Тільки українською");
+		assertThat(registry.getMessage("no.such.key", "en")).isEqualTo("no.such.key");
+	}
+
+	@Test
+	@DisplayName("Texts without arguments are returned as written")
+	void noArguments_skipMessageFormat() {
+		assertThat(registry.getMessage("quoted", "uk")).isEqualTo("Об'єм");
+		assertThat(registry.getMessage("greeting", "uk")).isEqualTo("Привіт, {0}!");
+	}
+
+	@Test
+	@DisplayName("Unknown languages use the default language")
+	void unknownLanguage_usesDefault() {
+		assertThat(registry.getMessage("greeting", "de", "Max")).isEqualTo("Привіт, Max!");
+	}
+
+	@Test
+	@DisplayName("Reload publishes an event")
+	void reload_publishesEvent() {
+		registry.reload();
+
+		assertThat(events).singleElement().isInstanceOf(MessagesReloadedEvent.class);
+		assertThat(registry.getMessage("greeting", "en", "Max")).isEqualTo("Hello, Max!");
+	}
+}
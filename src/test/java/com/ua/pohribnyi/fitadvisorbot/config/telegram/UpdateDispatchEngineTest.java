@@ -0,0 +1,166 @@
+package com.ua.pohribnyi.fitadvisorbot.config.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramErrorHandler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for UpdateDispatchEngine.
+ *
+ * Testing: - Strict ordering inside one user's lane - Parallelism across users
+ * - Offer rejects at the in-flight cap - Submit waits for a free permit
+ */
+class UpdateDispatchEngineTest {
+
+	private TelegramUpdateDispatcher dispatcher;
+	private FitnessAdvisorBotService bot;
+	private UpdateDispatchEngine engine;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = mock(TelegramUpdateDispatcher.class);
+		bot = mock(FitnessAdvisorBotService.class);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (engine != null) {
+			engine.shutdown();
+		}
+	}
+
+	@Test
+	@DisplayName("Updates of one user are processed in submission order")
+	void sameUser_processedInOrder() throws Exception {
+		engine = newEngine(1000);
+		Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+		CountDownLatch done = new CountDownLatch(300);
+
+		doAnswer(inv -> {
+			Update update = inv.getArgument(0);
+			seen.computeIfAbsent(update.getMessage().getFrom().getId(), k -> new CopyOnWriteArrayList<>())
+					.add(update.getUpdateId());
+			done.countDown();
+			return null;
+		}).when(dispatcher).dispatch(any(), any());
+
+		for (int i = 0; i < 100; i++) {
+			for (long user = 1; user <= 3; user++) {
+				assertThat(engine.submit(update(i, user), bot)).isTrue();
+			}
+		}
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		for (long user = 1; user <= 3; user++) {
+			assertThat(seen.get(user)).isSorted().hasSize(100);
+		}
+	}
+
+	@Test
+	@DisplayName("A blocked user does not stall other users")
+	void blockedUser_doesNotStallOthers() throws Exception {
+		engine = newEngine(1000);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch otherDone = new CountDownLatch(1);
+
+		doAnswer(inv -> {
+			Update update = inv.getArgument(0);
+			if (update.getMessage().getFrom().getId() == 1L) {
+				release.await(5, TimeUnit.SECONDS);
+			} else {
+				otherDone.countDown();
+			}
+			return null;
+		}).when(dispatcher).dispatch(any(), any());
+
+		engine.submit(update(1, 1L), bot);
+		engine.submit(update(2, 2L), bot);
+
+		assertThat(otherDone.await(2, TimeUnit.SECONDS)).isTrue();
+		release.countDown();
+	}
+
+	@Test
+	@DisplayName("Offer is rejected when the in-flight cap is reached")
+	void inFlightCap_rejectsOffer() throws Exception {
+		engine = newEngine(2);
+		CountDownLatch release = new CountDownLatch(1);
+
+		doAnswer(inv -> {
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		}).when(dispatcher).dispatch(any(), any());
+
+		assertThat(engine.offer(update(1, 1L), bot)).isTrue();
+		assertThat(engine.offer(update(2, 1L), bot)).isTrue();
+		assertThat(engine.offer(update(3, 2L), bot)).isFalse();
+
+		release.countDown();
+	}
+
+	@Test
+	@DisplayName("Submit waits for a free permit instead of dropping the update")
+	void inFlightCap_submitWaits() throws Exception {
+		engine = newEngine(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch secondDone = new CountDownLatch(1);
+
+		doAnswer(inv -> {
+			Update update = inv.getArgument(0);
+			if (update.getUpdateId() == 1) {
+				release.await(5, TimeUnit.SECONDS);
+			} else {
+				secondDone.countDown();
+			}
+			return null;
+		}).when(dispatcher).dispatch(any(), any());
+
+		assertThat(engine.submit(update(1, 1L), bot)).isTrue();
+		CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> engine.submit(update(2, 2L), bot));
+
+		Thread.sleep(200);
+		assertThat(second).isNotDone();
+
+		release.countDown();
+		assertThat(second.get(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(secondDone.await(2, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private UpdateDispatchEngine newEngine(int maxInFlight) {
+		return new UpdateDispatchEngine(dispatcher, mock(TelegramErrorHandler.class), new SimpleMeterRegistry(),
+				maxInFlight);
+	}
+
+	private Update update(int updateId, long userId) {
+		User from = new User();
+		from.setId(userId);
+		Message message = new Message();
+		message.setFrom(from);
+		Update update = new Update();
+		update.setUpdateId(updateId);
+		update.setMessage(message);
+		return update;
+	}
+}
@@ -0,0 +1,131 @@
+package com.ua.pohribnyi.fitadvisorbot.repository.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+
+/**
+ * Integration tests for HistoryBulkLoader against PostgreSQL.
+ *
+ * Testing: - Multi-row inserts of more than one statement - One sequence
+ * value per pooled block - No ID collisions with Hibernate's own blocks
+ */
+@SpringBootTest(classes = { HistoryBulkLoaderIntegrationTest.TestInfrastructureConfig.class,
+		HistoryBulkLoader.class })
+@Testcontainers
+@ActiveProfiles("test")
+class HistoryBulkLoaderIntegrationTest {
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+			.withDatabaseName("test")
+			.withUsername("test")
+			.withPassword("test");
+
+	@DynamicPropertySource
+	static void registerPgProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private HistoryBulkLoader bulkLoader;
+
+	@Autowired
+	private ActivityRepository activityRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		activityRepository.deleteAll();
+		userRepository.deleteAll();
+		user = userRepository.save(User.builder().telegramUserId(1001L).firstName("Bulk").build());
+	}
+
+	@Test
+	@DisplayName("Bulk rows take one sequence value per block of IDs")
+	void insertActivities_takesOneValuePerBlock() {
+		long before = lastValue();
+
+		// More than one 500-row statement
+		int inserted = bulkLoader.insertActivities(activities(1_120));
+
+		assertThat(inserted).isEqualTo(1_120);
+		assertThat(activityRepository.count()).isEqualTo(1_120);
+		// 500 + 500 + 120 rows: 10 + 10 + 3 blocks of 50, plus one if a fresh
+		// sequence's first value yields a single ID; one value per row would be 1120
+		assertThat((lastValue() - before) / 50).isLessThanOrEqualTo(24);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM activities", Long.class))
+				.isEqualTo(1_120);
+	}
+
+	@Test
+	@DisplayName("Bulk IDs never collide with IDs Hibernate hands out")
+	void bulkAndHibernate_doNotCollide() {
+		activityRepository.saveAndFlush(activities(1).get(0));
+		bulkLoader.insertActivities(activities(120));
+		activityRepository.saveAllAndFlush(activities(120));
+		bulkLoader.insertActivities(activities(30));
+
+		assertThat(activityRepository.count()).isEqualTo(271);
+		assertThat(jdbcTemplate.queryForObject("SELECT MIN(id) FROM activities", Long.class)).isPositive();
+	}
+
+	private long lastValue() {
+		return jdbcTemplate.queryForObject("SELECT last_value FROM activities_id_seq", Long.class);
+	}
+
+	private List<Activity> activities(int count) {
+		List<Activity> activities = new ArrayList<>(count);
+		LocalDateTime start = LocalDateTime.of(2025, 1, 1, 7, 30);
+		for (int i = 0; i < count; i++) {
+			Activity activity = new Activity();
+			activity.setUser(user);
+			activity.setDateTime(start.plusHours(i));
+			activity.setType("Run");
+			activity.setDurationSeconds(1800);
+			activity.setDistanceMeters(5000);
+			activity.setSynthetic(true);
+			activities.add(activity);
+		}
+		return activities;
+	}
+
+	@TestConfiguration
+	@EnableAutoConfiguration
+	@EnableJpaRepositories(basePackages = "com.ua.pohribnyi.fitadvisorbot.repository")
+	@EntityScan(basePackages = "com.ua.pohribnyi.fitadvisorbot.model.entity")
+	static class TestInfrastructureConfig {
+	}
+}
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
@@ -48,16 +49,24 @@ import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.data.ActivityRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.data.DailyMetricRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.data.HistoryBulkLoader;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobQueueWorker;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobUpdaterService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.SyntheticDataService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.SyntheticDataWorkerService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.parser.GeminiHistoryReader;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.GeminiPromptBuilderService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.PromptService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.AiWorkScheduler;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
+import com.ua.pohribnyi.fitadvisorbot.service.analytics.DailyRollupService;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
 import com.ua.pohribnyi.fitadvisorbot.util.TestUtils;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.listener.JobCreationListener;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.listener.JobDownloadedEventListener;
@@ -71,16 +80,24 @@ import com.ua.pohribnyi.fitadvisorbot.util.concurrency.listener.JobDownloadedEve
 		// 2. Сервіси AI Pipeline (Тільки те, що тестуємо)
 		SyntheticDataService.class, // Entry point
 		GeminiApiClient.class, // Worker 1
+		GeminiCallService.class,
 		GenerationJobUpdaterService.class, // Job Updates (Transactions)
 		SyntheticDataWorkerService.class, // Worker 2 (Processing)
+		GeminiHistoryReader.class,
+		HistoryBulkLoader.class,
+		DailyRollupService.class,
+		SchedulerLeaseService.class,
 		GeminiPromptBuilderService.class, 
 		PromptService.class, 
 		GeminiConfigFactory.class, 
-		GeminiSchemaDefiner.class,
+		GeminiSchemaDefiner.class, 
+		GeminiTokenBudget.class,
+		AiWorkScheduler.class,
 
 		// 3. Слухачі подій (Зв'язок між етапами)
 		JobCreationListener.class,
-		JobDownloadedEventListener.class
+		JobDownloadedEventListener.class,
+		GenerationJobQueueWorker.class // Durable queue between the stages
 })
 @Testcontainers
 @ActiveProfiles("test")
@@ -103,6 +120,12 @@ class GeminiAsyncPipelineIntegrationTest {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
     
+    @Autowired
+    private GenerationJobQueueWorker queueWorker;
+    
+    @Autowired
+    private GeminiPromptBuilderService promptBuilderService;
+    
     @MockitoBean
     private Client mockGeminiClient;
     
@@ -221,6 +244,38 @@ class GeminiAsyncPipelineIntegrationTest {
         assertThat(failedJob.getErrorMessage()).contains("Too Many Requests");
     }
 
+    @Test
+    @DisplayName("Job abandoned by a dead worker is resumed after its lease expires")
+    void queue_resumesJobWithExpiredLease() throws Exception {
+        // Arrange: job left in DOWNLOADING by a worker that no longer exists
+        User testUser = createTestUser();
+        UserProfile profile = createTestProfile(testUser);
+        GenerationJob job = GenerationJob.createPendingJob(testUser, promptBuilderService.buildOnboardingPrompt(profile),
+                123L, 456);
+        job.setStatus(JobStatus.DOWNLOADING);
+        job.setAttempts(1);
+        job.setLeaseOwner("dead-worker");
+        job.setLeaseUntil(Instant.now().minusSeconds(60));
+        jobRepository.save(job);
+
+        GenerateContentResponse response = mock(GenerateContentResponse.class);
+        when(response.text()).thenReturn(TestUtils.createValidJson());
+        when(mockModels.generateContent(anyString(), anyList(), any())).thenReturn(response);
+
+        // Act: what the scheduled poll does after a restart
+        queueWorker.wakeUp();
+
+        // Assert
+        Awaitility.await()
+        .atMost(10, TimeUnit.SECONDS)
+        .until(() -> jobRepository.findById(job.getId()).orElseThrow().getStatus() == JobStatus.PROCESSED);
+
+        GenerationJob resumed = jobRepository.findById(job.getId()).orElseThrow();
+        assertThat(resumed.getAttempts()).isEqualTo(1); // first claim of the processing stage
+        assertThat(resumed.getLeaseOwner()).isNull();
+        assertThat(activityRepository.findAll()).isNotEmpty();
+    }
+
 	private User createTestUser() {
 		User user = User.builder()
 				.telegramUserId(999L)
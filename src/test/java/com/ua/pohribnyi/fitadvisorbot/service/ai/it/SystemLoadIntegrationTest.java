@@ -50,16 +50,24 @@ import com.ua.pohribnyi.fitadvisorbot.model.entity.GenerationJob;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
 import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.data.HistoryBulkLoader;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
 import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobQueueWorker;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobUpdaterService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.SyntheticDataService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.SyntheticDataWorkerService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.parser.GeminiHistoryReader;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.GeminiPromptBuilderService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.PromptService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.AiWorkScheduler;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
+import com.ua.pohribnyi.fitadvisorbot.service.analytics.DailyRollupService;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
 import com.ua.pohribnyi.fitadvisorbot.util.TestUtils;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.listener.JobCreationListener;
 import com.ua.pohribnyi.fitadvisorbot.util.concurrency.listener.JobDownloadedEventListener;
@@ -73,14 +81,22 @@ import lombok.extern.slf4j.Slf4j;
 		PromptMessageSourceConfig.class, 
 		SyntheticDataService.class, 
 		GeminiApiClient.class,
+		GeminiCallService.class,
 		GenerationJobUpdaterService.class,
 		SyntheticDataWorkerService.class, 
+		GeminiHistoryReader.class,
+		HistoryBulkLoader.class,
+		DailyRollupService.class,
+		SchedulerLeaseService.class,
 		GeminiPromptBuilderService.class,
 		PromptService.class, 
 		GeminiConfigFactory.class,
 		GeminiSchemaDefiner.class, 
+		GeminiTokenBudget.class,
+		AiWorkScheduler.class,
 		JobCreationListener.class,
-		JobDownloadedEventListener.class })
+		JobDownloadedEventListener.class,
+		GenerationJobQueueWorker.class })
 @Testcontainers
 @ActiveProfiles("test")
 @Slf4j
@@ -115,7 +131,10 @@ class SystemLoadIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        // Gemini is mocked and reports no usage, so TPM shaping would only slow the run down
+        registry.add("app.gemini.budget.tokens-per-minute", () -> "100000000");
 
+        registry.add("app.ai.scheduler.concurrency", () -> "2");
         registry.add("spring.task.execution.pool.ai.core-size", () -> "2"); 
         registry.add("spring.task.execution.pool.ai.max-size", () -> "2");
         registry.add("spring.task.execution.pool.ai.queue-capacity", () -> "1"); 
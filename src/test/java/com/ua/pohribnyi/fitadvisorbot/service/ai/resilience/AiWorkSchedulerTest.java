@@ -0,0 +1,126 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.AiLane;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.AiWorkScheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for AiWorkScheduler.
+ *
+ * Testing: - Weighted sharing between lanes - Deadline order inside a lane -
+ * Per-lane queue limits
+ */
+class AiWorkSchedulerTest {
+
+	private AiWorkScheduler scheduler;
+
+	@AfterEach
+	void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	@DisplayName("Interactive lane gets most of the workers while onboarding work is queued")
+	void lanes_shareByWeight() throws Exception {
+		scheduler = newScheduler(1, 100);
+		CountDownLatch gate = blockWorker();
+		List<AiLane> executed = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(18);
+
+		for (int i = 0; i < 9; i++) {
+			scheduler.submit(AiLane.ONBOARDING, record(AiLane.ONBOARDING, executed, done));
+			scheduler.submit(AiLane.INTERACTIVE, record(AiLane.INTERACTIVE, executed, done));
+		}
+		gate.countDown();
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		// Weights 6:3 - onboarding gets three of the first nine turns and is not starved
+		assertThat(executed.subList(0, 9)).filteredOn(AiLane.INTERACTIVE::equals).hasSize(6);
+		assertThat(executed.subList(0, 9)).filteredOn(AiLane.ONBOARDING::equals).hasSize(3);
+	}
+
+	@Test
+	@DisplayName("Inside a lane the earliest deadline runs first")
+	void lane_ordersByDeadline() throws Exception {
+		scheduler = newScheduler(1, 100);
+		CountDownLatch gate = blockWorker();
+		List<String> executed = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(3);
+		Instant now = Instant.now();
+
+		scheduler.submit(AiLane.ONBOARDING, now.plusSeconds(30), () -> { executed.add("late"); done.countDown(); });
+		scheduler.submit(AiLane.ONBOARDING, now.plusSeconds(10), () -> { executed.add("early"); done.countDown(); });
+		scheduler.submit(AiLane.ONBOARDING, now.plusSeconds(20), () -> { executed.add("middle"); done.countDown(); });
+		gate.countDown();
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executed).containsExactly("early", "middle", "late");
+	}
+
+	@Test
+	@DisplayName("A full lane rejects new work without affecting other lanes")
+	void fullLane_rejects() {
+		scheduler = newScheduler(1, 2);
+		CountDownLatch gate = blockWorker();
+
+		scheduler.submit(AiLane.ONBOARDING, () -> {});
+		scheduler.submit(AiLane.ONBOARDING, () -> {});
+
+		assertThatThrownBy(() -> scheduler.submit(AiLane.ONBOARDING, () -> {}))
+			.isInstanceOf(RejectedExecutionException.class);
+		scheduler.submit(AiLane.INTERACTIVE, () -> {});
+		gate.countDown();
+	}
+
+	private AiWorkScheduler newScheduler(int concurrency, int queueSize) {
+		AiWorkScheduler workScheduler = new AiWorkScheduler(new SimpleMeterRegistry(), concurrency, queueSize,
+				queueSize);
+		workScheduler.start();
+		return workScheduler;
+	}
+
+	/**
+	 * Occupies the only worker until the returned latch is released, so the
+	 * following submissions queue up.
+	 */
+	private CountDownLatch blockWorker() {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch gate = new CountDownLatch(1);
+		scheduler.submit(AiLane.INTERACTIVE, () -> {
+			started.countDown();
+			try {
+				gate.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return gate;
+	}
+
+	private Runnable record(AiLane lane, List<AiLane> executed, CountDownLatch done) {
+		return () -> {
+			executed.add(lane);
+			done.countDown();
+		};
+	}
+}
@@ -32,8 +32,10 @@ import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobUpdaterService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
@@ -41,6 +43,7 @@ import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
 import io.github.resilience4j.springboot3.ratelimiter.autoconfigure.RateLimiterAutoConfiguration;
 import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Unit tests for CircuitBreaker pattern in GeminiApiClient.
@@ -53,8 +56,11 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {
     GeminiApiClient.class,
+    GeminiCallService.class,
     GeminiConfigFactory.class,
-    GeminiSchemaDefiner.class
+    GeminiSchemaDefiner.class,
+    GeminiTokenBudget.class,
+    SimpleMeterRegistry.class
 })
 @EnableConfigurationProperties
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
@@ -79,7 +85,9 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
     // Retry: Disabled
     "resilience4j.retry.instances.geminiApi.max-attempts=1",
     
-    "google.gemini.api.key=fake-key"
+    "google.gemini.api.key=fake-key",
+    // Token budget is covered by GeminiTokenBudgetTest
+    "app.gemini.budget.tokens-per-minute=100000000"
 })
 class GeminiCircuitBreakerTest {
 
@@ -37,8 +37,10 @@ import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobUpdaterService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
 
 import io.github.resilience4j.ratelimiter.RateLimiter;
@@ -47,6 +49,7 @@ import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
 import io.github.resilience4j.springboot3.ratelimiter.autoconfigure.RateLimiterAutoConfiguration;
 import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Unit tests for RateLimiter pattern in GeminiApiClient.
@@ -55,7 +58,8 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
  * High concurrency behavior
  */
 @ExtendWith(SpringExtension.class)
-@ContextConfiguration(classes = { GeminiApiClient.class, GeminiConfigFactory.class, GeminiSchemaDefiner.class })
+@ContextConfiguration(classes = { GeminiApiClient.class, GeminiCallService.class, GeminiConfigFactory.class,
+		GeminiSchemaDefiner.class, GeminiTokenBudget.class, SimpleMeterRegistry.class })
 @EnableConfigurationProperties
 @ImportAutoConfiguration(classes = { AopAutoConfiguration.class, RateLimiterAutoConfiguration.class,
 		CircuitBreakerAutoConfiguration.class, RetryAutoConfiguration.class })
@@ -72,7 +76,9 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
 		// Retry: Disabled
 		"resilience4j.retry.instances.geminiApi.max-attempts=1",
 
-		"google.gemini.api.key=fake-key" })
+		"google.gemini.api.key=fake-key",
+		// Token budget is covered by GeminiTokenBudgetTest
+		"app.gemini.budget.tokens-per-minute=100000000" })
 class GeminiRateLimiterTest {
 
 	@Autowired
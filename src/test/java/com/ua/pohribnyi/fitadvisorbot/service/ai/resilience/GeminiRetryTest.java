@@ -34,8 +34,10 @@ import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobUpdaterService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
 
 import io.github.resilience4j.core.IntervalFunction;
@@ -44,6 +46,7 @@ import io.github.resilience4j.retry.RetryRegistry;
 import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
 import io.github.resilience4j.springboot3.ratelimiter.autoconfigure.RateLimiterAutoConfiguration;
 import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Unit tests for Retry pattern in GeminiApiClient.
@@ -54,8 +57,11 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {
     GeminiApiClient.class,
+    GeminiCallService.class,
     GeminiConfigFactory.class,
-    GeminiSchemaDefiner.class
+    GeminiSchemaDefiner.class,
+    GeminiTokenBudget.class,
+    SimpleMeterRegistry.class
 })
 @EnableConfigurationProperties
 @ImportAutoConfiguration(classes = {
@@ -81,7 +87,9 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
     "resilience4j.circuitbreaker.instances.geminiApi.failure-rate-threshold=99",
     "resilience4j.circuitbreaker.instances.geminiApi.ignore-exceptions=java.lang.IllegalArgumentException",
     
-    "google.gemini.api.key=fake-key"
+    "google.gemini.api.key=fake-key",
+    // Token budget is covered by GeminiTokenBudgetTest
+    "app.gemini.budget.tokens-per-minute=100000000"
 })
 class GeminiRetryTest {
 
@@ -0,0 +1,122 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.AiLane;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget.Reservation;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.GeminiApiException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for GeminiTokenBudget.
+ *
+ * Testing: - Admission within the TPM budget - Waiting instead of failing
+ * when over budget - Reconciliation with actual usage - Max wait timeout -
+ * Interactive calls are admitted before onboarding - Interactive headroom
+ */
+class GeminiTokenBudgetTest {
+
+	@Test
+	@DisplayName("Estimate covers prompt and max output tokens")
+	void estimate_includesMaxOutput() {
+		assertThat(GeminiTokenBudget.estimate("x".repeat(300), 2048)).isEqualTo(100 + 2048);
+		assertThat(GeminiTokenBudget.estimate(null, 16384)).isEqualTo(16384);
+	}
+
+	@Test
+	@DisplayName("Calls within the budget are admitted immediately")
+	void withinBudget_admittedImmediately() {
+		GeminiTokenBudget budget = newBudget(10_000, 1_000);
+
+		Reservation first = budget.reserve(4_000, AiLane.INTERACTIVE);
+		Reservation second = budget.reserve(6_000, AiLane.INTERACTIVE);
+
+		assertThat(first.getTokens()).isEqualTo(4_000);
+		assertThat(second.getTokens()).isEqualTo(6_000);
+	}
+
+	@Test
+	@DisplayName("Over-budget call waits and is admitted once usage is reconciled")
+	void overBudget_waitsForReconcile() throws Exception {
+		GeminiTokenBudget budget = newBudget(10_000, 5_000);
+		Reservation history = budget.reserve(9_000, AiLane.ONBOARDING);
+
+		CompletableFuture<Reservation> advice = CompletableFuture
+				.supplyAsync(() -> budget.reserve(3_000, AiLane.INTERACTIVE));
+		Thread.sleep(200);
+		assertThat(advice).isNotDone();
+
+		// The history call used far less than its max output estimate
+		budget.reconcile(history, 2_500);
+
+		assertThat(advice.get(2, TimeUnit.SECONDS).getTokens()).isEqualTo(3_000);
+	}
+
+	@Test
+	@DisplayName("Waiting longer than max-wait fails the call")
+	void overBudget_timesOut() {
+		GeminiTokenBudget budget = newBudget(10_000, 200);
+		budget.reserve(10_000, AiLane.INTERACTIVE);
+
+		assertThatThrownBy(() -> budget.reserve(1_000, AiLane.INTERACTIVE))
+			.isInstanceOf(GeminiApiException.class)
+			.hasMessageContaining("timeout");
+	}
+
+	@Test
+	@DisplayName("A single call larger than the budget is clamped instead of waiting forever")
+	void hugeCall_isClamped() {
+		GeminiTokenBudget budget = newBudget(10_000, 200);
+
+		assertThat(budget.reserve(50_000, AiLane.INTERACTIVE).getTokens()).isEqualTo(10_000);
+	}
+
+	@Test
+	@DisplayName("A waiting interactive call is admitted before an earlier onboarding call")
+	void waitingInteractive_jumpsOnboarding() throws Exception {
+		GeminiTokenBudget budget = newBudget(10_000, 5_000);
+		Reservation first = budget.reserve(10_000, AiLane.INTERACTIVE);
+
+		CompletableFuture<Reservation> history = CompletableFuture
+				.supplyAsync(() -> budget.reserve(6_000, AiLane.ONBOARDING));
+		Thread.sleep(100);
+		CompletableFuture<Reservation> advice = CompletableFuture
+				.supplyAsync(() -> budget.reserve(6_000, AiLane.INTERACTIVE));
+		Thread.sleep(100);
+
+		// Room for one of them only
+		budget.reconcile(first, 4_000);
+
+		assertThat(advice.get(2, TimeUnit.SECONDS).getTokens()).isEqualTo(6_000);
+		Thread.sleep(100);
+		assertThat(history).isNotDone();
+	}
+
+	@Test
+	@DisplayName("Onboarding leaves the interactive headroom free")
+	void onboarding_leavesHeadroom() throws Exception {
+		GeminiTokenBudget budget = newBudget(10_000, 2_000, 200);
+		budget.reserve(8_000, AiLane.ONBOARDING);
+
+		assertThatThrownBy(() -> budget.reserve(1_000, AiLane.ONBOARDING))
+			.isInstanceOf(GeminiApiException.class);
+		assertThat(budget.reserve(2_000, AiLane.INTERACTIVE).getTokens()).isEqualTo(2_000);
+	}
+
+	private GeminiTokenBudget newBudget(long tokensPerMinute, long maxWaitMs) {
+		return newBudget(tokensPerMinute, 0, maxWaitMs);
+	}
+
+	private GeminiTokenBudget newBudget(long tokensPerMinute, long interactiveHeadroom, long maxWaitMs) {
+		return new GeminiTokenBudget(new SimpleMeterRegistry(), tokensPerMinute, interactiveHeadroom, maxWaitMs);
+	}
+}
@@ -0,0 +1,58 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService.Generation;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobUpdaterService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.GeminiApiException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for token budget admission in GeminiApiClient.
+ *
+ * Testing: - The budget is taken before the resilient call - A budget timeout
+ * never reaches the resilient call
+ */
+class GeminiApiClientBudgetTest {
+
+	private final GeminiCallService callService = mock(GeminiCallService.class);
+	private GeminiApiClient apiClient;
+
+	@BeforeEach
+	void setUp() {
+		GeminiTokenBudget budget = new GeminiTokenBudget(new SimpleMeterRegistry(), 1_000, 0, 100);
+		apiClient = new GeminiApiClient(mock(GenerationJobUpdaterService.class), callService,
+				new GeminiConfigFactory(), new GeminiSchemaDefiner(), budget);
+		// Usage not reported: the whole estimate stays reserved
+		when(callService.generate(anyString(), any())).thenReturn(new Generation("{\"advice\":1}", -1));
+	}
+
+	@Test
+	@DisplayName("A budget timeout fails the call without sending it")
+	void budgetTimeout_isNotSent() {
+		assertThat(apiClient.generateText("first")).isEqualTo("{\"advice\":1}");
+
+		assertThatThrownBy(() -> apiClient.generateText("second"))
+				.isInstanceOf(GeminiApiException.class)
+				.hasMessageContaining("token budget timeout");
+
+		verify(callService, times(1)).generate(anyString(), any());
+	}
+}
@@ -39,13 +39,16 @@ import com.google.genai.types.GenerateContentResponse;
 import com.google.genai.types.Part;
 import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiApiClient;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.GeminiCallService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.GenerationJobUpdaterService;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.factory.GeminiConfigFactory;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.GeminiTokenBudget;
 import com.ua.pohribnyi.fitadvisorbot.service.ai.schema.GeminiSchemaDefiner;
 
 import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
 import io.github.resilience4j.springboot3.ratelimiter.autoconfigure.RateLimiterAutoConfiguration;
 import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Unit tests for edge cases and error handling in GeminiApiClient.
@@ -59,8 +62,11 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {
     GeminiApiClient.class,
+    GeminiCallService.class,
     GeminiConfigFactory.class,
-    GeminiSchemaDefiner.class
+    GeminiSchemaDefiner.class,
+    GeminiTokenBudget.class,
+    SimpleMeterRegistry.class
 })
 @EnableConfigurationProperties
 @ImportAutoConfiguration(classes = {
@@ -76,7 +82,9 @@ import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfigura
     "resilience4j.circuitbreaker.instances.geminiApi.minimum-number-of-calls=1000",
     "resilience4j.circuitbreaker.instances.geminiApi.failure-rate-threshold=99",
     "resilience4j.retry.instances.geminiApi.max-attempts=1",
-    "google.gemini.api.key=fake-key"
+    "google.gemini.api.key=fake-key",
+    // Token budget is covered by GeminiTokenBudgetTest
+    "app.gemini.budget.tokens-per-minute=100000000"
 })
 class GeminiEdgeCasesTest {
 
@@ -0,0 +1,85 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.google.ActivityDto;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.google.DailyMetricDto;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.parser.GeminiHistoryReader;
+import com.ua.pohribnyi.fitadvisorbot.util.TestUtils;
+
+/**
+ * Unit tests for GeminiHistoryReader.
+ *
+ * Testing: - Streaming both arrays - Markdown fences around the JSON -
+ * Missing/empty required arrays
+ */
+class GeminiHistoryReaderTest {
+
+	private final GeminiHistoryReader reader = new GeminiHistoryReader(
+			new ObjectMapper().registerModule(new JavaTimeModule()));
+
+	private final List<DailyMetricDto> metrics = new ArrayList<>();
+	private final List<ActivityDto> activities = new ArrayList<>();
+
+	@Test
+	@DisplayName("Metrics and activities are streamed to the consumers")
+	void validJson_streamsRows() throws Exception {
+		GeminiHistoryReader.Counts counts = reader.read(TestUtils.createValidJson(), metrics::add, activities::add);
+
+		assertThat(counts.metrics()).isEqualTo(1);
+		assertThat(counts.activities()).isEqualTo(1);
+		assertThat(metrics.get(0).sleepHours()).isEqualTo(7.5);
+		assertThat(activities.get(0).dateTime()).isEqualTo(LocalDateTime.of(2023, 10, 1, 10, 0));
+		assertThat(activities.get(0).type()).isEqualTo("Run");
+	}
+
+	@Test
+	@DisplayName("Markdown fences and unknown fields are skipped")
+	void fencedJson_isParsed() throws Exception {
+		String response = "```json\n{\"note\": {\"a\": [1, 2]}, " + TestUtils.createValidJson().strip().substring(1)
+				+ "\n```";
+
+		GeminiHistoryReader.Counts counts = reader.read(response, metrics::add, activities::add);
+
+		assertThat(counts.metrics()).isEqualTo(1);
+		assertThat(counts.activities()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Missing activities array is rejected")
+	void missingActivities_throws() {
+		String json = "{\"dailyMetrics\": [{\"date\": \"2023-10-01\", \"sleepHours\": 7.0}]}";
+
+		assertThatThrownBy(() -> reader.read(json, metrics::add, activities::add))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("activities");
+	}
+
+	@Test
+	@DisplayName("Empty dailyMetrics array is rejected")
+	void emptyMetrics_throws() {
+		String json = "{\"dailyMetrics\": [], \"activities\": []}";
+
+		assertThatThrownBy(() -> reader.read(json, metrics::add, activities::add))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("empty");
+	}
+
+	@Test
+	@DisplayName("Response without a JSON object is rejected")
+	void noJson_throws() {
+		assertThatThrownBy(() -> reader.read("Sorry, I cannot help with that", metrics::add, activities::add))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("Invalid JSON");
+	}
+}
@@ -0,0 +1,81 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.unit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ua.pohribnyi.fitadvisorbot.repository.ai.GenerationJobRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.ratelimiter.JobWatchdog;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
+
+/**
+ * Unit tests for JobWatchdog.
+ *
+ * Testing: - Stalled jobs are failed by one bulk update - Old jobs are deleted
+ * in chunks until none are left - Tasks only run on the lease holder
+ */
+class JobWatchdogTest {
+
+	private final GenerationJobRepository jobRepository = mock(GenerationJobRepository.class);
+	private final SchedulerLeaseService leaseService = mock(SchedulerLeaseService.class);
+	private final JobWatchdog watchdog = new JobWatchdog(jobRepository, leaseService);
+
+	@BeforeEach
+	void setUp() {
+		when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+	}
+
+	@Test
+	@DisplayName("Stalled jobs are failed with a single bulk update")
+	void stalledJobs_failedInBulk() {
+		ReflectionTestUtils.setField(watchdog, "maxAttempts", 3);
+		when(jobRepository.failStalled(anyCollection(), any(Instant.class), any(Instant.class), anyInt(), anyString(),
+				anyString())).thenReturn(List.of(1L, 2L));
+
+		watchdog.cleanupStalledJobs();
+
+		verify(jobRepository).failStalled(eq(List.of("PENDING", "DOWNLOADING", "DOWNLOADED", "PROCESSING")),
+				any(Instant.class), any(Instant.class), eq(3), eq("JOB_TIMEOUT"), anyString());
+		verify(jobRepository, times(0)).findAll();
+	}
+
+	@Test
+	@DisplayName("Old jobs are deleted chunk by chunk until a partial chunk")
+	void oldJobs_deletedInChunks() {
+		when(jobRepository.deleteCompletedBefore(anyCollection(), any(Instant.class), anyInt()))
+			.thenReturn(1000, 1000, 7);
+
+		watchdog.cleanupOldJobs();
+
+		verify(jobRepository, times(3)).deleteCompletedBefore(eq(List.of("PROCESSED", "FAILED")),
+				any(Instant.class), eq(1000));
+	}
+
+	@Test
+	@DisplayName("Tasks are skipped while another instance holds the lease")
+	void leaseHeldElsewhere_skips() {
+		when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(false);
+
+		watchdog.cleanupStalledJobs();
+		watchdog.cleanupOldJobs();
+
+		verify(jobRepository, never()).failStalled(anyCollection(), any(), any(), anyInt(), anyString(), anyString());
+		verify(jobRepository, never()).deleteCompletedBefore(anyCollection(), any(), anyInt());
+	}
+}
@@ -0,0 +1,106 @@
+package com.ua.pohribnyi.fitadvisorbot.service.ai.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import com.ua.pohribnyi.fitadvisorbot.config.prompt.PromptMessageSourceConfig;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.UserProfile;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.GeminiPromptBuilderService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.PromptService;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.prompt.PromptTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for PromptTemplate and the prompt budget.
+ *
+ * Testing: - Output identical to String.format - Typed slots - Fallback for
+ * other specifiers - History trimming to the token budget
+ */
+class PromptTemplateTest {
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	@DisplayName("Real prompts render exactly like String.format")
+	void realPrompts_matchStringFormat() {
+		PromptService promptService = promptService(2000);
+		Object[] adviceArgs = { "beginner", "health", 6.25, 4, "YES", "[{\"date\":\"05-01\"}]" };
+		Object[] historyArgs = { "pro", "run_10k", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 1), 14, 18,
+				"Run 75-85%", 7.0, 8.0, 10000, 14000, 1, 3, "pro", "Run: 4:30-5:30 min/km" };
+
+		assertThat(promptService.format(PromptService.DAILY_ADVICE, adviceArgs))
+			.isEqualTo(String.format(Locale.US, promptService.getRaw(PromptService.DAILY_ADVICE), adviceArgs));
+		assertThat(promptService.format(PromptService.HISTORY_GENERATION, historyArgs))
+			.isEqualTo(String.format(Locale.US, promptService.getRaw(PromptService.HISTORY_GENERATION), historyArgs))
+			.contains("reduce steps by 30%");
+	}
+
+	@Test
+	@DisplayName("Slots are typed; other specifiers fall back to String.format")
+	void slots_typedAndFallback() {
+		PromptTemplate template = PromptTemplate.compile("%s scored %d (%.2f%%)");
+
+		assertThat(template.slotCount()).isEqualTo(3);
+		assertThat(template.render("Max", 7L, 0.125)).isEqualTo("Max scored 7 (0.13%)");
+		assertThat(template.render(null, 1, -0.001)).isEqualTo("null scored 1 (-0.00%)");
+		assertThatThrownBy(() -> template.render("Max", "7", 1.0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> template.render("Max")).isInstanceOf(IllegalArgumentException.class);
+
+		PromptTemplate padded = PromptTemplate.compile("[%5d]");
+		assertThat(padded.slotCount()).isEqualTo(-1);
+		assertThat(padded.render(42)).isEqualTo("[   42]");
+	}
+
+	@Test
+	@DisplayName("History over the budget is trimmed, newest activities kept")
+	void dailyAdvice_trimsOldestHistory() {
+		List<Activity> activities = new ArrayList<>();
+		LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+		for (int i = 0; i < 200; i++) {
+			Activity activity = new Activity();
+			activity.setDateTime(start.plusDays(i));
+			activity.setType("Run");
+			activity.setDurationSeconds(1800);
+			activity.setAvgPulse(140);
+			activities.add(activity);
+		}
+		UserProfile profile = new UserProfile();
+		DailyMetric metric = new DailyMetric();
+		metric.setSleepHours(7.5);
+		metric.setStressLevel(2);
+
+		String full = new GeminiPromptBuilderService(promptService(100_000))
+			.buildDailyAdvicePrompt(profile, activities, metric, true);
+		String trimmed = new GeminiPromptBuilderService(promptService(1500))
+			.buildDailyAdvicePrompt(profile, activities, metric, true);
+
+		assertThat(full).contains("\"date\":\"01-01\"").contains("\"date\":\"07-18\"");
+		assertThat(trimmed.length()).isLessThanOrEqualTo(4500).isLessThan(full.length());
+		assertThat(trimmed).doesNotContain("\"date\":\"01-01\"").contains("\"date\":\"07-18\"");
+		assertThat(meterRegistry.find("ai.prompt.over_budget").counter()).isNull();
+	}
+
+	private PromptService promptService(long dailyAdviceMaxTokens) {
+		return new PromptService(new PromptMessageSourceConfig().promptMessageSource(new DefaultResourceLoader()),
+				meterRegistry, dailyAdviceMaxTokens, 100_000);
+	}
+}
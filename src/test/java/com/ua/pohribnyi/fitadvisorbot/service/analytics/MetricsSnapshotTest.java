@@ -0,0 +1,178 @@
+package com.ua.pohribnyi.fitadvisorbot.service.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.Activity;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.DailyMetric;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.UserDailyRollup;
+
+/**
+ * Unit tests for MetricsSnapshot.
+ *
+ * Testing: - Period totals and averages - Per-day activity sums and lookups -
+ * Missing values - Rollups give the same view as raw rows - Selections are
+ * computed once
+ */
+class MetricsSnapshotTest {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+	@Test
+	@DisplayName("Totals and averages are accumulated while building")
+	void totals_accumulatedOnBuild() {
+		MetricsSnapshot snapshot = MetricsSnapshot.of(
+				List.of(activity("Run", DAY, 1800, 5000, 300), activity("Workout", DAY.plusDays(1), 3600, 0, 400)),
+				List.of(metric(DAY, 8.0, 6000, 2), metric(DAY.plusDays(1), 6.0, 10000, 4)));
+
+		assertThat(snapshot.activityCount()).isEqualTo(2);
+		assertThat(snapshot.totalDurationSeconds()).isEqualTo(5400);
+		assertThat(snapshot.totalDistanceMeters()).isEqualTo(5000);
+		assertThat(snapshot.totalCalories()).isEqualTo(700);
+		assertThat(snapshot.averageSleepHours()).isEqualTo(7.0);
+		assertThat(snapshot.averageStress()).isEqualTo(3.0);
+		assertThat(snapshot.indicesOfType("run")).containsExactly(0);
+	}
+
+	@Test
+	@DisplayName("Activities are summed per calendar day")
+	void perDaySums_coverAllDays() {
+		MetricsSnapshot snapshot = MetricsSnapshot.of(
+				List.of(activity("Run", DAY, 1830, 5000, 300), activity("Ride", DAY, 600, 8000, 150),
+						activity("Run", DAY.minusDays(5), 1800, 5000, 300)),
+				List.of(metric(DAY.minusDays(1), 7.0, 5000, 3), metric(DAY, 7.0, 5000, 3),
+						metric(DAY, 5.0, 1000, 5)));
+
+		int day = MetricsSnapshot.epochDay(DAY);
+		assertThat(snapshot.activityMinutesOn(day)).isEqualTo(30 + 10);
+		assertThat(snapshot.activityCaloriesOn(day)).isEqualTo(450);
+		assertThat(snapshot.activityCaloriesOn(day - 1)).isZero();
+		assertThat(snapshot.activityCaloriesOn(day - 5)).isEqualTo(300);
+		assertThat(snapshot.activityCountOn(day)).isEqualTo(2);
+		assertThat(snapshot.metricIndexOn(day)).isEqualTo(1);
+		assertThat(snapshot.metricIndexOn(day + 1)).isEqualTo(-1);
+	}
+
+	@Test
+	@DisplayName("Missing values become zero, missing stress is marked")
+	void missingValues_useDefaults() {
+		Activity activity = new Activity();
+		activity.setType("Other");
+		activity.setDateTime(DAY.atTime(9, 0));
+		DailyMetric metric = new DailyMetric();
+		metric.setDate(DAY);
+
+		MetricsSnapshot snapshot = MetricsSnapshot.of(List.of(activity), List.of(metric));
+
+		assertThat(snapshot.avgPulse(0)).isZero();
+		assertThat(snapshot.durationSeconds(0)).isZero();
+		assertThat(snapshot.sleepHours(0)).isZero();
+		assertThat(snapshot.steps(0)).isZero();
+		assertThat(snapshot.stress(0)).isEqualTo(MetricsSnapshot.NO_STRESS);
+		assertThat(snapshot.averageStress()).isEqualTo(3.0);
+	}
+
+	@Test
+	@DisplayName("Daily rollups give the same per-day view and totals as raw rows")
+	void rollups_matchRawRows() {
+		MetricsSnapshot raw = MetricsSnapshot.of(
+				List.of(activity("Run", DAY, 1830, 5000, 300), activity("Ride", DAY, 600, 8000, 150),
+						activity("Run", DAY.minusDays(2), 1800, 5000, 300)),
+				List.of(metric(DAY.minusDays(1), 7.0, 5000, 3), metric(DAY, 6.5, 9000, 1)));
+		MetricsSnapshot rolled = MetricsSnapshot.ofRollups(
+				List.of(rollup(DAY.minusDays(2), 1, 30, 300, 1800, 5000, null),
+						rollup(DAY.minusDays(1), 0, 0, 0, 0, 0, metric(DAY.minusDays(1), 7.0, 5000, 3)),
+						rollup(DAY, 2, 40, 450, 2430, 13000, metric(DAY, 6.5, 9000, 1))),
+				List.of());
+
+		assertThat(rolled.activityCount()).isZero();
+		assertThat(rolled.totalActivities()).isEqualTo(raw.totalActivities());
+		assertThat(rolled.totalDurationSeconds()).isEqualTo(raw.totalDurationSeconds());
+		assertThat(rolled.totalDistanceMeters()).isEqualTo(raw.totalDistanceMeters());
+		assertThat(rolled.totalCalories()).isEqualTo(raw.totalCalories());
+		assertThat(rolled.averageSleepHours()).isEqualTo(raw.averageSleepHours());
+		assertThat(rolled.averageStress()).isEqualTo(raw.averageStress());
+		assertThat(rolled.firstDay()).isEqualTo(raw.firstDay());
+		assertThat(rolled.lastDay()).isEqualTo(raw.lastDay());
+		for (int day = raw.firstDay(); day <= raw.lastDay(); day++) {
+			assertThat(rolled.activityCountOn(day)).isEqualTo(raw.activityCountOn(day));
+			assertThat(rolled.activityMinutesOn(day)).isEqualTo(raw.activityMinutesOn(day));
+			assertThat(rolled.activityCaloriesOn(day)).isEqualTo(raw.activityCaloriesOn(day));
+			assertThat(rolled.metricIndexOn(day)).isEqualTo(raw.metricIndexOn(day));
+		}
+	}
+
+	@Test
+	@DisplayName("Activity selections are computed once per snapshot")
+	void selections_computedOnce() {
+		MetricsSnapshot snapshot = MetricsSnapshot.of(
+				List.of(activity("Run", DAY, 1800, 5000, 300), activity("Ride", DAY, 600, 8000, 150),
+						activity("run", DAY.plusDays(1), 1800, 5000, 300)),
+				List.of());
+		AtomicInteger tests = new AtomicInteger();
+
+		int[] runs = snapshot.indicesOfType("Run");
+		int[] first = snapshot.select("long", i -> tests.incrementAndGet() > 0 && snapshot.durationSeconds(i) > 900);
+		int[] second = snapshot.select("long", i -> tests.incrementAndGet() > 0);
+
+		assertThat(runs).containsExactly(0, 2).isSameAs(snapshot.indicesOfType("RUN"));
+		assertThat(first).containsExactly(0, 2).isSameAs(second);
+		assertThat(tests.get()).isEqualTo(3);
+	}
+
+	@Test
+	@DisplayName("Empty lists produce an empty snapshot")
+	void empty_snapshot() {
+		MetricsSnapshot snapshot = MetricsSnapshot.of(List.of(), List.of());
+
+		assertThat(snapshot.activityCount()).isZero();
+		assertThat(snapshot.metricCount()).isZero();
+		assertThat(snapshot.averageSleepHours()).isZero();
+		assertThat(snapshot.metricIndexOn(MetricsSnapshot.epochDay(DAY))).isEqualTo(-1);
+	}
+
+	private static Activity activity(String type, LocalDate date, int seconds, int meters, int calories) {
+		Activity activity = new Activity();
+		activity.setType(type);
+		activity.setDateTime(date.atTime(7, 30));
+		activity.setDurationSeconds(seconds);
+		activity.setDistanceMeters(meters);
+		activity.setAvgPulse(140);
+		activity.setMaxPulse(165);
+		activity.setCaloriesBurned(calories);
+		return activity;
+	}
+
+	private static UserDailyRollup rollup(LocalDate date, int count, int minutes, int calories, long seconds,
+			long meters, DailyMetric metric) {
+		UserDailyRollup rollup = new UserDailyRollup();
+		rollup.setDate(date);
+		rollup.setActivityCount(count);
+		rollup.setActivityMinutes(minutes);
+		rollup.setCalories(calories);
+		rollup.setDurationSeconds(seconds);
+		rollup.setDistanceMeters(meters);
+		if (metric != null) {
+			rollup.setHasMetric(true);
+			rollup.setSleepHours(metric.getSleepHours());
+			rollup.setSteps(metric.getDailyBaseSteps());
+			rollup.setStressLevel(metric.getStressLevel());
+		}
+		return rollup;
+	}
+
+	private static DailyMetric metric(LocalDate date, double sleep, int steps, int stress) {
+		DailyMetric metric = new DailyMetric();
+		metric.setDate(date);
+		metric.setSleepHours(sleep);
+		metric.setDailyBaseSteps(steps);
+		metric.setStressLevel(stress);
+		return metric;
+	}
+}
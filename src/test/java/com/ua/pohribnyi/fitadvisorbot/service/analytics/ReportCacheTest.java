@@ -0,0 +1,81 @@
+package com.ua.pohribnyi.fitadvisorbot.service.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.ua.pohribnyi.fitadvisorbot.model.dto.analytics.PeriodReportDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for ReportCache.
+ *
+ * Testing: - Repeated requests hit the cache - A new data version rebuilds
+ * only that user - Profile and period changes miss
+ */
+class ReportCacheTest {
+
+	private static final Duration WEEK = Duration.ofDays(7);
+	private static final String PERIOD = "analytics.report.period.weekly";
+
+	private ReportCache cache;
+	private AtomicInteger builds;
+
+	@BeforeEach
+	void setUp() {
+		cache = new ReportCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+		builds = new AtomicInteger();
+	}
+
+	@Test
+	@DisplayName("Repeated requests reuse the built report")
+	void repeatedRequests_hitCache() {
+		PeriodReportDto first = get(1L, "health", 30, WEEK, PERIOD);
+		PeriodReportDto second = get(1L, "health", 30, WEEK, PERIOD);
+
+		assertThat(second).isSameAs(first);
+		assertThat(builds).hasValue(1);
+	}
+
+	@Test
+	@DisplayName("A new data version rebuilds only the affected user")
+	void newVersion_affectsOnlyThatUser() {
+		get(1L, 1L, "health", 30, WEEK, PERIOD);
+		get(2L, 1L, "health", 30, WEEK, PERIOD);
+
+		// Written on another instance: only the version read from the DB changes
+		get(1L, 2L, "health", 30, WEEK, PERIOD);
+		get(2L, 1L, "health", 30, WEEK, PERIOD);
+
+		assertThat(builds).hasValue(3);
+	}
+
+	@Test
+	@DisplayName("Different goal, age or period is a different report")
+	void keyParts_miss() {
+		get(1L, "health", 30, WEEK, PERIOD);
+		get(1L, "running", 30, WEEK, PERIOD);
+		get(1L, "running", 31, WEEK, PERIOD);
+		get(1L, "running", 31, Duration.ofDays(30), "analytics.report.period.initial");
+
+		assertThat(builds).hasValue(4);
+	}
+
+	private PeriodReportDto get(Long userId, String goal, Integer age, Duration duration, String periodKey) {
+		return get(userId, 1L, goal, age, duration, periodKey);
+	}
+
+	private PeriodReportDto get(Long userId, long version, String goal, Integer age, Duration duration,
+			String periodKey) {
+		return cache.get(userId, version, goal, age, duration, periodKey, () -> {
+			builds.incrementAndGet();
+			return PeriodReportDto.builder().periodKey(periodKey).goalName(goal).build();
+		});
+	}
+}
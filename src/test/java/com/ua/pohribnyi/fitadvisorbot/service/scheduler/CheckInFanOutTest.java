@@ -0,0 +1,131 @@
+package com.ua.pohribnyi.fitadvisorbot.service.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+import com.ua.pohribnyi.fitadvisorbot.model.dto.CheckInCandidate;
+import com.ua.pohribnyi.fitadvisorbot.repository.diary.CheckInFanOutRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.FitnessAdvisorBotService;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramSendQueue;
+import com.ua.pohribnyi.fitadvisorbot.service.telegram.TelegramViewService;
+import com.ua.pohribnyi.fitadvisorbot.service.user.UserSessionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for CheckInFanOut.
+ *
+ * Testing: - Keyset paging - Busy users and existing jobs are skipped - Stop
+ * when the send queue does not drain - Only leased shards are processed
+ */
+class CheckInFanOutTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2025, 5, 1);
+
+	private final CheckInFanOutRepository repository = mock(CheckInFanOutRepository.class);
+	private final UserSessionService sessionService = mock(UserSessionService.class);
+	private final TelegramViewService viewService = mock(TelegramViewService.class);
+	private final FitnessAdvisorBotService botService = mock(FitnessAdvisorBotService.class);
+	private final TelegramSendQueue sendQueue = mock(TelegramSendQueue.class);
+	private final SchedulerLeaseService leaseService = mock(SchedulerLeaseService.class);
+	private CheckInFanOut fanOut;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		fanOut = newFanOut(1);
+		when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+		when(sendQueue.awaitQueuedBelow(anyInt(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+		when(viewService.getDiaryStartMessage(anyLong(), anyString(), anyBoolean())).thenReturn(new SendMessage());
+		when(repository.createJobs(any())).thenAnswer(
+				inv -> inv.<List<CheckInCandidate>>getArgument(0).stream().map(CheckInCandidate::userId).toList());
+	}
+
+	@Test
+	@DisplayName("Pages are read by keyset until a short page")
+	void run_pagesByKeyset() throws Exception {
+		when(findDue(0L)).thenReturn(List.of(candidate(1), candidate(5)));
+		when(findDue(5L)).thenReturn(List.of(candidate(9)));
+
+		assertThat(fanOut.run()).isEqualTo(3);
+
+		verify(sessionService).setState(9L, UserState.AWAITING_SLEEP, 3L);
+		verify(botService, times(3)).sendMessage(any());
+		verify(repository, never()).findDueCandidates(eq(9L), anyInt(), anyInt(), any(), any(), any(), any(),
+				anyInt());
+	}
+
+	@Test
+	@DisplayName("Busy users and users that already have a job are skipped")
+	void run_skipsBusyAndExisting() throws Exception {
+		when(findDue(0L)).thenReturn(List.of(candidate(1), candidate(2)));
+		when(sessionService.peekActiveState(1L)).thenReturn(UserState.AWAITING_STRESS);
+		when(repository.createJobs(List.of(candidate(2)))).thenReturn(List.of());
+
+		assertThat(fanOut.run()).isZero();
+
+		verify(sessionService, never()).setState(anyLong(), any(), anyLong());
+		verify(botService, never()).sendMessage(any());
+	}
+
+	@Test
+	@DisplayName("Run stops when the send queue does not drain")
+	void run_stopsOnFullQueue() throws Exception {
+		when(sendQueue.awaitQueuedBelow(anyInt(), anyLong(), any(TimeUnit.class))).thenReturn(false);
+
+		assertThat(fanOut.run()).isZero();
+
+		verify(repository, never()).findDueCandidates(anyLong(), anyInt(), anyInt(), any(), any(), any(), any(),
+				anyInt());
+	}
+
+	@Test
+	@DisplayName("Only shards whose lease this instance got are processed")
+	void run_onlyLeasedShards() throws Exception {
+		fanOut = newFanOut(3);
+		when(leaseService.tryAcquire(eq("check-in-fan-out:1"), any(Duration.class))).thenReturn(false);
+
+		fanOut.run();
+
+		verify(repository).findDueCandidates(eq(0L), eq(0), eq(3), any(), any(), any(), any(), anyInt());
+		verify(repository).findDueCandidates(eq(0L), eq(2), eq(3), any(), any(), any(), any(), anyInt());
+		verify(repository, never()).findDueCandidates(anyLong(), eq(1), anyInt(), any(), any(), any(), any(),
+				anyInt());
+	}
+
+	private CheckInFanOut newFanOut(int shards) {
+		return new CheckInFanOut(repository, sessionService, viewService, botService, sendQueue, leaseService,
+				new SimpleMeterRegistry(), "08:00", "11:00", Duration.ofMinutes(30), shards, Duration.ofMinutes(4), 2,
+				100, 1000);
+	}
+
+	private List<CheckInCandidate> findDue(long afterUserId) {
+		return repository.findDueCandidates(eq(afterUserId), eq(0), eq(1), eq(LocalTime.of(8, 0)),
+				eq(Duration.ofMinutes(30)), eq(LocalTime.of(11, 0)), any(), eq(2));
+	}
+
+	private CheckInCandidate candidate(long userId) {
+		return new CheckInCandidate(userId, 1000 + userId, "uk", TODAY, 3L);
+	}
+}
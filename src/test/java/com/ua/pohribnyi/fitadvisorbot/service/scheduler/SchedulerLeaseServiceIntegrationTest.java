@@ -0,0 +1,130 @@
+package com.ua.pohribnyi.fitadvisorbot.service.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Integration tests for SchedulerLeaseService against PostgreSQL.
+ *
+ * Testing: - A held lease is refused to other instances - The holder renews
+ * its own lease - An expired lease is taken over - A lease taken inside a
+ * rolled-back transaction stays taken
+ */
+@SpringBootTest(classes = { SchedulerLeaseServiceIntegrationTest.TestInfrastructureConfig.class })
+@Testcontainers
+@ActiveProfiles("test")
+class SchedulerLeaseServiceIntegrationTest {
+
+	private static final String LEASE = "test-lease";
+	private static final Duration DURATION = Duration.ofMinutes(5);
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+			.withDatabaseName("test")
+			.withUsername("test")
+			.withPassword("test");
+
+	@DynamicPropertySource
+	static void registerPgProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private SchedulerLeaseService first;
+	private SchedulerLeaseService second;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("DELETE FROM scheduler_leases");
+		first = new SchedulerLeaseService(jdbcTemplate, transactionManager);
+		second = new SchedulerLeaseService(jdbcTemplate, transactionManager);
+	}
+
+	@Test
+	@DisplayName("A held lease is refused to another instance")
+	void heldLease_refusedToOthers() {
+		assertThat(first.tryAcquire(LEASE, DURATION)).isTrue();
+
+		assertThat(second.tryAcquire(LEASE, DURATION)).isFalse();
+		assertThat(ownerOf(LEASE)).isEqualTo(first.getOwner());
+	}
+
+	@Test
+	@DisplayName("The holder renews its own lease")
+	void holder_renewsLease() {
+		first.tryAcquire(LEASE, Duration.ofMinutes(1));
+		Timestamp before = leaseUntil(LEASE);
+
+		assertThat(first.tryAcquire(LEASE, DURATION)).isTrue();
+
+		assertThat(leaseUntil(LEASE)).isAfter(before);
+		assertThat(ownerOf(LEASE)).isEqualTo(first.getOwner());
+	}
+
+	@Test
+	@DisplayName("An expired lease is taken over by another instance")
+	void expiredLease_takenOver() {
+		first.tryAcquire(LEASE, DURATION);
+		jdbcTemplate.update("UPDATE scheduler_leases SET lease_until = now() - interval '1 second' WHERE name = ?",
+				LEASE);
+
+		assertThat(second.tryAcquire(LEASE, DURATION)).isTrue();
+
+		assertThat(ownerOf(LEASE)).isEqualTo(second.getOwner());
+		assertThat(first.tryAcquire(LEASE, DURATION)).isFalse();
+	}
+
+	@Test
+	@DisplayName("A lease taken inside a rolled-back transaction stays taken")
+	void leaseInOuterTransaction_commitsOnItsOwn() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			assertThat(first.tryAcquire(LEASE, DURATION)).isTrue();
+			status.setRollbackOnly();
+		});
+
+		assertThat(ownerOf(LEASE)).isEqualTo(first.getOwner());
+		assertThat(second.tryAcquire(LEASE, DURATION)).isFalse();
+	}
+
+	private String ownerOf(String name) {
+		return jdbcTemplate.queryForObject("SELECT owner FROM scheduler_leases WHERE name = ?", String.class, name);
+	}
+
+	private Timestamp leaseUntil(String name) {
+		return jdbcTemplate.queryForObject("SELECT lease_until FROM scheduler_leases WHERE name = ?",
+				Timestamp.class, name);
+	}
+
+	@TestConfiguration
+	@EnableAutoConfiguration
+	@EntityScan(basePackages = "com.ua.pohribnyi.fitadvisorbot.model.entity")
+	static class TestInfrastructureConfig {
+	}
+}
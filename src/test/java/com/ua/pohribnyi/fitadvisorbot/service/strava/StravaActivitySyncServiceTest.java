@@ -0,0 +1,148 @@
+package com.ua.pohribnyi.fitadvisorbot.service.strava;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ua.pohribnyi.fitadvisorbot.model.dto.strava.StravaActivityDto;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.strava.StravaToken;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaActivityRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaActivitySyncRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaTokenRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.scheduler.SchedulerLeaseService;
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
+import com.ua.pohribnyi.fitadvisorbot.service.token.AccessTokenCache;
+import com.ua.pohribnyi.fitadvisorbot.service.token.TokenEncryptionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for StravaActivitySyncService.
+ *
+ * Testing: - Only activities after the high-water mark are fetched - Paging
+ * stops at a short page - The mark advances with every stored page - Fallback
+ * to the latest stored activity - Sweep renews its lease per page of users
+ */
+class StravaActivitySyncServiceTest {
+
+	private static final long USER_ID = 7L;
+
+	private final StravaApiClient apiClient = mock(StravaApiClient.class);
+	private final StravaActivitySyncRepository syncRepository = mock(StravaActivitySyncRepository.class);
+	private final StravaActivityRepository activityRepository = mock(StravaActivityRepository.class);
+	private final StravaTokenRepository tokenRepository = mock(StravaTokenRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final TokenEncryptionService encryptionService = mock(TokenEncryptionService.class);
+	private final StravaIntegrationService integrationService = mock(StravaIntegrationService.class);
+	private final SchedulerLeaseService leaseService = mock(SchedulerLeaseService.class);
+	private final User user = User.builder().id(USER_ID).build();
+	private StravaActivitySyncService syncService;
+
+	@BeforeEach
+	void setUp() {
+		syncService = new StravaActivitySyncService(apiClient, integrationService, syncRepository,
+				activityRepository, tokenRepository, userRepository, encryptionService,
+				new AccessTokenCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)),
+				leaseService, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+				new SimpleMeterRegistry(), 3, 90, 3_600_000, Duration.ofHours(12));
+		when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+		when(tokenRepository.findByUser(user)).thenReturn(Optional.of(StravaToken.builder().accessToken("enc").build()));
+		when(encryptionService.decrypt("enc")).thenReturn("token");
+		when(syncRepository.upsertActivities(eq(USER_ID), any())).thenAnswer(inv -> inv.<List<?>>getArgument(1).size());
+	}
+
+	@Test
+	@DisplayName("Pages after the mark are fetched until a short page; the mark follows each page")
+	void sync_fetchesOnlyNewPages() {
+		when(syncRepository.findCursor(USER_ID)).thenReturn(Optional.of(1000L));
+		when(apiClient.getActivitiesAfter("token", 1000L, 1, 3)).thenReturn(activities(1100, 1200, 1300));
+		when(apiClient.getActivitiesAfter("token", 1000L, 2, 3)).thenReturn(activities(1400));
+
+		assertThat(syncService.sync(USER_ID)).isEqualTo(4);
+
+		verify(syncRepository).saveCursor(USER_ID, 1300L);
+		verify(syncRepository).saveCursor(USER_ID, 1400L);
+		verify(apiClient, never()).getActivitiesAfter(anyString(), anyLong(), eq(3), anyInt());
+		verify(activityRepository, never()).getLatestActivityDate(any());
+	}
+
+	@Test
+	@DisplayName("Token refreshes of the sync use the background share of the quota")
+	void sync_refreshesTokenInBackground() {
+		when(syncRepository.findCursor(USER_ID)).thenReturn(Optional.of(1000L));
+		when(apiClient.getActivitiesAfter("token", 1000L, 1, 3)).thenReturn(List.of());
+
+		syncService.sync(USER_ID);
+
+		verify(integrationService).ensureValidToken(user, Priority.BACKGROUND);
+	}
+
+	@Test
+	@DisplayName("A sync without new activities still records the check")
+	void sync_withoutNewActivities_touchesCursor() {
+		when(syncRepository.findCursor(USER_ID)).thenReturn(Optional.of(1000L));
+		when(apiClient.getActivitiesAfter("token", 1000L, 1, 3)).thenReturn(List.of());
+
+		assertThat(syncService.sync(USER_ID)).isZero();
+
+		verify(syncRepository).saveCursor(USER_ID, 1000L);
+	}
+
+	@Test
+	@DisplayName("The sweep stops when another instance took over its lease")
+	void sweep_lostLease_stops() {
+		List<Long> fullPage = LongStream.rangeClosed(1, 100).boxed().toList();
+		when(syncRepository.findUserIdsDueForSync(eq(0L), any(), anyInt())).thenReturn(fullPage);
+		when(leaseService.tryAcquire(eq("strava-sync"), any())).thenReturn(false);
+
+		syncService.sweep();
+
+		verify(syncRepository, never()).findUserIdsDueForSync(eq(100L), any(), anyInt());
+	}
+
+	@Test
+	@DisplayName("Without a mark the sync starts a day before the latest stored activity")
+	void sync_withoutCursor_startsFromLatestActivity() {
+		LocalDateTime latest = LocalDateTime.of(2025, 5, 1, 8, 0);
+		when(syncRepository.findCursor(USER_ID)).thenReturn(Optional.empty());
+		when(activityRepository.getLatestActivityDate(user)).thenReturn(Optional.of(latest));
+		long after = latest.minusDays(1).toEpochSecond(ZoneOffset.UTC);
+		when(apiClient.getActivitiesAfter("token", after, 1, 3)).thenReturn(List.of());
+
+		assertThat(syncService.sync(USER_ID)).isZero();
+
+		verify(syncRepository, never()).upsertActivities(anyLong(), any());
+		verify(syncRepository).saveCursor(USER_ID, after);
+	}
+
+	private List<StravaActivityDto> activities(long... startEpochs) {
+		return LongStream.of(startEpochs)
+			.mapToObj(start -> new StravaActivityDto(start, "Morning Run", "Run", null, Instant.ofEpochSecond(start),
+					null, 5000.0, 1500, 1600, null, null, null, null, null, null, null, null, null, null, null, null,
+					null, null, null, null, null, null))
+			.toList();
+	}
+}
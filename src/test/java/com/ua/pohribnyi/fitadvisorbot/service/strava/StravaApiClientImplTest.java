@@ -0,0 +1,84 @@
+package com.ua.pohribnyi.fitadvisorbot.service.strava;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.ua.pohribnyi.fitadvisorbot.config.StravaConfig;
+
+/**
+ * Unit tests for StravaApiClientImpl.
+ *
+ * Testing: - Interceptors of the shared template run once - The shared error
+ * handler is kept - Usage headers reach the rate limiter
+ */
+class StravaApiClientImplTest {
+
+	private static final String ATHLETE_URL = "https://strava.test/api/v3/athlete";
+
+	private final RestTemplate shared = new RestTemplate();
+	private final StravaRateLimiter rateLimiter = mock(StravaRateLimiter.class);
+	private final AtomicInteger sharedCalls = new AtomicInteger();
+	private MockRestServiceServer server;
+
+	@BeforeEach
+	void setUp() {
+		shared.getInterceptors().add((request, body, execution) -> {
+			sharedCalls.incrementAndGet();
+			return execution.execute(request, body);
+		});
+		server = MockRestServiceServer.bindTo(shared).build();
+	}
+
+	@Test
+	@DisplayName("Shared interceptors run exactly once and usage headers are recorded")
+	void sharedInterceptors_runOnce() {
+		HttpHeaders usage = new HttpHeaders();
+		usage.set("X-RateLimit-Usage", "1,1");
+		server.expect(requestTo(ATHLETE_URL))
+				.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON).headers(usage));
+
+		assertThat(newClient().validateToken("token")).isTrue();
+
+		assertThat(sharedCalls).hasValue(1);
+		verify(rateLimiter).record(any(HttpHeaders.class));
+		server.verify();
+	}
+
+	@Test
+	@DisplayName("The shared error handler decides what counts as an error")
+	void sharedErrorHandler_kept() throws Exception {
+		ResponseErrorHandler errorHandler = mock(ResponseErrorHandler.class);
+		shared.setErrorHandler(errorHandler);
+		server.expect(requestTo(ATHLETE_URL)).andRespond(withStatus(HttpStatus.UNAUTHORIZED));
+
+		// The mocked handler reports no error, so no exception reaches the client
+		assertThat(newClient().validateToken("token")).isFalse();
+
+		verify(errorHandler, atLeastOnce()).hasError(any());
+	}
+
+	private StravaApiClientImpl newClient() {
+		StravaConfig config = mock(StravaConfig.class);
+		when(config.getApiBaseUrl()).thenReturn("https://strava.test");
+		return new StravaApiClientImpl(shared, config, rateLimiter);
+	}
+}
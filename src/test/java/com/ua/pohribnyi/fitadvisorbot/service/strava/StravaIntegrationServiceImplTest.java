@@ -0,0 +1,92 @@
+package com.ua.pohribnyi.fitadvisorbot.service.strava;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.ua.pohribnyi.fitadvisorbot.config.StravaConfig;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.strava.StravaToken;
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaActivitySyncRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaTokenRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.ouath.OAuthStateService;
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
+import com.ua.pohribnyi.fitadvisorbot.service.token.AccessTokenCache;
+import com.ua.pohribnyi.fitadvisorbot.service.token.TokenEncryptionService;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaAuthException;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaException;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaRateLimitException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the token refresh in StravaIntegrationServiceImpl.
+ *
+ * Testing: - A rejected refresh token disconnects the user - Quota and
+ * transient failures keep the token
+ */
+class StravaIntegrationServiceImplTest {
+
+	private final StravaApiClient apiClient = mock(StravaApiClient.class);
+	private final StravaTokenRepository tokenRepository = mock(StravaTokenRepository.class);
+	private final TokenEncryptionService encryptionService = mock(TokenEncryptionService.class);
+	private final User user = User.builder().id(7L).telegramUserId(70L).build();
+	private final StravaToken token = StravaToken.builder()
+			.user(user)
+			.refreshToken("enc")
+			.expiresAt(LocalDateTime.now().minusMinutes(1))
+			.build();
+	private StravaIntegrationServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		service = new StravaIntegrationServiceImpl(mock(StravaConfig.class), apiClient, mock(OAuthStateService.class),
+				encryptionService, new AccessTokenCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)),
+				mock(UserRepository.class), tokenRepository, mock(StravaActivitySyncRepository.class));
+		when(tokenRepository.findByUser(user)).thenReturn(Optional.of(token));
+		when(encryptionService.decrypt("enc")).thenReturn("refresh");
+	}
+
+	@Test
+	@DisplayName("A refresh refused by the local quota keeps the token")
+	void ensureValidToken_rateLimited_keepsToken() {
+		when(apiClient.refreshAccessToken("refresh", Priority.INTERACTIVE))
+			.thenThrow(new StravaRateLimitException("Strava rate limit reached", Duration.ofMinutes(3)));
+
+		assertThatThrownBy(() -> service.ensureValidToken(user)).isInstanceOf(StravaRateLimitException.class);
+
+		verify(tokenRepository, never()).delete(token);
+	}
+
+	@Test
+	@DisplayName("A transient Strava failure keeps the token")
+	void ensureValidToken_transientFailure_keepsToken() {
+		when(apiClient.refreshAccessToken("refresh", Priority.INTERACTIVE)).thenThrow(new StravaException("Failed to refresh Strava token"));
+
+		assertThatThrownBy(() -> service.ensureValidToken(user)).isInstanceOf(StravaException.class);
+
+		verify(tokenRepository, never()).delete(token);
+	}
+
+	@Test
+	@DisplayName("A rejected refresh token disconnects the user")
+	void ensureValidToken_rejected_deletesToken() {
+		when(apiClient.refreshAccessToken("refresh", Priority.INTERACTIVE))
+			.thenThrow(new StravaAuthException("Strava rejected the refresh token"));
+
+		assertThatThrownBy(() -> service.ensureValidToken(user)).isInstanceOf(StravaAuthException.class);
+
+		verify(tokenRepository).delete(token);
+	}
+}
@@ -0,0 +1,112 @@
+package com.ua.pohribnyi.fitadvisorbot.service.strava;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import com.ua.pohribnyi.fitadvisorbot.service.strava.StravaRateLimiter.Priority;
+import com.ua.pohribnyi.fitadvisorbot.util.exception.StravaRateLimitException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for StravaRateLimiter.
+ *
+ * Testing: - Background work is deferred at its share, interactive is not -
+ * Usage headers override the local count - Windows reset on Strava's
+ * boundaries
+ */
+class StravaRateLimiterTest {
+
+	// 12:05:00 UTC: 10 minutes left in the 15-minute window
+	private final MutableClock clock = new MutableClock(Instant.parse("2025-05-01T12:05:00Z"));
+	private StravaRateLimiter limiter;
+
+	@BeforeEach
+	void setUp() {
+		limiter = new StravaRateLimiter(new SimpleMeterRegistry(), 10, 1000, 0.8, clock);
+	}
+
+	@Test
+	@DisplayName("Background requests stop at their share; interactive ones use the rest")
+	void background_deferredBeforeInteractive() {
+		for (int i = 0; i < 8; i++) {
+			limiter.acquire(Priority.BACKGROUND);
+		}
+
+		assertThatThrownBy(() -> limiter.acquire(Priority.BACKGROUND)).isInstanceOf(StravaRateLimitException.class)
+			.extracting(e -> ((StravaRateLimitException) e).getRetryAfter())
+			.isEqualTo(Duration.ofMinutes(10));
+		assertThatCode(() -> {
+			limiter.acquire(Priority.INTERACTIVE);
+			limiter.acquire(Priority.INTERACTIVE);
+		}).doesNotThrowAnyException();
+		assertThatThrownBy(() -> limiter.acquire(Priority.INTERACTIVE)).isInstanceOf(StravaRateLimitException.class);
+	}
+
+	@Test
+	@DisplayName("Headers replace the local count; the pair closer to its cap wins")
+	void headers_overrideLocalCount() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.add("X-RateLimit-Limit", "200,2000");
+		headers.add("X-RateLimit-Usage", "20,1990");
+		headers.add("X-ReadRateLimit-Limit", "100,1000");
+		headers.add("X-ReadRateLimit-Usage", "5,100");
+
+		limiter.record(headers);
+
+		// Daily: overall 1990/2000 is closer to the cap than read 100/1000
+		assertThatThrownBy(() -> limiter.acquire(Priority.BACKGROUND)).isInstanceOf(StravaRateLimitException.class)
+			.extracting(e -> ((StravaRateLimitException) e).getRetryAfter())
+			.isEqualTo(Duration.ofHours(11).plusMinutes(55));
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire(Priority.INTERACTIVE);
+		}
+		assertThatThrownBy(() -> limiter.acquire(Priority.INTERACTIVE)).isInstanceOf(StravaRateLimitException.class);
+	}
+
+	@Test
+	@DisplayName("The 15-minute window resets on the quarter hour")
+	void shortWindow_resetsOnBoundary() {
+		limiter.markExhausted();
+		assertThatThrownBy(() -> limiter.acquire(Priority.INTERACTIVE)).isInstanceOf(StravaRateLimitException.class);
+
+		clock.now = Instant.parse("2025-05-01T12:15:00Z");
+
+		assertThatCode(() -> limiter.acquire(Priority.BACKGROUND)).doesNotThrowAnyException();
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant now;
+
+		private MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
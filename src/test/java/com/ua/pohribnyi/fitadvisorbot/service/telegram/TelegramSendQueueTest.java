@@ -0,0 +1,211 @@
+package com.ua.pohribnyi.fitadvisorbot.service.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for TelegramSendQueue.
+ *
+ * Testing: - Per-chat FIFO order - Per-chat rate shaping - 429 retry with
+ * retry_after - Backpressure for bulk producers - Results for submitForResult
+ * - Callback answers bypass the per-chat rate and the chat's queue
+ */
+class TelegramSendQueueTest {
+
+	private final AbsSender sender = mock(AbsSender.class);
+	private TelegramSendQueue queue;
+
+	@AfterEach
+	void tearDown() {
+		queue.shutdown();
+	}
+
+	@Test
+	@DisplayName("Messages of one chat are delivered in submission order")
+	void sameChat_deliveredInOrder() throws Exception {
+		queue = newQueue(1000, 1000);
+		List<String> delivered = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(50);
+		doAnswer(inv -> {
+			delivered.add(((SendMessage) inv.getArgument(0)).getText());
+			done.countDown();
+			return null;
+		}).when(sender).execute(any(BotApiMethod.class));
+
+		for (int i = 0; i < 50; i++) {
+			queue.submit("1", message("1", String.format("%03d", i)), sender);
+		}
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(delivered).isSorted().hasSize(50);
+	}
+
+	@Test
+	@DisplayName("Per-chat rate limits delivery pace")
+	void perChatRate_isEnforced() throws Exception {
+		queue = newQueue(1000, 5);
+		CountDownLatch done = new CountDownLatch(3);
+		doAnswer(inv -> {
+			done.countDown();
+			return null;
+		}).when(sender).execute(any(BotApiMethod.class));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 3; i++) {
+			queue.submit("1", message("1", "m" + i), sender);
+		}
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		// 5 msg/s with burst 1: the third message cannot go out before ~400ms
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(350);
+	}
+
+	@Test
+	@DisplayName("429 is retried after retry_after")
+	void tooManyRequests_isRetried() throws Exception {
+		queue = newQueue(1000, 1000);
+		AtomicInteger attempts = new AtomicInteger();
+		CountDownLatch delivered = new CountDownLatch(1);
+		doAnswer(inv -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw tooManyRequests(1);
+			}
+			delivered.countDown();
+			return null;
+		}).when(sender).execute(any(BotApiMethod.class));
+
+		queue.submit("1", message("1", "hello"), sender);
+
+		assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(attempts.get()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("submitForResult completes with the sent message")
+	void submitForResult_completesWithResponse() throws Exception {
+		queue = newQueue(1000, 1000);
+		Message sentMessage = new Message();
+		sentMessage.setMessageId(42);
+		when(sender.execute(any(SendMessage.class))).thenReturn(sentMessage);
+
+		CompletableFuture<Message> result = queue.submitForResult("1", message("1", "wait"), sender);
+
+		assertThat(result.get(5, TimeUnit.SECONDS).getMessageId()).isEqualTo(42);
+	}
+
+	@Test
+	@DisplayName("submitForResult fails when delivery fails")
+	void submitForResult_failsOnError() throws Exception {
+		queue = newQueue(1000, 1000);
+		when(sender.execute(any(SendMessage.class))).thenThrow(new TelegramApiException("boom"));
+
+		CompletableFuture<Message> result = queue.submitForResult("1", message("1", "wait"), sender);
+
+		assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(TelegramApiException.class);
+	}
+
+	@Test
+	@DisplayName("Callback answers do not wait for the chat's rate")
+	void answerCallback_skipsPerChatRate() throws Exception {
+		queue = newQueue(1000, 1);
+		CountDownLatch done = new CountDownLatch(2);
+		doAnswer(inv -> {
+			done.countDown();
+			return null;
+		}).when(sender).execute(any(BotApiMethod.class));
+
+		long start = System.nanoTime();
+		queue.submit("1", message("1", "edit"), sender);
+		queue.submit("1", AnswerCallbackQuery.builder().callbackQueryId("cb").build(), sender);
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		// 1 msg/s with burst 1: a second chat message would wait ~1s
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+	}
+
+	@Test
+	@DisplayName("Callback answers do not queue behind the chat's pending messages")
+	void answerCallback_skipsChatQueue() throws Exception {
+		queue = newQueue(1000, 1);
+		CountDownLatch answered = new CountDownLatch(1);
+		doAnswer(inv -> {
+			if (inv.getArgument(0) instanceof AnswerCallbackQuery) {
+				answered.countDown();
+			}
+			return null;
+		}).when(sender).execute(any(BotApiMethod.class));
+
+		for (int i = 0; i < 3; i++) {
+			queue.submit("1", message("1", "m" + i), sender);
+		}
+		queue.submit("1", AnswerCallbackQuery.builder().callbackQueryId("cb").build(), sender);
+
+		// Behind the chat's messages it would wait ~3s at 1 msg/s
+		assertThat(answered.await(500, TimeUnit.MILLISECONDS)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Bulk producers wait until the queue drains below the limit")
+	void awaitQueuedBelow_waitsForDrain() throws Exception {
+		queue = newQueue(1000, 10);
+		for (int i = 0; i < 5; i++) {
+			queue.submit("1", message("1", "m" + i), sender);
+		}
+
+		assertThat(queue.awaitQueuedBelow(2, 50, TimeUnit.MILLISECONDS)).isFalse();
+		long start = System.nanoTime();
+		assertThat(queue.awaitQueuedBelow(2, 5, TimeUnit.SECONDS)).isTrue();
+		// 10 msg/s with burst 1: the fourth message leaves the queue after ~300ms
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(150);
+	}
+
+	private TelegramSendQueue newQueue(double globalRate, double perChatRate) {
+		TelegramSendQueue sendQueue = new TelegramSendQueue(new SimpleMeterRegistry(), globalRate, perChatRate, 1,
+				1000);
+		sendQueue.start();
+		return sendQueue;
+	}
+
+	private SendMessage message(String chatId, String text) {
+		return SendMessage.builder().chatId(chatId).text(text).build();
+	}
+
+	private TelegramApiRequestException tooManyRequests(int retryAfter) {
+		ResponseParameters parameters = new ResponseParameters();
+		parameters.setRetryAfter(retryAfter);
+		ApiResponse<Object> response = new ApiResponse<>();
+		ReflectionTestUtils.setField(response, "errorCode", 429);
+		ReflectionTestUtils.setField(response, "errorDescription", "Too Many Requests");
+		ReflectionTestUtils.setField(response, "parameters", parameters);
+		return new TelegramApiRequestException("Error sending message", response);
+	}
+}
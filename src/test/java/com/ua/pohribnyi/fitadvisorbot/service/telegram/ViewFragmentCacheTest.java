@@ -0,0 +1,83 @@
+package com.ua.pohribnyi.fitadvisorbot.service.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+/**
+ * Unit tests for ViewFragmentCache.
+ *
+ * Testing: - Texts are resolved once per language - Escaping - Language
+ * normalisation - Keyboard variants - Clearing
+ */
+class ViewFragmentCacheTest {
+
+	private MessageService messageService;
+	private ViewFragmentCache fragments;
+
+	@BeforeEach
+	void setUp() {
+		messageService = mock(MessageService.class);
+		when(messageService.getMessage("analytics.report.footer", "uk")).thenReturn("Готово. Далі!");
+		when(messageService.getMessage("analytics.report.footer", "en")).thenReturn("Done. Next!");
+		fragments = new ViewFragmentCache(messageService);
+	}
+
+	@Test
+	@DisplayName("Texts are resolved once and escaped for MarkdownV2")
+	void text_resolvedOnceAndEscaped() {
+		assertThat(fragments.text("analytics.report.footer", "en")).isEqualTo("Done. Next!");
+		assertThat(fragments.escapedText("analytics.report.footer", "en")).isEqualTo("Done\\. Next\\!");
+		assertThat(fragments.escapedText("analytics.report.footer", "en")).isEqualTo("Done\\. Next\\!");
+
+		verify(messageService, times(1)).getMessage("analytics.report.footer", "en");
+	}
+
+	@Test
+	@DisplayName("Unsupported and missing language codes share the default entry")
+	void languages_areNormalised() {
+		assertThat(fragments.text("analytics.report.footer", "ru")).isEqualTo("Готово. Далі!");
+		assertThat(fragments.text("analytics.report.footer", null)).isEqualTo("Готово. Далі!");
+		assertThat(fragments.text("analytics.report.footer", "uk")).isEqualTo("Готово. Далі!");
+
+		verify(messageService, times(1)).getMessage("analytics.report.footer", "uk");
+	}
+
+	@Test
+	@DisplayName("Keyboards are built once per language and variant")
+	void keyboards_builtOncePerVariant() {
+		AtomicInteger builds = new AtomicInteger();
+
+		InlineKeyboardMarkup first = fragments.keyboard("settings", "en", "true", () -> build(builds));
+		InlineKeyboardMarkup again = fragments.keyboard("settings", "en", "true", () -> build(builds));
+		fragments.keyboard("settings", "en", "false", () -> build(builds));
+		fragments.keyboard("settings", "uk", "true", () -> build(builds));
+
+		assertThat(again).isSameAs(first);
+		assertThat(builds).hasValue(3);
+	}
+
+	@Test
+	@DisplayName("Clear drops every fragment")
+	void clear_reloads() {
+		fragments.text("analytics.report.footer", "en");
+		fragments.clear();
+		fragments.text("analytics.report.footer", "en");
+
+		verify(messageService, times(2)).getMessage("analytics.report.footer", "en");
+	}
+
+	private static InlineKeyboardMarkup build(AtomicInteger builds) {
+		builds.incrementAndGet();
+		return new InlineKeyboardMarkup();
+	}
+}
@@ -0,0 +1,91 @@
+package com.ua.pohribnyi.fitadvisorbot.service.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for TokenEncryptionService and AccessTokenCache.
+ *
+ * Testing: - Round trip and compatibility with stored tokens - Concurrent use
+ * of the per-thread ciphers - Token cache hits and invalidation
+ */
+class TokenEncryptionServiceTest {
+
+	private static final byte[] KEY = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	private final TokenEncryptionService encryption = new TokenEncryptionService(
+			Base64.getEncoder().encodeToString(KEY));
+
+	@Test
+	@DisplayName("Decrypts tokens encrypted with a fresh AES cipher")
+	void decrypt_compatibleWithStoredTokens() throws Exception {
+		Cipher cipher = Cipher.getInstance("AES");
+		cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY, "AES"));
+		String stored = Base64.getEncoder()
+			.encodeToString(cipher.doFinal("access-token".getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(encryption.decrypt(stored)).isEqualTo("access-token");
+		assertThat(encryption.encrypt("access-token")).isEqualTo(stored);
+		assertThat(encryption.decrypt(encryption.encrypt("refresh-token"))).isEqualTo("refresh-token");
+		assertThat(encryption.decrypt(null)).isNull();
+	}
+
+	@Test
+	@DisplayName("Concurrent calls do not share cipher state")
+	void concurrentCalls_roundTrip() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				String token = "token-" + i;
+				results.add(pool.submit(() -> encryption.decrypt(encryption.encrypt(token)).equals(token)));
+			}
+			for (Future<Boolean> result : results) {
+				assertThat(result.get()).isTrue();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	@DisplayName("Access token cache decrypts once per user and ciphertext")
+	void accessTokenCache_hitsAndInvalidation() {
+		AccessTokenCache cache = new AccessTokenCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+		AtomicInteger decrypts = new AtomicInteger();
+		String first = encryption.encrypt("first");
+		String second = encryption.encrypt("second");
+
+		assertThat(cache.get(1L, first, t -> count(decrypts, t))).isEqualTo("first");
+		assertThat(cache.get(1L, first, t -> count(decrypts, t))).isEqualTo("first");
+		assertThat(decrypts).hasValue(1);
+
+		// Token rewritten without invalidation: the ciphertext no longer matches
+		assertThat(cache.get(1L, second, t -> count(decrypts, t))).isEqualTo("second");
+		cache.invalidate(1L);
+		assertThat(cache.get(1L, second, t -> count(decrypts, t))).isEqualTo("second");
+		assertThat(decrypts).hasValue(3);
+	}
+
+	private String count(AtomicInteger decrypts, String encrypted) {
+		decrypts.incrementAndGet();
+		return encryption.decrypt(encrypted);
+	}
+}
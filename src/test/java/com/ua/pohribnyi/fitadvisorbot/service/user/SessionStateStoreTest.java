@@ -0,0 +1,198 @@
+package com.ua.pohribnyi.fitadvisorbot.service.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ua.pohribnyi.fitadvisorbot.enums.UserState;
+import com.ua.pohribnyi.fitadvisorbot.service.user.SessionStateStore.SessionState;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for SessionStateStore.
+ *
+ * Testing: - Unflushed writes win over loads - Loads are cached for the TTL
+ * only - Flush keeps writes made during it - A failed flush is retried - A
+ * write superseded by another instance is dropped - Writes are based on the
+ * row version and move on with it
+ */
+class SessionStateStoreTest {
+
+	private static final Long USER_ID = 1L;
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final AtomicLong nanos = new AtomicLong();
+	private final AtomicInteger loads = new AtomicInteger();
+	private SessionStateStore store;
+	private SessionState persisted;
+
+	private final Function<Long, SessionState> loader = id -> {
+		loads.incrementAndGet();
+		return persisted;
+	};
+
+	@BeforeEach
+	void setUp() {
+		store = new SessionStateStore(jdbcTemplate, new SimpleMeterRegistry(), 100, Duration.ofSeconds(1), nanos::get);
+		persisted = new SessionState(UserState.DEFAULT, Instant.now().minusSeconds(60), 7);
+	}
+
+	@Test
+	@DisplayName("A load is served from memory until the TTL, then read again")
+	void get_readsThroughAfterTtl() {
+		store.get(USER_ID, loader);
+		store.get(USER_ID, loader);
+		assertThat(loads).hasValue(1);
+
+		persisted = new SessionState(UserState.AWAITING_SLEEP, Instant.now(), 8);
+		advance(Duration.ofMillis(1500));
+
+		assertThat(store.get(USER_ID, loader).state()).isEqualTo(UserState.AWAITING_SLEEP);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	@DisplayName("An unflushed write wins over the database, even after the TTL")
+	void get_pendingWinsOverLoad() {
+		store.put(USER_ID, UserState.AWAITING_SLEEP);
+		advance(Duration.ofSeconds(5));
+
+		assertThat(store.get(USER_ID, loader).state()).isEqualTo(UserState.AWAITING_SLEEP);
+		assertThat(loads).hasValue(0);
+	}
+
+	@Test
+	@DisplayName("Flush writes pending states once, with a version check")
+	void flush_writesPendingOnce() {
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 1 });
+		store.get(USER_ID, loader);
+		store.put(USER_ID, UserState.AWAITING_SLEEP);
+
+		store.flush();
+		store.flush();
+
+		verify(jdbcTemplate).batchUpdate(contains("version = ?"), anyList());
+		assertThat(store.peek(USER_ID).state()).isEqualTo(UserState.AWAITING_SLEEP);
+	}
+
+	@Test
+	@DisplayName("A write made while flushing stays pending for the next flush")
+	void flush_keepsNewerWrite() {
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+			store.put(USER_ID, UserState.AWAITING_STRESS);
+			return new int[] { 1 };
+		});
+		store.put(USER_ID, UserState.AWAITING_SLEEP);
+
+		store.flush();
+		advance(Duration.ofSeconds(5));
+
+		assertThat(store.get(USER_ID, loader).state()).isEqualTo(UserState.AWAITING_STRESS);
+		assertThat(loads).hasValue(0);
+	}
+
+	@Test
+	@DisplayName("A failed flush keeps the writes pending")
+	void flush_failureKeepsPending() {
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new IllegalStateException("db down"));
+		store.put(USER_ID, UserState.AWAITING_SLEEP);
+
+		store.flush();
+		advance(Duration.ofSeconds(5));
+
+		assertThat(store.get(USER_ID, loader).state()).isEqualTo(UserState.AWAITING_SLEEP);
+		assertThat(loads).hasValue(0);
+	}
+
+	@Test
+	@DisplayName("A write superseded by a newer row is dropped and the row is loaded")
+	void flush_supersededWriteIsDropped() {
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 0 });
+		store.get(USER_ID, loader);
+		store.put(USER_ID, UserState.AWAITING_SLEEP);
+		persisted = new SessionState(UserState.DEFAULT, Instant.now(), 8);
+
+		store.flush();
+
+		assertThat(store.peek(USER_ID)).isNull();
+		assertThat(store.get(USER_ID, loader)).isEqualTo(persisted);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	@DisplayName("A write is based on the loaded row version, the next one on the version it wrote")
+	void put_basedOnRowVersion() {
+		List<Long> versions = new ArrayList<>();
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+			List<Object[]> args = inv.getArgument(1);
+			versions.add((Long) args.get(0)[3]);
+			return new int[] { 1 };
+		});
+		store.get(USER_ID, loader);
+
+		store.put(USER_ID, UserState.AWAITING_SLEEP);
+		store.flush();
+		store.put(USER_ID, UserState.AWAITING_STRESS);
+		store.flush();
+
+		assertThat(versions).containsExactly(7L, 8L);
+		assertThat(store.peek(USER_ID).version()).isEqualTo(9L);
+	}
+
+	@Test
+	@DisplayName("A write made while flushing moves on to the version the flush wrote")
+	void flush_rebasesWriteMadeMeanwhile() {
+		when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+			store.put(USER_ID, UserState.AWAITING_STRESS);
+			return new int[] { 1 };
+		});
+		store.get(USER_ID, loader);
+		store.put(USER_ID, UserState.AWAITING_SLEEP);
+
+		store.flush();
+
+		assertThat(store.peek(USER_ID).state()).isEqualTo(UserState.AWAITING_STRESS);
+		assertThat(store.peek(USER_ID).version()).isEqualTo(8L);
+	}
+
+	@Test
+	@DisplayName("Without a known version the caller's row version is used")
+	void put_usesCallerVersionWhenUnknown() {
+		store.put(USER_ID, UserState.AWAITING_SLEEP, 3L);
+
+		assertThat(store.peek(USER_ID).version()).isEqualTo(3L);
+	}
+
+	@Test
+	@DisplayName("Nothing pending, nothing written")
+	void flush_nothingPending() {
+		store.flush();
+
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), ArgumentMatchers.<List<Object[]>>any());
+	}
+
+	private void advance(Duration duration) {
+		nanos.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+	}
+}
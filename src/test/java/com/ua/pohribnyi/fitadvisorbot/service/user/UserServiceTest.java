@@ -0,0 +1,116 @@
+package com.ua.pohribnyi.fitadvisorbot.service.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ua.pohribnyi.fitadvisorbot.model.entity.user.User;
+import com.ua.pohribnyi.fitadvisorbot.repository.strava.StravaTokenRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserProfileRepository;
+import com.ua.pohribnyi.fitadvisorbot.repository.user.UserRepository;
+import com.ua.pohribnyi.fitadvisorbot.service.ai.SyntheticDataService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for UserService.
+ *
+ * Testing: - Telegram profile changes are written column-wise and refresh the
+ * cached user - Unchanged profiles are not written - The cached instance is
+ * never modified - Timezone updates are validated and evict the cached user
+ */
+class UserServiceTest {
+
+	private static final long TELEGRAM_ID = 42L;
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private UserIdentityCache userIdentityCache;
+	private UserService userService;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		userIdentityCache = new UserIdentityCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(30));
+		userService = new UserService(userRepository, mock(UserProfileRepository.class),
+				mock(SyntheticDataService.class), mock(StravaTokenRepository.class), mock(UserSessionService.class),
+				userIdentityCache, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		user = User.builder().id(1L).telegramUserId(TELEGRAM_ID).firstName("Olena").languageCode("uk").build();
+		userIdentityCache.put(user);
+	}
+
+	@Test
+	@DisplayName("A changed language is written alone and the cached user is refreshed")
+	void languageChange_writtenAndRefreshed() {
+		User fresh = User.builder().id(1L).telegramUserId(TELEGRAM_ID).firstName("Olena").languageCode("en")
+				.timezone("Europe/London").build();
+		when(userRepository.findById(1L)).thenReturn(Optional.of(fresh));
+
+		User synced = userService.syncTelegramProfile(user, telegramUser("Olena", "en"));
+
+		verify(userRepository).updateTelegramProfile(eq(1L), eq("en"), eq("Olena"), isNull(), isNull(), any());
+		verify(userRepository, never()).save(any());
+		assertThat(synced).isSameAs(fresh);
+		assertThat(user.getLanguageCode()).isEqualTo("uk");
+		assertThat(userIdentityCache.getIfPresent(TELEGRAM_ID)).contains(fresh);
+	}
+
+	@Test
+	@DisplayName("An unchanged profile is neither written nor evicted")
+	void unchangedProfile_keepsCache() {
+		User synced = userService.syncTelegramProfile(user, telegramUser("Olena", null));
+
+		assertThat(synced).isSameAs(user);
+		verify(userRepository, never()).updateTelegramProfile(anyLong(), any(), any(), any(), any(), any());
+		assertThat(userIdentityCache.getIfPresent(TELEGRAM_ID)).contains(user);
+	}
+
+	@Test
+	@DisplayName("A valid timezone is written alone and the cached user is evicted")
+	void timezoneUpdate_writtenAndEvicted() {
+		String before = user.getTimezone();
+
+		assertThat(userService.updateTimezone(user, "Europe/London")).isEqualTo("Europe/London");
+
+		verify(userRepository).updateTimezone(eq(1L), eq("Europe/London"), any());
+		verify(userRepository, never()).save(any());
+		assertThat(user.getTimezone()).isEqualTo(before);
+		assertThat(userIdentityCache.getIfPresent(TELEGRAM_ID)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Unknown zones and fixed offsets are rejected")
+	void invalidTimezone_rejected() {
+		assertThatThrownBy(() -> userService.updateTimezone(user, "Mars/Olympus"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> userService.updateTimezone(user, "+02:00"))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		verify(userRepository, never()).updateTimezone(anyLong(), anyString(), any());
+		assertThat(userIdentityCache.getIfPresent(TELEGRAM_ID)).contains(user);
+	}
+
+	private static org.telegram.telegrambots.meta.api.objects.User telegramUser(String firstName, String language) {
+		org.telegram.telegrambots.meta.api.objects.User telegramUser = new org.telegram.telegrambots.meta.api.objects.User();
+		telegramUser.setId(TELEGRAM_ID);
+		telegramUser.setFirstName(firstName);
+		telegramUser.setLanguageCode(language);
+		return telegramUser;
+	}
+}
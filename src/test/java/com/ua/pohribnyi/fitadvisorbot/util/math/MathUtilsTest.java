@@ -0,0 +1,66 @@
+package com.ua.pohribnyi.fitadvisorbot.util.math;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for MathUtils.
+ *
+ * Testing: - CV, slope and correlation against textbook values - Slice
+ * variants - Degenerate input
+ */
+class MathUtilsTest {
+
+	@Test
+	@DisplayName("CV uses population standard deviation")
+	void cv_matchesDefinition() {
+		// mean 5, population std dev 2
+		double[] values = { 2, 4, 4, 4, 5, 5, 7, 9 };
+
+		assertThat(MathUtils.calculateCV(values)).isCloseTo(0.4, within(1e-12));
+		assertThat(MathUtils.calculateCV(List.of(2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0)))
+			.isCloseTo(0.4, within(1e-12));
+	}
+
+	@Test
+	@DisplayName("Slice variants only read the given range")
+	void slices_ignoreOtherValues() {
+		double[] values = { 1000, 2, 4, 4, 4, 5, 5, 7, 9, -1000 };
+
+		assertThat(MathUtils.calculateCV(values, 1, 8)).isCloseTo(0.4, within(1e-12));
+		assertThat(MathUtils.calculateSlope(new double[] { 50, 1, 3, 5, 7, -50 }, 1, 4)).isCloseTo(2.0, within(1e-12));
+	}
+
+	@Test
+	@DisplayName("Slope of a linear series equals its step")
+	void slope_linearSeries() {
+		assertThat(MathUtils.calculateSlope(new double[] { 10, 7, 4, 1 })).isCloseTo(-3.0, within(1e-12));
+		assertThat(MathUtils.calculateSlope(List.of(1.0, 2.0, 3.0))).isCloseTo(1.0, within(1e-12));
+	}
+
+	@Test
+	@DisplayName("Correlation is +1/-1 for linear relations")
+	void correlation_linearRelations() {
+		double[] xs = { 1, 2, 3, 4, 5 };
+
+		assertThat(MathUtils.calculateCorrelation(xs, new double[] { 3, 5, 7, 9, 11 })).isCloseTo(1.0, within(1e-12));
+		assertThat(MathUtils.calculateCorrelation(xs, new double[] { 5, 4, 3, 2, 1 })).isCloseTo(-1.0, within(1e-12));
+		assertThat(MathUtils.calculateCorrelation(List.of(1.0, 2.0, 3.0), List.of(2.0, 1.0, 4.0)))
+			.isCloseTo(0.6546536707, within(1e-9));
+	}
+
+	@Test
+	@DisplayName("Degenerate input returns 0")
+	void degenerateInput_returnsZero() {
+		assertThat(MathUtils.calculateCV(new double[0])).isZero();
+		assertThat(MathUtils.calculateCV(new double[] { -1, 1 })).isZero();
+		assertThat(MathUtils.calculateSlope(new double[] { 4 })).isZero();
+		assertThat(MathUtils.calculateCorrelation(new double[] { 1, 1, 1 }, new double[] { 1, 2, 3 })).isZero();
+		assertThat(MathUtils.calculateCorrelation(List.of(1.0), List.of(1.0, 2.0))).isZero();
+	}
+}